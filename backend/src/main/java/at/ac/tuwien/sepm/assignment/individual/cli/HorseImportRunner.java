@@ -0,0 +1,58 @@
+package at.ac.tuwien.sepm.assignment.individual.cli;
+
+import at.ac.tuwien.sepm.assignment.individual.service.HorseImportService;
+import at.ac.tuwien.sepm.assignment.individual.type.FileFormat;
+
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * This component is only created, if the profile {@code import} is active.
+ * It imports a pedigree file from the command line, without starting the web server, and exits afterwards, e.g.
+ * {@code mvn spring-boot:run -Dspring-boot.run.profiles=import -Dspring-boot.run.arguments="--file=pedigree.csv"}.
+ * The format is taken from the file extension, or from the argument {@code --format=csv|ndjson}.
+ * The database is opened exclusively, so the import fails while the web server is running;
+ * files for a running server have to be imported with {@code POST /horses/import}, so its in-memory indexes see the new horses.
+ */
+@Component
+@Profile("import")
+public class HorseImportRunner implements ApplicationRunner {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private final HorseImportService importService;
+
+  public HorseImportRunner(HorseImportService importService) {
+    this.importService = importService;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) throws Exception {
+    if (!args.containsOption("file")) {
+      throw new IllegalArgumentException("No pedigree file given, add --file=<path>");
+    }
+    var file = Path.of(args.getOptionValues("file").get(0));
+    String format = args.containsOption("format")
+        ? args.getOptionValues("format").get(0)
+        : file.getFileName().toString().substring(file.getFileName().toString().lastIndexOf('.') + 1);
+
+    LOGGER.info("Importing horses from {}…", file);
+    try (InputStream input = Files.newInputStream(file)) {
+      var report = importService.importHorses(input, FileFormat.valueOf(format.toUpperCase(Locale.ROOT)),
+          progress -> LOGGER.info("Read {} horses, imported {}, rejected {}, {} pending",
+              progress.read(), progress.imported(), progress.rejected(), progress.pending()));
+      for (var error : report.errors()) {
+        LOGGER.warn("Rejected horse in line {} with key {}: {}", error.line(), error.key(), String.join("; ", error.errors()));
+      }
+      LOGGER.info("Finished import of {} horses: imported {}, rejected {}", report.read(), report.imported(), report.rejected());
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package at.ac.tuwien.sepm.assignment.individual.config;
+
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// lets request parameters name enum constants in any case, like ?matchMode=prefix
+@Configuration
+public class ConversionConfig implements WebMvcConfigurer {
+
+  @Override
+  public void addFormatters(FormatterRegistry registry) {
+    ApplicationConversionService.addApplicationConverters(registry);
+  }
+}
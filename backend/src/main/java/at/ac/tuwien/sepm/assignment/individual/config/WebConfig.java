@@ -12,6 +12,8 @@ public class WebConfig implements WebMvcConfigurer {
 
   @Override
   public void addCorsMappings(CorsRegistry registry) {
-    registry.addMapping("/**").allowedMethods("GET", "POST", "OPTIONS", "HEAD", "DELETE", "PUT", "PATCH");
+    registry.addMapping("/**")
+        .allowedMethods("GET", "POST", "OPTIONS", "HEAD", "DELETE", "PUT", "PATCH")
+        .exposedHeaders("X-Next-Cursor");
   }
 }
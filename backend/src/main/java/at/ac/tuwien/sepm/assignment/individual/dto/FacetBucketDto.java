@@ -0,0 +1,16 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+/**
+ * DTO which contains the amount of horses sharing a value of a facet.
+ *
+ * @param value the shared value, like {@code FEMALE}, an owner id or {@code 1600} for a birth decade;
+ *              null for the horses without a value, like the ones without owner
+ * @param label the name to display for the value, if it differs from the value, like the full name of an owner
+ * @param count the amount of matching horses with this value
+ */
+public record FacetBucketDto(
+    String value,
+    String label,
+    long count
+) {
+}
@@ -0,0 +1,16 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+import java.util.List;
+
+/**
+ * DTO with the result of creating one horse of a batch.
+ * Either the horse was created, or it was rejected with the reasons why.
+ *
+ * @param horse  the created horse with its owner and parents, null if it was rejected
+ * @param errors the reasons why the horse was rejected, empty if it was created
+ */
+public record HorseBatchItemDto(
+    HorseChildDetailDto horse,
+    List<String> errors
+) {
+}
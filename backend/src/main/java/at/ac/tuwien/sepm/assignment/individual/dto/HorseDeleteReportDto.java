@@ -0,0 +1,15 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+import java.util.List;
+
+/**
+ * DTO with the result of deleting several horses at once.
+ *
+ * @param deletedIds      the ids of the deleted horses, in ascending order
+ * @param clearedChildren the amount of kept horses that lost their father or mother, because the parent was deleted
+ */
+public record HorseDeleteReportDto(
+    List<Long> deletedIds,
+    int clearedChildren
+) {
+}
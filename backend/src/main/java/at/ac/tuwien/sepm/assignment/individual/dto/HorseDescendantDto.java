@@ -0,0 +1,27 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+import at.ac.tuwien.sepm.assignment.individual.type.Sex;
+
+import java.time.LocalDate;
+
+/**
+ * DTO which contains a descendant of a horse in a flat list of descendants.
+ *
+ * @param id          the descendant's id
+ * @param name        the descendant's name
+ * @param sex         the descendant's sex
+ * @param dateOfBirth the descendant's date of birth
+ * @param generation  the length of the shortest path from the root horse to the descendant
+ * @param fatherId    the id of the descendant's father, if set
+ * @param motherId    the id of the descendant's mother, if set
+ */
+public record HorseDescendantDto(
+    long id,
+    String name,
+    Sex sex,
+    LocalDate dateOfBirth,
+    long generation,
+    Long fatherId,
+    Long motherId
+) {
+}
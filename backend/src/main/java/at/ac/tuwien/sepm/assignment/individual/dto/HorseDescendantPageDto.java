@@ -0,0 +1,18 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+import java.util.List;
+
+/**
+ * DTO which contains a page of the flat descendant list of a horse.
+ * Descendants are ordered by generation, then by id.
+ *
+ * @param total       the amount of descendants within the generation limit, over all pages
+ * @param offset      the position of the first descendant of this page in the full list
+ * @param descendants the descendants of this page
+ */
+public record HorseDescendantPageDto(
+    long total,
+    long offset,
+    List<HorseDescendantDto> descendants
+) {
+}
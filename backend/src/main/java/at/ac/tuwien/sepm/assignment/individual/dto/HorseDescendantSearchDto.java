@@ -0,0 +1,16 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+/**
+ * DTO to bundle the query parameters used in paging through the descendants of a horse.
+ * Offset and limit can be null, in which case the first page with the default size is returned.
+ *
+ * @param generations The maximum distance of "generation-hops" from the root horse to its farthest descendant
+ * @param offset      the amount of descendants to skip
+ * @param limit       the maximum amount of descendants to return
+ */
+public record HorseDescendantSearchDto(
+    Integer generations,
+    Integer offset,
+    Integer limit
+) {
+}
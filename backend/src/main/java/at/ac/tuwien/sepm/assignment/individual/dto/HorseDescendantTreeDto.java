@@ -0,0 +1,24 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+import at.ac.tuwien.sepm.assignment.individual.type.Sex;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO to bundle a descendant family tree of a horse
+ *
+ * @param id          the id of the parent horse
+ * @param name        the name of the parent horse
+ * @param sex         the sex of the parent horse
+ * @param dateOfBirth the date of birth of the parent horse
+ * @param children    the horse's children and their descendants, ordered by birth
+ */
+public record HorseDescendantTreeDto(
+    long id,
+    String name,
+    Sex sex,
+    LocalDate dateOfBirth,
+    List<HorseDescendantTreeDto> children
+) {
+}
@@ -0,0 +1,19 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+import java.util.List;
+
+/**
+ * DTO which contains the counts of the horses matching a search, by some of their properties.
+ *
+ * @param total       the amount of matching horses
+ * @param sex         the amount of matching horses by sex, most frequent first
+ * @param owner       the amount of matching horses by owner, most frequent first; only the owners with the most horses
+ * @param birthDecade the amount of matching horses by the decade they were born in, oldest first
+ */
+public record HorseFacetsDto(
+    long total,
+    List<FacetBucketDto> sex,
+    List<FacetBucketDto> owner,
+    List<FacetBucketDto> birthDecade
+) {
+}
@@ -0,0 +1,17 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+import java.util.List;
+
+/**
+ * DTO with a horse of a pedigree import that was rejected.
+ *
+ * @param line   the line of the import file where the horse starts
+ * @param key    the key of the horse, null if it could not be read
+ * @param errors the reasons why the horse was rejected
+ */
+public record HorseImportErrorDto(
+    long line,
+    String key,
+    List<String> errors
+) {
+}
@@ -0,0 +1,17 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+/**
+ * DTO with the progress of a running pedigree import.
+ *
+ * @param read     the amount of horses read from the file so far
+ * @param imported the amount of horses stored so far
+ * @param rejected the amount of horses rejected so far
+ * @param pending  the amount of read horses waiting for their parents or for the next batch
+ */
+public record HorseImportProgressDto(
+    long read,
+    long imported,
+    long rejected,
+    long pending
+) {
+}
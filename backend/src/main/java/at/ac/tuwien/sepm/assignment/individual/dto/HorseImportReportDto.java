@@ -0,0 +1,19 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+import java.util.List;
+
+/**
+ * DTO with the result of a pedigree import.
+ *
+ * @param read     the amount of horses read from the file
+ * @param imported the amount of horses stored
+ * @param rejected the amount of horses rejected
+ * @param errors   the rejected horses with their reasons, in the order they were rejected; only the first 1000 are listed
+ */
+public record HorseImportReportDto(
+    long read,
+    long imported,
+    long rejected,
+    List<HorseImportErrorDto> errors
+) {
+}
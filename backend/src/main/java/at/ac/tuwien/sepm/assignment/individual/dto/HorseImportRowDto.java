@@ -0,0 +1,31 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+import at.ac.tuwien.sepm.assignment.individual.type.Sex;
+
+import java.time.LocalDate;
+
+/**
+ * DTO with one horse of a pedigree import file.
+ * Horses of the file reference each other by keys of the external registry, not by ids.
+ * A parent can appear anywhere in the file, also after its children.
+ *
+ * @param key         the key of the horse in the external registry, unique in the file
+ * @param name        the horse name
+ * @param description the horse description, optional
+ * @param dateOfBirth the date of the horses birth
+ * @param sex         the sex of the horse
+ * @param ownerId     the id of the stored owner of the horse, optional
+ * @param fatherKey   the key of the father in the file, optional
+ * @param motherKey   the key of the mother in the file, optional
+ */
+public record HorseImportRowDto(
+    String key,
+    String name,
+    String description,
+    LocalDate dateOfBirth,
+    Sex sex,
+    Long ownerId,
+    String fatherKey,
+    String motherKey
+) {
+}
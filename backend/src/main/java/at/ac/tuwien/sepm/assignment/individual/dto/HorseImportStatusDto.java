@@ -0,0 +1,13 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+/**
+ * DTO with one line of a pedigree import streamed to the client, either its progress or, as the last line, its report.
+ *
+ * @param progress the progress of the running import, null in the last line
+ * @param report   the result of the finished import, null while it is running
+ */
+public record HorseImportStatusDto(
+    HorseImportProgressDto progress,
+    HorseImportReportDto report
+) {
+}
@@ -0,0 +1,27 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+import at.ac.tuwien.sepm.assignment.individual.type.Sex;
+
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * DTO to bundle the query parameters used in suggesting the father or mother of a horse.
+ * Only horses the horse validator accepts as parent are suggested.
+ *
+ * @param q          the typed prefix of the parent's name, ignoring case; all horses of the sex are candidates if not given
+ * @param sex        the parent's sex, male for the father and female for the mother
+ * @param bornBefore the birthdate of the child, which the parent must not be born after; not filtered by if not given
+ * @param excludeId  the id of the child, which is not its own parent; not filtered by if not given
+ * @param limit      the maximum number of candidates to return, 5 if not given
+ */
+public record HorseParentCandidateSearchDto(
+    String q,
+    Sex sex,
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    LocalDate bornBefore,
+    Long excludeId,
+    Integer limit
+) {
+}
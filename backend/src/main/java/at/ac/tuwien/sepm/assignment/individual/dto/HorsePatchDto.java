@@ -0,0 +1,57 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+import at.ac.tuwien.sepm.assignment.individual.type.HorseField;
+import at.ac.tuwien.sepm.assignment.individual.type.Sex;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * DTO of a partial horse update, read from a JSON merge patch.
+ * Only the fields in {@code fields} are changed, the values of the other fields are ignored.
+ * A patched field with a null value is cleared.
+ *
+ * @param fields      the patched fields
+ * @param name        the horse's new name
+ * @param description the horse's new description
+ * @param dateOfBirth the horse's new date of birth
+ * @param sex         the horse's new sex
+ * @param ownerId     the id of the horse's new owner
+ * @param fatherId    the id of the horse's new father
+ * @param motherId    the id of the horse's new mother
+ */
+public record HorsePatchDto(
+    Set<HorseField> fields,
+    String name,
+    String description,
+    LocalDate dateOfBirth,
+    Sex sex,
+    Long ownerId,
+    Long fatherId,
+    Long motherId
+) {
+  /**
+   * Checks if a field is changed by this patch
+   *
+   * @param field the field to check
+   * @return true if the field is patched
+   */
+  public boolean patches(HorseField field) {
+    return fields.contains(field);
+  }
+
+  /**
+   * Checks if any of several fields is changed by this patch
+   *
+   * @param candidates the fields to check
+   * @return true if at least one of the fields is patched
+   */
+  public boolean patchesAny(HorseField... candidates) {
+    for (HorseField field : candidates) {
+      if (fields.contains(field)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,115 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+import at.ac.tuwien.sepm.assignment.individual.type.HorseSort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Position in the results of a horse search, after which the next page starts.
+ * Holds the order, sort key and id of the last horse of a page, and is passed to clients as an opaque string.
+ * At most one of the sort keys is set, depending on the order of the search; none when ordered by id.
+ * A relevance score depends on how many horses there are and how many contain each searched word, which changes with every insert and delete.
+ * So a cursor of results ordered by relevance also holds the weights the first page was scored with,
+ * and the following pages are scored with the same weights, so they neither skip nor repeat horses that were there all along.
+ *
+ * @param sort        the order of the search, null if the results are ordered by relevance
+ * @param name        the name of the last horse, if the results are ordered by name
+ * @param dateOfBirth the date of birth of the last horse, if the results are ordered by date of birth
+ * @param score       the relevance score of the last horse, if the results are ordered by relevance
+ * @param weights     the weights of the searched words, in the order of the search, if the results are ordered by relevance
+ * @param id          the id of the last horse
+ */
+public record HorseSearchCursor(
+    HorseSort sort,
+    String name,
+    LocalDate dateOfBirth,
+    Double score,
+    List<Double> weights,
+    long id
+) {
+  private static final String RELEVANCE = "RELEVANCE";
+
+  /**
+   * Creates the cursor after a horse of search results ordered by relevance
+   *
+   * @param score   the relevance score of the horse
+   * @param weights the weights of the searched words the horse was scored with
+   * @param id      the id of the horse
+   * @return the cursor
+   */
+  public static HorseSearchCursor byRelevance(double score, List<Double> weights, long id) {
+    return new HorseSearchCursor(null, null, null, score, List.copyOf(weights), id);
+  }
+
+  /**
+   * Creates the cursor after a horse of search results in a given order
+   *
+   * @param sort  the order of the results
+   * @param horse the horse
+   * @return the cursor, holding the sort key of the horse for this order
+   */
+  public static HorseSearchCursor bySort(HorseSort sort, HorseDetailDto horse) {
+    return switch (sort) {
+      case NAME, NAME_DESC -> new HorseSearchCursor(sort, horse.name(), null, null, null, horse.id());
+      case DATE_OF_BIRTH, DATE_OF_BIRTH_DESC -> new HorseSearchCursor(sort, null, horse.dateOfBirth(), null, null, horse.id());
+      case ID, ID_DESC -> new HorseSearchCursor(sort, null, null, null, null, horse.id());
+    };
+  }
+
+  /**
+   * Returns the opaque string representation of this cursor
+   *
+   * @return the cursor, safe to be used in URLs
+   */
+  public String encode() {
+    // the weights follow the score, each as its shortest string that parses to the same double
+    String key = sort == null ? Stream.concat(Stream.of(score), weights.stream()).map(String::valueOf).collect(Collectors.joining(",")) : switch (sort) {
+      case NAME, NAME_DESC -> name;
+      case DATE_OF_BIRTH, DATE_OF_BIRTH_DESC -> dateOfBirth.toString();
+      case ID, ID_DESC -> "";
+    };
+    String raw = (sort == null ? RELEVANCE : sort.name()) + ":" + id + ":" + key;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Parses the opaque string representation of a cursor
+   *
+   * @param cursor the cursor as returned by {@link #encode()}
+   * @return the parsed cursor
+   * @throws IllegalArgumentException the string is not a valid cursor
+   */
+  public static HorseSearchCursor decode(String cursor) {
+    String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+    if (parts.length < 3) {
+      throw new IllegalArgumentException("Malformed cursor");
+    }
+    long id = Long.parseLong(parts[1]);
+    String key = parts[2];
+    if (parts[0].equals(RELEVANCE)) {
+      var values = Arrays.stream(key.split(",")).map(Double::parseDouble).toList();
+      return byRelevance(values.get(0), values.subList(1, values.size()), id);
+    }
+    var sort = HorseSort.valueOf(parts[0]);
+    return switch (sort) {
+      case NAME, NAME_DESC -> new HorseSearchCursor(sort, key, null, null, null, id);
+      case DATE_OF_BIRTH, DATE_OF_BIRTH_DESC -> new HorseSearchCursor(sort, null, parseDate(key), null, null, id);
+      case ID, ID_DESC -> new HorseSearchCursor(sort, null, null, null, null, id);
+    };
+  }
+
+  private static LocalDate parseDate(String date) {
+    try {
+      return LocalDate.parse(date);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Malformed cursor date", e);
+    }
+  }
+}
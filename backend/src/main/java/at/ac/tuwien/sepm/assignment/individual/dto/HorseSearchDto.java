@@ -1,5 +1,8 @@
 package at.ac.tuwien.sepm.assignment.individual.dto;
 
+import at.ac.tuwien.sepm.assignment.individual.type.HorseSort;
+import at.ac.tuwien.sepm.assignment.individual.type.MatchMode;
+import at.ac.tuwien.sepm.assignment.individual.type.SearchMode;
 import at.ac.tuwien.sepm.assignment.individual.type.Sex;
 
 import java.time.LocalDate;
@@ -13,17 +16,30 @@ import org.springframework.format.annotation.DateTimeFormat;
  * @param name        a string that has to be contained in the result horse's name
  * @param description a string that has to be contained in the result horse's description
  * @param bornBefore  a date which has to be after the result horse's birthdate
+ * @param bornAfter   a date which has to be before the result horse's birthdate
  * @param sex         the result horse's sex
- * @param ownerName   a string that has to be contained in the result horse's owner first or last name
- * @param limit       the maximum amount of matching horses to be returned
+ * @param ownerName   a string that has to be contained in the result horse's owner full name, ignoring case and repeated whitespace
+ * @param limit       the maximum amount of matching horses to be returned, the page size when paging with cursors
+ * @param sort        the order of the result horses, {@link HorseSort#NAME} if not given.
+ *                    In full-text search mode, the results are ordered by relevance if not given
+ * @param searchMode  how name and description are matched, {@link SearchMode#SUBSTRING} if not given
+ * @param matchMode   how name, description and owner name are matched in substring search mode, {@link MatchMode#SUBSTRING} if not given.
+ *                    The owner name is matched the same way in full-text search mode
+ * @param cursor      the cursor returned with the previous page, to get the horses after it
  */
 public record HorseSearchDto(
     String name,
     String description,
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
     LocalDate bornBefore,
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    LocalDate bornAfter,
     Sex sex,
     String ownerName,
-    Integer limit
+    Integer limit,
+    HorseSort sort,
+    SearchMode searchMode,
+    MatchMode matchMode,
+    String cursor
 ) {
 }
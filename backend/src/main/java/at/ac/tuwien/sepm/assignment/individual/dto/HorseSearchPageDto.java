@@ -0,0 +1,15 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+import java.util.List;
+
+/**
+ * DTO which contains a page of horse search results.
+ *
+ * @param horses     the horses of this page
+ * @param nextCursor the cursor to request the next page with, or null if this is the last page
+ */
+public record HorseSearchPageDto(
+    List<HorseDetailDto> horses,
+    String nextCursor
+) {
+}
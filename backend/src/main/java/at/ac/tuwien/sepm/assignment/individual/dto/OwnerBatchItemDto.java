@@ -0,0 +1,16 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+import java.util.List;
+
+/**
+ * DTO with the result of creating one owner of a batch.
+ * Either the owner was created, or it was rejected with the reasons why.
+ *
+ * @param owner  the created owner, null if it was rejected
+ * @param errors the reasons why the owner was rejected, empty if it was created
+ */
+public record OwnerBatchItemDto(
+    OwnerDto owner,
+    List<String> errors
+) {
+}
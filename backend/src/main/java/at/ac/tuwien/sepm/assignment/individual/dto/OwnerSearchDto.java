@@ -1,14 +1,18 @@
 package at.ac.tuwien.sepm.assignment.individual.dto;
 
+import at.ac.tuwien.sepm.assignment.individual.type.MatchMode;
+
 /**
  * DTO to encapsulate parameters for Owner search.
  * An owner, whose name has {@code name} as a substring is considered matched.
  *
  * @param name      substring of the owner's name
  * @param maxAmount the maximum number of owners to return, even if there are more matches
+ * @param matchMode how the name is matched against the owner's full name, {@link MatchMode#SUBSTRING} if not given
  */
 public record OwnerSearchDto(
     String name,
-    Integer maxAmount
+    Integer maxAmount,
+    MatchMode matchMode
 ) {
 }
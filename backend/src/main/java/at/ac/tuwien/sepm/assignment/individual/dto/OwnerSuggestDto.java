@@ -0,0 +1,14 @@
+package at.ac.tuwien.sepm.assignment.individual.dto;
+
+/**
+ * DTO to encapsulate parameters for owner suggestions while typing.
+ * An owner, whose full name, last name or email starts with {@code q} is suggested.
+ *
+ * @param q     the typed prefix, matched ignoring case and repeated whitespace
+ * @param limit the maximum number of owners to suggest, 5 if not given
+ */
+public record OwnerSuggestDto(
+    String q,
+    Integer limit
+) {
+}
@@ -1,6 +1,8 @@
 package at.ac.tuwien.sepm.assignment.individual.mapper;
 
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseChildDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDescendantDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDescendantTreeDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseTreeDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.OwnerDto;
@@ -8,6 +10,8 @@ import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
 import at.ac.tuwien.sepm.assignment.individual.exception.FatalException;
 
 import java.lang.invoke.MethodHandles;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Supplier;
@@ -55,6 +59,53 @@ public class HorseMapper {
     );
   }
 
+  /**
+   * Convert a horse entity object to a {@link HorseDescendantTreeDto} and include all its descendants.
+   *
+   * @param root             the horse at the top of the family tree
+   * @param childrenByParent the children of every horse in the tree by the id of the parent
+   * @param maxGenerations   the maximum generations of children to be included for this parent
+   * @return the converted {@link HorseDescendantTreeDto}
+   */
+  public HorseDescendantTreeDto findDescendants(Horse root, Map<Long, List<Horse>> childrenByParent, long maxGenerations) {
+    LOG.trace("findDescendants({}, {})", root, maxGenerations);
+
+    var children = maxGenerations == 0
+        ? Collections.<Horse>emptyList()
+        : childrenByParent.getOrDefault(root.getId(), Collections.emptyList());
+
+    return new HorseDescendantTreeDto(
+        root.getId(),
+        root.getName(),
+        root.getSex(),
+        root.getDateOfBirth(),
+        children.stream()
+            .map(child -> findDescendants(child, childrenByParent, maxGenerations - 1))
+            .toList()
+    );
+  }
+
+  /**
+   * Convert a horse entity object to a {@link HorseDescendantDto}.
+   *
+   * @param horse      the descendant horse
+   * @param generation the generation of the descendant, relative to the root horse
+   * @return the converted {@link HorseDescendantDto}
+   */
+  public HorseDescendantDto entityToDescendantDto(Horse horse, long generation) {
+    LOG.trace("entityToDescendantDto({}, {})", horse, generation);
+
+    return new HorseDescendantDto(
+        horse.getId(),
+        horse.getName(),
+        horse.getSex(),
+        horse.getDateOfBirth(),
+        generation,
+        horse.getFatherId(),
+        horse.getMotherId()
+    );
+  }
+
   /**
    * Convert a horse entity object to a {@link HorseDetailDto}.
    * The given map of owners needs to contain the owner of {@code horse}.
@@ -115,6 +166,38 @@ public class HorseMapper {
     );
   }
 
+  /**
+   * Convert a newly created horse entity object to a {@link HorseChildDetailDto}, with its parents and owner read beforehand,
+   * for example for the validation of a batch of horses.
+   * The given maps need to contain the owner and the parents of {@code horse}.
+   *
+   * @param horse   the horse to convert
+   * @param owners  a map of horse owners by their id, which needs to contain the owner referenced by {@code horse}
+   * @param parents a map of parent horses by their id, which needs to contain the father and mother referenced by {@code horse}
+   * @return the converted {@link HorseChildDetailDto}
+   */
+  public HorseChildDetailDto entityToChildDetailDto(
+      Horse horse,
+      Map<Long, OwnerDto> owners,
+      Map<Long, HorseDetailDto> parents) {
+    LOG.trace("entityToChildDetailDto({})", horse);
+
+    if (horse == null) {
+      return null;
+    }
+
+    return new HorseChildDetailDto(
+        horse.getId(),
+        horse.getName(),
+        horse.getDescription(),
+        horse.getDateOfBirth(),
+        horse.getSex(),
+        getOwner(horse, owners),
+        horse.getFatherId() == null ? null : parents.get(horse.getFatherId()),
+        horse.getMotherId() == null ? null : parents.get(horse.getMotherId())
+    );
+  }
+
   /**
    * Gets the owner dto for a horse out of a pool of owners
    *
@@ -0,0 +1,137 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
+import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Data Access Object for the ancestor closure of the pedigree.
+ * The closure stores every path between a horse and its ancestors up to {@link #maxDepth()} generations,
+ * so that ancestor and descendant queries are single indexed lookups.
+ * With the strategy {@link AncestorQueryStrategy#CLOSURE}, the {@link HorseDao} reads ancestors and descendants from it,
+ * and checks with it that a new parent is not a descendant of the horse.
+ * The maintenance methods are called by the {@link HorseDao} inside the transaction of the horse write,
+ * so the closure matches the parents the transaction sees.
+ * The closure is unavailable until it was checked or rebuilt against the stored horses; meanwhile, the maintenance methods do nothing.
+ */
+public interface AncestorClosureDao {
+
+  /**
+   * Get the maximum amount of generation-steps stored in the closure.
+   *
+   * @return the maximum depth of stored paths
+   */
+  int maxDepth();
+
+  /**
+   * Check if the closure matches the stored horses and is maintained by the writes, so that it can be read.
+   *
+   * @return true once {@link #makeAvailableIfConsistent()} or {@link #rebuild()} succeeded
+   */
+  boolean isAvailable();
+
+  /**
+   * Get the ids of all horses that are ancestors of at max the nth generation of a horse.
+   * The root horse itself is included as generation 0.
+   *
+   * @param rootId      the id of the horse with generation 0
+   * @param generations the maximum amount of generation-steps, must not be negative or bigger than {@link #maxDepth()}
+   * @return the ids of the root horse and all its ancestors within the generation limit
+   * @throws NotFoundException the root horse has no closure entries
+   */
+  Set<Long> getAncestorIds(long rootId, long generations) throws NotFoundException;
+
+  /**
+   * Get the ids of all horses that are descendants of at max the nth generation of a horse,
+   * grouped by the generation in which they are first reached.
+   * Element {@code 0} only contains the root horse, element {@code n} all horses whose closest path to the root has length {@code n}.
+   * The ids within a generation are sorted ascending.
+   *
+   * @param rootId      the id of the horse with generation 0
+   * @param generations the maximum amount of generation-steps, must not be negative or bigger than {@link #maxDepth()}
+   * @return the ids of the root horse and all its descendants within the generation limit, by generation
+   * @throws NotFoundException the root horse has no closure entries
+   */
+  List<long[]> getDescendantIdsByGeneration(long rootId, long generations) throws NotFoundException;
+
+  /**
+   * Check if a horse is an ancestor of another horse, in any generation.
+   * Ancestors within {@link #maxDepth()} generations are looked up in the closure,
+   * more distant ones are found by following the parent references from the ancestors of the maximum depth.
+   *
+   * @param ancestorId   the id of the possible ancestor
+   * @param descendantId the id of the possible descendant
+   * @return true if there is a path of at least one generation from the descendant to the ancestor
+   */
+  boolean isAncestor(long ancestorId, long descendantId);
+
+  /**
+   * Add the paths of a newly inserted horse, which has no children yet.
+   *
+   * @param horseId  the id of the new horse
+   * @param fatherId the id of the horse's father, or null if not set
+   * @param motherId the id of the horse's mother, or null if not set
+   */
+  void addHorse(long horseId, Long fatherId, Long motherId);
+
+  /**
+   * Add the paths of several newly inserted horses, which have no children yet, in JDBC batches.
+   * The parents of the horses must not be one of the added horses.
+   *
+   * @param horses the new horses with their ids and parents
+   */
+  void addHorses(List<Horse> horses);
+
+  /**
+   * Replace the paths through the parents of a horse, after one of them changed.
+   * The paths of all descendants of the horse are updated as well.
+   *
+   * @param horseId     the id of the horse
+   * @param oldFatherId the id of the horse's previous father, or null if not set
+   * @param oldMotherId the id of the horse's previous mother, or null if not set
+   * @param newFatherId the id of the horse's new father, or null if not set
+   * @param newMotherId the id of the horse's new mother, or null if not set
+   */
+  void changeParents(long horseId, Long oldFatherId, Long oldMotherId, Long newFatherId, Long newMotherId);
+
+  /**
+   * Remove all paths that start at, end at or pass a deleted horse.
+   *
+   * @param horseId the id of the deleted horse
+   */
+  void removeHorse(long horseId);
+
+  /**
+   * Remove all paths that start at, end at or pass one of several deleted horses, in JDBC batches.
+   *
+   * @param horseIds the ids of the deleted horses
+   */
+  void removeHorses(Collection<Long> horseIds);
+
+  /**
+   * Check if the direct parent paths in the closure match the parent references of the horses.
+   *
+   * @return true if every horse has its own and its parents' paths, and there are no others of depth 0 or 1
+   */
+  boolean isConsistent();
+
+  /**
+   * Make the closure available without rebuilding it, if it matches the stored horses.
+   * Writes that skipped the maintenance before are awaited, so that the check includes them.
+   *
+   * @return true if the closure is consistent and now available, false if it stays unavailable
+   */
+  boolean makeAvailableIfConsistent();
+
+  /**
+   * Discard the closure and compute it from the parent references of all horses.
+   * The horses are inserted generation by generation, in batches that are committed one by one,
+   * while the closure is unavailable. If horses changed meanwhile, the closure is rebuilt again, up to a few times.
+   *
+   * @return true if the rebuilt closure is consistent and now available, false if it stays unavailable
+   */
+  boolean rebuild();
+}
@@ -0,0 +1,53 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Makes the ancestor closure available once the application is started, if the configured strategy reads it.
+ * If the closure does not match the stored horses, it is rebuilt by a background job, so the startup is not blocked;
+ * until the job is done, ancestors, descendants and parent cycles are read from the {@link PedigreeIndex}.
+ * The closure does not match for databases created before the closure existed, after the test data scripts,
+ * which insert and remove horses without the {@link HorseDao}, and after running with another strategy.
+ */
+@Component
+public class AncestorClosureRebuildBean {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private final AncestorClosureDao closureDao;
+  private final AncestorQueryStrategy ancestorStrategy;
+
+  public AncestorClosureRebuildBean(AncestorClosureDao closureDao, @Value("${horse.ancestors.strategy:INDEX}") AncestorQueryStrategy ancestorStrategy) {
+    this.closureDao = closureDao;
+    this.ancestorStrategy = ancestorStrategy;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildIfInconsistent() {
+    if (ancestorStrategy != AncestorQueryStrategy.CLOSURE) {
+      LOGGER.info("Ancestor closure is not read with the strategy {}, it is neither checked nor maintained.", ancestorStrategy);
+      return;
+    }
+    if (closureDao.makeAvailableIfConsistent()) {
+      LOGGER.info("Ancestor closure is consistent with the stored horses.");
+      return;
+    }
+    LOGGER.info("Ancestor closure does not match the stored horses, rebuilding it in the background…");
+    var job = new Thread(this::rebuild, "ancestor-closure-rebuild");
+    job.setDaemon(true);
+    job.start();
+  }
+
+  private void rebuild() {
+    try {
+      closureDao.rebuild();
+    } catch (RuntimeException e) {
+      LOGGER.error("Rebuilding the ancestor closure failed, it stays unavailable", e);
+    }
+  }
+}
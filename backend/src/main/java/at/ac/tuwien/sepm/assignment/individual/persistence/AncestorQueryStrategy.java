@@ -0,0 +1,26 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+/**
+ * Strategies of the {@link HorseDao} to query the ancestors of a horse.
+ * Configured with the property {@code horse.ancestors.strategy}.
+ */
+public enum AncestorQueryStrategy {
+  /**
+   * a breadth-first walk over the resident {@link PedigreeIndex}, fetching only the horses of the tree by id with one query
+   */
+  INDEX,
+  /**
+   * one indexed lookup in the ancestor closure, for requests within its maximum depth; deeper requests walk the pedigree index.
+   * Descendants and parent cycles are read from the closure as well, while all other strategies read them from the pedigree index.
+   * Until the closure is available, after its check or rebuild at startup, the pedigree index is read instead.
+   */
+  CLOSURE,
+  /**
+   * one recursive common table expression, joining the parents of each generation in the database
+   */
+  RECURSIVE_QUERY,
+  /**
+   * a breadth-first walk with one query per generation, fetching the not yet seen parents of the previous generation by id
+   */
+  FRONTIER
+}
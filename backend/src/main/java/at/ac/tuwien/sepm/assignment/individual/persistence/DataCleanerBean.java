@@ -3,6 +3,7 @@ package at.ac.tuwien.sepm.assignment.individual.persistence;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.datasource.init.ScriptUtils;
@@ -17,6 +18,7 @@ import java.sql.SQLException;
  * You can (de)activate this profile by adding {@code -Dspring.profiles.active=datagen} to your maven command line
  */
 @Component
+@DependsOn("schemaMigrationBean")
 @Profile("!datagen")
 public class DataCleanerBean {
   private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
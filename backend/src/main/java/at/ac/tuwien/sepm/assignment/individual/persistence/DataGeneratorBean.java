@@ -8,6 +8,7 @@ import javax.sql.DataSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.datasource.init.ScriptUtils;
@@ -18,6 +19,7 @@ import org.springframework.stereotype.Component;
  * You can activate this profile by adding {@code -Dspring.profiles.active=datagen} to your maven command line
  */
 @Component
+@DependsOn("schemaMigrationBean")
 @Profile("datagen")
 public class DataGeneratorBean {
   private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
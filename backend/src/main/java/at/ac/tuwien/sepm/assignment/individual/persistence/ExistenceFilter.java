@@ -0,0 +1,84 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+import java.util.Collection;
+
+/**
+ * Resident Bloom filters over the emails of all owners and the ids of all horses.
+ * If a filter does not contain a value, the value is definitely not stored, so the {@link OwnerDao} and the {@link HorseDao}
+ * answer checks for it without querying the persistent data store.
+ * If a filter contains a value, it is only probably stored, and the persistent data store is queried as usual.
+ * The filters are kept in sync by the DAOs on every insert. Deleted values can't be removed from a Bloom filter,
+ * so the filter is rebuilt once enough of its values have been deleted.
+ */
+public interface ExistenceFilter {
+
+  /**
+   * Discard the current filters and load all owner emails and horse ids from the persistent data store.
+   */
+  void rebuild();
+
+  /**
+   * Check if an email might be used by a stored owner.
+   *
+   * @param email the email to check
+   * @return false if no stored owner uses the email for sure, true if one probably does
+   */
+  boolean mightContainEmail(String email);
+
+  /**
+   * Check if a horse might be stored.
+   *
+   * @param horseId the id of the horse to check
+   * @return false if the horse is not stored for sure, true if it probably is
+   */
+  boolean mightContainHorse(long horseId);
+
+  /**
+   * Add the emails of created owners to the filter.
+   *
+   * @param emails the emails of the created owners, null entries are ignored
+   */
+  void putEmails(Collection<String> emails);
+
+  /**
+   * Add created horses to the filter.
+   *
+   * @param horseIds the ids of the created horses
+   */
+  void putHorses(Collection<Long> horseIds);
+
+  /**
+   * Count deleted horses. They stay in the filter, which is rebuilt once more than a fifth of its horses have been deleted.
+   *
+   * @param horseIds the ids of the deleted horses
+   */
+  void removeHorses(Collection<Long> horseIds);
+
+  /**
+   * Count emails the filter contained, but no stored owner used, to measure the false positive rate of the filter.
+   *
+   * @param count the amount of emails that were not found
+   */
+  void reportEmailFalsePositives(int count);
+
+  /**
+   * Count horses the filter contained, but were not stored, to measure the false positive rate of the filter.
+   *
+   * @param count the amount of horses that were not found
+   */
+  void reportHorseFalsePositives(int count);
+
+  /**
+   * Get the size and the measured effect of the owner email filter.
+   *
+   * @return the statistics of the email filter
+   */
+  ExistenceFilterStats emailStats();
+
+  /**
+   * Get the size and the measured effect of the horse id filter.
+   *
+   * @return the statistics of the horse filter
+   */
+  ExistenceFilterStats horseStats();
+}
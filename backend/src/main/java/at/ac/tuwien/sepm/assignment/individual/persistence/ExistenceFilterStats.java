@@ -0,0 +1,35 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+/**
+ * Statistics of one Bloom filter of the {@link ExistenceFilter}.
+ *
+ * @param entries                   the amount of values added since the filter was built
+ * @param capacity                  the amount of values the filter was sized for
+ * @param memoryBytes               the size of the bit array of the filter
+ * @param hashFunctions             the amount of bits set per value
+ * @param expectedFalsePositiveRate the probability that an absent value is contained, computed from the share of set bits
+ * @param checks                    the amount of values checked since the application started
+ * @param definiteMisses            the amount of checked values the filter did not contain, which skipped a query
+ * @param falsePositives            the amount of checked values the filter contained, but were not found by the query
+ */
+public record ExistenceFilterStats(
+    long entries,
+    long capacity,
+    long memoryBytes,
+    int hashFunctions,
+    double expectedFalsePositiveRate,
+    long checks,
+    long definiteMisses,
+    long falsePositives
+) {
+
+  /**
+   * Get the measured share of the checked absent values the filter did not rule out.
+   *
+   * @return the observed false positive rate, 0 if no absent value was checked yet
+   */
+  public double observedFalsePositiveRate() {
+    long absent = definiteMisses + falsePositives;
+    return absent == 0 ? 0 : (double) falsePositives / absent;
+  }
+}
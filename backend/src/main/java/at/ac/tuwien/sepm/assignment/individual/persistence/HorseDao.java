@@ -2,11 +2,20 @@ package at.ac.tuwien.sepm.assignment.individual.persistence;
 
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseChildDetailDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDeleteReportDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseFacetsDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseParentCandidateSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorsePatchDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
 import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
 import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object for horses.
@@ -21,8 +30,59 @@ public interface HorseDao {
    */
   List<Horse> searchAll(HorseSearchDto searchFilter);
 
+  /**
+   * Get a page of the horses stored in the persistent data store that match search criteria.
+   * Horses are ordered by the sort of the search, or if not given by name and id, or by relevance and id in full-text mode.
+   * The page starts after the cursor of the search filter, if given, and holds at most {@code limit} horses.
+   * Since the cursor is looked up in the index, every page costs the same as the first one.
+   * The owners of the horses are fetched with the horses, in the same query.
+   *
+   * @param searchFilter the search criteria, with a decodable cursor matching the order of the search
+   * @return the horses of the page with their owners, with the cursor to the next page if there are more matching horses
+   */
+  HorseSearchResult searchPage(HorseSearchDto searchFilter);
+
+  /**
+   * Stream the horses stored in the persistent data store that match search criteria, in the same order as {@link #searchPage}.
+   * The rows are read from the database while the stream is consumed, so the stream holds a database connection
+   * and has to be closed after use.
+   *
+   * @param searchFilter the search criteria, with a decodable cursor matching the order of the search
+   * @return a stream of the horses with their owners after the cursor, at most {@code limit} if given
+   */
+  Stream<HorseDetailDto> streamAll(HorseSearchDto searchFilter);
+
+  /**
+   * Pass all horses stored in the persistent data store to an action, ordered by ID.
+   * The horses are read with a forward-only cursor in chunks while the action runs, so they are never all held in memory.
+   *
+   * @param action called with each horse, with the IDs of its owner and parents
+   */
+  void exportAll(Consumer<Horse> action);
+
+  /**
+   * Count the horses stored in the persistent data store that match search criteria, by sex, owner and birth decade.
+   * The counts are aggregated by the database in one grouped query, no horses are loaded.
+   * They are cached per search until horses change.
+   *
+   * @param searchFilter the search criteria; order, cursor and limit are ignored
+   * @return the counts of the matching horses
+   */
+  HorseFacetsDto countFacets(HorseSearchDto searchFilter);
+
+  /**
+   * Get the horses stored in the persistent data store that can be set as father or mother of a horse.
+   * The candidates have the requested sex, are not born after the child, are not the child itself,
+   * and are ordered by their lowercase name and id, read from the index of lowercase name and id.
+   *
+   * @param searchFilter the candidate criteria, with the sex and limit set
+   * @return the first candidates with their owners, at most {@code limit}
+   */
+  List<HorseDetailDto> searchParentCandidates(HorseParentCandidateSearchDto searchFilter);
+
   /**
    * Get all horses that are ancestors of at max the nth generation of a horse.
+   * The ancestors are queried with the configured {@link AncestorQueryStrategy}.
    *
    * @param generations the maximum amount of generation-steps, must not be negative
    * @param rootId      the id of the horse with generation 0
@@ -32,13 +92,49 @@ public interface HorseDao {
   List<Horse> getAncestors(long rootId, long generations) throws NotFoundException;
 
   /**
-   * Check if there is a horse that is a parent with given id
-   * (other horses reference this horse as father or mother)
+   * Get all horses that are ancestors of at max the nth generation of a horse, grouped by generation.
+   * Element {@code 0} only contains the root horse, element {@code n} all horses whose closest path to the root has length {@code n}.
+   * The horses within a generation are sorted by id.
+   *
+   * @param rootId      the id of the horse with generation 0
+   * @param generations the maximum amount of generation-steps, must not be negative
+   * @return the root horse and all its ancestors within the generation limit, by generation
+   * @throws NotFoundException the root horse could not be found
+   */
+  List<List<Horse>> getAncestorsByGeneration(long rootId, long generations) throws NotFoundException;
+
+  /**
+   * Get the ids of all horses that are descendants of at max the nth generation of a horse,
+   * grouped by the generation in which they are first reached.
+   * Element {@code 0} only contains the root horse, element {@code n} all horses whose closest path to the root has length {@code n}.
+   * The ids within a generation are sorted ascending.
+   * The descendants are read from the ancestor closure with the strategy {@link AncestorQueryStrategy#CLOSURE}, else from the {@link PedigreeIndex}.
+   *
+   * @param rootId      the id of the horse with generation 0
+   * @param generations the maximum amount of generation-steps, must not be negative
+   * @return the ids of the root horse and all its descendants within the generation limit, by generation
+   * @throws NotFoundException the root horse could not be found
+   */
+  List<long[]> getDescendantIdsByGeneration(long rootId, long generations) throws NotFoundException;
+
+  /**
+   * Check if a horse is an ancestor of another horse, in any generation.
+   * The check reads the ancestor closure with the strategy {@link AncestorQueryStrategy#CLOSURE}, else the {@link PedigreeIndex}.
    *
-   * @param horseId the horse to check for
-   * @return false if no horse has this id as parent, or there is no horse with such id at all
+   * @param ancestorId   the id of the possible ancestor
+   * @param descendantId the id of the possible descendant
+   * @return true if there is a path of at least one generation from the descendant to the ancestor
    */
-  boolean parentExists(long horseId);
+  boolean isAncestor(long ancestorId, long descendantId);
+
+  /**
+   * Fetch a set of horses by their IDs from the persistent data store.
+   * This is the best effort, if some horse can not be found in the data store, it is simply not in the returned list.
+   *
+   * @param ids a collection of ids, to fetch the referenced horses by
+   * @return the list of all found horses, without those, that are not in the persistent data store
+   */
+  List<Horse> getAllById(Collection<Long> ids);
 
   /**
    * Update the horse with the ID given in {@code horse}
@@ -51,6 +147,17 @@ public interface HorseDao {
    */
   Horse update(HorseChildDetailDto horse) throws NotFoundException;
 
+  /**
+   * Update only the fields given in {@code patch} of the horse with the ID {@code id}
+   * in the persistent data store, with one UPDATE statement of the patched columns.
+   *
+   * @param id    the ID of the horse to patch
+   * @param patch the changed fields of the horse, must patch at least one field
+   * @return the patched horse
+   * @throws NotFoundException if the Horse with the given ID does not exist in the persistent data store
+   */
+  Horse patch(long id, HorsePatchDto patch) throws NotFoundException;
+
 
   /**
    * Inserts the horse with the data given in {@code horse}
@@ -61,6 +168,15 @@ public interface HorseDao {
    */
   Horse create(HorseCreateDto horse);
 
+  /**
+   * Create several new horses in the persistent data store, with JDBC batch inserts in one transaction.
+   * The parents of the horses must be stored already, they can't be one of the created horses.
+   *
+   * @param horses the horses to create
+   * @return the created horses, with their generated ids, in the order of {@code horses}
+   */
+  List<Horse> createAll(List<HorseCreateDto> horses);
+
   /**
    * Get a horse by its ID from the persistent data store.
    *
@@ -70,6 +186,38 @@ public interface HorseDao {
    */
   Horse getById(long id) throws NotFoundException;
 
+  /**
+   * Get a horse with its owner, and its parents with their owners, by its ID from the persistent data store.
+   * Everything is read in one statement, joining the parents and owners to the horse.
+   *
+   * @param id the ID of the horse to get
+   * @return the horse with its parents, which don't include their parents
+   * @throws NotFoundException if the horse with the given ID does not exist in the persistent data store
+   */
+  HorseChildDetailDto getDetailById(long id) throws NotFoundException;
+
+  /**
+   * Get the stored horses a horse is validated against before it is written, in one statement.
+   * Inside a transaction, the rows of these horses are locked until it ends,
+   * so they can't change between validating and writing the horse.
+   *
+   * @param horseId  the ID of the updated horse, or null when creating a horse
+   * @param fatherId the ID of the requested father, or null
+   * @param motherId the ID of the requested mother, or null
+   * @return the updated horse with the flag if it has children, and the requested parents, all with their owners
+   * @throws NotFoundException if one of the given horses does not exist in the persistent data store
+   */
+  HorseValidationContext getValidationContext(Long horseId, Long fatherId, Long motherId) throws NotFoundException;
+
+  /**
+   * Get several horses with their owners by their IDs from the persistent data store, in one statement.
+   * Inside a transaction, the rows of the horses are locked until it ends.
+   *
+   * @param ids the IDs of the horses to get
+   * @return the found horses by their IDs; IDs of horses that do not exist are left out
+   */
+  Map<Long, HorseDetailDto> getAllDetailsById(Collection<Long> ids);
+
   /**
    * Delete a horse by its ID from the persistent data store.
    *
@@ -77,4 +225,23 @@ public interface HorseDao {
    * @throws NotFoundException if the Horse with the given ID does not exist in the persistent data store
    */
   void delete(long id) throws NotFoundException;
+
+  /**
+   * Delete several horses by their IDs from the persistent data store, with set-based statements.
+   * Children which are not deleted lose the deleted horses as parents.
+   * IDs of horses that do not exist are ignored.
+   *
+   * @param ids the IDs of the horses to delete
+   * @return the IDs of the deleted horses and the amount of kept children whose parent links were cleared
+   */
+  HorseDeleteReportDto deleteAll(Collection<Long> ids);
+
+  /**
+   * Delete all horses matching the filters of a search from the persistent data store, with set-based statements.
+   * The order, limit and cursor of the search are ignored.
+   *
+   * @param searchFilter the filters of the horses to delete
+   * @return the IDs of the deleted horses and the amount of kept children whose parent links were cleared
+   */
+  HorseDeleteReportDto deleteMatching(HorseSearchDto searchFilter);
 }
@@ -0,0 +1,18 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchCursor;
+
+import java.util.List;
+
+/**
+ * A page of horses found by the {@link HorseDao}.
+ *
+ * @param horses     the horses of this page, with their owners
+ * @param nextCursor the position after the last horse, or null if there are no more matching horses
+ */
+public record HorseSearchResult(
+    List<HorseDetailDto> horses,
+    HorseSearchCursor nextCursor
+) {
+}
@@ -0,0 +1,39 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
+
+import java.util.List;
+
+/**
+ * Data Access Object for the full-text index of horses.
+ * The index holds the words of every horse's name and description, so that the full-text search of the {@link HorseDao}
+ * does indexed lookups instead of scanning all texts.
+ * The index is kept in sync by the {@link HorseDao} inside the transaction of the horse write,
+ * tokens of deleted horses are removed by the data store.
+ */
+public interface HorseTokenDao {
+
+  /**
+   * Replace the indexed words of a horse.
+   *
+   * @param horseId     the id of the horse
+   * @param name        the name of the horse
+   * @param description the description of the horse, or null if not set
+   */
+  void index(long horseId, String name, String description);
+
+  /**
+   * Index the words of several newly inserted horses, which have no indexed words yet, in JDBC batches.
+   *
+   * @param horses the new horses with their ids, names and descriptions
+   */
+  void indexNew(List<Horse> horses);
+
+  /**
+   * Index all horses that have no indexed words yet.
+   * Needed for horses stored before the index existed, or without the {@link HorseDao}.
+   *
+   * @return the amount of horses that were indexed
+   */
+  int indexMissing();
+}
@@ -0,0 +1,30 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Adds the horses missing in the full-text index once the application is started.
+ * This is the case for databases created before the index existed, and after the test data script,
+ * which inserts horses without the {@link HorseDao}.
+ */
+@Component
+public class HorseTokenIndexBean {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private final HorseTokenDao tokenDao;
+
+  public HorseTokenIndexBean(HorseTokenDao tokenDao) {
+    this.tokenDao = tokenDao;
+  }
+
+  @EventListener(ContextRefreshedEvent.class)
+  public void indexMissingHorses() {
+    int indexed = tokenDao.indexMissing();
+    LOGGER.info("Added {} horses to the full-text index.", indexed);
+  }
+}
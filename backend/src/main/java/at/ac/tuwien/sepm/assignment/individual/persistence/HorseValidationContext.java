@@ -0,0 +1,19 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+
+/**
+ * The stored horses a horse is validated against before it is created or updated, loaded by the {@link HorseDao}.
+ *
+ * @param horse       the stored state of the updated horse, with its owner; null when creating a horse
+ * @param hasChildren whether other horses reference the updated horse as father or mother; false when creating a horse
+ * @param father      the requested father, with his owner; null if no father is requested
+ * @param mother      the requested mother, with her owner; null if no mother is requested
+ */
+public record HorseValidationContext(
+    HorseDetailDto horse,
+    boolean hasChildren,
+    HorseDetailDto father,
+    HorseDetailDto mother
+) {
+}
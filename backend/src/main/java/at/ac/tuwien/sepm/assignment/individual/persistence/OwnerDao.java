@@ -6,6 +6,9 @@ import at.ac.tuwien.sepm.assignment.individual.entity.Owner;
 import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Data Access Object for owners.
@@ -29,6 +32,14 @@ public interface OwnerDao {
    */
   boolean emailIsTaken(String email);
 
+  /**
+   * Find out which of several emails are already used by stored owners, with one query.
+   *
+   * @param emails the emails to check for, null entries are ignored
+   * @return the emails of {@code emails} that are already used
+   */
+  Set<String> takenEmails(Collection<String> emails);
+
   /**
    * Fetch a set of owners by their IDs from the persistent data store.
    * This is the best effort, if some owner can not be found in the data store, it is simply not in the returned set.
@@ -51,6 +62,16 @@ public interface OwnerDao {
    */
   Collection<Owner> search(OwnerSearchDto searchParameters);
 
+  /**
+   * Suggest owners whose full name, last name or email start with a prefix, ignoring case and repeated whitespace.
+   * The matching owners are found in the {@link OwnerSuggestIndex}, only they are fetched from the persistent data store.
+   *
+   * @param prefix the typed prefix
+   * @param limit  the maximum amount of owners to suggest
+   * @return the first matching owners, ordered by their matching name or email
+   */
+  List<Owner> suggest(String prefix, int limit);
+
   /**
    * Create a new owner in the persistent data store.
    *
@@ -58,4 +79,20 @@ public interface OwnerDao {
    * @return the newly created owner
    */
   Owner create(OwnerCreateDto newOwner);
+
+  /**
+   * Create several new owners in the persistent data store, with JDBC batch inserts in one transaction.
+   *
+   * @param newOwners the data to create the new owners from
+   * @return the newly created owners, with their generated ids, in the order of {@code newOwners}
+   */
+  List<Owner> createAll(List<OwnerCreateDto> newOwners);
+
+  /**
+   * Pass all owners stored in the persistent data store to an action, ordered by ID.
+   * The owners are read with a forward-only cursor in chunks while the action runs, so they are never all held in memory.
+   *
+   * @param action called with each owner
+   */
+  void exportAll(Consumer<Owner> action);
 }
@@ -0,0 +1,55 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+import at.ac.tuwien.sepm.assignment.individual.entity.Owner;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Resident prefix index of owner names and emails.
+ * Holds the full name, last name and email of every stored owner in memory, so that suggestions for a typed prefix
+ * can be answered without querying the persistent data store.
+ * The index is kept in sync by the {@link OwnerDao} on every write.
+ */
+public interface OwnerSuggestIndex {
+
+  /**
+   * Discard the current index and load all owners from the persistent data store.
+   */
+  void rebuild();
+
+  /**
+   * Get the ids of the owners whose full name, last name or email start with a prefix, ignoring case and repeated whitespace.
+   * The owners are ordered by their matching name or email.
+   *
+   * @param prefix the typed prefix
+   * @param limit  the maximum amount of owners to return
+   * @return the ids of the first matching owners, empty if the prefix is blank
+   */
+  List<Long> suggest(String prefix, int limit);
+
+  /**
+   * Insert an owner into the index.
+   *
+   * @param ownerId   the id of the owner
+   * @param firstName the first name of the owner
+   * @param lastName  the last name of the owner
+   * @param email     the email of the owner, or null if not set
+   */
+  void put(long ownerId, String firstName, String lastName, String email);
+
+  /**
+   * Insert several owners into the index at once.
+   * Their keys are sorted and merged with the indexed ones in one pass, instead of inserting them one by one.
+   *
+   * @param owners the owners to insert
+   */
+  void putAll(Collection<Owner> owners);
+
+  /**
+   * Get the amount of indexed owners.
+   *
+   * @return the amount of owners known to the index
+   */
+  int size();
+}
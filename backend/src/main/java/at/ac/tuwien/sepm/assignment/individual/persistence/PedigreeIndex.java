@@ -0,0 +1,103 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
+import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Resident index of the pedigree graph.
+ * Holds the parent and child references of every stored horse in memory, so that family tree queries
+ * can be answered without walking the graph in the persistent data store.
+ * The index is kept in sync by the {@link HorseDao} on every write.
+ * Changes made inside a transaction only become visible once it commits, and are dropped if it rolls back.
+ */
+public interface PedigreeIndex {
+
+  /**
+   * Discard the current index and load all parent references from the persistent data store.
+   */
+  void rebuild();
+
+  /**
+   * Check if a horse is known to the index.
+   *
+   * @param horseId the id of the horse
+   * @return true if the horse is indexed
+   */
+  boolean contains(long horseId);
+
+  /**
+   * Get the ids of all horses that are ancestors of at max the nth generation of a horse.
+   * The root horse itself is included as generation 0.
+   *
+   * @param rootId      the id of the horse with generation 0
+   * @param generations the maximum amount of generation-steps, must not be negative
+   * @return the ids of the root horse and all its ancestors within the generation limit
+   * @throws NotFoundException the root horse is not indexed
+   */
+  Set<Long> getAncestorIds(long rootId, long generations) throws NotFoundException;
+
+  /**
+   * Get the ids of all horses that are descendants of at max the nth generation of a horse,
+   * grouped by the generation in which they are first reached.
+   * Element {@code 0} only contains the root horse, element {@code n} all horses whose closest path to the root has length {@code n}.
+   * The ids within a generation are sorted ascending.
+   *
+   * @param rootId      the id of the horse with generation 0
+   * @param generations the maximum amount of generation-steps, must not be negative
+   * @return the ids of the root horse and all its descendants within the generation limit, by generation
+   * @throws NotFoundException the root horse is not indexed
+   */
+  List<long[]> getDescendantIdsByGeneration(long rootId, long generations) throws NotFoundException;
+
+  /**
+   * Check if other horses reference a horse as father or mother.
+   *
+   * @param horseId the id of the horse
+   * @return false if no horse has this horse as parent, or the horse is not indexed at all
+   */
+  boolean hasChildren(long horseId);
+
+  /**
+   * Insert a horse into the index, or replace its parents if it is already indexed.
+   *
+   * @param horseId  the id of the horse
+   * @param fatherId the id of the horse's father, or null if not set
+   * @param motherId the id of the horse's mother, or null if not set
+   */
+  void put(long horseId, Long fatherId, Long motherId);
+
+  /**
+   * Insert several horses into the index at once, or replace their parents if they are already indexed.
+   * Parents among the horses must precede their children.
+   *
+   * @param horses the horses with their ids and parents
+   */
+  void putAll(Collection<Horse> horses);
+
+  /**
+   * Remove a horse from the index.
+   * Children referencing the horse lose this parent, like the foreign key constraints in the data store do.
+   *
+   * @param horseId the id of the horse to remove
+   */
+  void remove(long horseId);
+
+  /**
+   * Remove several horses from the index at once.
+   * Children referencing one of the horses lose this parent, like the foreign key constraints in the data store do.
+   *
+   * @param horseIds the ids of the horses to remove
+   */
+  void removeAll(Collection<Long> horseIds);
+
+  /**
+   * Get the amount of indexed horses.
+   *
+   * @return the amount of indexed horses
+   */
+  int size();
+}
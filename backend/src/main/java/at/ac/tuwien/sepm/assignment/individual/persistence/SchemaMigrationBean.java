@@ -0,0 +1,135 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Brings the database schema up to date once, when the application starts.
+ * Migrations are the scripts {@code sql/migration/V<version>__<description>.sql} on the classpath.
+ * They are run in the order of their versions, each one only if its version is not yet recorded in the table {@code schema_version}.
+ * Beans accessing the database at startup have to depend on this bean.
+ */
+@Component
+public class SchemaMigrationBean {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final String MIGRATION_LOCATION = "classpath:sql/migration/V*__*.sql";
+  private static final Pattern MIGRATION_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+  private static final String SQL_CREATE_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS schema_version"
+      + " (version INT PRIMARY KEY, description VARCHAR(255) NOT NULL, installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL)";
+  private static final String SQL_SELECT_VERSIONS = "SELECT version FROM schema_version";
+  private static final String SQL_INSERT_VERSION = "INSERT INTO schema_version (version, description) VALUES (?, ?)";
+  private final DataSource dataSource;
+
+  /**
+   * A migration script
+   *
+   * @param version     the version the script migrates to
+   * @param description the description taken from the file name
+   * @param script      the script resource
+   */
+  private record Migration(int version, String description, Resource script) {
+  }
+
+  /**
+   * Executed once when the component is instantiated. Runs all pending migrations.
+   */
+  public SchemaMigrationBean(DataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  @PostConstruct
+  public void migrate() throws SQLException, IOException {
+    var migrations = findMigrations();
+    try (var connection = dataSource.getConnection()) {
+      try (var statement = connection.createStatement()) {
+        statement.execute(SQL_CREATE_VERSION_TABLE);
+      }
+
+      var applied = selectAppliedVersions(connection);
+      var pending = migrations.stream().filter(migration -> !applied.contains(migration.version())).toList();
+      if (pending.isEmpty()) {
+        LOGGER.info("Database schema is up to date at version {}.", applied.stream().max(Integer::compare).orElse(0));
+        return;
+      }
+
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try {
+        for (var migration : pending) {
+          LOGGER.info("Migrating database schema to version {} ({})…", migration.version(), migration.description());
+          ScriptUtils.executeSqlScript(connection, migration.script());
+          try (var statement = connection.prepareStatement(SQL_INSERT_VERSION)) {
+            statement.setInt(1, migration.version());
+            statement.setString(2, migration.description());
+            statement.executeUpdate();
+          }
+          connection.commit();
+        }
+      } catch (RuntimeException | SQLException ex) {
+        connection.rollback();
+        throw ex;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+      LOGGER.info("Finished migrating database schema without error.");
+    }
+  }
+
+  /**
+   * finds the migration scripts on the classpath
+   *
+   * @return the migrations, ordered by version
+   * @throws IOException the classpath could not be searched
+   */
+  private List<Migration> findMigrations() throws IOException {
+    var resources = new PathMatchingResourcePatternResolver().getResources(MIGRATION_LOCATION);
+    var migrations = Stream.of(resources)
+        .map(resource -> {
+          Matcher matcher = MIGRATION_NAME.matcher(resource.getFilename() == null ? "" : resource.getFilename());
+          if (!matcher.matches()) {
+            throw new IllegalStateException("Invalid migration script name " + resource.getFilename());
+          }
+          return new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '), resource);
+        })
+        .sorted(Comparator.comparingInt(Migration::version))
+        .toList();
+
+    for (int i = 1; i < migrations.size(); i++) {
+      if (migrations.get(i).version() == migrations.get(i - 1).version()) {
+        throw new IllegalStateException("Duplicate migration version " + migrations.get(i).version());
+      }
+    }
+
+    return migrations;
+  }
+
+  private Set<Integer> selectAppliedVersions(Connection connection) throws SQLException {
+    Set<Integer> versions = new HashSet<>();
+    try (var statement = connection.createStatement();
+         var result = statement.executeQuery(SQL_SELECT_VERSIONS)) {
+      while (result.next()) {
+        versions.add(result.getInt(1));
+      }
+    }
+    return versions;
+  }
+}
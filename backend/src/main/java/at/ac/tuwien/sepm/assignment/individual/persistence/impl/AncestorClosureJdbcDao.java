@@ -0,0 +1,460 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence.impl;
+
+import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
+import at.ac.tuwien.sepm.assignment.individual.exception.FatalException;
+import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepm.assignment.individual.persistence.AncestorClosureDao;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Implementation of ancestor closure persistence management compliant to {@link AncestorClosureDao}.
+ * Paths are maintained by counting: adding or removing an edge adds or subtracts the product of the path counts
+ * of all paths that end at the child and all paths that start at the parent.
+ * Writes that happen while the closure is unavailable skip the maintenance, but are counted until their transaction completes,
+ * so the closure is only made available once it was checked against all of them.
+ */
+@Repository
+public class AncestorClosureJdbcDao implements AncestorClosureDao {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final String TABLE_NAME = "ancestor_closure";
+  private static final int BATCH_SIZE = 1000;
+  private static final int MAX_REBUILD_ATTEMPTS = 3;
+  private static final long WRITES_POLL_MILLIS = 10;
+  private static final String SQL_SELECT_ANCESTORS = "SELECT DISTINCT ancestor_id FROM " + TABLE_NAME
+      + " WHERE descendant_id = ? AND depth <= ?";
+  private static final String SQL_SELECT_DESCENDANTS = "SELECT descendant_id, MIN(depth) AS generation FROM " + TABLE_NAME
+      + " WHERE ancestor_id = ? AND depth <= ?"
+      + " GROUP BY descendant_id ORDER BY generation, descendant_id";
+  private static final String SQL_IS_ANCESTOR = "SELECT EXISTS (SELECT 1 FROM " + TABLE_NAME
+      + " WHERE descendant_id = ? AND ancestor_id = ? AND depth > 0)";
+  // paths longer than the closure pass an ancestor at the maximum depth, so they are followed from there through the parent references
+  private static final String SQL_IS_ANCESTOR_BEYOND_MAX_DEPTH = "WITH RECURSIVE beyond (id) AS ("
+      + " SELECT ancestor_id FROM " + TABLE_NAME + " WHERE descendant_id = ? AND depth = ?"
+      + " UNION"
+      + " SELECT p.id FROM beyond b"
+      + " JOIN horse c ON c.id = b.id"
+      + " JOIN horse p ON p.id = c.father_id OR p.id = c.mother_id)"
+      + " SELECT EXISTS (SELECT 1 FROM beyond WHERE id = ?)";
+  private static final String SQL_INSERT_HORSE = "INSERT INTO " + TABLE_NAME + " (descendant_id, ancestor_id, depth, path_count)"
+      + " SELECT CAST(? AS BIGINT), CAST(? AS BIGINT), 0, 1"
+      + " UNION ALL"
+      + " SELECT ?, ancestor_id, depth + 1, SUM(path_count)"
+      + " FROM " + TABLE_NAME
+      + " WHERE descendant_id IN (?, ?) AND depth < ?"
+      + " GROUP BY ancestor_id, depth";
+  // all paths from descendants of the child (d) to ancestors of the parent (a) over the edge child -> parent
+  private static final String SQL_PATHS_OVER_EDGE = "SELECT d.descendant_id, a.ancestor_id, d.depth + a.depth + 1 AS depth,"
+      + " SUM(d.path_count * a.path_count) AS path_count"
+      + " FROM " + TABLE_NAME + " d JOIN " + TABLE_NAME + " a ON a.descendant_id = ?"
+      + " WHERE d.ancestor_id = ? AND d.depth + a.depth + 1 <= ?"
+      + " GROUP BY d.descendant_id, a.ancestor_id, d.depth + a.depth + 1";
+  // all paths from descendants of the horse (d) to ancestors of the horse (a), including those starting or ending at it
+  private static final String SQL_PATHS_OVER_HORSE = "SELECT d.descendant_id, a.ancestor_id, d.depth + a.depth AS depth,"
+      + " SUM(d.path_count * a.path_count) AS path_count"
+      + " FROM " + TABLE_NAME + " d JOIN " + TABLE_NAME + " a ON a.descendant_id = ?"
+      + " WHERE d.ancestor_id = ? AND d.depth + a.depth <= ?"
+      + " GROUP BY d.descendant_id, a.ancestor_id, d.depth + a.depth";
+  private static final String SQL_MERGE_ON = " s ON (t.descendant_id = s.descendant_id AND t.ancestor_id = s.ancestor_id AND t.depth = s.depth)";
+  private static final String SQL_ADD_PATHS = "MERGE INTO " + TABLE_NAME + " t USING (" + SQL_PATHS_OVER_EDGE + ")" + SQL_MERGE_ON
+      + " WHEN MATCHED THEN UPDATE SET path_count = t.path_count + s.path_count"
+      + " WHEN NOT MATCHED THEN INSERT (descendant_id, ancestor_id, depth, path_count)"
+      + " VALUES (s.descendant_id, s.ancestor_id, s.depth, s.path_count)";
+  private static final String SQL_SUBTRACT_PATHS = " WHEN MATCHED AND t.path_count = s.path_count THEN DELETE"
+      + " WHEN MATCHED THEN UPDATE SET path_count = t.path_count - s.path_count";
+  private static final String SQL_REMOVE_EDGE_PATHS = "MERGE INTO " + TABLE_NAME + " t USING (" + SQL_PATHS_OVER_EDGE + ")" + SQL_MERGE_ON
+      + SQL_SUBTRACT_PATHS;
+  private static final String SQL_REMOVE_HORSE_PATHS = "MERGE INTO " + TABLE_NAME + " t USING (" + SQL_PATHS_OVER_HORSE + ")" + SQL_MERGE_ON
+      + SQL_SUBTRACT_PATHS;
+  private static final String SQL_EDGES = "SELECT * FROM (SELECT id AS descendant_id, id AS ancestor_id, 0 AS depth FROM horse"
+      + " UNION ALL SELECT id, father_id, 1 FROM horse WHERE father_id IS NOT NULL"
+      + " UNION ALL SELECT id, mother_id, 1 FROM horse WHERE mother_id IS NOT NULL) edges";
+  private static final String SQL_CLOSURE_EDGES = "SELECT descendant_id, ancestor_id, depth FROM " + TABLE_NAME + " WHERE depth <= 1";
+  private static final String SQL_COUNT_INCONSISTENT_EDGES = "SELECT"
+      + " (SELECT COUNT(*) FROM (" + SQL_EDGES + " EXCEPT " + SQL_CLOSURE_EDGES + ") missing)"
+      + " + (SELECT COUNT(*) FROM (" + SQL_CLOSURE_EDGES + " EXCEPT " + SQL_EDGES + ") surplus)";
+  private static final String SQL_DELETE_ALL = "DELETE FROM " + TABLE_NAME;
+  private static final String SQL_SELECT_PARENTS = "SELECT id, father_id, mother_id FROM horse";
+  private final JdbcTemplate jdbcTemplate;
+  private final int maxDepth;
+  private final AtomicBoolean available = new AtomicBoolean();
+  // writes that called a maintenance method and whose transaction is not completed yet
+  private final AtomicInteger writesInFlight = new AtomicInteger();
+
+  public AncestorClosureJdbcDao(JdbcTemplate jdbcTemplate, @Value("${horse.closure.max-depth:12}") int maxDepth) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.maxDepth = Math.max(1, maxDepth);
+  }
+
+  @Override
+  public int maxDepth() {
+    return maxDepth;
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return available.get();
+  }
+
+  @Override
+  public Set<Long> getAncestorIds(long rootId, long generations) throws NotFoundException {
+    LOG.trace("getAncestorIds({}, {})", rootId, generations);
+
+    return selectIds(SQL_SELECT_ANCESTORS, rootId, generations);
+  }
+
+  @Override
+  public List<long[]> getDescendantIdsByGeneration(long rootId, long generations) throws NotFoundException {
+    LOG.trace("getDescendantIdsByGeneration({}, {})", rootId, generations);
+
+    List<long[]> byGeneration = new ArrayList<>();
+    var ids = new ArrayList<Long>();
+    try {
+      // the rows are ordered by generation, so each generation is collected once the next one starts
+      jdbcTemplate.query(SQL_SELECT_DESCENDANTS, (RowCallbackHandler) result -> {
+        int generation = result.getInt("generation");
+        while (byGeneration.size() < generation) {
+          byGeneration.add(ids.stream().mapToLong(Long::longValue).toArray());
+          ids.clear();
+        }
+        ids.add(result.getLong("descendant_id"));
+      }, rootId, generations);
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+
+    if (ids.isEmpty()) {
+      throw new NotFoundException("No horse with ID %d found".formatted(rootId));
+    }
+    byGeneration.add(ids.stream().mapToLong(Long::longValue).toArray());
+    return byGeneration;
+  }
+
+  @Override
+  public boolean isAncestor(long ancestorId, long descendantId) {
+    LOG.trace("isAncestor({}, {})", ancestorId, descendantId);
+
+    try {
+      return Boolean.TRUE.equals(jdbcTemplate.queryForObject(SQL_IS_ANCESTOR, Boolean.class, descendantId, ancestorId))
+          || Boolean.TRUE.equals(jdbcTemplate.queryForObject(SQL_IS_ANCESTOR_BEYOND_MAX_DEPTH, Boolean.class, descendantId, maxDepth, ancestorId));
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+  }
+
+  @Override
+  public void addHorse(long horseId, Long fatherId, Long motherId) {
+    LOG.trace("addHorse({}, {}, {})", horseId, fatherId, motherId);
+    if (!maintains()) {
+      return;
+    }
+
+    try {
+      jdbcTemplate.update(SQL_INSERT_HORSE, horseId, horseId, horseId, fatherId, motherId, maxDepth);
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+  }
+
+  @Override
+  public void addHorses(List<Horse> horses) {
+    LOG.trace("addHorses({})", horses.size());
+    if (!maintains()) {
+      return;
+    }
+
+    try {
+      jdbcTemplate.batchUpdate(SQL_INSERT_HORSE, horses, BATCH_SIZE, (statement, horse) -> {
+        statement.setLong(1, horse.getId());
+        statement.setLong(2, horse.getId());
+        statement.setLong(3, horse.getId());
+        statement.setObject(4, horse.getFatherId());
+        statement.setObject(5, horse.getMotherId());
+        statement.setInt(6, maxDepth);
+      });
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+  }
+
+  @Override
+  public void changeParents(long horseId, Long oldFatherId, Long oldMotherId, Long newFatherId, Long newMotherId) {
+    LOG.trace("changeParents({}, {}, {}, {}, {})", horseId, oldFatherId, oldMotherId, newFatherId, newMotherId);
+    if (!maintains()) {
+      return;
+    }
+
+    try {
+      if (!Objects.equals(oldFatherId, newFatherId)) {
+        replaceEdge(horseId, oldFatherId, newFatherId);
+      }
+      if (!Objects.equals(oldMotherId, newMotherId)) {
+        replaceEdge(horseId, oldMotherId, newMotherId);
+      }
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+  }
+
+  @Override
+  public void removeHorse(long horseId) {
+    LOG.trace("removeHorse({})", horseId);
+    if (!maintains()) {
+      return;
+    }
+
+    try {
+      jdbcTemplate.update(SQL_REMOVE_HORSE_PATHS, horseId, horseId, maxDepth);
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+  }
+
+  @Override
+  public void removeHorses(Collection<Long> horseIds) {
+    LOG.trace("removeHorses({})", horseIds.size());
+    if (!maintains()) {
+      return;
+    }
+
+    try {
+      // each removal subtracts the paths left by the previous ones, so the batch is run in order
+      jdbcTemplate.batchUpdate(SQL_REMOVE_HORSE_PATHS, horseIds, BATCH_SIZE, (statement, horseId) -> {
+        statement.setLong(1, horseId);
+        statement.setLong(2, horseId);
+        statement.setInt(3, maxDepth);
+      });
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+  }
+
+  @Override
+  public boolean isConsistent() {
+    LOG.trace("isConsistent()");
+
+    Long inconsistent;
+    try {
+      inconsistent = jdbcTemplate.queryForObject(SQL_COUNT_INCONSISTENT_EDGES, Long.class);
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+
+    return inconsistent != null && inconsistent == 0;
+  }
+
+  @Override
+  public boolean makeAvailableIfConsistent() {
+    LOG.trace("makeAvailableIfConsistent()");
+
+    // writes from now on maintain the closure, the ones that skipped it before are awaited so that the check sees them
+    available.set(true);
+    awaitWritesInFlight();
+    if (isConsistent()) {
+      return true;
+    }
+    available.set(false);
+    return false;
+  }
+
+  @Override
+  public boolean rebuild() {
+    LOG.trace("rebuild()");
+
+    // writes that are still maintaining the old closure are awaited, so their paths do not end up in the rebuilt one
+    available.set(false);
+    awaitWritesInFlight();
+    for (int attempt = 1; attempt <= MAX_REBUILD_ATTEMPTS; attempt++) {
+      rebuildByGeneration();
+      if (makeAvailableIfConsistent()) {
+        return true;
+      }
+      LOG.info("Horses changed while the ancestor closure was rebuilt, rebuilding it again");
+    }
+    LOG.warn("Ancestor closure is still inconsistent after {} rebuilds and stays unavailable", MAX_REBUILD_ATTEMPTS);
+    return false;
+  }
+
+  /**
+   * discards the closure and inserts the paths of all horses, generation by generation,
+   * in batches that are committed one by one
+   */
+  private void rebuildByGeneration() {
+    List<Long[]> horses;
+    try {
+      jdbcTemplate.update(SQL_DELETE_ALL);
+      horses = jdbcTemplate.query(SQL_SELECT_PARENTS, (result, rownum) -> new Long[] {
+          result.getLong("id"),
+          result.getObject("father_id", Long.class),
+          result.getObject("mother_id", Long.class)
+      });
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+
+    // insert parents before their children, since a horse's paths are derived from its parents' paths
+    Map<Long, List<Long[]>> waitingChildren = new HashMap<>();
+    Map<Long, Integer> remainingParents = new HashMap<>();
+    Set<Long> ids = new HashSet<>();
+    horses.forEach(horse -> ids.add(horse[0]));
+    List<Long[]> generation = new ArrayList<>();
+    for (var horse : horses) {
+      int pending = 0;
+      for (int parent = 1; parent <= 2; parent++) {
+        if (horse[parent] != null && ids.contains(horse[parent])) {
+          waitingChildren.computeIfAbsent(horse[parent], id -> new ArrayList<>()).add(horse);
+          pending++;
+        }
+      }
+      if (pending == 0) {
+        generation.add(horse);
+      } else {
+        remainingParents.put(horse[0], pending);
+      }
+    }
+
+    int inserted = 0;
+    int generations = 0;
+    var batch = new ArrayList<Object[]>(BATCH_SIZE);
+    while (!generation.isEmpty()) {
+      List<Long[]> next = new ArrayList<>();
+      for (var horse : generation) {
+        batch.add(new Object[] {horse[0], horse[0], horse[0], horse[1], horse[2], maxDepth});
+        if (batch.size() == BATCH_SIZE) {
+          insertBatch(batch);
+        }
+
+        // a horse that is both father and mother of the child is waited for twice, so it releases the child on its second entry
+        for (var child : waitingChildren.getOrDefault(horse[0], List.of())) {
+          if (remainingParents.merge(child[0], -1, Integer::sum) == 0) {
+            next.add(child);
+          }
+        }
+      }
+      insertBatch(batch);
+      inserted += generation.size();
+      generations++;
+      LOG.debug("Ancestor closure rebuilt for generation {} with {} horses", generations, generation.size());
+      generation = next;
+    }
+
+    if (inserted < horses.size()) {
+      LOG.warn("Ancestor closure skipped {} horses, whose parent references form a cycle", horses.size() - inserted);
+    }
+    LOG.info("Ancestor closure rebuilt for {} horses in {} generations", inserted, generations);
+  }
+
+  /**
+   * counts a write that calls a maintenance method until its transaction is completed
+   *
+   * @return true if the write has to maintain the closure, false if the closure is unavailable
+   */
+  private boolean maintains() {
+    // counted before the availability is read, so a write that reads it as unavailable is always awaited by the check
+    writesInFlight.incrementAndGet();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          writesInFlight.decrementAndGet();
+        }
+      });
+      return available.get();
+    }
+    // without a transaction the horse write is already committed
+    boolean maintains = available.get();
+    writesInFlight.decrementAndGet();
+    return maintains;
+  }
+
+  /**
+   * waits until all counted writes are completed
+   */
+  private void awaitWritesInFlight() {
+    try {
+      while (writesInFlight.get() > 0) {
+        Thread.sleep(WRITES_POLL_MILLIS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new FatalException("Interrupted while waiting for horse writes to complete", e);
+    }
+  }
+
+  /**
+   * replaces the edge from a horse to one of its parents
+   *
+   * @param horseId     the child horse
+   * @param oldParentId the previous parent, or null
+   * @param newParentId the new parent, or null
+   */
+  private void replaceEdge(long horseId, Long oldParentId, Long newParentId) {
+    if (oldParentId != null) {
+      jdbcTemplate.update(SQL_REMOVE_EDGE_PATHS, oldParentId, horseId, maxDepth);
+    }
+    if (newParentId != null) {
+      jdbcTemplate.update(SQL_ADD_PATHS, newParentId, horseId, maxDepth);
+    }
+  }
+
+  /**
+   * selects the distinct horse ids of a closure lookup
+   *
+   * @param sql         the lookup
+   * @param rootId      the root horse
+   * @param generations the maximum depth
+   * @return the found ids, including the root
+   * @throws NotFoundException the root has no closure entries
+   */
+  private Set<Long> selectIds(String sql, long rootId, long generations) throws NotFoundException {
+    List<Long> ids;
+    try {
+      ids = jdbcTemplate.queryForList(sql, Long.class, rootId, generations);
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+
+    if (ids.isEmpty()) {
+      throw new NotFoundException("No horse with ID %d found".formatted(rootId));
+    }
+
+    return new HashSet<>(ids);
+  }
+
+  /**
+   * inserts and commits the paths of a batch of horses, whose parents are already inserted
+   *
+   * @param batch the statement arguments, cleared afterwards
+   */
+  private void insertBatch(List<Object[]> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    try {
+      jdbcTemplate.batchUpdate(SQL_INSERT_HORSE, batch);
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+    batch.clear();
+  }
+}
@@ -0,0 +1,99 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Bloom filter over {@code long} keys, with its bits in one {@code long} array.
+ * The bit positions of a key are derived from the two halves of one mixed 64 bit hash of it (double hashing).
+ * Bits are only ever set, atomically, so keys can be added while other threads check keys without locking.
+ */
+final class BloomFilter {
+  private final AtomicLongArray words;
+  private final long bits;
+  private final int hashes;
+  private final long capacity;
+  private final LongAdder entries = new LongAdder();
+
+  /**
+   * creates an empty filter, sized for the amount of keys and the false positive rate it should have when it holds them
+   *
+   * @param capacity          the amount of keys to size the filter for
+   * @param falsePositiveRate the probability that an absent key is contained, once the filter holds {@code capacity} keys
+   */
+  BloomFilter(long capacity, double falsePositiveRate) {
+    this.capacity = Math.max(1, capacity);
+    long optimalBits = (long) Math.ceil(-this.capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    this.words = new AtomicLongArray((int) Math.max(1, (optimalBits + Long.SIZE - 1) / Long.SIZE));
+    this.bits = (long) words.length() * Long.SIZE;
+    this.hashes = Math.max(1, (int) Math.round((double) bits / this.capacity * Math.log(2)));
+  }
+
+  void put(long key) {
+    long hash = mix(key);
+    long first = hash & 0xFFFFFFFFL;
+    long second = hash >>> 32;
+    for (int i = 0; i < hashes; i++) {
+      long bit = (first + i * second) % bits;
+      long mask = 1L << bit;
+      int word = (int) (bit >>> 6);
+      if ((words.get(word) & mask) == 0) {
+        words.getAndAccumulate(word, mask, (current, set) -> current | set);
+      }
+    }
+    entries.increment();
+  }
+
+  boolean mightContain(long key) {
+    long hash = mix(key);
+    long first = hash & 0xFFFFFFFFL;
+    long second = hash >>> 32;
+    for (int i = 0; i < hashes; i++) {
+      long bit = (first + i * second) % bits;
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  long entries() {
+    return entries.sum();
+  }
+
+  long capacity() {
+    return capacity;
+  }
+
+  int hashes() {
+    return hashes;
+  }
+
+  long memoryBytes() {
+    return (long) words.length() * Long.BYTES;
+  }
+
+  /**
+   * computes the probability that an absent key is contained, which is the probability that all its bits are set
+   */
+  double expectedFalsePositiveRate() {
+    long set = 0;
+    for (int i = 0; i < words.length(); i++) {
+      set += Long.bitCount(words.get(i));
+    }
+    return Math.pow((double) set / bits, hashes);
+  }
+
+  /**
+   * spreads the bits of a key over the whole hash, so neighbouring ids set unrelated bits (the finalizer of MurmurHash3)
+   */
+  private static long mix(long key) {
+    long hash = key;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
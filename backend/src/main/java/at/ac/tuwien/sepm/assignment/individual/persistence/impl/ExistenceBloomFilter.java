@@ -0,0 +1,346 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence.impl;
+
+import at.ac.tuwien.sepm.assignment.individual.exception.FatalException;
+import at.ac.tuwien.sepm.assignment.individual.persistence.ExistenceFilter;
+import at.ac.tuwien.sepm.assignment.individual.persistence.ExistenceFilterStats;
+
+import java.lang.invoke.MethodHandles;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Implementation of the existence filter compliant to {@link ExistenceFilter}.
+ * Each filter is sized for twice the stored values with a false positive rate of 1%, which takes about 2.4 bytes per stored value.
+ * When it is rebuilt, values inserted meanwhile and values of uncommitted transactions are added to the new filter as well,
+ * so a value that is stored is never missing from the filter.
+ * The statistics of both filters are exposed as attributes of a JMX MBean.
+ */
+@Component
+@ManagedResource(description = "Bloom filters over owner emails and horse ids")
+public class ExistenceBloomFilter implements ExistenceFilter {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final double FALSE_POSITIVE_RATE = 0.01;
+  private static final long MIN_CAPACITY = 1024;
+  private static final int REBUILD_DELETED_RATIO = 5;
+  private final JdbcTemplate jdbcTemplate;
+  private final Guard emails;
+  private final Guard horses;
+
+  public ExistenceBloomFilter(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.emails = new Guard("owner email", "SELECT COUNT(email) FROM owner", "SELECT email FROM owner WHERE email IS NOT NULL",
+        result -> hash(result.getString(1)));
+    this.horses = new Guard("horse id", "SELECT COUNT(*) FROM horse", "SELECT id FROM horse",
+        result -> result.getLong(1));
+  }
+
+  /**
+   * Loads the filters once the application context is ready,
+   * which is after the test data has been generated or cleaned.
+   */
+  @EventListener(ContextRefreshedEvent.class)
+  public void onContextRefreshed() {
+    rebuild();
+  }
+
+  @Override
+  public void rebuild() {
+    LOG.trace("rebuild()");
+
+    emails.rebuild();
+    horses.rebuild();
+  }
+
+  @Override
+  public boolean mightContainEmail(String email) {
+    LOG.trace("mightContainEmail({})", email);
+
+    return emails.mightContain(hash(email));
+  }
+
+  @Override
+  public boolean mightContainHorse(long horseId) {
+    LOG.trace("mightContainHorse({})", horseId);
+
+    return horses.mightContain(horseId);
+  }
+
+  @Override
+  public void putEmails(Collection<String> newEmails) {
+    LOG.trace("putEmails({})", newEmails.size());
+
+    emails.putAll(newEmails.stream().filter(Objects::nonNull).map(ExistenceBloomFilter::hash).toList());
+  }
+
+  @Override
+  public void putHorses(Collection<Long> horseIds) {
+    LOG.trace("putHorses({})", horseIds.size());
+
+    horses.putAll(horseIds);
+  }
+
+  @Override
+  public void removeHorses(Collection<Long> horseIds) {
+    LOG.trace("removeHorses({})", horseIds.size());
+
+    horses.removed(horseIds.size());
+  }
+
+  @Override
+  public void reportEmailFalsePositives(int count) {
+    emails.falsePositives.add(count);
+  }
+
+  @Override
+  public void reportHorseFalsePositives(int count) {
+    horses.falsePositives.add(count);
+  }
+
+  @Override
+  public ExistenceFilterStats emailStats() {
+    return emails.stats();
+  }
+
+  @Override
+  public ExistenceFilterStats horseStats() {
+    return horses.stats();
+  }
+
+  @ManagedAttribute(description = "Owner emails added to the filter")
+  public long getEmailEntries() {
+    return emailStats().entries();
+  }
+
+  @ManagedAttribute(description = "Size of the owner email filter in bytes")
+  public long getEmailMemoryBytes() {
+    return emailStats().memoryBytes();
+  }
+
+  @ManagedAttribute(description = "False positive rate of the owner email filter, computed from its set bits")
+  public double getEmailExpectedFalsePositiveRate() {
+    return emailStats().expectedFalsePositiveRate();
+  }
+
+  @ManagedAttribute(description = "False positive rate of the owner email filter, measured on the checked absent emails")
+  public double getEmailObservedFalsePositiveRate() {
+    return emailStats().observedFalsePositiveRate();
+  }
+
+  @ManagedAttribute(description = "Checked owner emails the filter ruled out without a query")
+  public long getEmailDefiniteMisses() {
+    return emailStats().definiteMisses();
+  }
+
+  @ManagedAttribute(description = "Horse ids added to the filter")
+  public long getHorseEntries() {
+    return horseStats().entries();
+  }
+
+  @ManagedAttribute(description = "Size of the horse id filter in bytes")
+  public long getHorseMemoryBytes() {
+    return horseStats().memoryBytes();
+  }
+
+  @ManagedAttribute(description = "False positive rate of the horse id filter, computed from its set bits")
+  public double getHorseExpectedFalsePositiveRate() {
+    return horseStats().expectedFalsePositiveRate();
+  }
+
+  @ManagedAttribute(description = "False positive rate of the horse id filter, measured on the checked absent ids")
+  public double getHorseObservedFalsePositiveRate() {
+    return horseStats().observedFalsePositiveRate();
+  }
+
+  @ManagedAttribute(description = "Checked horse ids the filter ruled out without a query")
+  public long getHorseDefiniteMisses() {
+    return horseStats().definiteMisses();
+  }
+
+  /**
+   * hashes an email to a filter key, as emails are compared exactly by the unique constraint of the owner table
+   *
+   * @param email the email, not null
+   * @return the 64 bit FNV-1a hash of the characters of the email
+   */
+  private static long hash(String email) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < email.length(); i++) {
+      hash ^= email.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  /**
+   * Reads the filter key of a stored value from a result row
+   */
+  @FunctionalInterface
+  private interface KeyReader {
+    long read(ResultSet result) throws SQLException;
+  }
+
+  /**
+   * The Bloom filter over one kind of stored values, with its statistics
+   */
+  private final class Guard {
+    private final String name;
+    private final String sqlCount;
+    private final String sqlSelect;
+    private final KeyReader keyReader;
+    // puts hold the read lock, swapping the filter of a rebuild the write lock, so no put is missed by both filters
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<Long> uncommitted = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final AtomicLong removed = new AtomicLong();
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder definiteMisses = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private volatile boolean loaded = false;
+    private volatile BloomFilter filter = new BloomFilter(MIN_CAPACITY, FALSE_POSITIVE_RATE);
+    private BloomFilter next;
+
+    private Guard(String name, String sqlCount, String sqlSelect, KeyReader keyReader) {
+      this.name = name;
+      this.sqlCount = sqlCount;
+      this.sqlSelect = sqlSelect;
+      this.keyReader = keyReader;
+    }
+
+    private boolean mightContain(long key) {
+      ensureLoaded();
+      checks.increment();
+      if (filter.mightContain(key)) {
+        return true;
+      }
+      definiteMisses.increment();
+      return false;
+    }
+
+    private void putAll(Collection<Long> keys) {
+      lock.readLock().lock();
+      try {
+        var current = filter;
+        keys.forEach(current::put);
+        if (next != null) {
+          keys.forEach(next::put);
+        }
+        // a rebuild does not see the values of uncommitted transactions, so they are added to the rebuilt filter explicitly
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+          uncommitted.addAll(keys);
+          TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              uncommitted.removeAll(keys);
+            }
+          });
+        }
+      } finally {
+        lock.readLock().unlock();
+      }
+
+      if (filter.entries() > filter.capacity()) {
+        scheduleRebuild();
+      }
+    }
+
+    private void removed(int count) {
+      if (removed.addAndGet(count) * REBUILD_DELETED_RATIO > Math.max(MIN_CAPACITY, filter.entries())) {
+        scheduleRebuild();
+      }
+    }
+
+    /**
+     * rebuilds the filter once the current transaction is completed, or right away if there is none,
+     * so the rebuild does not see values of the transaction that might be rolled back
+     */
+    private void scheduleRebuild() {
+      if (!rebuildScheduled.compareAndSet(false, true)) {
+        return;
+      }
+      if (TransactionSynchronizationManager.isSynchronizationActive()) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            rebuild();
+          }
+        });
+      } else {
+        rebuild();
+      }
+    }
+
+    private synchronized void rebuild() {
+      try {
+        Long count = jdbcTemplate.queryForObject(sqlCount, Long.class);
+        var rebuilt = new BloomFilter(Math.max(MIN_CAPACITY, 2 * (count == null ? 0 : count)), FALSE_POSITIVE_RATE);
+        lock.writeLock().lock();
+        try {
+          next = rebuilt;
+          uncommitted.forEach(rebuilt::put);
+        } finally {
+          lock.writeLock().unlock();
+        }
+
+        jdbcTemplate.query(sqlSelect, (RowCallbackHandler) result -> rebuilt.put(keyReader.read(result)));
+
+        lock.writeLock().lock();
+        try {
+          filter = rebuilt;
+          next = null;
+        } finally {
+          lock.writeLock().unlock();
+        }
+        removed.set(0);
+        loaded = true;
+      } catch (DataAccessException ex) {
+        throw new FatalException("The database query errored", ex);
+      } finally {
+        rebuildScheduled.set(false);
+      }
+
+      LOG.info("Existence filter of {} loaded with {} entries in {} bytes", name, filter.entries(), filter.memoryBytes());
+    }
+
+    /**
+     * Loads the filter if a request arrives before the context refresh event has been handled.
+     */
+    private void ensureLoaded() {
+      if (!loaded) {
+        synchronized (this) {
+          if (!loaded) {
+            rebuild();
+          }
+        }
+      }
+    }
+
+    private ExistenceFilterStats stats() {
+      ensureLoaded();
+      var current = filter;
+      return new ExistenceFilterStats(current.entries(), current.capacity(), current.memoryBytes(), current.hashes(),
+          current.expectedFalsePositiveRate(), checks.sum(), definiteMisses.sum(), falsePositives.sum());
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence.impl;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseFacetsDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache of the facets of the most recently requested horse searches.
+ * All entries are dropped when horses change. Facets that were being counted while horses changed are not cached,
+ * as they may have been counted from the data before the change.
+ */
+final class HorseFacetCache {
+  private final int capacity;
+  // access ordered, so the least recently used search is dropped first
+  private final Map<HorseSearchDto, HorseFacetsDto> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long generation;
+
+  /**
+   * Creates an empty cache
+   *
+   * @param capacity the maximum amount of searches to keep the facets of
+   */
+  HorseFacetCache(int capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * Returns the cached facets of a search, or counts and caches them
+   *
+   * @param search  the normalized search
+   * @param counter counts the facets of the search
+   * @return the facets of the search
+   */
+  HorseFacetsDto get(HorseSearchDto search, Supplier<HorseFacetsDto> counter) {
+    long countedGeneration;
+    synchronized (this) {
+      var cached = entries.get(search);
+      if (cached != null) {
+        return cached;
+      }
+      countedGeneration = generation;
+    }
+
+    var facets = counter.get();
+    synchronized (this) {
+      if (countedGeneration == generation) {
+        entries.put(search, facets);
+        if (entries.size() > capacity) {
+          entries.remove(entries.keySet().iterator().next());
+        }
+      }
+    }
+    return facets;
+  }
+
+  /**
+   * Drops all cached facets, because horses changed.
+   * Within a transaction, the facets are dropped again when it completes,
+   * since searches counted before the commit still see the horses as they were.
+   */
+  void invalidate() {
+    clear();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          clear();
+        }
+      });
+    }
+  }
+
+  private synchronized void clear() {
+    generation++;
+    entries.clear();
+  }
+}
@@ -1,12 +1,31 @@
 package at.ac.tuwien.sepm.assignment.individual.persistence.impl;
 
+import at.ac.tuwien.sepm.assignment.individual.dto.FacetBucketDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseChildDetailDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDeleteReportDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseFacetsDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseParentCandidateSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorsePatchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchCursor;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerDto;
 import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
 import at.ac.tuwien.sepm.assignment.individual.exception.FatalException;
 import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepm.assignment.individual.persistence.AncestorClosureDao;
+import at.ac.tuwien.sepm.assignment.individual.persistence.AncestorQueryStrategy;
+import at.ac.tuwien.sepm.assignment.individual.persistence.ExistenceFilter;
 import at.ac.tuwien.sepm.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseSearchResult;
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseValidationContext;
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseTokenDao;
+import at.ac.tuwien.sepm.assignment.individual.persistence.PedigreeIndex;
+import at.ac.tuwien.sepm.assignment.individual.type.HorseField;
+import at.ac.tuwien.sepm.assignment.individual.type.HorseSort;
+import at.ac.tuwien.sepm.assignment.individual.type.MatchMode;
+import at.ac.tuwien.sepm.assignment.individual.type.SearchMode;
 import at.ac.tuwien.sepm.assignment.individual.type.Sex;
 
 import java.lang.invoke.MethodHandles;
@@ -14,18 +33,35 @@ import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.function.Function;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Implementation of horse persistence management compliant to {@link HorseDao}
@@ -34,21 +70,51 @@ import org.springframework.stereotype.Repository;
 public class HorseJdbcDao implements HorseDao {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private static final String TABLE_NAME = "horse";
+  private static final int STREAM_FETCH_SIZE = 500;
+  private static final int FACET_CACHE_SIZE = 256;
+  private static final int CREATE_BATCH_SIZE = 1000;
+  private static final int FACET_OWNER_BUCKETS = 20;
   private static final String SQL_SELECT_BY_ID = "SELECT * FROM " + TABLE_NAME + " WHERE id = ?";
-  private static final String SQL_SELECT_BY_PARENT_ID = "SELECT * FROM " + TABLE_NAME + " WHERE father_id = ? OR mother_id = ?";
-  private static final String SQL_GET_NTH_GEN_ANCESTORS = "SELECT *  FROM horse WHERE id IN ("
-      + " WITH ancestors (id, name, mother_id, father_id, generation) AS ("
-      + " SELECT id, name, father_id, mother_id, 0 AS generation"
+  private static final String SQL_SELECT_ALL_BY_ID = "SELECT * FROM " + TABLE_NAME + " WHERE id IN (:ids)";
+  private static final String SQL_SELECT_ALL_BY_ID_ORDERED = SQL_SELECT_ALL_BY_ID + " ORDER BY id";
+  private static final String SQL_EXPORT = "SELECT id, name, description, date_of_birth, sex, owner_id, father_id, mother_id"
+      + " FROM " + TABLE_NAME + " ORDER BY id";
+  private static final String SQL_GET_NTH_GEN_ANCESTORS = "SELECT h.*, g.generation FROM " + TABLE_NAME + " h JOIN ("
+      + " WITH ancestors (id, father_id, mother_id, generation) AS ("
+      + " SELECT id, father_id, mother_id, 0 AS generation"
       + " FROM " + TABLE_NAME
       + " WHERE id = ?"
       + " UNION ALL"
-      + " SELECT h.id, h.name, h.father_id, h.mother_id, a.generation + 1"
+      + " SELECT h.id, h.father_id, h.mother_id, a.generation + 1"
       + " FROM ancestors a"
       + " JOIN horse h ON h.id = a.father_id OR h.id = a.mother_id"
       + " WHERE a.generation < ?)"
-      + " SELECT DISTINCT id"
-      + " FROM ancestors);";
+      + " SELECT id, MIN(generation) AS generation"
+      + " FROM ancestors GROUP BY id) g ON g.id = h.id"
+      + " ORDER BY g.generation, h.id";
+  private static final String SQL_SEARCH_COLUMNS = "h.*, o.first_name AS owner_first_name, o.last_name AS owner_last_name, o.email AS owner_email";
+  private static final String SQL_JOIN_OWNER = " LEFT JOIN owner o ON o.id = h.owner_id";
+  private static final String SQL_SELECT_DETAIL_BY_ID = "SELECT "
+      + detailColumns("h", "ho", "") + ", " + detailColumns("f", "fo", "father_") + ", " + detailColumns("m", "mo", "mother_")
+      + " FROM " + TABLE_NAME + " h LEFT JOIN owner ho ON ho.id = h.owner_id"
+      + " LEFT JOIN " + TABLE_NAME + " f ON f.id = h.father_id LEFT JOIN owner fo ON fo.id = f.owner_id"
+      + " LEFT JOIN " + TABLE_NAME + " m ON m.id = h.mother_id LEFT JOIN owner mo ON mo.id = m.owner_id"
+      + " WHERE h.id = ?";
+  private static final String SQL_SELECT_DETAILS_FOR_UPDATE = "SELECT " + detailColumns("h", "o", "")
+      + " FROM " + TABLE_NAME + " h LEFT JOIN owner o ON o.id = h.owner_id"
+      + " WHERE h.id IN (:ids) FOR UPDATE";
+  private static final String SQL_SELECT_VALIDATION_CONTEXT = "SELECT " + detailColumns("h", "o", "")
+      + ", (EXISTS (SELECT 1 FROM " + TABLE_NAME + " c WHERE c.father_id = h.id)"
+      + " OR EXISTS (SELECT 1 FROM " + TABLE_NAME + " c WHERE c.mother_id = h.id)) AS has_children"
+      + " FROM " + TABLE_NAME + " h LEFT JOIN owner o ON o.id = h.owner_id"
+      + " WHERE h.id IN (:ids) FOR UPDATE";
+  private static final String SQL_SELECT_BY_ID_FOR_UPDATE = SQL_SELECT_BY_ID + " FOR UPDATE";
   private static final String SQL_DELETE = "DELETE FROM " + TABLE_NAME + " WHERE id = ?";
+  private static final String SQL_DELETE_ALL = "SELECT id FROM OLD TABLE (DELETE FROM " + TABLE_NAME + " WHERE id = ANY(?))";
+  private static final String SQL_CLEAR_FATHERS = "SELECT id FROM FINAL TABLE (UPDATE " + TABLE_NAME
+      + " SET father_id = NULL WHERE father_id = ANY(?) AND NOT id = ANY(?))";
+  private static final String SQL_CLEAR_MOTHERS = "SELECT id FROM FINAL TABLE (UPDATE " + TABLE_NAME
+      + " SET mother_id = NULL WHERE mother_id = ANY(?) AND NOT id = ANY(?))";
   private static final String SQL_UPDATE = "UPDATE " + TABLE_NAME
       + " SET name = ?"
       + "  , description = ?"
@@ -63,59 +129,160 @@ public class HorseJdbcDao implements HorseDao {
       + "VALUES(?, ? ,?, ?, ?, ?, ?)";
   private final JdbcTemplate jdbcTemplate;
   private final NamedParameterJdbcTemplate namedJdbcTemplate;
+  private final PedigreeIndex pedigreeIndex;
+  private final ExistenceFilter existenceFilter;
+  private final AncestorClosureDao closureDao;
+  private final HorseTokenDao tokenDao;
+  private final AncestorQueryStrategy ancestorStrategy;
+  private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+  private final HorseFacetCache facetCache = new HorseFacetCache(FACET_CACHE_SIZE);
 
   public HorseJdbcDao(
-      JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate) {
+      JdbcTemplate jdbcTemplate,
+      NamedParameterJdbcTemplate namedJdbcTemplate,
+      PedigreeIndex pedigreeIndex,
+      ExistenceFilter existenceFilter,
+      AncestorClosureDao closureDao,
+      HorseTokenDao tokenDao,
+      @Value("${horse.ancestors.strategy:INDEX}") AncestorQueryStrategy ancestorStrategy) {
     this.jdbcTemplate = jdbcTemplate;
     this.namedJdbcTemplate = namedJdbcTemplate;
+    this.pedigreeIndex = pedigreeIndex;
+    this.existenceFilter = existenceFilter;
+    this.closureDao = closureDao;
+    this.tokenDao = tokenDao;
+    this.ancestorStrategy = ancestorStrategy;
+
+    // streamed results are fetched from the database in chunks, instead of all rows at once
+    var streamingTemplate = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+    streamingTemplate.setFetchSize(STREAM_FETCH_SIZE);
+    this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streamingTemplate);
   }
 
   @Override
   public List<Horse> searchAll(HorseSearchDto searchFilter) {
     LOG.trace("searchAll({})", searchFilter);
 
-    List<Horse> horses;
-    Function<String, String> like = str -> "%" + str.toLowerCase() + "%";
+    var query = searchQuery(searchFilter, searchFilter.limit());
+    if (query == null) {
+      return Collections.emptyList();
+    }
 
-    var sqlParams = new MapSqlParameterSource();
-    String sql = "SELECT * FROM " + TABLE_NAME + " WHERE 1=1";
+    try {
+      return namedJdbcTemplate.query(query.sql(), query.params(), this::mapRow);
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+  }
+
+  @Override
+  public HorseSearchResult searchPage(HorseSearchDto searchFilter) {
+    LOG.trace("searchPage({})", searchFilter);
 
-    if (searchFilter.name() != null) {
-      sql += " AND LOWER(name) LIKE :name";
-      sqlParams.addValue("name", like.apply(searchFilter.name()));
+    // one more than requested, to know if there is a next page
+    var query = searchQuery(searchFilter, searchFilter.limit() == null ? null : searchFilter.limit() + 1);
+    if (query == null) {
+      return new HorseSearchResult(Collections.emptyList(), null);
     }
-    if (searchFilter.description() != null) {
-      sql += " AND LOWER(description) LIKE :description";
-      sqlParams.addValue("description", like.apply(searchFilter.description()));
+
+    List<ScoredHorse> horses;
+    try {
+      horses = namedJdbcTemplate.query(query.sql(), query.params(), this::mapScoredDetailRow);
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
     }
-    if (searchFilter.sex() != null) {
-      sql += " AND sex = :sex";
-      sqlParams.addValue("sex", searchFilter.sex().name());
+
+    HorseSearchCursor nextCursor = null;
+    if (searchFilter.limit() != null && horses.size() > searchFilter.limit()) {
+      horses = horses.subList(0, searchFilter.limit());
+      var last = horses.get(horses.size() - 1);
+      nextCursor = query.sort() == null
+          ? HorseSearchCursor.byRelevance(last.score(), query.weights(), last.horse().id())
+          : HorseSearchCursor.bySort(query.sort(), last.horse());
     }
+
+    return new HorseSearchResult(horses.stream().map(ScoredHorse::horse).toList(), nextCursor);
+  }
+
+  @Override
+  public Stream<HorseDetailDto> streamAll(HorseSearchDto searchFilter) {
+    LOG.trace("streamAll({})", searchFilter);
+
+    var query = searchQuery(searchFilter, searchFilter.limit());
+    if (query == null) {
+      return Stream.empty();
+    }
+
+    try {
+      return streamingJdbcTemplate.queryForStream(query.sql(), query.params(), this::mapScoredDetailRow).map(ScoredHorse::horse);
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+  }
+
+  @Override
+  public void exportAll(Consumer<Horse> action) {
+    LOG.trace("exportAll()");
+
+    try {
+      streamingJdbcTemplate.getJdbcTemplate().query(SQL_EXPORT, (RowCallbackHandler) result -> action.accept(mapRow(result, result.getRow())));
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+  }
+
+  @Override
+  public HorseFacetsDto countFacets(HorseSearchDto searchFilter) {
+    LOG.trace("countFacets({})", searchFilter);
+
+    // searches only differing in what the matching ignores share their facets
+    boolean fullText = searchFilter.searchMode() == SearchMode.FULLTEXT;
+    var normalized = new HorseSearchDto(
+        searchFilter.name() == null ? null : searchFilter.name().toLowerCase(Locale.ROOT),
+        searchFilter.description() == null ? null : searchFilter.description().toLowerCase(Locale.ROOT),
+        searchFilter.bornBefore(),
+        searchFilter.bornAfter(),
+        searchFilter.sex(),
+        searchFilter.ownerName() == null ? null : OwnerSearchKey.normalize(searchFilter.ownerName()),
+        null,
+        null,
+        fullText ? SearchMode.FULLTEXT : SearchMode.SUBSTRING,
+        searchFilter.matchMode() == MatchMode.PREFIX ? MatchMode.PREFIX : MatchMode.SUBSTRING,
+        null);
+    return facetCache.get(normalized, () -> queryFacets(normalized));
+  }
+
+  @Override
+  public List<HorseDetailDto> searchParentCandidates(HorseParentCandidateSearchDto searchFilter) {
+    LOG.trace("searchParentCandidates({})", searchFilter);
+
+    var sqlParams = new MapSqlParameterSource();
+    var conditions = new ArrayList<String>();
+    conditions.add("h.sex = :sex");
+    sqlParams.addValue("sex", searchFilter.sex().name());
+    if (searchFilter.q() != null && !searchFilter.q().isEmpty()) {
+      conditions.add(TextConditions.matching("h.name_lower", "name", searchFilter.q().toLowerCase(Locale.ROOT), true, sqlParams));
+    }
+    // a parent born on the same day as the child is valid
     if (searchFilter.bornBefore() != null) {
-      sql += " AND date_of_birth < :birth";
+      conditions.add("h.date_of_birth <= :birth");
       sqlParams.addValue("birth", Date.valueOf(searchFilter.bornBefore()));
     }
-    if (searchFilter.ownerName() != null) {
-      sql += " AND owner_id IN (SELECT id FROM owner WHERE LOWER(first_name) LIKE :owner OR LOWER(last_name) LIKE :owner)";
-      sqlParams.addValue("owner", like.apply(searchFilter.ownerName()));
-    }
-    if (searchFilter.limit() != null) {
-      sql += " LIMIT :limit";
-      sqlParams.addValue("limit", searchFilter.limit());
+    if (searchFilter.excludeId() != null) {
+      conditions.add("h.id <> :excludeId");
+      sqlParams.addValue("excludeId", searchFilter.excludeId());
     }
+    sqlParams.addValue("limit", searchFilter.limit());
 
+    // the candidates are read in the order of the lowercase name index, so the database stops after the first ones
+    String sql = "SELECT " + SQL_SEARCH_COLUMNS + ", 0 AS score FROM " + TABLE_NAME + " h" + SQL_JOIN_OWNER
+        + " WHERE " + String.join(" AND ", conditions)
+        + " ORDER BY h.name_lower, h.id LIMIT :limit";
     try {
-      horses = namedJdbcTemplate.query(
-          sql,
-          sqlParams,
-          this::mapRow
-      );
+      return namedJdbcTemplate.query(sql, sqlParams, this::mapScoredDetailRow).stream().map(ScoredHorse::horse).toList();
     } catch (DataAccessException ex) {
       throw new FatalException("The database query errored", ex);
     }
-
-    return horses;
   }
 
   @Override
@@ -140,13 +307,113 @@ public class HorseJdbcDao implements HorseDao {
     return horses.get(0);
   }
 
+  @Override
+  public HorseChildDetailDto getDetailById(long id) throws NotFoundException {
+    LOG.trace("getDetailById({})", id);
+
+    List<HorseChildDetailDto> horses;
+    try {
+      horses = jdbcTemplate.query(SQL_SELECT_DETAIL_BY_ID, this::mapChildDetailRow, id);
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+
+    if (horses.isEmpty()) {
+      throw new NotFoundException("No horse with ID %d found".formatted(id));
+    }
+
+    return horses.get(0);
+  }
+
+  @Override
+  public HorseValidationContext getValidationContext(Long horseId, Long fatherId, Long motherId) throws NotFoundException {
+    LOG.trace("getValidationContext({}, {}, {})", horseId, fatherId, motherId);
+
+    var ids = Stream.of(horseId, fatherId, motherId).filter(Objects::nonNull).collect(Collectors.toSet());
+    // a requested horse the existence filter does not know is not stored for sure, so the query is skipped
+    for (Long id : ids) {
+      if (!existenceFilter.mightContainHorse(id)) {
+        throw new NotFoundException("No horse with ID %d found".formatted(id));
+      }
+    }
+
+    var horses = new HashMap<Long, HorseDetailDto>();
+    var withChildren = new HashSet<Long>();
+    if (!ids.isEmpty()) {
+      try {
+        // the horse table drives the query, so H2 locks the read horses
+        namedJdbcTemplate.query(SQL_SELECT_VALIDATION_CONTEXT, Collections.singletonMap("ids", ids), (RowCallbackHandler) result -> {
+          var horse = mapDetailColumns(result, "");
+          horses.put(horse.id(), horse);
+          if (result.getBoolean("has_children")) {
+            withChildren.add(horse.id());
+          }
+        });
+      } catch (DataAccessException ex) {
+        throw new FatalException("The database query errored", ex);
+      }
+    }
+
+    existenceFilter.reportHorseFalsePositives(ids.size() - horses.size());
+    for (Long id : ids) {
+      if (!horses.containsKey(id)) {
+        throw new NotFoundException("No horse with ID %d found".formatted(id));
+      }
+    }
+
+    return new HorseValidationContext(
+        horseId == null ? null : horses.get(horseId),
+        horseId != null && withChildren.contains(horseId),
+        fatherId == null ? null : horses.get(fatherId),
+        motherId == null ? null : horses.get(motherId));
+  }
+
+  @Override
+  public Map<Long, HorseDetailDto> getAllDetailsById(Collection<Long> ids) {
+    LOG.trace("getAllDetailsById({})", ids.size());
+
+    var horses = new HashMap<Long, HorseDetailDto>();
+    var candidates = ids.stream().filter(existenceFilter::mightContainHorse).toList();
+    if (candidates.isEmpty()) {
+      return horses;
+    }
+    try {
+      // the horse table drives the query, so H2 locks the read horses
+      namedJdbcTemplate.query(SQL_SELECT_DETAILS_FOR_UPDATE, Collections.singletonMap("ids", candidates), (RowCallbackHandler) result -> {
+        var horse = mapDetailColumns(result, "");
+        horses.put(horse.id(), horse);
+      });
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+
+    existenceFilter.reportHorseFalsePositives(candidates.size() - horses.size());
+    return horses;
+  }
+
   @Override
   public List<Horse> getAncestors(long rootId, long generations) throws NotFoundException {
     LOG.trace("getAncestors({},{})", rootId, generations);
 
-    List<Horse> ancestors;
+    return getAncestorsByGeneration(rootId, generations).stream()
+        .flatMap(List::stream)
+        .toList();
+  }
+
+  @Override
+  public List<List<Horse>> getAncestorsByGeneration(long rootId, long generations) throws NotFoundException {
+    LOG.trace("getAncestorsByGeneration({},{})", rootId, generations);
+
+    List<List<Horse>> ancestors;
     try {
-      ancestors = jdbcTemplate.query(SQL_GET_NTH_GEN_ANCESTORS, this::mapRow, rootId, generations);
+      ancestors = switch (ancestorStrategy) {
+        case INDEX -> groupByGeneration(rootId, getAllById(pedigreeIndex.getAncestorIds(rootId, generations)));
+        case CLOSURE -> groupByGeneration(rootId, getAllById(readsClosure() && generations <= closureDao.maxDepth()
+            ? closureDao.getAncestorIds(rootId, generations)
+            : pedigreeIndex.getAncestorIds(rootId, generations)));
+        case RECURSIVE_QUERY -> queryAncestors(rootId, generations);
+        case FRONTIER -> walkAncestors(rootId, generations);
+      };
     } catch (DataAccessException ex) {
       throw new FatalException("The database query errored", ex);
     }
@@ -159,24 +426,52 @@ public class HorseJdbcDao implements HorseDao {
   }
 
   @Override
-  public boolean parentExists(long horseId) {
-    LOG.trace("isParent({})", horseId);
+  public List<long[]> getDescendantIdsByGeneration(long rootId, long generations) throws NotFoundException {
+    LOG.trace("getDescendantIdsByGeneration({},{})", rootId, generations);
+
+    // the closure only stores paths up to its maximum depth, deeper trees are walked in the pedigree index
+    if (readsClosure() && generations <= closureDao.maxDepth()) {
+      return closureDao.getDescendantIdsByGeneration(rootId, generations);
+    }
+    return pedigreeIndex.getDescendantIdsByGeneration(rootId, generations);
+  }
+
+  @Override
+  public boolean isAncestor(long ancestorId, long descendantId) {
+    LOG.trace("isAncestor({},{})", ancestorId, descendantId);
+
+    if (readsClosure()) {
+      return closureDao.isAncestor(ancestorId, descendantId);
+    }
+    try {
+      return ancestorId != descendantId && pedigreeIndex.getAncestorIds(descendantId, Long.MAX_VALUE).contains(ancestorId);
+    } catch (NotFoundException e) {
+      // not indexed yet, so it has no known ancestors
+      return false;
+    }
+  }
+
+  @Override
+  public List<Horse> getAllById(Collection<Long> ids) {
+    LOG.trace("getAllById({})", ids);
+
+    if (ids.isEmpty()) {
+      return Collections.emptyList();
+    }
 
+    var statementParams = Collections.singletonMap("ids", ids);
     List<Horse> horses;
     try {
-      horses = jdbcTemplate.query(SQL_SELECT_BY_PARENT_ID, this::mapRow, horseId, horseId);
+      horses = namedJdbcTemplate.query(SQL_SELECT_ALL_BY_ID, statementParams, this::mapRow);
     } catch (DataAccessException ex) {
       throw new FatalException("The database query errored", ex);
     }
 
-    if (horses.isEmpty()) {
-      return false;
-    }
-
-    return true;
+    return horses;
   }
 
   @Override
+  @Transactional(rollbackFor = NotFoundException.class)
   public void delete(long id) throws NotFoundException {
     LOG.trace("delete({})", id);
 
@@ -190,14 +485,80 @@ public class HorseJdbcDao implements HorseDao {
     if (updated == 0) {
       throw new NotFoundException("Could not delete horse with ID " + id + ", because it does not exist");
     }
+
+    closureDao.removeHorse(id);
+    pedigreeIndex.remove(id);
+    existenceFilter.removeHorses(List.of(id));
+    facetCache.invalidate();
+  }
+
+  @Override
+  @Transactional
+  public HorseDeleteReportDto deleteAll(Collection<Long> ids) {
+    LOG.trace("deleteAll({})", ids.size());
+
+    // horses the existence filter does not know are not stored for sure, so they are left out
+    Long[] candidates = ids.stream().distinct().filter(existenceFilter::mightContainHorse).toArray(Long[]::new);
+    if (candidates.length == 0) {
+      return new HorseDeleteReportDto(List.of(), 0);
+    }
+
+    var clearedChildren = new HashSet<Long>();
+    List<Long> deleted;
+    try {
+      // the kept children lose their parents in one update per parent column,
+      // so the foreign keys have nothing left to set null for each deleted horse
+      clearedChildren.addAll(jdbcTemplate.queryForList(SQL_CLEAR_FATHERS, Long.class, candidates, candidates));
+      clearedChildren.addAll(jdbcTemplate.queryForList(SQL_CLEAR_MOTHERS, Long.class, candidates, candidates));
+      deleted = jdbcTemplate.queryForList(SQL_DELETE_ALL, Long.class, (Object) candidates);
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+
+    existenceFilter.reportHorseFalsePositives(candidates.length - deleted.size());
+    closureDao.removeHorses(deleted);
+    pedigreeIndex.removeAll(deleted);
+    existenceFilter.removeHorses(deleted);
+    facetCache.invalidate();
+
+    return new HorseDeleteReportDto(deleted.stream().sorted().toList(), clearedChildren.size());
+  }
+
+  @Override
+  @Transactional
+  public HorseDeleteReportDto deleteMatching(HorseSearchDto searchFilter) {
+    LOG.trace("deleteMatching({})", searchFilter);
+
+    var sqlParams = new MapSqlParameterSource();
+    var matching = matchingHorses(searchFilter, null, sqlParams);
+    if (matching == null) {
+      return new HorseDeleteReportDto(List.of(), 0);
+    }
+
+    List<Long> ids;
+    try {
+      ids = namedJdbcTemplate.queryForList("SELECT h.id FROM " + matching.from() + " WHERE " + matching.where(), sqlParams, Long.class);
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+
+    return deleteAll(ids);
   }
 
   @Override
+  @Transactional(rollbackFor = NotFoundException.class)
   public Horse update(HorseChildDetailDto horse) throws NotFoundException {
     LOG.trace("update({})", horse);
 
+    List<Horse> previousHorses;
     int updated;
     try {
+      // lock the row, so the closure and full-text index are changed from the values that are actually replaced
+      previousHorses = jdbcTemplate.query(SQL_SELECT_BY_ID_FOR_UPDATE, this::mapRow, horse.id());
+      if (previousHorses.isEmpty()) {
+        throw new NotFoundException("Could not update horse with ID " + horse.id() + ", because it does not exist");
+      }
+
       updated = jdbcTemplate.update(SQL_UPDATE,
           horse.name(),
           horse.description(),
@@ -215,6 +576,14 @@ public class HorseJdbcDao implements HorseDao {
       throw new NotFoundException("Could not update horse with ID " + horse.id() + ", because it does not exist");
     }
 
+    var previous = previousHorses.get(0);
+    closureDao.changeParents(horse.id(), previous.getFatherId(), previous.getMotherId(), horse.fatherId(), horse.motherId());
+    if (!Objects.equals(previous.getName(), horse.name()) || !Objects.equals(previous.getDescription(), horse.description())) {
+      tokenDao.index(horse.id(), horse.name(), horse.description());
+    }
+    pedigreeIndex.put(horse.id(), horse.fatherId(), horse.motherId());
+    facetCache.invalidate();
+
     return new Horse()
         .setId(horse.id())
         .setName(horse.name())
@@ -227,6 +596,51 @@ public class HorseJdbcDao implements HorseDao {
   }
 
   @Override
+  @Transactional(rollbackFor = NotFoundException.class)
+  public Horse patch(long id, HorsePatchDto patch) throws NotFoundException {
+    LOG.trace("patch({}, {})", id, patch);
+
+    if (!existenceFilter.mightContainHorse(id)) {
+      throw new NotFoundException("Could not patch horse with ID " + id + ", because it does not exist");
+    }
+
+    var assignments = new ArrayList<String>();
+    var values = new ArrayList<>();
+    for (HorseField field : patch.fields()) {
+      assignments.add(field.column() + " = ?");
+      values.add(columnValue(field, patch));
+    }
+    values.add(id);
+
+    List<Horse> previousHorses;
+    try {
+      // the delta table returns the replaced row of the update, so the previous values need no locking read
+      previousHorses = jdbcTemplate.query("SELECT * FROM OLD TABLE (UPDATE " + TABLE_NAME
+          + " SET " + String.join(", ", assignments) + " WHERE id = ?)", this::mapRow, values.toArray());
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+
+    if (previousHorses.isEmpty()) {
+      throw new NotFoundException("Could not patch horse with ID " + id + ", because it does not exist");
+    }
+
+    var previous = previousHorses.get(0);
+    var horse = applyPatch(previous, patch);
+    if (patch.patchesAny(HorseField.FATHER, HorseField.MOTHER)) {
+      closureDao.changeParents(id, previous.getFatherId(), previous.getMotherId(), horse.getFatherId(), horse.getMotherId());
+      pedigreeIndex.put(id, horse.getFatherId(), horse.getMotherId());
+    }
+    if (!Objects.equals(previous.getName(), horse.getName()) || !Objects.equals(previous.getDescription(), horse.getDescription())) {
+      tokenDao.index(id, horse.getName(), horse.getDescription());
+    }
+    facetCache.invalidate();
+
+    return horse;
+  }
+
+  @Override
+  @Transactional
   public Horse create(HorseCreateDto horse) {
     LOG.trace("create({})", horse);
 
@@ -234,7 +648,7 @@ public class HorseJdbcDao implements HorseDao {
 
     try {
       jdbcTemplate.update(con -> {
-        PreparedStatement stmt = con.prepareStatement(SQL_CREATE, Statement.RETURN_GENERATED_KEYS);
+        PreparedStatement stmt = con.prepareStatement(SQL_CREATE, new String[] {"id"});
         stmt.setString(1, horse.name());
         stmt.setString(2, horse.description());
         stmt.setDate(3, Date.valueOf(horse.dateOfBirth()));
@@ -255,6 +669,12 @@ public class HorseJdbcDao implements HorseDao {
       throw new FatalException("Could not extract key for newly created horse");
     }
 
+    closureDao.addHorse(key.longValue(), horse.fatherId(), horse.motherId());
+    tokenDao.index(key.longValue(), horse.name(), horse.description());
+    pedigreeIndex.put(key.longValue(), horse.fatherId(), horse.motherId());
+    existenceFilter.putHorses(List.of(key.longValue()));
+    facetCache.invalidate();
+
     return new Horse()
         .setId(key.longValue())
         .setName(horse.name())
@@ -266,6 +686,605 @@ public class HorseJdbcDao implements HorseDao {
         .setMotherId(horse.motherId());
   }
 
+  @Override
+  @Transactional
+  public List<Horse> createAll(List<HorseCreateDto> horses) {
+    LOG.trace("createAll({})", horses.size());
+
+    var created = new ArrayList<Horse>(horses.size());
+    try {
+      jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+        try (PreparedStatement stmt = con.prepareStatement(SQL_CREATE, new String[] {"id"})) {
+          for (int start = 0; start < horses.size(); start += CREATE_BATCH_SIZE) {
+            var batch = horses.subList(start, Math.min(horses.size(), start + CREATE_BATCH_SIZE));
+            for (var horse : batch) {
+              stmt.setString(1, horse.name());
+              stmt.setString(2, horse.description());
+              stmt.setDate(3, Date.valueOf(horse.dateOfBirth()));
+              stmt.setString(4, horse.sex().name());
+              stmt.setObject(5, horse.ownerId());
+              stmt.setObject(6, horse.fatherId());
+              stmt.setObject(7, horse.motherId());
+              stmt.addBatch();
+            }
+            stmt.executeBatch();
+
+            // the keys are returned in the order of the batch
+            try (var keys = stmt.getGeneratedKeys()) {
+              for (var horse : batch) {
+                if (!keys.next()) {
+                  throw new FatalException("Could not extract key for newly created horse");
+                }
+                created.add(new Horse()
+                    .setId(keys.getLong(1))
+                    .setName(horse.name())
+                    .setDescription(horse.description())
+                    .setDateOfBirth(horse.dateOfBirth())
+                    .setSex(horse.sex())
+                    .setOwnerId(horse.ownerId())
+                    .setFatherId(horse.fatherId())
+                    .setMotherId(horse.motherId()));
+              }
+            }
+          }
+        }
+        return null;
+      });
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+
+    closureDao.addHorses(created);
+    tokenDao.indexNew(created);
+    pedigreeIndex.putAll(created);
+    existenceFilter.putHorses(created.stream().map(Horse::getId).toList());
+    facetCache.invalidate();
+
+    return created;
+  }
+
+  /**
+   * whether ancestors, descendants and parent cycles are read from the ancestor closure
+   *
+   * @return true for the strategy {@link AncestorQueryStrategy#CLOSURE} once the closure is available
+   */
+  private boolean readsClosure() {
+    return ancestorStrategy == AncestorQueryStrategy.CLOSURE && closureDao.isAvailable();
+  }
+
+  /**
+   * builds the query for the horses matching the search filter, in the order of the search and starting after its cursor.
+   * Each row has the columns of the horse, the columns of its owner prefixed with {@code owner_},
+   * and the column {@code score}, which is the relevance in full-text mode and 0 otherwise.
+   *
+   * @param searchFilter the search criteria
+   * @param limit        the maximum amount of rows to query, or null to query all
+   * @return the query, or null if no horse can match the search filter
+   */
+  private SearchQuery searchQuery(HorseSearchDto searchFilter, Integer limit) {
+    var sqlParams = new MapSqlParameterSource();
+    var cursor = searchFilter.cursor() == null ? null : HorseSearchCursor.decode(searchFilter.cursor());
+    var matching = matchingHorses(searchFilter, cursor == null ? null : cursor.weights(), sqlParams);
+    if (matching == null) {
+      return null;
+    }
+
+    String sql = "SELECT " + SQL_SEARCH_COLUMNS + (matching.fullText() ? ", m.score" : ", 0 AS score")
+        + " FROM " + matching.from() + SQL_JOIN_OWNER
+        + " WHERE " + matching.where();
+    if (cursor != null) {
+      sql += " AND " + afterCursor(cursor, sqlParams);
+    }
+    // without a sort, full-text searches are ordered by relevance and all others by name
+    HorseSort sort = searchFilter.sort() == null && !matching.fullText() ? HorseSort.NAME : searchFilter.sort();
+    sql += sort == null ? " ORDER BY m.score DESC, h.id" : orderBy(sort);
+    if (limit != null) {
+      sql += " LIMIT :limit";
+      sqlParams.addValue("limit", limit);
+    }
+
+    return new SearchQuery(sql, sqlParams, sort, matching.weights());
+  }
+
+  /**
+   * builds the source and conditions of the horses matching the filters of a search, regardless of its order, cursor and limit.
+   *
+   * @param searchFilter the search criteria
+   * @param weights      the weights of the searched words to score with in full-text mode, or null to compute them
+   * @param sqlParams    the parameters to add the filter values to
+   * @return the matching horses as {@code h}, with their relevance {@code m.score} in full-text mode,
+   *     or null if no horse can match the search filter
+   */
+  private MatchingHorses matchingHorses(HorseSearchDto searchFilter, List<Double> weights, MapSqlParameterSource sqlParams) {
+    boolean prefix = searchFilter.matchMode() == MatchMode.PREFIX;
+    boolean fullText = searchFilter.searchMode() == SearchMode.FULLTEXT
+        && (searchFilter.name() != null || searchFilter.description() != null);
+
+    String from = TABLE_NAME + " h";
+    List<Double> usedWeights = null;
+    var conditions = new ArrayList<String>();
+    if (fullText) {
+      var terms = new ArrayList<FullTextTerm>();
+      Tokenizer.tokenize(searchFilter.name()).keySet().forEach(token -> terms.add(new FullTextTerm("NAME", token)));
+      Tokenizer.tokenize(searchFilter.description()).keySet().forEach(token -> terms.add(new FullTextTerm("DESCRIPTION", token)));
+      from = terms.isEmpty() ? null : fullTextSource(terms, weights, sqlParams);
+      if (from == null) {
+        return null;
+      }
+      usedWeights = IntStream.range(0, terms.size()).mapToObj(i -> (Double) sqlParams.getValue("weight" + i)).toList();
+      // the sum over no rows is null, so horses missing a word are filtered out by the null score
+      conditions.add("m.score IS NOT NULL");
+    } else {
+      if (searchFilter.name() != null) {
+        conditions.add(TextConditions.matching("h.name_lower", "name", searchFilter.name().toLowerCase(Locale.ROOT), prefix, sqlParams));
+      }
+      if (searchFilter.description() != null) {
+        conditions.add(TextConditions.matching("h.description_lower", "description", searchFilter.description().toLowerCase(Locale.ROOT), prefix, sqlParams));
+      }
+    }
+    if (searchFilter.sex() != null) {
+      conditions.add("h.sex = :sex");
+      sqlParams.addValue("sex", searchFilter.sex().name());
+    }
+    if (searchFilter.bornBefore() != null) {
+      conditions.add("h.date_of_birth < :birth");
+      sqlParams.addValue("birth", Date.valueOf(searchFilter.bornBefore()));
+    }
+    if (searchFilter.bornAfter() != null) {
+      conditions.add("h.date_of_birth > :bornAfter");
+      sqlParams.addValue("bornAfter", Date.valueOf(searchFilter.bornAfter()));
+    }
+    if (searchFilter.ownerName() != null) {
+      // the matching owners are found on the search key index, their horses on the owner index
+      conditions.add("h.owner_id IN (SELECT id FROM owner WHERE "
+          + TextConditions.matching("search_key", "owner", OwnerSearchKey.normalize(searchFilter.ownerName()), prefix, sqlParams) + ")");
+    }
+
+    return new MatchingHorses(from, conditions.isEmpty() ? "1=1" : String.join(" AND ", conditions), fullText, usedWeights);
+  }
+
+  /**
+   * counts the horses matching a search by their combination of sex, owner and birth decade in one grouped query,
+   * and sums these counts up for each facet.
+   * The owner names are only joined to the grouped rows, not to every matching horse.
+   *
+   * @param searchFilter the search criteria
+   * @return the counts of the matching horses
+   */
+  private HorseFacetsDto queryFacets(HorseSearchDto searchFilter) {
+    var sqlParams = new MapSqlParameterSource();
+    var matching = matchingHorses(searchFilter, null, sqlParams);
+    if (matching == null) {
+      return new HorseFacetsDto(0, List.of(), List.of(), List.of());
+    }
+
+    String decade = "EXTRACT(YEAR FROM h.date_of_birth) / 10 * 10";
+    String sql = "SELECT g.*, o.first_name, o.last_name FROM ("
+        + "SELECT h.sex, h.owner_id, " + decade + " AS decade, COUNT(*) AS horses"
+        + " FROM " + matching.from()
+        + " WHERE " + matching.where()
+        + " GROUP BY h.sex, h.owner_id, " + decade + ") g"
+        + " LEFT JOIN owner o ON o.id = g.owner_id";
+
+    var sexes = new EnumMap<Sex, Long>(Sex.class);
+    var owners = new HashMap<Long, FacetBucketDto>();
+    var decades = new TreeMap<Integer, Long>();
+    long[] total = {0};
+    try {
+      namedJdbcTemplate.query(sql, sqlParams, result -> {
+        long horses = result.getLong("horses");
+        total[0] += horses;
+        sexes.merge(Sex.valueOf(result.getString("sex")), horses, Long::sum);
+        decades.merge(result.getInt("decade"), horses, Long::sum);
+
+        Long ownerId = result.getObject("owner_id", Long.class);
+        var owner = owners.get(ownerId);
+        owners.put(ownerId, new FacetBucketDto(
+            ownerId == null ? null : ownerId.toString(),
+            ownerId == null ? null : result.getString("first_name") + " " + result.getString("last_name"),
+            (owner == null ? 0 : owner.count()) + horses));
+      });
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+
+    Comparator<FacetBucketDto> mostFrequent = Comparator.comparingLong(FacetBucketDto::count).reversed();
+    return new HorseFacetsDto(
+        total[0],
+        sexes.entrySet().stream()
+            .map(entry -> new FacetBucketDto(entry.getKey().name(), null, entry.getValue()))
+            .sorted(mostFrequent)
+            .toList(),
+        owners.values().stream()
+            .sorted(mostFrequent.thenComparing(FacetBucketDto::value, Comparator.nullsLast(Comparator.naturalOrder())))
+            .limit(FACET_OWNER_BUCKETS)
+            .toList(),
+        decades.entrySet().stream()
+            .map(entry -> new FacetBucketDto(entry.getKey().toString(), null, entry.getValue()))
+            .toList());
+  }
+
+  /**
+   * builds the order by clause of a search order.
+   * Every order is the order of an index, so limited searches read the first rows of the index instead of sorting all matches.
+   *
+   * @param sort the order of the search
+   * @return the order by clause
+   */
+  private static String orderBy(HorseSort sort) {
+    String direction = sort.descending() ? " DESC" : "";
+    String column = sortColumn(sort);
+    return column == null
+        ? " ORDER BY h.id" + direction
+        : " ORDER BY " + column + direction + ", h.id" + direction;
+  }
+
+  /**
+   * builds the condition for the horses after the cursor, in the order of the cursor
+   *
+   * @param cursor    the cursor
+   * @param sqlParams the parameters to add the sort key and id of the cursor to
+   * @return the condition
+   */
+  private static String afterCursor(HorseSearchCursor cursor, MapSqlParameterSource sqlParams) {
+    sqlParams.addValue("cursorId", cursor.id());
+    if (cursor.sort() == null) {
+      sqlParams.addValue("cursorScore", cursor.score());
+      return "(m.score < :cursorScore OR (m.score = :cursorScore AND h.id > :cursorId))";
+    }
+
+    String after = cursor.sort().descending() ? "<" : ">";
+    String column = sortColumn(cursor.sort());
+    if (column == null) {
+      return "h.id " + after + " :cursorId";
+    }
+    sqlParams.addValue("cursorKey", cursor.name() != null ? cursor.name() : Date.valueOf(cursor.dateOfBirth()));
+    // same as (key, id) > (:cursorKey, :cursorId), but H2 only does an index range scan for this form
+    return column + " " + after + "= :cursorKey AND (" + column + " " + after + " :cursorKey OR h.id " + after + " :cursorId)";
+  }
+
+  /**
+   * returns the column a search order sorts by before the id
+   *
+   * @param sort the order of the search
+   * @return the column, or null if the order is by id only
+   */
+  private static String sortColumn(HorseSort sort) {
+    return switch (sort) {
+      case NAME, NAME_DESC -> "h.name";
+      case DATE_OF_BIRTH, DATE_OF_BIRTH_DESC -> "h.date_of_birth";
+      case ID, ID_DESC -> null;
+    };
+  }
+
+  /**
+   * Builds the full-text search of horses matching all words, ordered by relevance.
+   * A word matches all indexed words of its field starting with it. Exact matches score twice, and rare words score higher.
+   * The candidates are taken from the rarest word, the other words are looked up for each candidate only.
+   * The following pages of a search pass the weights of its first page, so the scores of the horses stay the same between pages.
+   *
+   * @param terms     the searched words with their field
+   * @param weights   the weights of the words, or null to compute them from how many horses contain each word
+   * @param sqlParams the parameters to add the words and their weights to
+   * @return the source of the candidate horses as {@code h} with their {@code score} from {@code m}, which is null for horses missing a word,
+   *     or null if some word is not indexed at all
+   */
+  private String fullTextSource(List<FullTextTerm> terms, List<Double> weights, MapSqlParameterSource sqlParams) {
+    var counts = new StringBuilder("SELECT (SELECT COUNT(*) FROM " + TABLE_NAME + ")");
+    for (int i = 0; i < terms.size(); i++) {
+      sqlParams.addValue("term" + i, terms.get(i).token());
+      sqlParams.addValue("term" + i + "End", terms.get(i).token() + Character.MAX_VALUE);
+      counts.append(", (SELECT COUNT(*) FROM horse_token t WHERE ").append(terms.get(i).matches(i)).append(")");
+    }
+
+    long[] frequencies;
+    try {
+      frequencies = namedJdbcTemplate.queryForObject(counts.toString(), sqlParams, (result, rownum) -> {
+        long[] columns = new long[terms.size() + 1];
+        for (int i = 0; i < columns.length; i++) {
+          columns[i] = result.getLong(i + 1);
+        }
+        return columns;
+      });
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+
+    var order = new ArrayList<Integer>();
+    for (int i = 0; i < terms.size(); i++) {
+      if (frequencies[i + 1] == 0) {
+        return null;
+      }
+      boolean given = weights != null && weights.size() == terms.size();
+      sqlParams.addValue("weight" + i, given ? weights.get(i) : Math.log(1 + (double) frequencies[0] / frequencies[i + 1]));
+      order.add(i);
+    }
+    order.sort(Comparator.comparingLong(i -> frequencies[i + 1]));
+
+    int rarest = order.get(0);
+    var sql = new StringBuilder("(SELECT horse_id, score");
+    for (int i : order.subList(1, order.size())) {
+      sql.append(" + (SELECT ").append(FullTextTerm.score(i))
+          .append(" FROM horse_token t WHERE t.horse_id = d.horse_id AND ").append(terms.get(i).matches(i)).append(")");
+    }
+    sql.append(" AS score FROM (SELECT horse_id, ").append(FullTextTerm.score(rarest)).append(" AS score")
+        .append(" FROM horse_token t WHERE ").append(terms.get(rarest).matches(rarest)).append(" GROUP BY horse_id) d) m")
+        .append(" JOIN " + TABLE_NAME + " h ON h.id = m.horse_id");
+    return sql.toString();
+  }
+
+  /**
+   * groups the fetched ancestors of a horse by their closest generation, walking them breadth first from the root.
+   * The closest path to an ancestor only passes closer ancestors, so the walk does not need horses that were not fetched.
+   *
+   * @param rootId the id of the horse with generation 0
+   * @param horses the root horse and its ancestors within the generation limit
+   * @return the ancestors by generation, empty if the root horse was not fetched
+   */
+  private static List<List<Horse>> groupByGeneration(long rootId, List<Horse> horses) {
+    Map<Long, Horse> byId = horses.stream().collect(Collectors.toMap(Horse::getId, horse -> horse));
+    List<List<Horse>> ancestors = new ArrayList<>();
+    var seen = new HashSet<Long>();
+    seen.add(rootId);
+    List<Horse> frontier = byId.containsKey(rootId) ? List.of(byId.get(rootId)) : List.of();
+
+    while (!frontier.isEmpty()) {
+      ancestors.add(frontier.stream().sorted(Comparator.comparing(Horse::getId)).toList());
+      var parents = new ArrayList<Horse>();
+      for (var horse : frontier) {
+        for (Long parentId : new Long[] {horse.getFatherId(), horse.getMotherId()}) {
+          if (parentId != null && byId.containsKey(parentId) && seen.add(parentId)) {
+            parents.add(byId.get(parentId));
+          }
+        }
+      }
+      frontier = parents;
+    }
+
+    return ancestors;
+  }
+
+  /**
+   * gets the ancestors with the recursive query and groups them by the computed generation
+   *
+   * @param rootId      the id of the horse with generation 0
+   * @param generations the maximum amount of generation-steps
+   * @return the ancestors by generation, empty if the root horse does not exist
+   */
+  private List<List<Horse>> queryAncestors(long rootId, long generations) {
+    List<List<Horse>> ancestors = new ArrayList<>();
+    jdbcTemplate.query(SQL_GET_NTH_GEN_ANCESTORS, result -> {
+      int generation = result.getInt("generation");
+      while (ancestors.size() <= generation) {
+        ancestors.add(new ArrayList<>());
+      }
+      ancestors.get(generation).add(mapRow(result, result.getRow()));
+    }, rootId, generations);
+
+    return ancestors;
+  }
+
+  /**
+   * gets the ancestors generation by generation, fetching the parents of the last generation with one query.
+   * Horses reached on several paths are only fetched for their closest generation.
+   *
+   * @param rootId      the id of the horse with generation 0
+   * @param generations the maximum amount of generation-steps
+   * @return the ancestors by generation, empty if the root horse does not exist
+   */
+  private List<List<Horse>> walkAncestors(long rootId, long generations) {
+    List<List<Horse>> ancestors = new ArrayList<>();
+    var seen = new HashSet<Long>();
+    seen.add(rootId);
+    List<Long> frontier = List.of(rootId);
+
+    for (long generation = 0; generation <= generations && !frontier.isEmpty(); generation++) {
+      var horses = namedJdbcTemplate.query(SQL_SELECT_ALL_BY_ID_ORDERED, Collections.singletonMap("ids", frontier), this::mapRow);
+      if (horses.isEmpty()) {
+        break;
+      }
+      ancestors.add(horses);
+
+      var parents = new ArrayList<Long>();
+      for (var horse : horses) {
+        if (horse.getFatherId() != null && seen.add(horse.getFatherId())) {
+          parents.add(horse.getFatherId());
+        }
+        if (horse.getMotherId() != null && seen.add(horse.getMotherId())) {
+          parents.add(horse.getMotherId());
+        }
+      }
+      frontier = parents;
+    }
+
+    return ancestors;
+  }
+
+  /**
+   * A query for the horses matching a search filter
+   *
+   * @param sql     the query
+   * @param params  the parameters of the query
+   * @param sort    the order of the horses, null if they are ordered by their relevance score
+   * @param weights the weights of the searched words in full-text mode, null otherwise
+   */
+  private record SearchQuery(String sql, MapSqlParameterSource params, HorseSort sort, List<Double> weights) {
+  }
+
+  /**
+   * The horses matching the filters of a search
+   *
+   * @param from     the source of the horses, as {@code h}
+   * @param where    the conditions the horses have to meet
+   * @param fullText whether the horses are matched in full-text mode, with their relevance as {@code m.score}
+   * @param weights  the weights of the searched words in full-text mode, null otherwise
+   */
+  private record MatchingHorses(String from, String where, boolean fullText, List<Double> weights) {
+  }
+
+  /**
+   * A found horse with its relevance score
+   *
+   * @param horse the horse
+   * @param score the relevance score, 0 if not searched by relevance
+   */
+  private record ScoredHorse(HorseDetailDto horse, double score) {
+  }
+
+  /**
+   * A word of a full-text search
+   *
+   * @param field the indexed field to search the word in
+   * @param token the word as stored in the index
+   */
+  private record FullTextTerm(String field, String token) {
+    /**
+     * condition of the index rows {@code t} matching the word
+     *
+     * @param index the number of the word's parameters
+     * @return the condition
+     */
+    String matches(int index) {
+      return "t.field = '" + field + "' AND t.token >= :term" + index + " AND t.token < :term" + index + "End";
+    }
+
+    /**
+     * aggregate of the score of the index rows {@code t} matching the word
+     *
+     * @param index the number of the word's parameters
+     * @return the aggregate
+     */
+    static String score(int index) {
+      return "SUM(CASE WHEN t.token = :term" + index + " THEN 2 ELSE 1 END * t.occurrences) * :weight" + index;
+    }
+  }
+
+  /**
+   * builds the columns of a horse and its owner, to select several horses with their owners in one row
+   *
+   * @param horse  the alias of the horse table
+   * @param owner  the alias of the owner table joined to the horse
+   * @param prefix the prefix of the column names
+   * @return the columns, named like the horse columns and the owner columns prefixed by {@code owner_}, with the prefix
+   */
+  private static String detailColumns(String horse, String owner, String prefix) {
+    return Stream.of("id", "name", "description", "date_of_birth", "sex", "owner_id")
+        .map(column -> horse + "." + column + " AS " + prefix + column)
+        .collect(Collectors.joining(", "))
+        + Stream.of("first_name", "last_name", "email")
+        .map(column -> ", " + owner + "." + column + " AS " + prefix + "owner_" + column)
+        .collect(Collectors.joining());
+  }
+
+  /**
+   * maps a db result set of the detail query to a horse with its owner and its parents with their owners
+   *
+   * @param result result from the db, with the columns of the parents prefixed by {@code father_} and {@code mother_}
+   * @param rownum the row id
+   * @return horse child detail
+   * @throws SQLException an error occurred during the mapping
+   */
+  private HorseChildDetailDto mapChildDetailRow(ResultSet result, int rownum) throws SQLException {
+    var horse = mapDetailColumns(result, "");
+    return new HorseChildDetailDto(
+        horse.id(),
+        horse.name(),
+        horse.description(),
+        horse.dateOfBirth(),
+        horse.sex(),
+        horse.owner(),
+        mapDetailColumns(result, "father_"),
+        mapDetailColumns(result, "mother_"));
+  }
+
+  /**
+   * maps the columns of a horse and its owner with a prefix to a horse detail
+   *
+   * @param result result from the db
+   * @param prefix the prefix of the columns of the horse
+   * @return horse detail, null if the horse columns are null, as for a parent that is not set
+   * @throws SQLException an error occurred during the mapping
+   */
+  private HorseDetailDto mapDetailColumns(ResultSet result, String prefix) throws SQLException {
+    Long id = result.getObject(prefix + "id", Long.class);
+    if (id == null) {
+      return null;
+    }
+    Long ownerId = result.getObject(prefix + "owner_id", Long.class);
+    var owner = ownerId == null
+        ? null
+        : new OwnerDto(ownerId,
+        result.getString(prefix + "owner_first_name"), result.getString(prefix + "owner_last_name"), result.getString(prefix + "owner_email"));
+    return new HorseDetailDto(
+        id,
+        result.getString(prefix + "name"),
+        result.getString(prefix + "description"),
+        result.getDate(prefix + "date_of_birth").toLocalDate(),
+        Sex.valueOf(result.getString(prefix + "sex")),
+        owner);
+  }
+
+  /**
+   * maps a db result set of the search to a horse with its owner and relevance score
+   *
+   * @param result result from the db, with the owner columns prefixed by {@code owner_}
+   * @param rownum the row id
+   * @return horse detail with score
+   * @throws SQLException an error occurred during the mapping
+   */
+  private ScoredHorse mapScoredDetailRow(ResultSet result, int rownum) throws SQLException {
+    Long ownerId = result.getObject("owner_id", Long.class);
+    var owner = ownerId == null
+        ? null
+        : new OwnerDto(ownerId, result.getString("owner_first_name"), result.getString("owner_last_name"), result.getString("owner_email"));
+    var horse = new HorseDetailDto(
+        result.getLong("id"),
+        result.getString("name"),
+        result.getString("description"),
+        result.getDate("date_of_birth").toLocalDate(),
+        Sex.valueOf(result.getString("sex")),
+        owner);
+    return new ScoredHorse(horse, result.getDouble("score"));
+  }
+
+  /**
+   * Gets the value a patched field is stored with
+   *
+   * @param field the patched field
+   * @param patch the patch
+   * @return the column value of the field
+   */
+  private static Object columnValue(HorseField field, HorsePatchDto patch) {
+    return switch (field) {
+      case NAME -> patch.name();
+      case DESCRIPTION -> patch.description();
+      case DATE_OF_BIRTH -> patch.dateOfBirth();
+      case SEX -> patch.sex() == null ? null : patch.sex().toString();
+      case OWNER -> patch.ownerId();
+      case FATHER -> patch.fatherId();
+      case MOTHER -> patch.motherId();
+    };
+  }
+
+  /**
+   * Creates the horse with the fields of a patch applied to a stored horse
+   *
+   * @param stored the horse before the patch
+   * @param patch  the patch
+   * @return a new horse with the patched fields, and the other fields of {@code stored}
+   */
+  private static Horse applyPatch(Horse stored, HorsePatchDto patch) {
+    return new Horse()
+        .setId(stored.getId())
+        .setName(patch.patches(HorseField.NAME) ? patch.name() : stored.getName())
+        .setDescription(patch.patches(HorseField.DESCRIPTION) ? patch.description() : stored.getDescription())
+        .setDateOfBirth(patch.patches(HorseField.DATE_OF_BIRTH) ? patch.dateOfBirth() : stored.getDateOfBirth())
+        .setSex(patch.patches(HorseField.SEX) ? patch.sex() : stored.getSex())
+        .setOwnerId(patch.patches(HorseField.OWNER) ? patch.ownerId() : stored.getOwnerId())
+        .setFatherId(patch.patches(HorseField.FATHER) ? patch.fatherId() : stored.getFatherId())
+        .setMotherId(patch.patches(HorseField.MOTHER) ? patch.motherId() : stored.getMotherId());
+  }
+
   /**
    * maps a db result set to a horse entity
    *
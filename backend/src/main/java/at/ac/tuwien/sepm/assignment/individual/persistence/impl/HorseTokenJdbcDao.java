@@ -0,0 +1,108 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence.impl;
+
+import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
+import at.ac.tuwien.sepm.assignment.individual.exception.FatalException;
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseTokenDao;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Implementation of the full-text index persistence management compliant to {@link HorseTokenDao}
+ */
+@Repository
+public class HorseTokenJdbcDao implements HorseTokenDao {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final String TABLE_NAME = "horse_token";
+  private static final int BATCH_SIZE = 1000;
+  private static final String SQL_DELETE_BY_HORSE = "DELETE FROM " + TABLE_NAME + " WHERE horse_id = ?";
+  private static final String SQL_INSERT = "INSERT INTO " + TABLE_NAME + " (field, token, horse_id, occurrences) VALUES (?, ?, ?, ?)";
+  private static final String SQL_SELECT_UNINDEXED = "SELECT id, name, description FROM horse h"
+      + " WHERE NOT EXISTS (SELECT 1 FROM " + TABLE_NAME + " t WHERE t.horse_id = h.id)";
+  private final JdbcTemplate jdbcTemplate;
+
+  public HorseTokenJdbcDao(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public void index(long horseId, String name, String description) {
+    LOG.trace("index({})", horseId);
+
+    var rows = new ArrayList<Object[]>();
+    addRows(rows, horseId, name, description);
+    try {
+      jdbcTemplate.update(SQL_DELETE_BY_HORSE, horseId);
+      jdbcTemplate.batchUpdate(SQL_INSERT, rows);
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+  }
+
+  @Override
+  public void indexNew(List<Horse> horses) {
+    LOG.trace("indexNew({})", horses.size());
+
+    var rows = new ArrayList<Object[]>(BATCH_SIZE);
+    try {
+      for (var horse : horses) {
+        addRows(rows, horse.getId(), horse.getName(), horse.getDescription());
+        if (rows.size() >= BATCH_SIZE) {
+          insertBatch(rows);
+        }
+      }
+      insertBatch(rows);
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+  }
+
+  @Override
+  public int indexMissing() {
+    LOG.trace("indexMissing()");
+
+    var rows = new ArrayList<Object[]>(BATCH_SIZE);
+    int[] indexed = {0};
+    try {
+      jdbcTemplate.query(SQL_SELECT_UNINDEXED, result -> {
+        addRows(rows, result.getLong("id"), result.getString("name"), result.getString("description"));
+        indexed[0]++;
+        if (rows.size() >= BATCH_SIZE) {
+          insertBatch(rows);
+        }
+      });
+      insertBatch(rows);
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+
+    return indexed[0];
+  }
+
+  /**
+   * adds the index rows of the words in a horse's name and description
+   *
+   * @param rows        the rows to add to
+   * @param horseId     the id of the horse
+   * @param name        the name of the horse
+   * @param description the description of the horse, or null if not set
+   */
+  private static void addRows(List<Object[]> rows, long horseId, String name, String description) {
+    Tokenizer.tokenize(name).forEach((token, occurrences) -> rows.add(new Object[] {"NAME", token, horseId, occurrences}));
+    Tokenizer.tokenize(description).forEach((token, occurrences) -> rows.add(new Object[] {"DESCRIPTION", token, horseId, occurrences}));
+  }
+
+  private void insertBatch(List<Object[]> rows) {
+    if (!rows.isEmpty()) {
+      jdbcTemplate.batchUpdate(SQL_INSERT, rows);
+      rows.clear();
+    }
+  }
+}
@@ -5,25 +5,37 @@ import at.ac.tuwien.sepm.assignment.individual.dto.OwnerSearchDto;
 import at.ac.tuwien.sepm.assignment.individual.entity.Owner;
 import at.ac.tuwien.sepm.assignment.individual.exception.FatalException;
 import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepm.assignment.individual.persistence.ExistenceFilter;
 import at.ac.tuwien.sepm.assignment.individual.persistence.OwnerDao;
+import at.ac.tuwien.sepm.assignment.individual.persistence.OwnerSuggestIndex;
+import at.ac.tuwien.sepm.assignment.individual.type.MatchMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.invoke.MethodHandles;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of horse persistence management compliant to {@link OwnerDao}
@@ -33,15 +45,29 @@ public class OwnerJdbcDao implements OwnerDao {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private static final String TABLE_NAME = "owner";
   private static final String SQL_SELECT_BY_ID = "SELECT * FROM " + TABLE_NAME + " WHERE id = ?";
-  private static final String SQL_SELECT_BY_EMAIL = "SELECT * FROM " + TABLE_NAME + " WHERE email = ?";
+  private static final String SQL_EMAIL_EXISTS = "SELECT EXISTS (SELECT 1 FROM " + TABLE_NAME + " WHERE email = ?)";
+  private static final String SQL_SELECT_EMAILS = "SELECT email FROM " + TABLE_NAME + " WHERE email IN (:emails)";
   private static final String SQL_SELECT_ALL = "SELECT * FROM " + TABLE_NAME + " WHERE id IN (:ids)";
   private static final String SQL_CREATE = "INSERT INTO " + TABLE_NAME + " (first_name, last_name, email) VALUES (?, ?, ?)";
+  private static final String SQL_EXPORT = "SELECT id, first_name, last_name, email FROM " + TABLE_NAME + " ORDER BY id";
+  private static final int STREAM_FETCH_SIZE = 500;
+  private static final int CREATE_BATCH_SIZE = 1000;
   private final JdbcTemplate jdbcTemplate;
   private final NamedParameterJdbcTemplate jdbcNamed;
+  private final OwnerSuggestIndex suggestIndex;
+  private final ExistenceFilter existenceFilter;
+  private final JdbcTemplate streamingJdbcTemplate;
 
-  public OwnerJdbcDao(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate jdbcNamed) {
+  public OwnerJdbcDao(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate jdbcNamed, OwnerSuggestIndex suggestIndex,
+                      ExistenceFilter existenceFilter) {
     this.jdbcTemplate = jdbcTemplate;
     this.jdbcNamed = jdbcNamed;
+    this.suggestIndex = suggestIndex;
+    this.existenceFilter = existenceFilter;
+
+    // exported owners are fetched from the database in chunks, instead of all rows at once
+    this.streamingJdbcTemplate = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+    this.streamingJdbcTemplate.setFetchSize(STREAM_FETCH_SIZE);
   }
 
   @Override
@@ -76,19 +102,42 @@ public class OwnerJdbcDao implements OwnerDao {
       return false;
     }
 
-    List<Owner> owners;
+    // most emails of new owners are not used yet, which the existence filter knows without a query
+    if (!existenceFilter.mightContainEmail(email)) {
+      return false;
+    }
 
+    boolean taken;
     try {
-      owners = jdbcTemplate.query(SQL_SELECT_BY_EMAIL, this::mapRow, email);
+      taken = Boolean.TRUE.equals(jdbcTemplate.queryForObject(SQL_EMAIL_EXISTS, Boolean.class, email));
     } catch (DataAccessException ex) {
       throw new FatalException("The database query errored", ex);
     }
 
-    if (owners.isEmpty()) {
-      return false;
+    if (!taken) {
+      existenceFilter.reportEmailFalsePositives(1);
+    }
+    return taken;
+  }
+
+  @Override
+  public Set<String> takenEmails(Collection<String> emails) {
+    LOG.trace("takenEmails({})", emails.size());
+
+    var distinct = emails.stream().filter(Objects::nonNull).distinct().filter(existenceFilter::mightContainEmail).toList();
+    var taken = new HashSet<String>();
+    try {
+      // the emails are checked in chunks, to keep the IN lists of the statements short
+      for (int start = 0; start < distinct.size(); start += CREATE_BATCH_SIZE) {
+        var chunk = distinct.subList(start, Math.min(distinct.size(), start + CREATE_BATCH_SIZE));
+        taken.addAll(jdbcNamed.queryForList(SQL_SELECT_EMAILS, Collections.singletonMap("emails", chunk), String.class));
+      }
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
     }
 
-    return true;
+    existenceFilter.reportEmailFalsePositives(distinct.size() - taken.size());
+    return taken;
   }
 
   @Override
@@ -99,7 +148,7 @@ public class OwnerJdbcDao implements OwnerDao {
 
     try {
       jdbcTemplate.update(con -> {
-        PreparedStatement stmt = con.prepareStatement(SQL_CREATE, Statement.RETURN_GENERATED_KEYS);
+        PreparedStatement stmt = con.prepareStatement(SQL_CREATE, new String[] {"id"});
         stmt.setString(1, newOwner.firstName());
         stmt.setString(2, newOwner.lastName());
         stmt.setString(3, newOwner.email());
@@ -115,6 +164,9 @@ public class OwnerJdbcDao implements OwnerDao {
       throw new FatalException("Could not extract key for newly created owner");
     }
 
+    suggestIndex.put(key.longValue(), newOwner.firstName(), newOwner.lastName(), newOwner.email());
+    existenceFilter.putEmails(Collections.singletonList(newOwner.email()));
+
     return new Owner()
         .setId(key.longValue())
         .setFirstName(newOwner.firstName())
@@ -123,6 +175,52 @@ public class OwnerJdbcDao implements OwnerDao {
         ;
   }
 
+  @Override
+  @Transactional
+  public List<Owner> createAll(List<OwnerCreateDto> newOwners) {
+    LOG.trace("createAll({})", newOwners.size());
+
+    var created = new ArrayList<Owner>(newOwners.size());
+    try {
+      jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+        try (PreparedStatement stmt = con.prepareStatement(SQL_CREATE, new String[] {"id"})) {
+          for (int start = 0; start < newOwners.size(); start += CREATE_BATCH_SIZE) {
+            var batch = newOwners.subList(start, Math.min(newOwners.size(), start + CREATE_BATCH_SIZE));
+            for (var owner : batch) {
+              stmt.setString(1, owner.firstName());
+              stmt.setString(2, owner.lastName());
+              stmt.setString(3, owner.email());
+              stmt.addBatch();
+            }
+            stmt.executeBatch();
+
+            // the keys are returned in the order of the batch
+            try (var keys = stmt.getGeneratedKeys()) {
+              for (var owner : batch) {
+                if (!keys.next()) {
+                  throw new FatalException("Could not extract key for newly created owner");
+                }
+                created.add(new Owner()
+                    .setId(keys.getLong(1))
+                    .setFirstName(owner.firstName())
+                    .setLastName(owner.lastName())
+                    .setEmail(owner.email()));
+              }
+            }
+          }
+        }
+        return null;
+      });
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+
+    suggestIndex.putAll(created);
+    existenceFilter.putEmails(created.stream().map(Owner::getEmail).toList());
+
+    return created;
+  }
+
   @Override
   public Collection<Owner> getAllById(Collection<Long> ids) {
     LOG.trace("getAllById({})", ids);
@@ -144,14 +242,13 @@ public class OwnerJdbcDao implements OwnerDao {
     LOG.trace("search({})", searchParameters);
 
     List<Owner> owners;
-    Function<String, String> like = str -> "%" + str.toLowerCase() + "%";
 
     var sqlParams = new MapSqlParameterSource();
     String sql = "SELECT * FROM " + TABLE_NAME + " WHERE 1=1";
 
     if (searchParameters.name() != null) {
-      sql += " AND LOWER(first_name||' '||last_name) LIKE :name";
-      sqlParams.addValue("name", like.apply(searchParameters.name()));
+      boolean prefix = searchParameters.matchMode() == MatchMode.PREFIX;
+      sql += " AND " + TextConditions.matching("search_key", "name", OwnerSearchKey.normalize(searchParameters.name()), prefix, sqlParams);
     }
     if (searchParameters.maxAmount() != null) {
       sql += " LIMIT :limit";
@@ -171,6 +268,31 @@ public class OwnerJdbcDao implements OwnerDao {
     return owners;
   }
 
+  @Override
+  public List<Owner> suggest(String prefix, int limit) {
+    LOG.trace("suggest({}, {})", prefix, limit);
+
+    var ids = suggestIndex.suggest(prefix, limit);
+    if (ids.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    // fetched by primary key, and put back into the order of the index
+    Map<Long, Owner> owners = getAllById(ids).stream().collect(Collectors.toMap(Owner::getId, Function.identity()));
+    return ids.stream().map(owners::get).filter(Objects::nonNull).toList();
+  }
+
+  @Override
+  public void exportAll(Consumer<Owner> action) {
+    LOG.trace("exportAll()");
+
+    try {
+      streamingJdbcTemplate.query(SQL_EXPORT, (RowCallbackHandler) result -> action.accept(mapRow(result, result.getRow())));
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    }
+  }
+
   /**
    * maps a db result set to an owner entity
    *
@@ -0,0 +1,336 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence.impl;
+
+import at.ac.tuwien.sepm.assignment.individual.entity.Owner;
+import at.ac.tuwien.sepm.assignment.individual.exception.FatalException;
+import at.ac.tuwien.sepm.assignment.individual.persistence.OwnerSuggestIndex;
+
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Implementation of the owner suggest index compliant to {@link OwnerSuggestIndex}.
+ * The normalized keys (full name, last name and email) of all owners are stored as UTF-8 in one shared {@code byte} pool.
+ * A {@code long} array references the keys in sorted order, so all keys starting with a prefix are a range of it,
+ * which is found by binary search like the path to a node of a trie.
+ * Compared to a node per character, this needs a few bytes per key on top of the key itself.
+ * Keys of single owners are inserted into a small sorted delta behind the sorted keys, which queries search as well,
+ * and which is merged into the sorted keys once it is full, so a single insert does not move all keys.
+ */
+@Component
+public class OwnerPrefixIndex implements OwnerSuggestIndex {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final String SQL_SELECT_OWNERS = "SELECT id, first_name, last_name, email FROM owner";
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int LENGTH_BITS = 16;
+  private static final int DELTA_CAPACITY = 1024;
+  private final JdbcTemplate jdbcTemplate;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private volatile boolean loaded = false;
+  private byte[] pool;
+  private int poolSize;
+  // offset in the pool shifted left by LENGTH_BITS, or'ed with the key length; sorted by key
+  private long[] keys;
+  private long[] owners;
+  private int keyCount;
+  // the keys before this position are sorted, the ones from it on are the delta, which is sorted on its own
+  private int sortedCount;
+  private int size;
+
+  public OwnerPrefixIndex(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Loads the index once the application context is ready,
+   * which is after the test data has been generated or cleaned.
+   */
+  @EventListener(ContextRefreshedEvent.class)
+  public void onContextRefreshed() {
+    rebuild();
+  }
+
+  @Override
+  public void rebuild() {
+    LOG.trace("rebuild()");
+
+    lock.writeLock().lock();
+    try {
+      allocate(INITIAL_CAPACITY);
+      jdbcTemplate.query(SQL_SELECT_OWNERS, (RowCallbackHandler) result -> {
+        for (byte[] key : keysOf(result.getString("first_name"), result.getString("last_name"), result.getString("email"))) {
+          insertKey(keyCount, storeKey(key), result.getLong("id"));
+        }
+        size++;
+      });
+
+      // the keys are appended unsorted, and sorted once all are loaded
+      mergeAppended(0);
+      loaded = true;
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    LOG.info("Owner suggest index loaded with {} owners, {} keys and {} key bytes", size, keyCount, poolSize);
+  }
+
+  @Override
+  public List<Long> suggest(String prefix, int limit) {
+    LOG.trace("suggest({}, {})", prefix, limit);
+
+    String normalized = prefix == null ? "" : OwnerSearchKey.normalize(prefix).stripLeading();
+    if (normalized.isEmpty()) {
+      return List.of();
+    }
+    byte[] query = normalized.getBytes(StandardCharsets.UTF_8);
+
+    ensureLoaded();
+    lock.readLock().lock();
+    try {
+      // an owner matches with at most all its keys, the first matching keys can belong to the same owners
+      var matches = new LinkedHashSet<Long>();
+      int sorted = lowerBound(query, 0, sortedCount);
+      int delta = lowerBound(query, sortedCount, keyCount);
+      while (matches.size() < limit) {
+        boolean sortedMatches = sorted < sortedCount && startsWith(keys[sorted], query);
+        boolean deltaMatches = delta < keyCount && startsWith(keys[delta], query);
+        if (!sortedMatches && !deltaMatches) {
+          break;
+        }
+        // the smaller key of both comes first, like in one sorted array
+        boolean takeSorted = sortedMatches && (!deltaMatches || compareKeys(keys[sorted], keys[delta]) <= 0);
+        matches.add(owners[takeSorted ? sorted++ : delta++]);
+      }
+      return new ArrayList<>(matches);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void put(long ownerId, String firstName, String lastName, String email) {
+    LOG.trace("put({}, {}, {}, {})", ownerId, firstName, lastName, email);
+
+    ensureLoaded();
+    lock.writeLock().lock();
+    try {
+      for (byte[] key : keysOf(firstName, lastName, email)) {
+        insertKey(lowerBound(key, sortedCount, keyCount), storeKey(key), ownerId);
+      }
+      size++;
+      if (keyCount - sortedCount >= DELTA_CAPACITY) {
+        mergeAppended(sortedCount);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void putAll(Collection<Owner> newOwners) {
+    LOG.trace("putAll({})", newOwners.size());
+
+    ensureLoaded();
+    lock.writeLock().lock();
+    try {
+      // the delta is merged together with the appended keys
+      for (var owner : newOwners) {
+        for (byte[] key : keysOf(owner.getFirstName(), owner.getLastName(), owner.getEmail())) {
+          insertKey(keyCount, storeKey(key), owner.getId());
+        }
+        size++;
+      }
+      mergeAppended(sortedCount);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    ensureLoaded();
+    lock.readLock().lock();
+    try {
+      return size;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Loads the index if a request arrives before the context refresh event has been handled.
+   */
+  private void ensureLoaded() {
+    if (!loaded) {
+      synchronized (this) {
+        if (!loaded) {
+          rebuild();
+        }
+      }
+    }
+  }
+
+  /**
+   * normalizes the indexed keys of an owner
+   *
+   * @param firstName the first name of the owner
+   * @param lastName  the last name of the owner
+   * @param email     the email of the owner, or null
+   * @return the full name, last name and email of the owner, ignoring the empty ones, as UTF-8
+   */
+  private static List<byte[]> keysOf(String firstName, String lastName, String email) {
+    var keys = new ArrayList<byte[]>(3);
+    for (String key : new String[] {
+        OwnerSearchKey.of(firstName, lastName),
+        lastName == null ? "" : OwnerSearchKey.normalize(lastName).trim(),
+        email == null ? "" : OwnerSearchKey.normalize(email).trim()}) {
+      if (!key.isEmpty()) {
+        keys.add(key.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * appends a key to the pool, growing it if needed
+   *
+   * @param key the key as UTF-8
+   * @return the reference to the key in the pool
+   */
+  private long storeKey(byte[] key) {
+    if (poolSize + key.length > pool.length) {
+      pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + key.length));
+    }
+    System.arraycopy(key, 0, pool, poolSize, key.length);
+    long reference = ((long) poolSize << LENGTH_BITS) | key.length;
+    poolSize += key.length;
+    return reference;
+  }
+
+  /**
+   * inserts a key reference at a position of the keys, moving the following keys back and growing the arrays if needed
+   *
+   * @param position  the position to insert at
+   * @param reference the reference to the key in the pool
+   * @param ownerId   the id of the owner of the key
+   */
+  private void insertKey(int position, long reference, long ownerId) {
+    if (keyCount == keys.length) {
+      keys = Arrays.copyOf(keys, keys.length * 2);
+      owners = Arrays.copyOf(owners, owners.length * 2);
+    }
+    System.arraycopy(keys, position, keys, position + 1, keyCount - position);
+    System.arraycopy(owners, position, owners, position + 1, keyCount - position);
+    keys[position] = reference;
+    owners[position] = ownerId;
+    keyCount++;
+  }
+
+  /**
+   * sorts the keys appended after the sorted ones, and merges both into new sorted arrays in one pass, which leaves the delta empty
+   *
+   * @param sorted the amount of keys at the start, which are sorted already
+   */
+  private void mergeAppended(int sorted) {
+    Integer[] appended = IntStream.range(sorted, keyCount).boxed().toArray(Integer[]::new);
+    Arrays.sort(appended, Comparator.comparing(i -> keys[i], this::compareKeys));
+
+    long[] mergedKeys = new long[keys.length];
+    long[] mergedOwners = new long[owners.length];
+    int left = 0;
+    int right = 0;
+    for (int i = 0; i < keyCount; i++) {
+      boolean takeLeft = right == appended.length || (left < sorted && compareKeys(keys[left], keys[appended[right]]) <= 0);
+      int from = takeLeft ? left++ : appended[right++];
+      mergedKeys[i] = keys[from];
+      mergedOwners[i] = owners[from];
+    }
+    keys = mergedKeys;
+    owners = mergedOwners;
+    sortedCount = keyCount;
+  }
+
+  /**
+   * finds the first key not smaller than a query in a sorted range of the keys
+   *
+   * @param query the query as UTF-8
+   * @param from  the start of the range
+   * @param to    the end of the range, exclusive
+   * @return the position of the first key not smaller than the query, or {@code to} if there is none
+   */
+  private int lowerBound(byte[] query, int from, int to) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (compare(keys[middle], query) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * compares a referenced key with a query, by their unsigned bytes, which is the order of their code points
+   */
+  private int compare(long key, byte[] query) {
+    int offset = offsetOf(key);
+    return Arrays.compareUnsigned(pool, offset, offset + lengthOf(key), query, 0, query.length);
+  }
+
+  private int compareKeys(long first, long second) {
+    int firstOffset = offsetOf(first);
+    int secondOffset = offsetOf(second);
+    return Arrays.compareUnsigned(pool, firstOffset, firstOffset + lengthOf(first), pool, secondOffset, secondOffset + lengthOf(second));
+  }
+
+  private boolean startsWith(long key, byte[] query) {
+    int offset = offsetOf(key);
+    return lengthOf(key) >= query.length && Arrays.equals(pool, offset, offset + query.length, query, 0, query.length);
+  }
+
+  private static int offsetOf(long key) {
+    return (int) (key >>> LENGTH_BITS);
+  }
+
+  private static int lengthOf(long key) {
+    return (int) (key & ((1 << LENGTH_BITS) - 1));
+  }
+
+  /**
+   * allocates empty arrays with the given capacity
+   *
+   * @param capacity the amount of keys to allocate space for
+   */
+  private void allocate(int capacity) {
+    pool = new byte[capacity * 16];
+    poolSize = 0;
+    keys = new long[capacity];
+    owners = new long[capacity];
+    keyCount = 0;
+    sortedCount = 0;
+    size = 0;
+  }
+}
@@ -0,0 +1,37 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence.impl;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes owner names to the search key of every owner, and search terms to match against it.
+ * The key is the lowercase full name, {@code first last}, with runs of whitespace collapsed to one space.
+ * The stored key is generated by the database, as declared in migration {@code V9}; this computes the same key for the suggest index.
+ */
+final class OwnerSearchKey {
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private OwnerSearchKey() {
+  }
+
+  /**
+   * builds the search key of an owner
+   *
+   * @param firstName the first name of the owner
+   * @param lastName  the last name of the owner
+   * @return the search key
+   */
+  static String of(String firstName, String lastName) {
+    return normalize(firstName + " " + lastName).trim();
+  }
+
+  /**
+   * normalizes a search term the same way as the search keys
+   *
+   * @param term the search term
+   * @return the normalized term, to match against the search keys
+   */
+  static String normalize(String term) {
+    return WHITESPACE.matcher(term).replaceAll(" ").toLowerCase(Locale.ROOT);
+  }
+}
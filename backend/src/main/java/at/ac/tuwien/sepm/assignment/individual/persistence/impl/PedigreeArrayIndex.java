@@ -0,0 +1,578 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence.impl;
+
+import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
+import at.ac.tuwien.sepm.assignment.individual.exception.FatalException;
+import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepm.assignment.individual.persistence.PedigreeIndex;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Implementation of the pedigree index compliant to {@link PedigreeIndex}.
+ * The parent references are stored in primitive {@code long} arrays,
+ * which are addressed by an open addressing hash table (linear probing) over the horse ids.
+ * The reverse edges are stored per horse as a growing {@code long} array of child ids.
+ * Changes made inside a transaction are applied once it commits.
+ * Commits can be applied out of order, so a child may arrive before its parent: the parent then gets a placeholder slot,
+ * which only holds its children until the parent itself is put.
+ */
+@Component
+public class PedigreeArrayIndex implements PedigreeIndex {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final String SQL_SELECT_PARENTS = "SELECT id, father_id, mother_id FROM horse";
+  private static final long NONE = Long.MIN_VALUE;
+  private static final int INITIAL_CAPACITY = 1024;
+  private final JdbcTemplate jdbcTemplate;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private volatile boolean loaded = false;
+  private long[] ids;
+  private long[] fathers;
+  private long[] mothers;
+  private long[][] children;
+  private int[] childCounts;
+  private boolean[] placeholders;
+  private int size;
+  private int placeholderCount;
+
+  public PedigreeArrayIndex(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Loads the index once the application context is ready,
+   * which is after the test data has been generated or cleaned.
+   */
+  @EventListener(ContextRefreshedEvent.class)
+  public void onContextRefreshed() {
+    rebuild();
+  }
+
+  @Override
+  public void rebuild() {
+    LOG.trace("rebuild()");
+
+    lock.writeLock().lock();
+    try {
+      allocate(INITIAL_CAPACITY);
+      jdbcTemplate.query(SQL_SELECT_PARENTS, (RowCallbackHandler) result -> {
+        long id = result.getLong("id");
+        long father = result.getLong("father_id");
+        if (result.wasNull()) {
+          father = NONE;
+        }
+        long mother = result.getLong("mother_id");
+        if (result.wasNull()) {
+          mother = NONE;
+        }
+        insertEntry(id, father, mother, null, 0);
+      });
+
+      // parents can be read after their children, so the reverse edges are linked in a second pass,
+      // over a copy of the entries, since linking to a parent that is not indexed inserts its placeholder
+      long[] horseIds = ids.clone();
+      long[] horseFathers = fathers.clone();
+      long[] horseMothers = mothers.clone();
+      for (int slot = 0; slot < horseIds.length; slot++) {
+        if (horseIds[slot] != NONE) {
+          link(horseIds[slot], horseFathers[slot]);
+          link(horseIds[slot], horseMothers[slot]);
+        }
+      }
+      loaded = true;
+    } catch (DataAccessException ex) {
+      throw new FatalException("The database query errored", ex);
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    LOG.info("Pedigree index loaded with {} horses", size - placeholderCount);
+  }
+
+  @Override
+  public boolean contains(long horseId) {
+    LOG.trace("contains({})", horseId);
+
+    ensureLoaded();
+    lock.readLock().lock();
+    try {
+      return horseSlotOf(horseId) >= 0;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public Set<Long> getAncestorIds(long rootId, long generations) throws NotFoundException {
+    LOG.trace("getAncestorIds({}, {})", rootId, generations);
+
+    ensureLoaded();
+    lock.readLock().lock();
+    try {
+      if (horseSlotOf(rootId) < 0) {
+        throw new NotFoundException("No horse with ID %d found".formatted(rootId));
+      }
+
+      // breadth first, so that every horse is expanded from its closest generation
+      Set<Long> visited = new HashSet<>();
+      visited.add(rootId);
+      long[] frontier = {rootId};
+      int frontierSize = 1;
+      for (long generation = 0; generation < generations && frontierSize > 0; generation++) {
+        long[] next = new long[frontierSize * 2];
+        int nextSize = 0;
+        for (int i = 0; i < frontierSize; i++) {
+          int slot = slotOf(frontier[i]);
+          if (slot < 0) {
+            continue;
+          }
+          nextSize = visit(fathers[slot], visited, next, nextSize);
+          nextSize = visit(mothers[slot], visited, next, nextSize);
+        }
+        frontier = next;
+        frontierSize = nextSize;
+      }
+
+      return visited;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<long[]> getDescendantIdsByGeneration(long rootId, long generations) throws NotFoundException {
+    LOG.trace("getDescendantIdsByGeneration({}, {})", rootId, generations);
+
+    ensureLoaded();
+    lock.readLock().lock();
+    try {
+      if (horseSlotOf(rootId) < 0) {
+        throw new NotFoundException("No horse with ID %d found".formatted(rootId));
+      }
+
+      // breadth first, so that every horse is assigned to its closest generation
+      Set<Long> visited = new HashSet<>();
+      visited.add(rootId);
+      List<long[]> byGeneration = new ArrayList<>();
+      long[] frontier = {rootId};
+      for (long generation = 0; frontier.length > 0; generation++) {
+        byGeneration.add(frontier);
+        if (generation == generations) {
+          break;
+        }
+
+        int capacity = 0;
+        for (long id : frontier) {
+          capacity += childCounts[slotOf(id)];
+        }
+        long[] next = new long[capacity];
+        int nextSize = 0;
+        for (long id : frontier) {
+          int slot = slotOf(id);
+          for (int i = 0; i < childCounts[slot]; i++) {
+            nextSize = visit(children[slot][i], visited, next, nextSize);
+          }
+        }
+        frontier = Arrays.copyOf(next, nextSize);
+        Arrays.sort(frontier);
+      }
+
+      return byGeneration;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean hasChildren(long horseId) {
+    LOG.trace("hasChildren({})", horseId);
+
+    ensureLoaded();
+    lock.readLock().lock();
+    try {
+      int slot = slotOf(horseId);
+      return slot >= 0 && childCounts[slot] > 0;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void put(long horseId, Long fatherId, Long motherId) {
+    LOG.trace("put({}, {}, {})", horseId, fatherId, motherId);
+
+    afterCommit(() -> putHorse(horseId, fatherId, motherId));
+  }
+
+  @Override
+  public void putAll(Collection<Horse> horses) {
+    LOG.trace("putAll({})", horses.size());
+
+    var entries = horses.stream().map(horse -> new Long[] {horse.getId(), horse.getFatherId(), horse.getMotherId()}).toList();
+    afterCommit(() -> entries.forEach(entry -> putHorse(entry[0], entry[1], entry[2])));
+  }
+
+  @Override
+  public void remove(long horseId) {
+    LOG.trace("remove({})", horseId);
+
+    afterCommit(() -> removeHorse(horseId));
+  }
+
+  @Override
+  public void removeAll(Collection<Long> horseIds) {
+    LOG.trace("removeAll({})", horseIds.size());
+
+    var removed = List.copyOf(horseIds);
+    afterCommit(() -> removed.forEach(this::removeHorse));
+  }
+
+  @Override
+  public int size() {
+    ensureLoaded();
+    lock.readLock().lock();
+    try {
+      return size - placeholderCount;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Loads the index if a request arrives before the context refresh event has been handled.
+   */
+  private void ensureLoaded() {
+    if (!loaded) {
+      synchronized (this) {
+        if (!loaded) {
+          rebuild();
+        }
+      }
+    }
+  }
+
+  /**
+   * Applies a change to the index under the write lock.
+   * Inside a transaction, the change is deferred until the transaction commits,
+   * so readers never see uncommitted horses and a rollback leaves the index as it was.
+   *
+   * @param change the change, which may only call methods expecting the write lock to be held
+   */
+  private void afterCommit(Runnable change) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          apply(change);
+        }
+      });
+    } else {
+      apply(change);
+    }
+  }
+
+  /**
+   * runs a change under the write lock
+   *
+   * @param change the change to run
+   */
+  private void apply(Runnable change) {
+    ensureLoaded();
+    lock.writeLock().lock();
+    try {
+      change.run();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * inserts a horse or replaces its parents, the caller holds the write lock
+   *
+   * @param horseId  the id of the horse
+   * @param fatherId the id of the horse's father, or null if not set
+   * @param motherId the id of the horse's mother, or null if not set
+   */
+  private void putHorse(long horseId, Long fatherId, Long motherId) {
+    long father = fatherId == null ? NONE : fatherId;
+    long mother = motherId == null ? NONE : motherId;
+    int slot = slotOf(horseId);
+    if (slot >= 0) {
+      unlink(horseId, fathers[slot]);
+      unlink(horseId, mothers[slot]);
+      // unlinking may have dropped a placeholder and moved the entry
+      slot = slotOf(horseId);
+      fathers[slot] = father;
+      mothers[slot] = mother;
+      if (placeholders[slot]) {
+        placeholders[slot] = false;
+        placeholderCount--;
+      }
+    } else {
+      insertEntry(horseId, father, mother, null, 0);
+    }
+    link(horseId, father);
+    link(horseId, mother);
+  }
+
+  /**
+   * adds a horse to the next frontier, if it exists and has not been visited yet
+   *
+   * @param id       the horse id, or {@link #NONE}
+   * @param visited  the already visited horses
+   * @param next     the next frontier
+   * @param nextSize the current size of the next frontier
+   * @return the new size of the next frontier
+   */
+  private int visit(long id, Set<Long> visited, long[] next, int nextSize) {
+    if (id != NONE && visited.add(id)) {
+      next[nextSize++] = id;
+    }
+    return nextSize;
+  }
+
+  /**
+   * adds a child to the children of a parent.
+   * If the parent is not indexed yet, because the commit of the child was applied first, it gets a placeholder slot.
+   *
+   * @param child  the child id
+   * @param parent the parent id, or {@link #NONE}
+   */
+  private void link(long child, long parent) {
+    if (parent == NONE) {
+      return;
+    }
+    int slot = slotOf(parent);
+    if (slot < 0) {
+      insertEntry(parent, NONE, NONE, null, 0);
+      slot = slotOf(parent);
+      placeholders[slot] = true;
+      placeholderCount++;
+    }
+
+    if (children[slot] == null) {
+      children[slot] = new long[2];
+    } else if (childCounts[slot] == children[slot].length) {
+      children[slot] = Arrays.copyOf(children[slot], childCounts[slot] * 2);
+    }
+    children[slot][childCounts[slot]++] = child;
+  }
+
+  /**
+   * removes a child from the children of a parent
+   *
+   * @param child  the child id
+   * @param parent the parent id, or {@link #NONE}
+   */
+  private void unlink(long child, long parent) {
+    int slot = parent == NONE ? -1 : slotOf(parent);
+    if (slot < 0) {
+      return;
+    }
+
+    for (int i = 0; i < childCounts[slot]; i++) {
+      if (children[slot][i] == child) {
+        children[slot][i] = children[slot][--childCounts[slot]];
+        break;
+      }
+    }
+    if (placeholders[slot] && childCounts[slot] == 0) {
+      removeSlot(slot);
+    }
+  }
+
+  /**
+   * allocates empty tables with the given capacity
+   *
+   * @param capacity the table capacity, must be a power of two
+   */
+  private void allocate(int capacity) {
+    ids = new long[capacity];
+    fathers = new long[capacity];
+    mothers = new long[capacity];
+    children = new long[capacity][];
+    childCounts = new int[capacity];
+    placeholders = new boolean[capacity];
+    Arrays.fill(ids, NONE);
+    size = 0;
+    placeholderCount = 0;
+  }
+
+  /**
+   * calculates the home slot of a horse id
+   *
+   * @param id   the horse id
+   * @param mask the table mask
+   * @return the home slot
+   */
+  private static int homeOf(long id, int mask) {
+    long hash = id * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  /**
+   * finds the slot of a horse id
+   *
+   * @param id the horse id
+   * @return the slot, or -1 if the id is not indexed
+   */
+  private int slotOf(long id) {
+    int mask = ids.length - 1;
+    int slot = homeOf(id, mask);
+    while (ids[slot] != NONE) {
+      if (ids[slot] == id) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * finds the slot of an indexed horse, leaving out placeholders
+   *
+   * @param id the horse id
+   * @return the slot, or -1 if the horse is not indexed or only has a placeholder
+   */
+  private int horseSlotOf(long id) {
+    int slot = slotOf(id);
+    return slot >= 0 && placeholders[slot] ? -1 : slot;
+  }
+
+  /**
+   * inserts or replaces an entry, growing the tables if needed.
+   * The reverse edges of the entry's parents are not touched.
+   *
+   * @param id       the horse id
+   * @param father   the father id, or {@link #NONE}
+   * @param mother   the mother id, or {@link #NONE}
+   * @param kids     the child ids of the horse, or null if it has none
+   * @param kidCount the amount of used entries in {@code kids}
+   */
+  private void insertEntry(long id, long father, long mother, long[] kids, int kidCount) {
+    if ((size + 1) * 4L > ids.length * 3L) {
+      grow();
+    }
+
+    int mask = ids.length - 1;
+    int slot = homeOf(id, mask);
+    while (ids[slot] != NONE && ids[slot] != id) {
+      slot = (slot + 1) & mask;
+    }
+    if (ids[slot] == NONE) {
+      size++;
+    }
+    ids[slot] = id;
+    fathers[slot] = father;
+    mothers[slot] = mother;
+    children[slot] = kids;
+    childCounts[slot] = kidCount;
+  }
+
+  /**
+   * doubles the table capacity and rehashes all entries
+   */
+  private void grow() {
+    long[] oldIds = ids;
+    long[] oldFathers = fathers;
+    long[] oldMothers = mothers;
+    long[][] oldChildren = children;
+    int[] oldChildCounts = childCounts;
+    boolean[] oldPlaceholders = placeholders;
+    allocate(oldIds.length * 2);
+    for (int i = 0; i < oldIds.length; i++) {
+      if (oldIds[i] != NONE) {
+        insertEntry(oldIds[i], oldFathers[i], oldMothers[i], oldChildren[i], oldChildCounts[i]);
+        if (oldPlaceholders[i]) {
+          placeholders[slotOf(oldIds[i])] = true;
+          placeholderCount++;
+        }
+      }
+    }
+  }
+
+  /**
+   * removes a horse and its links to its parents and children, the caller holds the write lock
+   *
+   * @param horseId the horse to remove, ignored if not indexed
+   */
+  private void removeHorse(long horseId) {
+    int slot = slotOf(horseId);
+    if (slot < 0) {
+      return;
+    }
+    unlink(horseId, fathers[slot]);
+    unlink(horseId, mothers[slot]);
+    // unlinking may have dropped a placeholder and moved the entry
+    slot = slotOf(horseId);
+
+    // mirror ON DELETE SET NULL of the parent foreign keys
+    for (int i = 0; i < childCounts[slot]; i++) {
+      int childSlot = slotOf(children[slot][i]);
+      if (childSlot < 0) {
+        continue;
+      }
+      if (fathers[childSlot] == horseId) {
+        fathers[childSlot] = NONE;
+      }
+      if (mothers[childSlot] == horseId) {
+        mothers[childSlot] = NONE;
+      }
+    }
+    removeSlot(slot);
+  }
+
+  /**
+   * removes an entry and shifts following entries of the probe sequence back,
+   * so that lookups never stop at the freed slot
+   *
+   * @param slot the slot to free
+   */
+  private void removeSlot(int slot) {
+    if (placeholders[slot]) {
+      placeholderCount--;
+    }
+    int mask = ids.length - 1;
+    int hole = slot;
+    int next = (hole + 1) & mask;
+    while (ids[next] != NONE) {
+      int home = homeOf(ids[next], mask);
+      if (((next - home) & mask) >= ((next - hole) & mask)) {
+        ids[hole] = ids[next];
+        fathers[hole] = fathers[next];
+        mothers[hole] = mothers[next];
+        children[hole] = children[next];
+        childCounts[hole] = childCounts[next];
+        placeholders[hole] = placeholders[next];
+        hole = next;
+      }
+      next = (next + 1) & mask;
+    }
+    ids[hole] = NONE;
+    fathers[hole] = NONE;
+    mothers[hole] = NONE;
+    children[hole] = null;
+    childCounts[hole] = 0;
+    placeholders[hole] = false;
+    size--;
+  }
+}
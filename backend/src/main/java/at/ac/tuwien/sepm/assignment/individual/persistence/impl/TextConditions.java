@@ -0,0 +1,33 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence.impl;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+/**
+ * Builds the conditions of case-insensitive text filters on lowercase columns.
+ */
+final class TextConditions {
+
+  private TextConditions() {
+  }
+
+  /**
+   * builds the condition of a lowercase text column matching a filter.
+   * A prefix is matched as range of the column, so an index of the column can be used.
+   *
+   * @param column    the lowercase column
+   * @param param     the name of the parameter to add the filter as
+   * @param filter    the lowercase filter
+   * @param prefix    whether the column has to start with the filter, or else contain it
+   * @param sqlParams the parameters to add the filter to
+   * @return the condition
+   */
+  static String matching(String column, String param, String filter, boolean prefix, MapSqlParameterSource sqlParams) {
+    if (prefix) {
+      sqlParams.addValue(param, filter);
+      sqlParams.addValue(param + "End", filter + Character.MAX_VALUE);
+      return column + " >= :" + param + " AND " + column + " < :" + param + "End";
+    }
+    sqlParams.addValue(param, "%" + filter + "%");
+    return column + " LIKE :" + param;
+  }
+}
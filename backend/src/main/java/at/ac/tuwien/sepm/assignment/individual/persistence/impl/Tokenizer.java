@@ -0,0 +1,36 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Splits texts into the lowercase words stored in and looked up from the full-text index.
+ */
+final class Tokenizer {
+  static final int MAX_TOKEN_LENGTH = 255;
+  private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  private Tokenizer() {
+  }
+
+  /**
+   * splits a text into words
+   *
+   * @param text the text, may be null
+   * @return the distinct words with the amount of their occurrences, in order of their first occurrence
+   */
+  static Map<String, Integer> tokenize(String text) {
+    Map<String, Integer> tokens = new LinkedHashMap<>();
+    if (text == null) {
+      return tokens;
+    }
+    for (String token : SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+      if (!token.isEmpty()) {
+        tokens.merge(token.length() > MAX_TOKEN_LENGTH ? token.substring(0, MAX_TOKEN_LENGTH) : token, 1, Integer::sum);
+      }
+    }
+    return tokens;
+  }
+}
@@ -0,0 +1,63 @@
+package at.ac.tuwien.sepm.assignment.individual.rest;
+
+import at.ac.tuwien.sepm.assignment.individual.service.ExportService;
+import at.ac.tuwien.sepm.assignment.individual.type.FileFormat;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping(path = ExportEndpoint.BASE_PATH)
+public class ExportEndpoint {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  static final String BASE_PATH = "/export";
+  static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+  private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+  private final ExportService service;
+
+  /**
+   * A controller for the /export route
+   *
+   * @param service Export service to write the registry with
+   */
+  public ExportEndpoint(ExportService service) {
+    this.service = service;
+  }
+
+  /**
+   * Downloads all owners and horses as gzip compressed file, for example as backup.
+   * The file is written by an asynchronous request while the rows are read from the database,
+   * so neither the rows nor the file are held in memory, and the request thread is free for other requests meanwhile.
+   *
+   * @param format the format of the file, NDJSON if not given
+   * @return the body writing the owners, then the horses with the IDs of their owners and parents
+   */
+  @GetMapping
+  public ResponseEntity<StreamingResponseBody> exportAll(@RequestParam(defaultValue = "NDJSON") FileFormat format) {
+    LOG.info("GET " + BASE_PATH);
+    LOG.debug("Request query parameters: format={}", format);
+    StreamingResponseBody body = output -> {
+      var compressed = new GZIPOutputStream(output, GZIP_BUFFER_SIZE);
+      service.exportAll(compressed, format);
+      compressed.finish();
+    };
+    String filename = "registry." + format.name().toLowerCase(Locale.ROOT) + ".gz";
+    return ResponseEntity.ok()
+        .contentType(GZIP)
+        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+        .body(body);
+  }
+}
@@ -1,60 +1,178 @@
 package at.ac.tuwien.sepm.assignment.individual.rest;
 
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseBatchItemDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseChildDetailDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDeleteReportDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDescendantPageDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDescendantSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDescendantTreeDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseFacetsDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseGenerationsDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseImportReportDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseImportStatusDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseParentCandidateSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorsePatchDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseTreeDto;
 import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepm.assignment.individual.service.HorseCreateCoalescer;
+import at.ac.tuwien.sepm.assignment.individual.service.HorseImportService;
 import at.ac.tuwien.sepm.assignment.individual.service.HorseService;
+import at.ac.tuwien.sepm.assignment.individual.type.FileFormat;
+import at.ac.tuwien.sepm.assignment.individual.type.HorseField;
+import at.ac.tuwien.sepm.assignment.individual.type.Sex;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.lang.invoke.MethodHandles;
-import java.util.stream.Stream;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping(path = HorseEndpoint.BASE_PATH)
 public class HorseEndpoint {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   static final String BASE_PATH = "/horses";
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  static final String CSV_VALUE = "text/csv";
+  static final String MERGE_PATCH_VALUE = "application/merge-patch+json";
+  private static final int STREAM_FLUSH_INTERVAL = 100;
   private final HorseService service;
+  private final HorseImportService importService;
+  private final HorseCreateCoalescer createCoalescer;
+  private final ObjectMapper objectMapper;
 
   /**
    * A controller for the /horses route
    *
-   * @param service Horse service to process in- and outgoing data
+   * @param service         Horse service to process in- and outgoing data
+   * @param importService   Horse import service to import pedigree files with
+   * @param createCoalescer coalescer to commit concurrently created horses together with
+   * @param objectMapper    mapper to write streamed horses with
    */
-  public HorseEndpoint(HorseService service) {
+  public HorseEndpoint(HorseService service, HorseImportService importService, HorseCreateCoalescer createCoalescer, ObjectMapper objectMapper) {
     this.service = service;
+    this.importService = importService;
+    this.createCoalescer = createCoalescer;
+    this.objectMapper = objectMapper;
   }
 
   /**
    * Searches for horses that match given search criteria.
+   * If there are more matching horses than the limit, the cursor to the next page is sent in the header {@value #NEXT_CURSOR_HEADER}.
    *
    * @param searchParameters Query parameters for search filters. Provide none to get all horses
    * @return a list of horses with their common properties; without parent information
+   * @throws ValidationException the limit or cursor is invalid
    */
   @GetMapping
-  @ResponseStatus(HttpStatus.OK)
-  public Stream<HorseDetailDto> search(HorseSearchDto searchParameters) {
+  public ResponseEntity<List<HorseDetailDto>> search(HorseSearchDto searchParameters) throws ValidationException {
     LOG.info("GET " + BASE_PATH);
     LOG.debug("Request query parameters: {}", searchParameters);
-    return service.searchHorses(searchParameters);
+    var page = service.searchHorses(searchParameters);
+    var response = ResponseEntity.ok();
+    if (page.nextCursor() != null) {
+      response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+    }
+    return response.body(page.horses());
+  }
+
+  /**
+   * Streams the horses that match given search criteria as newline delimited JSON, one horse per line.
+   * Horses are written and flushed while they are read from the database, so the result size is not limited by memory.
+   *
+   * @param searchParameters Query parameters for search filters. Provide none to get all horses
+   * @return the body writing the horses with their common properties; without parent information
+   * @throws ValidationException the limit or cursor is invalid
+   */
+  @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> searchStream(HorseSearchDto searchParameters) throws ValidationException {
+    LOG.info("GET " + BASE_PATH + " as stream");
+    LOG.debug("Request query parameters: {}", searchParameters);
+    var horses = service.streamHorses(searchParameters);
+    StreamingResponseBody body = output -> {
+      try (horses; var generator = objectMapper.getFactory().createGenerator(output)) {
+        generator.setRootValueSeparator(null);
+        int[] written = {0};
+        horses.forEach(horse -> {
+          try {
+            generator.writeObject(horse);
+            generator.writeRaw('\n');
+            if (++written[0] % STREAM_FLUSH_INTERVAL == 0) {
+              generator.flush();
+            }
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+  /**
+   * Counts the horses that match given search criteria by sex, owner and birth decade, for example to narrow down the search.
+   *
+   * @param searchParameters Query parameters for search filters. Provide none to count all horses
+   * @return the counts of the matching horses; for owners, only the ones with the most matching horses
+   * @throws ValidationException the limit or cursor is invalid
+   */
+  @GetMapping("facets")
+  @ResponseStatus(HttpStatus.OK)
+  public HorseFacetsDto facets(HorseSearchDto searchParameters) throws ValidationException {
+    LOG.info("GET " + BASE_PATH + "/facets");
+    LOG.debug("Request query parameters: {}", searchParameters);
+    return service.countFacets(searchParameters);
+  }
+
+  /**
+   * Suggests the horses that can be set as father or mother of a horse, while typing the parent's name.
+   * Only horses of the given sex, not born after the child and other than the child are suggested.
+   *
+   * @param searchParameters Query parameters with the typed name prefix, the parent's sex, the child's birthdate and id
+   * @return the first candidates ordered by name, ignoring case
+   * @throws ValidationException the sex was not given or the limit was out of range
+   */
+  @GetMapping("parent-candidates")
+  @ResponseStatus(HttpStatus.OK)
+  public List<HorseDetailDto> parentCandidates(HorseParentCandidateSearchDto searchParameters) throws ValidationException {
+    LOG.info("GET " + BASE_PATH + "/parent-candidates");
+    LOG.debug("Request query parameters: {}", searchParameters);
+    return service.searchParentCandidates(searchParameters);
   }
 
   /**
@@ -88,6 +206,41 @@ public class HorseEndpoint {
     return service.getAncestors(id, generationParameters.generations());
   }
 
+  /**
+   * Gets the descendants of a horse down to the n-th generation
+   *
+   * @param id                   the id of the horse where to start the family tree
+   * @param generationParameters the maximum number of generations starting from the parent; bigger than 0
+   * @return the horse with its children. The children include their children, until there are no more or the generation limit has been reached
+   * @throws NotFoundException   the horse id could not be found in the database
+   * @throws ValidationException input parameters like generation were invalid
+   */
+  @GetMapping("descendants/{id}")
+  @ResponseStatus(HttpStatus.OK)
+  public HorseDescendantTreeDto getDescendants(@PathVariable Long id, HorseGenerationsDto generationParameters) throws NotFoundException, ValidationException {
+    LOG.info("GET " + BASE_PATH + "/descendants/{}", id);
+    LOG.debug("Request query parameters: {}", generationParameters);
+    return service.getDescendants(id, generationParameters.generations());
+  }
+
+  /**
+   * Gets a page of the descendants of a horse down to the n-th generation, as flat list
+   *
+   * @param id               the id of the horse where to start the search
+   * @param searchParameters the maximum number of generations and the page to get
+   * @return the descendants of the page, ordered by generation and id, and the total amount of descendants
+   * @throws NotFoundException   the horse id could not be found in the database
+   * @throws ValidationException input parameters like generation or limit were invalid
+   */
+  @GetMapping("descendants/{id}/flat")
+  @ResponseStatus(HttpStatus.OK)
+  public HorseDescendantPageDto getDescendantPage(@PathVariable Long id, HorseDescendantSearchDto searchParameters)
+      throws NotFoundException, ValidationException {
+    LOG.info("GET " + BASE_PATH + "/descendants/{}/flat", id);
+    LOG.debug("Request query parameters: {}", searchParameters);
+    return service.getDescendantPage(id, searchParameters);
+  }
+
   /**
    * Updates the horse with provided data
    *
@@ -107,6 +260,27 @@ public class HorseEndpoint {
     return service.update(toUpdate.withId(id));
   }
 
+  /**
+   * Changes some fields of a horse, given as JSON merge patch (RFC 7396) of the horse.
+   * Fields that are not in the patch are kept, fields set to null are cleared.
+   * The owner and the parents are set by objects with their id, as in the horse, or cleared by null.
+   *
+   * @param id    the id of the horse to patch
+   * @param patch the merge patch of the horse
+   * @return the patched horse
+   * @throws ValidationException the patch was no object, named unknown fields or the changed fields were invalid
+   * @throws ConflictException   the changed fields caused conflicts with the parents or children of the horse
+   * @throws NotFoundException   the horse to patch, its new owner or one of its new parents could not be found
+   */
+  @PatchMapping(path = "{id}", consumes = MERGE_PATCH_VALUE)
+  @ResponseStatus(HttpStatus.OK)
+  public HorseChildDetailDto patch(@PathVariable long id, @RequestBody JsonNode patch)
+      throws ValidationException, ConflictException, NotFoundException {
+    LOG.info("PATCH " + BASE_PATH + "/{}", id);
+    LOG.debug("Request body:\n{}", patch);
+    return service.patch(id, readMergePatch(id, patch));
+  }
+
   /**
    * Creates a new horse with provided data
    *
@@ -121,7 +295,81 @@ public class HorseEndpoint {
   public HorseChildDetailDto create(@RequestBody HorseCreateDto toCreate) throws ConflictException, ValidationException, NotFoundException {
     LOG.info("POST " + BASE_PATH);
     LOG.debug("Request body:\n{}", toCreate);
-    return service.create(toCreate);
+    return createCoalescer.create(toCreate);
+  }
+
+  /**
+   * Creates several new horses at once, for example all horses of a stud book.
+   * The horses can only reference stored horses as parents, not other horses of the batch.
+   *
+   * @param toCreate the data of the horses to create
+   * @return the result for each horse in the order of the request: the created horse, or the reasons why it was rejected
+   * @throws ValidationException the batch was empty, too big or contained null entries
+   */
+  @PostMapping("batch")
+  @ResponseStatus(HttpStatus.OK)
+  public List<HorseBatchItemDto> createAll(@RequestBody List<HorseCreateDto> toCreate) throws ValidationException {
+    LOG.info("POST " + BASE_PATH + "/batch");
+    LOG.debug("Request body with {} horses", toCreate == null ? null : toCreate.size());
+    return service.createAll(toCreate);
+  }
+
+  /**
+   * Imports the horses of a pedigree file of an external registry, sent as CSV or newline delimited JSON.
+   * The file is read while it is uploaded; horses reference their parents by their keys in the file, in any order.
+   * The progress of the import is logged.
+   *
+   * @param contentType the format of the file, {@code text/csv} or {@code application/x-ndjson}
+   * @param file        the pedigree file, encoded as UTF-8
+   * @return the amounts of read, stored and rejected horses, and the reasons for the rejections
+   * @throws ValidationException the header of a CSV file is missing required columns or names unknown ones
+   */
+  @PostMapping(path = "import", consumes = {HorseEndpoint.CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  @ResponseStatus(HttpStatus.OK)
+  public HorseImportReportDto importHorses(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream file)
+      throws ValidationException {
+    LOG.info("POST " + BASE_PATH + "/import");
+    var format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType) ? FileFormat.NDJSON : FileFormat.CSV;
+    return importService.importHorses(file, format, progress -> LOG.info("Horse import progress: {}", progress));
+  }
+
+  /**
+   * Imports the horses of a pedigree file like {@link #importHorses}, and streams the progress to the client as newline delimited JSON.
+   * The import runs as asynchronous request, so the request thread is free for other requests meanwhile.
+   * A line with the progress is written and flushed every 100000 read horses, the last line holds the report of the import.
+   * If the header of a CSV file is invalid, the status is 422 and the only line holds the validation errors.
+   *
+   * @param contentType the format of the file, {@code text/csv} or {@code application/x-ndjson}
+   * @param file        the pedigree file, encoded as UTF-8
+   * @param response    the response, to answer an invalid header with its status
+   * @return the body running the import and writing its progress and report
+   */
+  @PostMapping(path = "import", consumes = {HorseEndpoint.CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE}, produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> importHorsesWithProgress(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream file,
+      HttpServletResponse response) {
+    LOG.info("POST " + BASE_PATH + "/import with progress");
+    var format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType) ? FileFormat.NDJSON : FileFormat.CSV;
+    StreamingResponseBody body = output -> {
+      try (var generator = objectMapper.getFactory().createGenerator(output)) {
+        generator.setRootValueSeparator(null);
+        try {
+          var report = importService.importHorses(file, format, progress -> {
+            LOG.info("Horse import progress: {}", progress);
+            writeLine(generator, new HorseImportStatusDto(progress, null));
+          });
+          writeLine(generator, new HorseImportStatusDto(null, report));
+        } catch (ValidationException e) {
+          // the header is read before any line is written or flushed, and the generator is still open,
+          // so neither it nor the output stream has committed the response yet
+          LOG.warn("Terminating horse import with status 422 due to {}: {}", e.getClass().getSimpleName(), e.getMessage());
+          response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+          writeLine(generator, new ValidationErrorRestDto(e.summary(), e.errors()));
+        }
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
   }
 
   /**
@@ -136,4 +384,139 @@ public class HorseEndpoint {
     LOG.info("DELETE " + BASE_PATH + "/{}", id);
     service.delete(id);
   }
+
+  /**
+   * Deletes several horses at once, for example all horses of a dissolved stable, given by a list of their ids.
+   * Ids of horses that do not exist are ignored.
+   *
+   * @param ids the ids of the horses to delete
+   * @return the ids of the deleted horses and the amount of other horses whose father or mother was deleted
+   * @throws ValidationException no ids, too many ids or null ids were given
+   */
+  @DeleteMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseStatus(HttpStatus.OK)
+  public HorseDeleteReportDto deleteAll(@RequestBody List<Long> ids) throws ValidationException {
+    LOG.info("DELETE " + BASE_PATH);
+    LOG.debug("Request body with {} ids", ids == null ? null : ids.size());
+    return service.deleteAll(ids);
+  }
+
+  /**
+   * Deletes all horses matching the search filters given as query parameters, as in the search.
+   *
+   * @param filter the filters of the horses to delete; at least one is required, limit and cursor are not allowed
+   * @return the ids of the deleted horses and the amount of other horses whose father or mother was deleted
+   * @throws ValidationException the filter has no criteria, or a limit or cursor
+   */
+  @DeleteMapping
+  @ResponseStatus(HttpStatus.OK)
+  public HorseDeleteReportDto deleteMatching(HorseSearchDto filter) throws ValidationException {
+    LOG.info("DELETE " + BASE_PATH);
+    LOG.debug("Request query parameters: {}", filter);
+    return service.deleteMatching(filter);
+  }
+
+  /**
+   * Reads the changed fields of a horse from a JSON merge patch
+   *
+   * @param id    the id of the patched horse, which the patch may repeat but not change
+   * @param patch the merge patch
+   * @return the patch with the fields it changes
+   * @throws ValidationException the patch was no object, or had unknown fields or values of the wrong type
+   */
+  private HorsePatchDto readMergePatch(long id, JsonNode patch) throws ValidationException {
+    if (patch == null || !patch.isObject()) {
+      throw new ValidationException("Validation of horse patch failed", List.of("Horse patch is not a JSON object"));
+    }
+
+    var errors = new ArrayList<String>();
+    var fields = EnumSet.noneOf(HorseField.class);
+    var values = new EnumMap<HorseField, Object>(HorseField.class);
+    patch.fields().forEachRemaining(entry -> {
+      var value = entry.getValue();
+      if (entry.getKey().equals("id")) {
+        if (!value.canConvertToLong() || value.asLong() != id) {
+          errors.add("Horse id can not be changed");
+        }
+        return;
+      }
+      var field = HorseField.ofProperty(entry.getKey());
+      if (field == null) {
+        errors.add("Horse has no field " + entry.getKey());
+        return;
+      }
+      fields.add(field);
+      if (value.isNull()) {
+        return;
+      }
+      try {
+        values.put(field, switch (field) {
+          case NAME, DESCRIPTION -> textValue(value);
+          case DATE_OF_BIRTH -> LocalDate.parse(textValue(value));
+          case SEX -> Sex.valueOf(textValue(value));
+          case OWNER, FATHER, MOTHER -> referencedId(value);
+        });
+      } catch (IllegalArgumentException | DateTimeParseException e) {
+        errors.add("Horse field %s has an invalid value".formatted(field.property()));
+      }
+    });
+    if (!errors.isEmpty()) {
+      throw new ValidationException("Validation of horse patch failed", errors);
+    }
+
+    return new HorsePatchDto(
+        fields,
+        (String) values.get(HorseField.NAME),
+        (String) values.get(HorseField.DESCRIPTION),
+        (LocalDate) values.get(HorseField.DATE_OF_BIRTH),
+        (Sex) values.get(HorseField.SEX),
+        (Long) values.get(HorseField.OWNER),
+        (Long) values.get(HorseField.FATHER),
+        (Long) values.get(HorseField.MOTHER));
+  }
+
+  /**
+   * Gets the string of a patched value
+   *
+   * @param value the patched value, not null
+   * @return the string
+   * @throws IllegalArgumentException the value is not a string
+   */
+  private static String textValue(JsonNode value) {
+    if (!value.isTextual()) {
+      throw new IllegalArgumentException("not a string");
+    }
+    return value.textValue();
+  }
+
+  /**
+   * Gets the id of a patched reference to an owner or a parent
+   *
+   * @param value the patched value, not null
+   * @return the id in the value
+   * @throws IllegalArgumentException the value is not an object with a numeric id
+   */
+  private static Long referencedId(JsonNode value) {
+    var id = value.get("id");
+    if (!value.isObject() || id == null || !id.canConvertToLong()) {
+      throw new IllegalArgumentException("not an object with an id");
+    }
+    return id.asLong();
+  }
+
+  /**
+   * writes a value as one line of newline delimited JSON, and flushes it to the client
+   *
+   * @param generator the generator writing the response
+   * @param value     the value of the line
+   */
+  private static void writeLine(JsonGenerator generator, Object value) {
+    try {
+      generator.writeObject(value);
+      generator.writeRaw('\n');
+      generator.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
 }
@@ -1,13 +1,16 @@
 package at.ac.tuwien.sepm.assignment.individual.rest;
 
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerBatchItemDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.OwnerCreateDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.OwnerDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.OwnerSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerSuggestDto;
 import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
 import at.ac.tuwien.sepm.assignment.individual.service.OwnerService;
 
 import java.lang.invoke.MethodHandles;
+import java.util.List;
 import java.util.stream.Stream;
 
 import org.slf4j.Logger;
@@ -50,6 +53,21 @@ public class OwnerEndpoint {
     return service.search(searchParameters);
   }
 
+  /**
+   * Suggests owners while a name or email is typed.
+   *
+   * @param suggestParameters the typed prefix and the maximum amount of suggestions
+   * @return a list of the first owners whose full name, last name or email start with the prefix
+   * @throws ValidationException the prefix is missing or the limit is out of range
+   */
+  @GetMapping("suggest")
+  @ResponseStatus(HttpStatus.OK)
+  public Stream<OwnerDto> suggest(OwnerSuggestDto suggestParameters) throws ValidationException {
+    LOG.info("GET " + BASE_PATH + "/suggest");
+    LOG.debug("Request query parameters: {}", suggestParameters);
+    return service.suggest(suggestParameters);
+  }
+
   /**
    * Creates a new owner with provided data
    *
@@ -64,4 +82,19 @@ public class OwnerEndpoint {
     LOG.debug("Request body:\n{}", toCreate);
     return service.create(toCreate);
   }
+
+  /**
+   * Creates several new owners at once, for example when migrating a customer list.
+   *
+   * @param toCreate the data of the owners to create
+   * @return the result for each owner in the order of the request: the created owner, or the reasons why it was rejected
+   * @throws ValidationException the batch was empty, too big or contained null entries
+   */
+  @PostMapping("batch")
+  @ResponseStatus(HttpStatus.OK)
+  public List<OwnerBatchItemDto> createAll(@RequestBody List<OwnerCreateDto> toCreate) throws ValidationException {
+    LOG.info("POST " + BASE_PATH + "/batch");
+    LOG.debug("Request body with {} owners", toCreate == null ? null : toCreate.size());
+    return service.createAll(toCreate);
+  }
 }
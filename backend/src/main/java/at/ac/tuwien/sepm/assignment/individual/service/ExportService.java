@@ -0,0 +1,25 @@
+package at.ac.tuwien.sepm.assignment.individual.service;
+
+import at.ac.tuwien.sepm.assignment.individual.type.FileFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Service for exporting the whole registry, for example as backup.
+ */
+public interface ExportService {
+
+  /**
+   * Write all owners and horses of the persistent data store to an output, as one consistent snapshot.
+   * The owners are written first, then the horses with the IDs of their owners and parents, both ordered by ID.
+   * Each row has the column {@code type}, which is {@code owner} or {@code horse}.
+   * In CSV, the file starts with a header naming the columns of both types, the columns of the other type are left empty.
+   * The rows are written while they are read from the persistent data store, so they are never all held in memory.
+   *
+   * @param output the output to write the rows to, encoded as UTF-8; it is flushed but not closed
+   * @param format the format to write the rows in
+   * @throws IOException the output could not be written
+   */
+  void exportAll(OutputStream output, FileFormat format) throws IOException;
+}
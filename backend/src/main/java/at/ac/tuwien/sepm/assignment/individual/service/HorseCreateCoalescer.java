@@ -0,0 +1,56 @@
+package at.ac.tuwien.sepm.assignment.individual.service;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseChildDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
+import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
+
+/**
+ * Service for creating horses, which commits concurrent creations together if write coalescing is enabled.
+ */
+public interface HorseCreateCoalescer {
+
+  /**
+   * Create a new horse in the persistent data store, like {@link HorseService#create}.
+   * If coalescing is enabled, the horse is queued and inserted together with the creations of other callers
+   * in one JDBC batch and one transaction. The call returns once this transaction is committed,
+   * with the horse's own generated id or its own error.
+   *
+   * @param horse the data for the new horse
+   * @return the created horse
+   * @throws ValidationException if the creation data given for the horse is in itself incorrect (description too long, no name, …)
+   * @throws ConflictException   if the creation data given for the horse is in conflict with its parents
+   * @throws NotFoundException   if a parent or the owner of the horse does not exist in the persistent data store
+   */
+  HorseChildDetailDto create(HorseCreateDto horse) throws ValidationException, ConflictException, NotFoundException;
+
+  /**
+   * Check if concurrent creations are coalesced
+   *
+   * @return true if creations are queued and committed together, false if each is committed on its own
+   */
+  boolean isEnabled();
+
+  /**
+   * Switch coalescing of concurrent creations on or off.
+   * Creations queued before it is switched off are still committed together.
+   *
+   * @param enabled true to queue creations and commit them together, false to commit each on its own
+   */
+  void setEnabled(boolean enabled);
+
+  /**
+   * Get the amount of batches committed since the start
+   *
+   * @return the amount of committed batches of coalesced creations
+   */
+  long getBatches();
+
+  /**
+   * Get the amount of creations that were queued since the start
+   *
+   * @return the amount of coalesced creations, including rejected ones
+   */
+  long getCoalescedCreations();
+}
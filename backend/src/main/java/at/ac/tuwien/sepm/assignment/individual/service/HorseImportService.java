@@ -0,0 +1,30 @@
+package at.ac.tuwien.sepm.assignment.individual.service;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseImportProgressDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseImportReportDto;
+import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepm.assignment.individual.type.FileFormat;
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Service for importing pedigree files of external registries.
+ */
+public interface HorseImportService {
+
+  /**
+   * Import the horses of a pedigree file, while reading it.
+   * The horses reference their parents by their keys in the file, parents are stored before their children regardless of the order in the file.
+   * Horses are stored in batches, each in its own transaction, so the horses stored before a failure stay stored.
+   * Only the keys of the file and the horses waiting for their parents are held in memory, not the whole file.
+   * Invalid horses are rejected, together with all their descendants in the file.
+   *
+   * @param input    the pedigree file, encoded as UTF-8
+   * @param format   the format of the file
+   * @param progress called with the progress of the import every 100000 read horses, and once at the end
+   * @return the amounts of read, stored and rejected horses, and the reasons for the rejections
+   * @throws ValidationException the header of a CSV file is missing required columns or names unknown ones
+   */
+  HorseImportReportDto importHorses(InputStream input, FileFormat format, Consumer<HorseImportProgressDto> progress) throws ValidationException;
+}
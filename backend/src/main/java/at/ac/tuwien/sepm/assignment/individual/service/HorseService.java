@@ -1,14 +1,25 @@
 package at.ac.tuwien.sepm.assignment.individual.service;
 
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseBatchItemDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseChildDetailDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDeleteReportDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDescendantPageDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDescendantSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDescendantTreeDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseFacetsDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseParentCandidateSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorsePatchDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchPageDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseTreeDto;
 import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
 
+
+import java.util.List;
 import java.util.stream.Stream;
 
 /**
@@ -18,11 +29,43 @@ public interface HorseService {
 
   /**
    * Searches for all horses in the system that match a given filter.
+   * If a limit is given, only the first page of that size is returned, with the cursor to request the next page with.
+   *
+   * @param search the horse filter parameters
+   * @return the page of stored horses that match the criteria
+   * @throws ValidationException the limit or cursor of the search is invalid
+   */
+  HorseSearchPageDto searchHorses(HorseSearchDto search) throws ValidationException;
+
+  /**
+   * Streams all horses in the system that match a given filter, without holding them in memory.
+   * The search is validated immediately, the horses are read and mapped while the stream is consumed.
+   * The stream holds a database connection and has to be closed after use.
    *
    * @param search the horse filter parameters
-   * @return list of all stored horses that match the criteria
+   * @return a stream of the stored horses that match the criteria
+   * @throws ValidationException the limit or cursor of the search is invalid
+   */
+  Stream<HorseDetailDto> streamHorses(HorseSearchDto search) throws ValidationException;
+
+  /**
+   * Counts all horses in the system that match a given filter, by sex, owner and birth decade.
+   *
+   * @param search the horse filter parameters; order and limit are ignored
+   * @return the counts of the stored horses that match the criteria
+   * @throws ValidationException the limit or cursor of the search is invalid
+   */
+  HorseFacetsDto countFacets(HorseSearchDto search) throws ValidationException;
+
+  /**
+   * Searches for the horses that can be set as father or mother of a horse, while typing their name.
+   * Only horses passing the parent checks of create and update are returned.
+   *
+   * @param search the typed name prefix, the sex of the parent, the birthdate and id of the child
+   * @return the first candidates by name, ignoring case, at most the limit of the search or 5
+   * @throws ValidationException the sex is not given or the limit is out of range
    */
-  Stream<HorseDetailDto> searchHorses(HorseSearchDto search);
+  List<HorseDetailDto> searchParentCandidates(HorseParentCandidateSearchDto search) throws ValidationException;
 
   /**
    * Get all horses that are ancestors of at max the nth generation of a horse.
@@ -35,6 +78,29 @@ public interface HorseService {
    */
   HorseTreeDto getAncestors(long rootId, long generations) throws NotFoundException, ValidationException;
 
+  /**
+   * Get all horses that are descendants of at max the nth generation of a horse.
+   *
+   * @param rootId      the horse id where to start the tree
+   * @param generations the max allowed generation to search for; must be bigger or equal than 0
+   * @return a dto that contains a tree of the horses descendants
+   * @throws NotFoundException   the provided root horse did not exist in the database
+   * @throws ValidationException the provided generations parameter was invalid
+   */
+  HorseDescendantTreeDto getDescendants(long rootId, long generations) throws NotFoundException, ValidationException;
+
+  /**
+   * Get a page of the flat list of all horses that are descendants of at max the nth generation of a horse.
+   * The list is ordered by generation, then by id; the root horse itself is not part of it.
+   *
+   * @param rootId the horse id where to start the search
+   * @param search the generation limit and the page to get
+   * @return a dto that contains the requested page and the total amount of descendants
+   * @throws NotFoundException   the provided root horse did not exist in the database
+   * @throws ValidationException the provided search parameters were invalid
+   */
+  HorseDescendantPageDto getDescendantPage(long rootId, HorseDescendantSearchDto search) throws NotFoundException, ValidationException;
+
   /**
    * Updates the horse with the ID given in {@code horse}
    * with the data given in {@code horse}
@@ -48,6 +114,20 @@ public interface HorseService {
    */
   HorseChildDetailDto update(HorseChildDetailDto horse) throws NotFoundException, ValidationException, ConflictException;
 
+  /**
+   * Changes only the fields given in {@code patch} of the horse with the ID {@code id}
+   * in the persistent data store.
+   * Only the checks of the patched fields are run, so the parents are only read if the parents or the date of birth change.
+   *
+   * @param id    the ID of the horse to patch
+   * @param patch the changed fields of the horse
+   * @return the patched horse
+   * @throws NotFoundException   if the horse with given ID, or a new parent or owner does not exist in the persistent data store
+   * @throws ValidationException if a patched field is in itself incorrect (description too long, no name, …)
+   * @throws ConflictException   if a patched field is in conflict the data currently in the system (parent younger than child, …)
+   */
+  HorseChildDetailDto patch(long id, HorsePatchDto patch) throws NotFoundException, ValidationException, ConflictException;
+
   /**
    * Creates the horse with the data given in {@code horse}
    * in the persistent data store.
@@ -59,6 +139,17 @@ public interface HorseService {
    */
   HorseChildDetailDto create(HorseCreateDto horse) throws ValidationException, ConflictException, NotFoundException;
 
+  /**
+   * Create several new horses in one transaction.
+   * All referenced parents and owners are looked up at once, then each horse is validated like a single created one.
+   * The valid horses are created, the others are rejected with their validation errors.
+   *
+   * @param horses the horses to create
+   * @return the result for each horse, in the order of {@code horses}
+   * @throws ValidationException the batch is empty, too big or contains null entries
+   */
+  List<HorseBatchItemDto> createAll(List<HorseCreateDto> horses) throws ValidationException;
+
   /**
    * Get the horse with given ID, with more detail information.
    * This includes the owner of the horse, and its parents.
@@ -77,4 +168,23 @@ public interface HorseService {
    * @throws NotFoundException if the horse with the given ID does not exist in the persistent data store
    */
   void delete(long id) throws NotFoundException;
+
+  /**
+   * Deletes several horses by their ids from the persistent data store, in one transaction.
+   * Ids of horses that do not exist are ignored.
+   *
+   * @param ids the ids of the horses to delete
+   * @return the ids of the deleted horses and the amount of kept children whose parent links were cleared
+   * @throws ValidationException if no ids, too many ids or null ids are given
+   */
+  HorseDeleteReportDto deleteAll(List<Long> ids) throws ValidationException;
+
+  /**
+   * Deletes all horses matching the filters of a search from the persistent data store, in one transaction.
+   *
+   * @param filter the filters of the horses to delete
+   * @return the ids of the deleted horses and the amount of kept children whose parent links were cleared
+   * @throws ValidationException if the filter has no criteria, or a limit or cursor
+   */
+  HorseDeleteReportDto deleteMatching(HorseSearchDto filter) throws ValidationException;
 }
@@ -1,13 +1,16 @@
 package at.ac.tuwien.sepm.assignment.individual.service;
 
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerBatchItemDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.OwnerCreateDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.OwnerDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.OwnerSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerSuggestDto;
 import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -34,6 +37,14 @@ public interface OwnerService {
    */
   Map<Long, OwnerDto> getAllById(Collection<Long> ids) throws NotFoundException;
 
+  /**
+   * Fetch the owners referenced by the IDs in {@code ids}, leaving out the ones that do not exist
+   *
+   * @param ids the IDs of the owners, that should be fetched
+   * @return a map that contains the found owners with their IDs as key
+   */
+  Map<Long, OwnerDto> getExistingById(Collection<Long> ids);
+
   /**
    * Search for owners matching the criteria in {@code searchParameters}.
    * <p>
@@ -47,6 +58,15 @@ public interface OwnerService {
    */
   Stream<OwnerDto> search(OwnerSearchDto searchParameters);
 
+  /**
+   * Suggest owners for a typed prefix, by their full name, last name or email.
+   *
+   * @param suggestParameters the typed prefix and the maximum amount of owners to suggest
+   * @return a stream containing the first matching owners, ordered by their matching name or email
+   * @throws ValidationException the prefix is missing or the limit is out of range
+   */
+  Stream<OwnerDto> suggest(OwnerSuggestDto suggestParameters) throws ValidationException;
+
   /**
    * Create a new owner in the persistent data store.
    *
@@ -55,4 +75,16 @@ public interface OwnerService {
    * @throws ValidationException if the
    */
   OwnerDto create(OwnerCreateDto newOwner) throws ValidationException, ConflictException;
+
+  /**
+   * Create several new owners in one transaction.
+   * The emails of all owners are checked against the stored owners with one query, and against each other.
+   * The valid owners are created, the others are rejected with their validation errors and conflicts.
+   * If several owners of the batch have the same email, only the first valid one is created.
+   *
+   * @param newOwners the data of the owners to create
+   * @return the result for each owner, in the order of {@code newOwners}
+   * @throws ValidationException the batch is empty, too big or contains null entries
+   */
+  List<OwnerBatchItemDto> createAll(List<OwnerCreateDto> newOwners) throws ValidationException;
 }
@@ -0,0 +1,67 @@
+package at.ac.tuwien.sepm.assignment.individual.service.impl;
+
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepm.assignment.individual.persistence.OwnerDao;
+import at.ac.tuwien.sepm.assignment.individual.service.ExportService;
+import at.ac.tuwien.sepm.assignment.individual.type.FileFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Export service implementation according to {@link ExportService}
+ */
+@Service
+public class ExportServiceImpl implements ExportService {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private final HorseDao horseDao;
+  private final OwnerDao ownerDao;
+  private final ObjectMapper objectMapper;
+
+  public ExportServiceImpl(HorseDao horseDao, OwnerDao ownerDao, ObjectMapper objectMapper) {
+    this.horseDao = horseDao;
+    this.ownerDao = ownerDao;
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  // owners and horses are read in one transaction seeing one snapshot, which doesn't lock rows against concurrent writes
+  @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+  public void exportAll(OutputStream output, FileFormat format) throws IOException {
+    LOG.trace("exportAll({})", format);
+
+    var writer = ExportWriter.open(output, format, objectMapper);
+    long[] rows = {0, 0};
+    try {
+      ownerDao.exportAll(owner -> {
+        try {
+          writer.write(owner);
+          rows[0]++;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      horseDao.exportAll(horse -> {
+        try {
+          writer.write(horse);
+          rows[1]++;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    writer.flush();
+    LOG.info("Exported {} owners and {} horses", rows[0], rows[1]);
+  }
+}
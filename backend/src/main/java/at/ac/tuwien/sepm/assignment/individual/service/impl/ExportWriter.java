@@ -0,0 +1,174 @@
+package at.ac.tuwien.sepm.assignment.individual.service.impl;
+
+import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
+import at.ac.tuwien.sepm.assignment.individual.entity.Owner;
+import at.ac.tuwien.sepm.assignment.individual.type.FileFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the rows of a registry export one by one through a buffer, in the format of the export.
+ */
+abstract class ExportWriter {
+  private static final int BUFFER_SIZE = 64 * 1024;
+  protected final Writer writer;
+
+  private ExportWriter(OutputStream output) {
+    this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+  }
+
+  /**
+   * creates a writer for an export, and writes the start of the file
+   *
+   * @param output       the output to write to
+   * @param format       the format of the export
+   * @param objectMapper mapper to create JSON generators with
+   * @return the writer for the rows
+   * @throws IOException the output could not be written
+   */
+  static ExportWriter open(OutputStream output, FileFormat format, ObjectMapper objectMapper) throws IOException {
+    return format == FileFormat.CSV ? new Csv(output) : new Json(output, objectMapper);
+  }
+
+  abstract void write(Owner owner) throws IOException;
+
+  abstract void write(Horse horse) throws IOException;
+
+  /**
+   * writes the rest of the buffer to the output, without closing it
+   *
+   * @throws IOException the output could not be written
+   */
+  void flush() throws IOException {
+    writer.flush();
+  }
+
+  /**
+   * Rows as comma separated values, quoted if needed
+   */
+  private static final class Csv extends ExportWriter {
+    private static final String HEADER = "type,id,firstName,lastName,email,name,description,dateOfBirth,sex,ownerId,fatherId,motherId\n";
+
+    private Csv(OutputStream output) throws IOException {
+      super(output);
+      writer.write(HEADER);
+    }
+
+    @Override
+    void write(Owner owner) throws IOException {
+      writer.write("owner,");
+      writer.write(Long.toString(owner.getId()));
+      writer.write(',');
+      value(owner.getFirstName());
+      writer.write(',');
+      value(owner.getLastName());
+      writer.write(',');
+      value(owner.getEmail());
+      writer.write(",,,,,,,\n");
+    }
+
+    @Override
+    void write(Horse horse) throws IOException {
+      writer.write("horse,");
+      writer.write(Long.toString(horse.getId()));
+      writer.write(",,,,");
+      value(horse.getName());
+      writer.write(',');
+      value(horse.getDescription());
+      writer.write(',');
+      writer.write(horse.getDateOfBirth().toString());
+      writer.write(',');
+      writer.write(horse.getSex().name());
+      for (Long id : new Long[] {horse.getOwnerId(), horse.getFatherId(), horse.getMotherId()}) {
+        writer.write(',');
+        if (id != null) {
+          writer.write(Long.toString(id));
+        }
+      }
+      writer.write('\n');
+    }
+
+    /**
+     * writes a text value, quoted if it contains a separator, a quote or a line break
+     */
+    private void value(String value) throws IOException {
+      if (value == null) {
+        return;
+      }
+      if (value.chars().noneMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) {
+        writer.write(value);
+        return;
+      }
+      writer.write('"');
+      writer.write(value.replace("\"", "\"\""));
+      writer.write('"');
+    }
+  }
+
+  /**
+   * Rows as newline delimited JSON objects, leaving out null values
+   */
+  private static final class Json extends ExportWriter {
+    private final JsonGenerator generator;
+
+    private Json(OutputStream output, ObjectMapper objectMapper) throws IOException {
+      super(output);
+      this.generator = objectMapper.getFactory().createGenerator(writer);
+      this.generator.setRootValueSeparator(null);
+      this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    void write(Owner owner) throws IOException {
+      generator.writeStartObject();
+      generator.writeStringField("type", "owner");
+      generator.writeNumberField("id", owner.getId());
+      generator.writeStringField("firstName", owner.getFirstName());
+      generator.writeStringField("lastName", owner.getLastName());
+      optional("email", owner.getEmail());
+      generator.writeEndObject();
+      generator.writeRaw('\n');
+    }
+
+    @Override
+    void write(Horse horse) throws IOException {
+      generator.writeStartObject();
+      generator.writeStringField("type", "horse");
+      generator.writeNumberField("id", horse.getId());
+      generator.writeStringField("name", horse.getName());
+      optional("description", horse.getDescription());
+      generator.writeStringField("dateOfBirth", horse.getDateOfBirth().toString());
+      generator.writeStringField("sex", horse.getSex().name());
+      optional("ownerId", horse.getOwnerId());
+      optional("fatherId", horse.getFatherId());
+      optional("motherId", horse.getMotherId());
+      generator.writeEndObject();
+      generator.writeRaw('\n');
+    }
+
+    @Override
+    void flush() throws IOException {
+      generator.flush();
+      super.flush();
+    }
+
+    private void optional(String field, String value) throws IOException {
+      if (value != null) {
+        generator.writeStringField(field, value);
+      }
+    }
+
+    private void optional(String field, Long value) throws IOException {
+      if (value != null) {
+        generator.writeNumberField(field, value);
+      }
+    }
+  }
+}
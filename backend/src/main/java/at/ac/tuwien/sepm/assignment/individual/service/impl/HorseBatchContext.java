@@ -0,0 +1,53 @@
+package at.ac.tuwien.sepm.assignment.individual.service.impl;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerDto;
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepm.assignment.individual.service.OwnerService;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The stored parents and owners the horses of a batch are validated against and created with, read at once for the whole batch.
+ *
+ * @param parents the found parents of the batch, with their owners, by their ids
+ * @param owners  the found owners of the batch by their ids
+ */
+record HorseBatchContext(Map<Long, HorseDetailDto> parents, Map<Long, OwnerDto> owners) {
+
+  /**
+   * Reads the parents and owners referenced by a batch of horses, with one query each.
+   * Inside a transaction, the parents are locked until it ends.
+   *
+   * @param dao          the horse persistence to read the parents from
+   * @param ownerService the owner service to read the owners from
+   * @param horses       the horses of the batch
+   * @return the found parents and owners; ids that do not exist are left out
+   */
+  static HorseBatchContext read(HorseDao dao, OwnerService ownerService, Collection<HorseCreateDto> horses) {
+    var parents = dao.getAllDetailsById(horses.stream()
+        .flatMap(horse -> Stream.of(horse.fatherId(), horse.motherId()))
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet()));
+    var owners = ownerService.getExistingById(horses.stream()
+        .map(HorseCreateDto::ownerId)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet()));
+    return new HorseBatchContext(parents, owners);
+  }
+
+  /**
+   * Gets a parent of a horse of the batch.
+   *
+   * @param id the id of the parent, may be null
+   * @return the found parent, or null if the id is null or the parent was not found
+   */
+  HorseDetailDto parent(Long id) {
+    return id == null ? null : parents.get(id);
+  }
+}
@@ -0,0 +1,357 @@
+package at.ac.tuwien.sepm.assignment.individual.service.impl;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseChildDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
+import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
+import at.ac.tuwien.sepm.assignment.individual.exception.FatalException;
+import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepm.assignment.individual.mapper.HorseMapper;
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepm.assignment.individual.service.HorseCreateCoalescer;
+import at.ac.tuwien.sepm.assignment.individual.service.HorseService;
+import at.ac.tuwien.sepm.assignment.individual.service.OwnerService;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Implementation of the horse create coalescer compliant to {@link HorseCreateCoalescer}.
+ * Queued creations are collected by a single writer thread, until the first of them waited for the configured time or the batch is full.
+ * The parents and owners of a batch are read at once, its valid horses are inserted with one JDBC batch, and the whole batch is committed once.
+ * If the batch fails as a whole, its horses are created one by one, so a failing horse only fails its own caller.
+ * Coalescing can be switched on and off at runtime with the attribute {@code Enabled} of the JMX MBean.
+ */
+@Service
+@ManagedResource(description = "Group commit of concurrent horse creations")
+public class HorseCreateCoalescerImpl implements HorseCreateCoalescer {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final long CLOSE_POLL_MILLIS = 100;
+  private final HorseService horseService;
+  private final HorseDao dao;
+  private final HorseMapper mapper;
+  private final HorseValidator validator;
+  private final OwnerService ownerService;
+  private final TransactionTemplate transactionTemplate;
+  private final long maxWaitNanos;
+  private final int maxBatchSize;
+  private final long timeoutMillis;
+  private final BlockingQueue<PendingCreate> queue = new LinkedBlockingQueue<>();
+  private final LongAdder batches = new LongAdder();
+  private final LongAdder coalescedCreations = new LongAdder();
+  private volatile boolean enabled;
+  private volatile boolean closed = false;
+  private Thread writer;
+
+  public HorseCreateCoalescerImpl(
+      HorseService horseService,
+      HorseDao dao,
+      HorseMapper mapper,
+      HorseValidator validator,
+      OwnerService ownerService,
+      PlatformTransactionManager transactionManager,
+      @Value("${horse.create.coalescing.enabled:false}") boolean enabled,
+      @Value("${horse.create.coalescing.max-wait-micros:300}") long maxWaitMicros,
+      @Value("${horse.create.coalescing.max-batch-size:100}") int maxBatchSize,
+      @Value("${horse.create.coalescing.timeout-millis:30000}") long timeoutMillis) {
+    this.horseService = horseService;
+    this.dao = dao;
+    this.mapper = mapper;
+    this.validator = validator;
+    this.ownerService = ownerService;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+    this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+    this.maxBatchSize = maxBatchSize;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  @Override
+  public HorseChildDetailDto create(HorseCreateDto horse) throws ValidationException, ConflictException, NotFoundException {
+    LOG.trace("create({})", horse);
+
+    if (!enabled) {
+      return horseService.create(horse);
+    }
+    if (closed) {
+      throw new FatalException("Could not create horse, because the application is shutting down");
+    }
+
+    var pending = new PendingCreate(horse, new CompletableFuture<>());
+    queue.add(pending);
+    // started after queueing, so a writer that stopped in between either sees the creation or is replaced here
+    startWriter();
+    // the writer might have stopped before the creation was queued
+    if (closed) {
+      failQueued();
+    }
+    return await(pending);
+  }
+
+  @Override
+  @ManagedAttribute(description = "Whether concurrent horse creations are committed together")
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  @ManagedAttribute(description = "Whether concurrent horse creations are committed together")
+  public void setEnabled(boolean enabled) {
+    LOG.info("Coalescing of horse creations {}", enabled ? "enabled" : "disabled");
+    this.enabled = enabled;
+  }
+
+  @Override
+  @ManagedAttribute(description = "Batches of coalesced horse creations committed")
+  public long getBatches() {
+    return batches.sum();
+  }
+
+  @Override
+  @ManagedAttribute(description = "Horse creations committed together with others, including rejected ones")
+  public long getCoalescedCreations() {
+    return coalescedCreations.sum();
+  }
+
+  @ManagedAttribute(description = "Average amount of horse creations per committed batch")
+  public double getAverageBatchSize() {
+    long count = batches.sum();
+    return count == 0 ? 0 : (double) coalescedCreations.sum() / count;
+  }
+
+  /**
+   * Stops the writer once its current batch is committed, and fails the creations still queued.
+   */
+  @EventListener(ContextClosedEvent.class)
+  public void onContextClosed() {
+    closed = true;
+    Thread current;
+    synchronized (this) {
+      current = writer;
+    }
+    if (current != null) {
+      try {
+        current.join(TimeUnit.SECONDS.toMillis(10));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    failQueued();
+  }
+
+  /**
+   * Starts the writer thread with the first coalesced creation, or again after the previous writer stopped
+   */
+  private synchronized void startWriter() {
+    if (writer == null) {
+      writer = new Thread(this::writeBatches, "horse-create-coalescer");
+      writer.setDaemon(true);
+      writer.start();
+    }
+  }
+
+  /**
+   * Collects queued creations to batches and commits them, until the application shuts down
+   */
+  private void writeBatches() {
+    var batch = new ArrayList<PendingCreate>(maxBatchSize);
+    try {
+      while (!closed) {
+        var first = queue.poll(CLOSE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (batch.size() < maxBatchSize) {
+          var next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        try {
+          flush(batch);
+        } catch (Throwable e) {
+          // an error of one batch only fails its own callers, the writer goes on with the next batch
+          LOG.error("Coalesced creation of {} horses failed", batch.size(), e);
+          batch.forEach(pending -> pending.result().completeExceptionally(new FatalException("Horse creation failed", e)));
+        }
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      batch.forEach(pending -> pending.result().completeExceptionally(new FatalException("Horse creation was interrupted", e)));
+    } finally {
+      synchronized (this) {
+        writer = null;
+      }
+      // creations queued while this writer was stopping would otherwise wait for the next caller
+      if (!closed && !queue.isEmpty()) {
+        startWriter();
+      }
+    }
+  }
+
+  /**
+   * Creates the horses of a batch in one transaction, and answers their callers once it is committed.
+   * If the transaction fails, the horses are created one by one.
+   *
+   * @param batch the queued creations
+   */
+  private void flush(List<PendingCreate> batch) {
+    batches.increment();
+    coalescedCreations.add(batch.size());
+
+    List<Outcome> outcomes;
+    try {
+      outcomes = transactionTemplate.execute(status -> createBatch(batch));
+    } catch (RuntimeException e) {
+      LOG.warn("Coalesced creation of {} horses failed, creating them one by one", batch.size(), e);
+      batch.forEach(this::createAlone);
+      return;
+    }
+
+    for (int i = 0; i < batch.size(); i++) {
+      var result = batch.get(i).result();
+      var outcome = Objects.requireNonNull(outcomes).get(i);
+      if (outcome.error() != null) {
+        result.completeExceptionally(outcome.error());
+      } else {
+        result.complete(outcome.horse());
+      }
+    }
+  }
+
+  /**
+   * Validates the horses of a batch against their parents and owners read at once, and inserts the valid ones with one JDBC batch.
+   * Must be called inside a transaction, which locks the parents until the horses are committed.
+   *
+   * @param batch the queued creations
+   * @return the created horse or the error of each creation, in the order of {@code batch}
+   */
+  private List<Outcome> createBatch(List<PendingCreate> batch) {
+    var context = HorseBatchContext.read(dao, ownerService, batch.stream().map(PendingCreate::horse).toList());
+
+    var outcomes = new ArrayList<Outcome>(batch.size());
+    var valid = new ArrayList<HorseCreateDto>();
+    for (var pending : batch) {
+      try {
+        var missing = validator.validateForBatchItem(pending.horse(), context);
+        if (!missing.isEmpty()) {
+          throw new NotFoundException(String.join(", ", missing));
+        }
+        valid.add(pending.horse());
+        outcomes.add(null);
+      } catch (ValidationException | ConflictException | NotFoundException e) {
+        outcomes.add(new Outcome(null, e));
+      }
+    }
+
+    var created = (valid.isEmpty() ? List.<Horse>of() : dao.createAll(valid)).iterator();
+    for (int i = 0; i < outcomes.size(); i++) {
+      if (outcomes.get(i) == null) {
+        outcomes.set(i, new Outcome(mapper.entityToChildDetailDto(created.next(), context.owners(), context.parents()), null));
+      }
+    }
+    return outcomes;
+  }
+
+  /**
+   * Creates the horse of a queued creation in its own transaction, and answers its caller
+   *
+   * @param pending the queued creation
+   */
+  private void createAlone(PendingCreate pending) {
+    try {
+      pending.result().complete(horseService.create(pending.horse()));
+    } catch (Throwable e) {
+      pending.result().completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Fails all queued creations, after the writer stopped
+   */
+  private void failQueued() {
+    for (var pending = queue.poll(); pending != null; pending = queue.poll()) {
+      pending.result().completeExceptionally(new FatalException("Could not create horse, because the application is shutting down"));
+    }
+  }
+
+  /**
+   * Waits for a queued creation to be committed, at most for the configured timeout
+   *
+   * @param pending the queued creation
+   * @return the created horse
+   * @throws ValidationException the horse data was invalid
+   * @throws ConflictException   the horse data caused conflict with its parents
+   * @throws NotFoundException   a parent or the owner of the horse could not be found
+   */
+  private HorseChildDetailDto await(PendingCreate pending) throws ValidationException, ConflictException, NotFoundException {
+    try {
+      return pending.result().get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new FatalException("Interrupted while waiting for the horse to be created", e);
+    } catch (TimeoutException e) {
+      // a creation still queued is never written, one already taken by the writer might still be committed
+      queue.remove(pending);
+      throw new FatalException("Timed out after %d ms waiting for the horse to be created".formatted(timeoutMillis), e);
+    } catch (ExecutionException e) {
+      var cause = e.getCause();
+      if (cause instanceof ValidationException validationException) {
+        throw validationException;
+      }
+      if (cause instanceof ConflictException conflictException) {
+        throw conflictException;
+      }
+      if (cause instanceof NotFoundException notFoundException) {
+        throw notFoundException;
+      }
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new FatalException(cause);
+    }
+  }
+
+  /**
+   * A creation waiting in the queue
+   *
+   * @param horse  the horse to create
+   * @param result completed with the created horse or the error once the batch is committed
+   */
+  private record PendingCreate(HorseCreateDto horse, CompletableFuture<HorseChildDetailDto> result) {
+  }
+
+  /**
+   * The outcome of a creation of a batch, either the created horse or the error
+   *
+   * @param horse the created horse, null if it was rejected
+   * @param error the reason why it was rejected, null if it was created
+   */
+  private record Outcome(HorseChildDetailDto horse, Exception error) {
+  }
+}
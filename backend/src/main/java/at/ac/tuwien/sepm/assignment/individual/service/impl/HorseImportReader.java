@@ -0,0 +1,229 @@
+package at.ac.tuwien.sepm.assignment.individual.service.impl;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseImportRowDto;
+import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepm.assignment.individual.type.FileFormat;
+import at.ac.tuwien.sepm.assignment.individual.type.Sex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Reads the horses of a pedigree import file one by one, without loading the whole file.
+ * CSV files start with a header line naming the columns in any order, values may be quoted with {@code "}.
+ * NDJSON files contain one horse object per line.
+ * Rows that can't be parsed are returned with the reasons, so they can be reported instead of aborting the import.
+ */
+final class HorseImportReader implements Closeable {
+  private static final List<String> COLUMNS = List.of("key", "name", "description", "dateOfBirth", "sex", "ownerId", "fatherKey", "motherKey");
+  private static final List<String> REQUIRED_COLUMNS = List.of("key", "name", "dateOfBirth", "sex");
+  private final BufferedReader reader;
+  private final FileFormat format;
+  private final ObjectMapper objectMapper;
+  // position of each of the COLUMNS in a CSV row, -1 if the column is missing
+  private final int[] positions = new int[COLUMNS.size()];
+  private int columnCount;
+  private long line = 0;
+
+  /**
+   * A read horse of the import file
+   *
+   * @param line   the line where the horse starts
+   * @param horse  the read horse, null if nothing could be read
+   * @param errors the values that could not be parsed, empty if the horse was read completely
+   */
+  record Row(long line, HorseImportRowDto horse, List<String> errors) {
+  }
+
+  private HorseImportReader(InputStream input, FileFormat format, ObjectMapper objectMapper) {
+    this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    this.format = format;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * opens an import file and reads its header, if it has one
+   *
+   * @param input        the import file, encoded as UTF-8
+   * @param format       the format of the file
+   * @param objectMapper mapper to read NDJSON horses with
+   * @return the reader positioned at the first horse
+   * @throws ValidationException the CSV header is missing required columns or names unknown ones
+   * @throws IOException         the file could not be read
+   */
+  static HorseImportReader open(InputStream input, FileFormat format, ObjectMapper objectMapper) throws ValidationException, IOException {
+    var reader = new HorseImportReader(input, format, objectMapper);
+    if (format == FileFormat.CSV) {
+      reader.readHeader();
+    }
+    return reader;
+  }
+
+  /**
+   * reads the next horse of the file
+   *
+   * @return the next horse, or null at the end of the file
+   * @throws IOException the file could not be read
+   */
+  Row next() throws IOException {
+    return format == FileFormat.CSV ? nextCsv() : nextJson();
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  private void readHeader() throws ValidationException, IOException {
+    var header = readRecord();
+    List<String> validationErrors = new ArrayList<>();
+    Arrays.fill(positions, -1);
+    if (header == null) {
+      validationErrors.add("Import file is empty");
+    } else {
+      columnCount = header.size();
+      for (int i = 0; i < header.size(); i++) {
+        String name = header.get(i).trim();
+        int column = COLUMNS.stream().filter(name::equalsIgnoreCase).findFirst().map(COLUMNS::indexOf).orElse(-1);
+        if (column < 0) {
+          validationErrors.add("Unknown column " + name);
+        } else {
+          positions[column] = i;
+        }
+      }
+      for (String required : REQUIRED_COLUMNS) {
+        if (positions[COLUMNS.indexOf(required)] < 0) {
+          validationErrors.add("Missing column " + required);
+        }
+      }
+    }
+
+    if (!validationErrors.isEmpty()) {
+      throw new ValidationException("Header of horse import is invalid", validationErrors);
+    }
+  }
+
+  private Row nextCsv() throws IOException {
+    List<String> values;
+    long start;
+    do {
+      start = line + 1;
+      values = readRecord();
+      if (values == null) {
+        return null;
+      }
+    } while (values.size() == 1 && values.get(0).isBlank());
+
+    List<String> errors = new ArrayList<>();
+    if (values.size() != columnCount) {
+      errors.add("Expected %d values but found %d".formatted(columnCount, values.size()));
+    }
+    var horse = new HorseImportRowDto(
+        value(values, "key"),
+        value(values, "name"),
+        value(values, "description"),
+        parse(errors, value(values, "dateOfBirth"), LocalDate::parse, "Invalid date of birth: %s"),
+        parse(errors, value(values, "sex"), sex -> Sex.valueOf(sex.toUpperCase(Locale.ROOT)), "Invalid sex: %s"),
+        parse(errors, value(values, "ownerId"), Long::valueOf, "Invalid owner ID: %s"),
+        value(values, "fatherKey"),
+        value(values, "motherKey"));
+    return new Row(start, horse, errors);
+  }
+
+  private Row nextJson() throws IOException {
+    String text;
+    do {
+      text = reader.readLine();
+      if (text == null) {
+        return null;
+      }
+      line++;
+    } while (text.isBlank());
+
+    // the key is read on its own first, so the descendants of an invalid horse can be rejected with it
+    String key = null;
+    try {
+      var tree = objectMapper.readTree(text);
+      key = tree.path("key").isTextual() ? tree.get("key").asText() : null;
+      return new Row(line, objectMapper.treeToValue(tree, HorseImportRowDto.class), List.of());
+    } catch (JsonProcessingException e) {
+      var horse = key == null ? null : new HorseImportRowDto(key, null, null, null, null, null, null, null);
+      return new Row(line, horse, List.of("Invalid horse: " + e.getOriginalMessage()));
+    }
+  }
+
+  /**
+   * reads the values of the next CSV record, which can span several lines if a value is quoted
+   *
+   * @return the values of the record, or null at the end of the file
+   * @throws IOException the file could not be read
+   */
+  private List<String> readRecord() throws IOException {
+    var values = new ArrayList<String>();
+    var value = new StringBuilder();
+    boolean quoted = false;
+    int c = reader.read();
+    if (c == -1) {
+      return null;
+    }
+    for (; c != -1; c = reader.read()) {
+      if (quoted) {
+        if (c == '"') {
+          reader.mark(1);
+          if (reader.read() == '"') {
+            value.append('"');
+          } else {
+            reader.reset();
+            quoted = false;
+          }
+        } else {
+          if (c == '\n') {
+            line++;
+          }
+          value.append((char) c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        values.add(value.toString());
+        value.setLength(0);
+      } else if (c == '\n') {
+        line++;
+        break;
+      } else if (c != '\r') {
+        value.append((char) c);
+      }
+    }
+    values.add(value.toString());
+    return values;
+  }
+
+  private String value(List<String> values, String column) {
+    int position = positions[COLUMNS.indexOf(column)];
+    return position < 0 || position >= values.size() || values.get(position).isEmpty() ? null : values.get(position);
+  }
+
+  private static <T> T parse(List<String> errors, String value, Function<String, T> parser, String message) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return parser.apply(value.trim());
+    } catch (RuntimeException e) {
+      errors.add(message.formatted(value));
+      return null;
+    }
+  }
+}
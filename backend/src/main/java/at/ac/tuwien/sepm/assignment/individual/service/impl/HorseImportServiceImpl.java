@@ -0,0 +1,332 @@
+package at.ac.tuwien.sepm.assignment.individual.service.impl;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseImportErrorDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseImportProgressDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseImportReportDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseImportRowDto;
+import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
+import at.ac.tuwien.sepm.assignment.individual.exception.FatalException;
+import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepm.assignment.individual.service.HorseImportService;
+import at.ac.tuwien.sepm.assignment.individual.service.OwnerService;
+import at.ac.tuwien.sepm.assignment.individual.type.FileFormat;
+import at.ac.tuwien.sepm.assignment.individual.type.Sex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Horse import service implementation according to {@link HorseImportService}.
+ * Read horses wait until their parents are stored, then they are queued for the next batch.
+ * So the horses are stored in topological order, generation by generation if the file lists the foals first.
+ */
+@Service
+public class HorseImportServiceImpl implements HorseImportService {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int IMPORT_BATCH_SIZE = 10_000;
+  private static final int PROGRESS_INTERVAL = 100_000;
+  private static final int MAX_REPORTED_ERRORS = 1_000;
+  private final HorseDao dao;
+  private final HorseValidator validator;
+  private final OwnerService ownerService;
+  private final ObjectMapper objectMapper;
+
+  public HorseImportServiceImpl(HorseDao dao, HorseValidator validator, OwnerService ownerService, ObjectMapper objectMapper) {
+    this.dao = dao;
+    this.validator = validator;
+    this.ownerService = ownerService;
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public HorseImportReportDto importHorses(InputStream input, FileFormat format, Consumer<HorseImportProgressDto> progress)
+      throws ValidationException {
+    LOG.trace("importHorses({})", format);
+
+    try (var reader = HorseImportReader.open(input, format, objectMapper)) {
+      var run = new ImportRun();
+      HorseImportReader.Row row;
+      while ((row = reader.next()) != null) {
+        run.read(row);
+        if (run.read % PROGRESS_INTERVAL == 0) {
+          progress.accept(run.progress());
+        }
+      }
+      run.finish();
+      progress.accept(run.progress());
+      return new HorseImportReportDto(run.read, run.imported, run.rejected, run.errors);
+    } catch (IOException e) {
+      throw new FatalException("Reading the horse import failed", e);
+    }
+  }
+
+  /**
+   * A key of the import file, either of a read horse or of a parent that was referenced before it was read.
+   * Keys are held until the end of the import, so only what children are validated against is kept of stored horses.
+   */
+  private static final class ImportKey {
+    private final String key;
+    private boolean read;
+    private boolean rejected;
+    private boolean stored;
+    // the properties of the stored horse its children are validated against
+    private long id;
+    private Sex sex;
+    private LocalDate dateOfBirth;
+    // the read horse of the key while it is waiting for its parents or the next batch
+    private PendingHorse pending;
+    // the horses waiting for this one to be stored
+    private List<PendingHorse> children;
+
+    private ImportKey(String key) {
+      this.key = key;
+    }
+
+    private HorseDetailDto parent() {
+      return new HorseDetailDto(id, null, null, dateOfBirth, sex, null);
+    }
+
+    private List<PendingHorse> takeChildren() {
+      var taken = children == null ? List.<PendingHorse>of() : children;
+      children = null;
+      return taken;
+    }
+  }
+
+  /**
+   * A read horse that is not stored yet
+   */
+  private static final class PendingHorse {
+    private final long line;
+    private final HorseImportRowDto horse;
+    private final ImportKey key;
+    private int missingParents;
+
+    private PendingHorse(long line, HorseImportRowDto horse, ImportKey key) {
+      this.line = line;
+      this.horse = horse;
+      this.key = key;
+    }
+  }
+
+  /**
+   * The state of one import, while the file is read
+   */
+  private final class ImportRun {
+    private final Map<String, ImportKey> keys = new HashMap<>();
+    private final List<HorseImportErrorDto> errors = new ArrayList<>();
+    private List<PendingHorse> ready = new ArrayList<>();
+    private long read;
+    private long imported;
+    private long rejected;
+
+    private HorseImportProgressDto progress() {
+      return new HorseImportProgressDto(read, imported, rejected, read - imported - rejected);
+    }
+
+    /**
+     * checks a read horse, and queues it for the next batch if its parents are stored already
+     */
+    private void read(HorseImportReader.Row row) {
+      read++;
+      var horse = row.horse();
+      if (horse == null || horse.key() == null || horse.key().isBlank()) {
+        var reasons = new ArrayList<>(row.errors());
+        if (horse != null) {
+          reasons.add("Horse key is not set");
+        }
+        report(row.line(), null, reasons);
+        return;
+      }
+      var key = keys.computeIfAbsent(horse.key(), ImportKey::new);
+      if (key.read) {
+        report(row.line(), horse.key(), List.of("Horse key %s is used by another horse already".formatted(horse.key())));
+        return;
+      }
+      key.read = true;
+      var pending = new PendingHorse(row.line(), horse, key);
+      if (!row.errors().isEmpty()) {
+        reject(pending, row.errors());
+        return;
+      }
+      if (horse.key().equals(horse.fatherKey()) || horse.key().equals(horse.motherKey())) {
+        reject(pending, parentErrors(horse, horse.key(), "is the same as child"));
+        return;
+      }
+
+      key.pending = pending;
+      for (String parentKey : new String[] {horse.fatherKey(), horse.motherKey()}) {
+        if (parentKey == null) {
+          continue;
+        }
+        var parent = keys.computeIfAbsent(parentKey, ImportKey::new);
+        if (parent.rejected) {
+          reject(pending, parentErrors(horse, parentKey, "was rejected"));
+          return;
+        }
+        if (!parent.stored) {
+          if (parent.children == null) {
+            parent.children = new ArrayList<>(2);
+          }
+          parent.children.add(pending);
+          pending.missingParents++;
+        }
+      }
+      if (pending.missingParents == 0) {
+        ready.add(pending);
+      }
+      while (ready.size() >= IMPORT_BATCH_SIZE) {
+        flush();
+      }
+    }
+
+    /**
+     * stores the remaining horses, and rejects the ones whose parents never got stored
+     */
+    private void finish() {
+      while (!ready.isEmpty()) {
+        flush();
+      }
+
+      // parents that are not part of the file at all
+      for (var key : List.copyOf(keys.values())) {
+        if (!key.read && key.children != null) {
+          rejectChildren(key, "not found in the import");
+        }
+      }
+      // the horses still waiting are waiting for their own descendants
+      for (var key : List.copyOf(keys.values())) {
+        if (key.pending != null && !key.rejected) {
+          reject(key.pending, List.of("Parents of the horse could not be imported, the pedigree contains a cycle"));
+        }
+      }
+    }
+
+    /**
+     * validates the queued horses against their parents and owners, and stores the valid ones in one batch
+     */
+    private void flush() {
+      var batch = ready;
+      ready = new ArrayList<>();
+      LOG.debug("Importing batch of {} horses", batch.size());
+
+      var owners = ownerService.getExistingById(batch.stream()
+          .map(pending -> pending.horse.ownerId())
+          .filter(Objects::nonNull)
+          .collect(Collectors.toSet()));
+
+      var valid = new ArrayList<PendingHorse>(batch.size());
+      var toCreate = new ArrayList<HorseCreateDto>(batch.size());
+      for (var pending : batch) {
+        var horse = pending.horse;
+        var father = horse.fatherKey() == null ? null : keys.get(horse.fatherKey()).parent();
+        var mother = horse.motherKey() == null ? null : keys.get(horse.motherKey()).parent();
+        var create = new HorseCreateDto(horse.name(), horse.description(), horse.dateOfBirth(), horse.sex(),
+            horse.ownerId() == null ? null : owners.get(horse.ownerId()), father, mother);
+        if (horse.ownerId() != null && create.owner() == null) {
+          reject(pending, List.of("Owner with ID %d not found".formatted(horse.ownerId())));
+          continue;
+        }
+        try {
+          validator.validateForInsert(create, father, mother);
+          valid.add(pending);
+          toCreate.add(create);
+        } catch (ValidationException | ConflictException e) {
+          reject(pending, e.errors());
+        }
+      }
+      if (toCreate.isEmpty()) {
+        return;
+      }
+
+      var created = dao.createAll(toCreate);
+      for (int i = 0; i < created.size(); i++) {
+        var horse = created.get(i);
+        var key = valid.get(i).key;
+        key.stored = true;
+        key.id = horse.getId();
+        key.sex = horse.getSex();
+        key.dateOfBirth = horse.getDateOfBirth();
+        key.pending = null;
+        imported++;
+        for (var child : key.takeChildren()) {
+          if (!child.key.rejected && --child.missingParents == 0) {
+            ready.add(child);
+          }
+        }
+      }
+    }
+
+    /**
+     * rejects a read horse and all horses in the file descending from it
+     */
+    private void reject(PendingHorse pending, List<String> reasons) {
+      report(pending.line, pending.horse.key(), reasons);
+      pending.key.rejected = true;
+      pending.key.pending = null;
+      rejectChildren(pending.key, "was rejected");
+    }
+
+    /**
+     * rejects all horses in the file descending from a key
+     *
+     * @param key    the key whose horse won't be stored
+     * @param reason why the horse of the key won't be stored, reported to its children
+     */
+    private void rejectChildren(ImportKey key, String reason) {
+      var parents = new ArrayDeque<ImportKey>();
+      parents.add(key);
+      String parentReason = reason;
+      while (!parents.isEmpty()) {
+        var parent = parents.poll();
+        for (var child : parent.takeChildren()) {
+          if (child.key.rejected) {
+            continue;
+          }
+          report(child.line, child.horse.key(), parentErrors(child.horse, parent.key, parentReason));
+          child.key.rejected = true;
+          child.key.pending = null;
+          parents.add(child.key);
+        }
+        // only the direct children learn the original reason, the others descend from a rejected horse
+        parentReason = "was rejected";
+      }
+    }
+
+    private static List<String> parentErrors(HorseImportRowDto horse, String parentKey, String reason) {
+      var reasons = new ArrayList<String>(2);
+      if (parentKey.equals(horse.fatherKey())) {
+        reasons.add("Father horse with key %s %s".formatted(parentKey, reason));
+      }
+      if (parentKey.equals(horse.motherKey())) {
+        reasons.add("Mother horse with key %s %s".formatted(parentKey, reason));
+      }
+      return reasons;
+    }
+
+    private void report(long line, String key, List<String> reasons) {
+      rejected++;
+      if (errors.size() < MAX_REPORTED_ERRORS) {
+        errors.add(new HorseImportErrorDto(line, key, List.copyOf(reasons)));
+      }
+    }
+  }
+}
@@ -1,11 +1,19 @@
 package at.ac.tuwien.sepm.assignment.individual.service.impl;
 
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseBatchItemDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseChildDetailDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDeleteReportDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDescendantPageDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDescendantSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDescendantTreeDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseFacetsDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseParentCandidateSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorsePatchDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchPageDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseTreeDto;
-import at.ac.tuwien.sepm.assignment.individual.dto.OwnerDto;
 import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
 import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepm.assignment.individual.exception.FatalException;
@@ -15,11 +23,15 @@ import at.ac.tuwien.sepm.assignment.individual.mapper.HorseMapper;
 import at.ac.tuwien.sepm.assignment.individual.persistence.HorseDao;
 import at.ac.tuwien.sepm.assignment.individual.service.HorseService;
 import at.ac.tuwien.sepm.assignment.individual.service.OwnerService;
+import at.ac.tuwien.sepm.assignment.individual.type.HorseField;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Supplier;
@@ -29,6 +41,7 @@ import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Horse service implementation according to {@link HorseService}
@@ -36,6 +49,8 @@ import org.springframework.stereotype.Service;
 @Service
 public class HorseServiceImpl implements HorseService {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int DEFAULT_DESCENDANT_PAGE_SIZE = 100;
+  private static final int DEFAULT_PARENT_CANDIDATES = 5;
   private final HorseDao dao;
   private final HorseMapper mapper;
   private final HorseValidator validator;
@@ -49,25 +64,42 @@ public class HorseServiceImpl implements HorseService {
   }
 
   @Override
-  public Stream<HorseDetailDto> searchHorses(HorseSearchDto search) {
+  public HorseSearchPageDto searchHorses(HorseSearchDto search) throws ValidationException {
     LOG.trace("searchHorses({})", search);
 
-    // search need not be validated: sex & date validated by parser;
-    var horses = dao.searchAll(search);
-    var ownerIds = horses.stream()
-        .map(Horse::getOwnerId)
-        .filter(Objects::nonNull)
-        .collect(Collectors.toUnmodifiableSet());
-    Map<Long, OwnerDto> ownerMap;
-
-    try {
-      ownerMap = ownerService.getAllById(ownerIds);
-    } catch (NotFoundException e) {
-      throw new FatalException("Horse, that is already persisted, refers to non-existing owner", e);
-    }
+    // sex & date validated by parser
+    validator.validateForSearch(search);
+    var page = dao.searchPage(search);
+    return new HorseSearchPageDto(page.horses(), page.nextCursor() == null ? null : page.nextCursor().encode());
+  }
+
+  @Override
+  public Stream<HorseDetailDto> streamHorses(HorseSearchDto search) throws ValidationException {
+    LOG.trace("streamHorses({})", search);
+
+    validator.validateForSearch(search);
+    return dao.streamAll(search);
+  }
 
-    return horses.stream()
-        .map(horse -> mapper.entityToDetailDto(horse, ownerMap));
+  @Override
+  public HorseFacetsDto countFacets(HorseSearchDto search) throws ValidationException {
+    LOG.trace("countFacets({})", search);
+
+    validator.validateForSearch(search);
+    return dao.countFacets(search);
+  }
+
+  @Override
+  public List<HorseDetailDto> searchParentCandidates(HorseParentCandidateSearchDto search) throws ValidationException {
+    LOG.trace("searchParentCandidates({})", search);
+
+    validator.validateForParentCandidateSearch(search);
+    return dao.searchParentCandidates(new HorseParentCandidateSearchDto(
+        search.q(),
+        search.sex(),
+        search.bornBefore(),
+        search.excludeId(),
+        search.limit() == null ? DEFAULT_PARENT_CANDIDATES : search.limit()));
   }
 
   @Override
@@ -77,8 +109,10 @@ public class HorseServiceImpl implements HorseService {
     // validate ancestor params
     validator.validateForAncestorSearch(rootId, generations);
 
-    // map horses and get root horse
+    // fetch the horses in the tree with the configured ancestor query strategy
     var ancestors = dao.getAncestors(rootId, generations);
+
+    // map horses and get root horse
     Supplier<Stream<Horse>> pool = ancestors::stream;
     var root = pool.get().filter(hors -> hors.getId() == rootId).findFirst();
     if (root.isEmpty()) {
@@ -91,71 +125,165 @@ public class HorseServiceImpl implements HorseService {
 
 
   @Override
+  public HorseDescendantTreeDto getDescendants(long rootId, long generations) throws NotFoundException, ValidationException {
+    LOG.trace("getDescendants({},{})", rootId, generations);
+
+    // validate descendant params
+    validator.validateForDescendantSearch(rootId, generations, null, null);
+
+    // look up the descendant ids with the configured strategy and fetch only the horses in the tree
+    var descendantIds = dao.getDescendantIdsByGeneration(rootId, generations).stream()
+        .flatMapToLong(Arrays::stream)
+        .boxed()
+        .toList();
+    var descendants = dao.getAllById(descendantIds);
+    var root = descendants.stream().filter(horse -> horse.getId() == rootId).findFirst();
+    if (root.isEmpty()) {
+      throw new FatalException("Horse descendants didnt include horse itself");
+    }
+
+    // group children by their parents, oldest first
+    Map<Long, List<Horse>> childrenByParent = new HashMap<>();
+    descendants.stream()
+        .sorted(Comparator.comparing(Horse::getDateOfBirth).thenComparing(Horse::getId))
+        .forEach(horse -> {
+          if (horse.getFatherId() != null) {
+            childrenByParent.computeIfAbsent(horse.getFatherId(), id -> new ArrayList<>()).add(horse);
+          }
+          if (horse.getMotherId() != null) {
+            childrenByParent.computeIfAbsent(horse.getMotherId(), id -> new ArrayList<>()).add(horse);
+          }
+        });
+
+    // map descendants recursively
+    return mapper.findDescendants(root.get(), childrenByParent, generations);
+  }
+
+  @Override
+  public HorseDescendantPageDto getDescendantPage(long rootId, HorseDescendantSearchDto search) throws NotFoundException, ValidationException {
+    LOG.trace("getDescendantPage({},{})", rootId, search);
+
+    // validate descendant params
+    var generations = search.generations() == null ? null : search.generations().longValue();
+    validator.validateForDescendantSearch(rootId, generations, search.offset(), search.limit());
+    long offset = search.offset() == null ? 0 : search.offset();
+    int limit = search.limit() == null ? DEFAULT_DESCENDANT_PAGE_SIZE : search.limit();
+
+    // pick the ids of the page, skipping the root generation
+    var byGeneration = dao.getDescendantIdsByGeneration(rootId, generations);
+    Map<Long, Long> pageGenerations = new LinkedHashMap<>();
+    long total = 0;
+    for (int generation = 1; generation < byGeneration.size(); generation++) {
+      long[] ids = byGeneration.get(generation);
+      for (long i = Math.max(0, offset - total); i < ids.length && pageGenerations.size() < limit; i++) {
+        pageGenerations.put(ids[(int) i], (long) generation);
+      }
+      total += ids.length;
+    }
+
+    // fetch only the horses of the page
+    Map<Long, Horse> horses = dao.getAllById(pageGenerations.keySet()).stream()
+        .collect(Collectors.toMap(Horse::getId, horse -> horse));
+    var descendants = pageGenerations.entrySet().stream()
+        .map(entry -> mapper.entityToDescendantDto(horses.get(entry.getKey()), entry.getValue()))
+        .toList();
+
+    return new HorseDescendantPageDto(total, offset, descendants);
+  }
+
+  @Override
+  @Transactional(rollbackFor = {NotFoundException.class, ValidationException.class, ConflictException.class})
   public HorseChildDetailDto update(HorseChildDetailDto horse) throws NotFoundException, ValidationException, ConflictException {
     LOG.trace("update({})", horse);
 
-    // get IDs of parents, fetch entity from db and convert to DTO for validator
-    var simpleHorse = horse.withoutParents();
-    var father = horse.father() == null ? null : dao.getById(horse.father().id());
-    var mother = horse.mother() == null ? null : dao.getById(horse.mother().id());
-    var fatherDto = father == null ? null : mapper.entityToDetailDto(father, ownerMapForSingleId(father.getOwnerId()));
-    var motherDto = mother == null ? null : mapper.entityToDetailDto(mother, ownerMapForSingleId(mother.getOwnerId()));
-    validator.validateForUpdate(simpleHorse, fatherDto, motherDto);
+    // the horse and its requested parents are locked until the update is committed, so they can't change after the validation
+    var context = dao.getValidationContext(horse.id(), horse.fatherId(), horse.motherId());
+    validator.validateForUpdate(horse.withoutParents(), context.father(), context.mother());
+    validator.validateForSexChange(context.horse().sex(), horse.sex(), context.hasChildren());
+    validator.validateParentsNotDescendants(
+        horse.fatherId() != null && dao.isAncestor(horse.id(), horse.fatherId()),
+        horse.motherId() != null && dao.isAncestor(horse.id(), horse.motherId()));
+
+    dao.update(horse);
+    return dao.getDetailById(horse.id());
+  }
 
-    var hasChildren = dao.parentExists(horse.id());
-    var originalSex = dao.getById(horse.id()).getSex();
-    var newSex = horse.sex();
-    validator.validateForSexChange(originalSex, newSex, hasChildren);
+  @Override
+  @Transactional(rollbackFor = {NotFoundException.class, ValidationException.class, ConflictException.class})
+  public HorseChildDetailDto patch(long id, HorsePatchDto patch) throws NotFoundException, ValidationException, ConflictException {
+    LOG.trace("patch({}, {})", id, patch);
 
-    var updatedHorse = dao.update(horse);
+    validator.validateForPatch(patch);
+    if (patch.fields().isEmpty()) {
+      return dao.getDetailById(id);
+    }
+    // name, description and owner don't depend on other horses, so patching only them reads no stored horse
+    if (patch.patchesAny(HorseField.SEX, HorseField.DATE_OF_BIRTH, HorseField.FATHER, HorseField.MOTHER)) {
+      validatePatchAgainstStored(id, patch);
+    }
+    if (patch.patches(HorseField.OWNER) && patch.ownerId() != null) {
+      ownerService.getById(patch.ownerId());
+    }
 
-    // return as single entity with parents
-    var ownerIds = Arrays.asList(updatedHorse.getOwnerId(), father == null ? null : father.getOwnerId(), mother == null ? null : mother.getOwnerId());
-    return mapper.entityToChildDetailDto(
-        updatedHorse,
-        ownerMapForMultipleId(ownerIds),
-        father,
-        mother);
+    dao.patch(id, patch);
+    return dao.getDetailById(id);
   }
 
   @Override
+  @Transactional(rollbackFor = {NotFoundException.class, ValidationException.class, ConflictException.class})
   public HorseChildDetailDto create(HorseCreateDto horse) throws ValidationException, ConflictException, NotFoundException {
     LOG.trace("create({})", horse);
 
-    // get IDs of parents, fetch entity from db and convert to DTO for validator
-    var father = horse.fatherId() == null ? null : dao.getById(horse.fatherId());
-    var mother = horse.motherId() == null ? null : dao.getById(horse.motherId());
-    var fatherDto = father == null ? null : mapper.entityToDetailDto(father, ownerMapForSingleId(father.getOwnerId()));
-    var motherDto = mother == null ? null : mapper.entityToDetailDto(mother, ownerMapForSingleId(mother.getOwnerId()));
-    validator.validateForInsert(horse, fatherDto, motherDto);
+    // the requested parents are locked until the horse is committed, so they can't change after the validation
+    var context = dao.getValidationContext(null, horse.fatherId(), horse.motherId());
+    validator.validateForInsert(horse, context.father(), context.mother());
 
     var createdHorse = dao.create(horse);
+    return dao.getDetailById(createdHorse.getId());
+  }
+
+  @Override
+  @Transactional(rollbackFor = ValidationException.class)
+  public List<HorseBatchItemDto> createAll(List<HorseCreateDto> horses) throws ValidationException {
+    LOG.trace("createAll({})", horses == null ? null : horses.size());
+
+    validator.validateForBatchInsert(horses);
+
+    // all referenced parents and owners are read at once, the parents are locked until the horses are committed
+    var context = HorseBatchContext.read(dao, ownerService, horses);
+
+    var errors = new ArrayList<List<String>>(horses.size());
+    var valid = new ArrayList<HorseCreateDto>();
+    for (var horse : horses) {
+      List<String> horseErrors;
+      try {
+        horseErrors = validator.validateForBatchItem(horse, context);
+      } catch (ValidationException | ConflictException e) {
+        horseErrors = e.errors();
+      }
+      errors.add(horseErrors);
+      if (horseErrors.isEmpty()) {
+        valid.add(horse);
+      }
+    }
 
-    // return as single entity with parents
-    var ownerIds = Arrays.asList(createdHorse.getOwnerId(), father == null ? null : father.getOwnerId(), mother == null ? null : mother.getOwnerId());
-    return mapper.entityToChildDetailDto(
-        createdHorse,
-        ownerMapForMultipleId(ownerIds),
-        father,
-        mother
-    );
+    var created = (valid.isEmpty() ? List.<Horse>of() : dao.createAll(valid)).iterator();
+    var results = new ArrayList<HorseBatchItemDto>(horses.size());
+    for (var horseErrors : errors) {
+      if (!horseErrors.isEmpty()) {
+        results.add(new HorseBatchItemDto(null, horseErrors));
+        continue;
+      }
+      results.add(new HorseBatchItemDto(mapper.entityToChildDetailDto(created.next(), context.owners(), context.parents()), List.of()));
+    }
+    return results;
   }
 
   @Override
   public HorseChildDetailDto getById(long id) throws NotFoundException {
     LOG.trace("details({})", id);
 
-    Horse horse = dao.getById(id);
-    var father = horse.getFatherId() == null ? null : dao.getById(horse.getFatherId());
-    var mother = horse.getMotherId() == null ? null : dao.getById(horse.getMotherId());
-
-    // return as single entity with parents
-    var ownerIds = Arrays.asList(horse.getOwnerId(), father == null ? null : father.getOwnerId(), mother == null ? null : mother.getOwnerId());
-    return mapper.entityToChildDetailDto(
-        horse,
-        ownerMapForMultipleId(ownerIds),
-        father,
-        mother);
+    return dao.getDetailById(id);
   }
 
   @Override
@@ -165,30 +293,70 @@ public class HorseServiceImpl implements HorseService {
     dao.delete(id);
   }
 
-  private Map<Long, OwnerDto> ownerMapForSingleId(Long ownerId) {
-    LOG.trace("ownerMapForSingleId({})", ownerId);
+  @Override
+  @Transactional(rollbackFor = ValidationException.class)
+  public HorseDeleteReportDto deleteAll(List<Long> ids) throws ValidationException {
+    LOG.trace("deleteAll({})", ids == null ? null : ids.size());
 
-    try {
-      return ownerId == null
-          ? null
-          : Collections.singletonMap(ownerId, ownerService.getById(ownerId));
-    } catch (NotFoundException e) {
-      throw new FatalException("Owner %d referenced by horse not found".formatted(ownerId));
-    }
+    validator.validateForBatchDelete(ids);
+    return dao.deleteAll(ids);
   }
 
-  private Map<Long, OwnerDto> ownerMapForMultipleId(Collection<Long> ownerIds) {
-    LOG.trace("ownerMapForMultipleId({})", ownerIds);
+  @Override
+  @Transactional(rollbackFor = ValidationException.class)
+  public HorseDeleteReportDto deleteMatching(HorseSearchDto filter) throws ValidationException {
+    LOG.trace("deleteMatching({})", filter);
 
-    ownerIds = ownerIds.stream().filter(Objects::nonNull).toList();
-    try {
-      return ownerIds == null
-          ? null
-          : ownerService.getAllById(ownerIds);
-    } catch (NotFoundException e) {
-      throw new FatalException("One of owners %s referenced by horse not found"
-          .formatted(ownerIds.stream().map(Object::toString).collect(Collectors.joining(","))));
-    }
+    validator.validateForDeleteFilter(filter);
+    return dao.deleteMatching(filter);
   }
 
+  /**
+   * validates a patch of the sex, the date of birth or the parents of a horse against the stored horses.
+   * Parents that are kept are only checked if the date of birth changes.
+   *
+   * @param id    the id of the patched horse
+   * @param patch the patch of the horse
+   * @throws NotFoundException the horse or one of its new parents could not be found
+   * @throws ConflictException the patch caused a conflict with the children, the parents or the descendants of the horse
+   */
+  private void validatePatchAgainstStored(long id, HorsePatchDto patch) throws NotFoundException, ConflictException {
+    LOG.trace("validatePatchAgainstStored({}, {})", id, patch);
+
+    // the horse and its new parents are locked until the patch is committed, so they can't change after the validation
+    var context = dao.getValidationContext(id,
+        patch.patches(HorseField.FATHER) ? patch.fatherId() : null,
+        patch.patches(HorseField.MOTHER) ? patch.motherId() : null);
+    if (patch.patches(HorseField.SEX)) {
+      validator.validateForSexChange(context.horse().sex(), patch.sex(), context.hasChildren());
+    }
+    if (!patch.patchesAny(HorseField.DATE_OF_BIRTH, HorseField.FATHER, HorseField.MOTHER)) {
+      return;
+    }
+
+    var father = context.father();
+    var mother = context.mother();
+    if (patch.patches(HorseField.DATE_OF_BIRTH) && !(patch.patches(HorseField.FATHER) && patch.patches(HorseField.MOTHER))) {
+      // the stored parents are read after the horse is locked, so they are the ones the patched horse keeps
+      var stored = dao.getById(id);
+      var keptIds = Stream.of(
+              patch.patches(HorseField.FATHER) ? null : stored.getFatherId(),
+              patch.patches(HorseField.MOTHER) ? null : stored.getMotherId())
+          .filter(Objects::nonNull)
+          .toList();
+      var kept = keptIds.isEmpty() ? Map.<Long, HorseDetailDto>of() : dao.getAllDetailsById(keptIds);
+      if (!patch.patches(HorseField.FATHER) && stored.getFatherId() != null) {
+        father = kept.get(stored.getFatherId());
+      }
+      if (!patch.patches(HorseField.MOTHER) && stored.getMotherId() != null) {
+        mother = kept.get(stored.getMotherId());
+      }
+    }
+
+    var birth = patch.patches(HorseField.DATE_OF_BIRTH) ? patch.dateOfBirth() : context.horse().dateOfBirth();
+    validator.validateParentsForPatch(id, birth, father, mother);
+    validator.validateParentsNotDescendants(
+        patch.patches(HorseField.FATHER) && patch.fatherId() != null && dao.isAncestor(id, patch.fatherId()),
+        patch.patches(HorseField.MOTHER) && patch.motherId() != null && dao.isAncestor(id, patch.motherId()));
+  }
 }
@@ -2,6 +2,10 @@ package at.ac.tuwien.sepm.assignment.individual.service.impl;
 
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseParentCandidateSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorsePatchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchCursor;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
 import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
 
@@ -9,7 +13,11 @@ import java.lang.invoke.MethodHandles;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
+import at.ac.tuwien.sepm.assignment.individual.type.HorseField;
+import at.ac.tuwien.sepm.assignment.individual.type.HorseSort;
+import at.ac.tuwien.sepm.assignment.individual.type.SearchMode;
 import at.ac.tuwien.sepm.assignment.individual.type.Sex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +29,8 @@ import org.springframework.stereotype.Component;
 @Component
 public class HorseValidator {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int MAX_PARENT_CANDIDATES = 50;
+  private static final int MAX_BATCH_SIZE = 10_000;
 
   /**
    * validates a horse's id
@@ -180,6 +190,75 @@ public class HorseValidator {
     }
   }
 
+  /**
+   * validates the fields changed by a horse patch, the fields not in the patch are not checked
+   *
+   * @param patch the horse patch
+   * @throws ValidationException one of the patched fields was invalid
+   */
+  public void validateForPatch(HorsePatchDto patch) throws ValidationException {
+    LOG.trace("validateForPatch({})", patch);
+
+    List<String> validationErrors = new ArrayList<>();
+    if (patch.patches(HorseField.NAME)) {
+      validateName(validationErrors, patch.name());
+    }
+    if (patch.patches(HorseField.DESCRIPTION)) {
+      validateDescription(validationErrors, patch.description());
+    }
+    if (patch.patches(HorseField.SEX)) {
+      validateSex(validationErrors, patch.sex());
+    }
+    if (patch.patches(HorseField.DATE_OF_BIRTH)) {
+      validateBirth(validationErrors, patch.dateOfBirth());
+    }
+    if (!validationErrors.isEmpty()) {
+      throw new ValidationException("Validation of horse for patch failed", validationErrors);
+    }
+  }
+
+  /**
+   * validates the parents of a patched horse, if the patch changes its parents or its date of birth
+   *
+   * @param id         the patched horse's id
+   * @param childBirth the horse's date of birth after the patch
+   * @param father     the horse's father after the patch
+   * @param mother     the horse's mother after the patch
+   * @throws ConflictException the patched horse caused conflict with its parents
+   */
+  public void validateParentsForPatch(long id, LocalDate childBirth, HorseDetailDto father, HorseDetailDto mother) throws ConflictException {
+    LOG.trace("validateParentsForPatch({}, {}, {}, {})", id, childBirth, father, mother);
+
+    List<String> validationConflicts = new ArrayList<>();
+    validateParents(validationConflicts, father, mother, childBirth, id);
+    if (!validationConflicts.isEmpty()) {
+      throw new ConflictException("Data of horse for patch has conflicts", validationConflicts);
+    }
+  }
+
+  /**
+   * validates that the new parents of a horse do not descend from it, which would make the horse its own ancestor.
+   * A parent born on the same day as its child passes the birth date rules, so they do not rule this out.
+   *
+   * @param fatherIsDescendant indicator if the horse's new father descends from the horse
+   * @param motherIsDescendant indicator if the horse's new mother descends from the horse
+   * @throws ConflictException one of the new parents descends from the horse
+   */
+  public void validateParentsNotDescendants(boolean fatherIsDescendant, boolean motherIsDescendant) throws ConflictException {
+    LOG.trace("validateParentsNotDescendants({}, {})", fatherIsDescendant, motherIsDescendant);
+
+    List<String> validationConflicts = new ArrayList<>();
+    if (fatherIsDescendant) {
+      validationConflicts.add("Father horse is a descendant of the horse");
+    }
+    if (motherIsDescendant) {
+      validationConflicts.add("Mother horse is a descendant of the horse");
+    }
+    if (!validationConflicts.isEmpty()) {
+      throw new ConflictException("Parents of horse would make it its own ancestor", validationConflicts);
+    }
+  }
+
   /**
    * validates a horsedto to be created in the persistence
    *
@@ -209,6 +288,122 @@ public class HorseValidator {
     }
   }
 
+  /**
+   * validates a horse of a batch to be created in the persistence, against the parents and owners read for the whole batch
+   * - the referenced father, mother and owner must have been found; each missing one is reported
+   * - if all were found, the horse is validated like with {@link #validateForInsert}
+   * The missing references are returned, so the caller decides whether to report them as errors of the horse or as not found.
+   *
+   * @param horse   horse create data
+   * @param context the parents and owners read for the batch
+   * @return the reasons why referenced horses or owners are missing; empty if all were found and the horse is valid
+   * @throws ValidationException the horse create data was invalid
+   * @throws ConflictException   the horse create data caused conflict with its parents
+   */
+  List<String> validateForBatchItem(HorseCreateDto horse, HorseBatchContext context) throws ValidationException, ConflictException {
+    LOG.trace("validateForBatchItem({})", horse);
+
+    List<String> missing = new ArrayList<>();
+    if (horse.fatherId() != null && context.parent(horse.fatherId()) == null) {
+      missing.add("Father horse with ID %d not found".formatted(horse.fatherId()));
+    }
+    if (horse.motherId() != null && context.parent(horse.motherId()) == null) {
+      missing.add("Mother horse with ID %d not found".formatted(horse.motherId()));
+    }
+    if (horse.ownerId() != null && !context.owners().containsKey(horse.ownerId())) {
+      missing.add("Owner with ID %d not found".formatted(horse.ownerId()));
+    }
+    if (missing.isEmpty()) {
+      validateForInsert(horse, context.parent(horse.fatherId()), context.parent(horse.motherId()));
+    }
+    return missing;
+  }
+
+  /**
+   * validates a batch of horses to be created in the persistence, as a whole
+   * - must contain at least one and at most {@value #MAX_BATCH_SIZE} horses
+   * - must not contain null entries
+   * The horses themselves are validated one by one with {@link #validateForBatchItem}.
+   *
+   * @param horses the horses to create
+   * @throws ValidationException the batch is empty, too big or contains null entries
+   */
+  public void validateForBatchInsert(List<HorseCreateDto> horses) throws ValidationException {
+    LOG.trace("validateForBatchInsert({})", horses == null ? null : horses.size());
+
+    List<String> validationErrors = new ArrayList<>();
+
+    if (horses == null || horses.isEmpty()) {
+      validationErrors.add("No horses given");
+    } else {
+      if (horses.size() > MAX_BATCH_SIZE) {
+        validationErrors.add("Too many horses given: more than " + MAX_BATCH_SIZE);
+      }
+      if (horses.stream().anyMatch(Objects::isNull)) {
+        validationErrors.add("Horses must not be null");
+      }
+    }
+
+    if (!validationErrors.isEmpty()) {
+      throw new ValidationException("Validation of horse batch for create failed", validationErrors);
+    }
+  }
+
+  /**
+   * validates the ids of horses to be deleted at once
+   * - must contain at least one and at most {@value #MAX_BATCH_SIZE} ids
+   * - must not contain null entries
+   *
+   * @param ids the ids of the horses to delete
+   * @throws ValidationException the ids are empty, too many or contain null entries
+   */
+  public void validateForBatchDelete(List<Long> ids) throws ValidationException {
+    LOG.trace("validateForBatchDelete({})", ids == null ? null : ids.size());
+
+    List<String> validationErrors = new ArrayList<>();
+
+    if (ids == null || ids.isEmpty()) {
+      validationErrors.add("No horse ids given");
+    } else {
+      if (ids.size() > MAX_BATCH_SIZE) {
+        validationErrors.add("Too many horse ids given: more than " + MAX_BATCH_SIZE);
+      }
+      if (ids.stream().anyMatch(Objects::isNull)) {
+        validationErrors.add("Horse ids must not be null");
+      }
+    }
+
+    if (!validationErrors.isEmpty()) {
+      throw new ValidationException("Validation of horse ids for delete failed", validationErrors);
+    }
+  }
+
+  /**
+   * validates the filter of horses to be deleted at once
+   * - must filter by name, description, birth, sex or owner name, so a filter without criteria doesn't delete all horses
+   * - must not have a limit or cursor, since all matching horses are deleted
+   *
+   * @param filter the search filter of the horses to delete
+   * @throws ValidationException the filter has no criteria, or a limit or cursor
+   */
+  public void validateForDeleteFilter(HorseSearchDto filter) throws ValidationException {
+    LOG.trace("validateForDeleteFilter({})", filter);
+
+    List<String> validationErrors = new ArrayList<>();
+
+    if (filter.name() == null && filter.description() == null && filter.bornBefore() == null && filter.bornAfter() == null
+        && filter.sex() == null && filter.ownerName() == null) {
+      validationErrors.add("Delete filter has no criteria");
+    }
+    if (filter.limit() != null || filter.cursor() != null) {
+      validationErrors.add("Delete filter must not have a limit or cursor");
+    }
+
+    if (!validationErrors.isEmpty()) {
+      throw new ValidationException("Validation of horse filter for delete failed", validationErrors);
+    }
+  }
+
   /**
    * validate horse ancestor search data
    *
@@ -235,6 +430,102 @@ public class HorseValidator {
     }
   }
 
+  /**
+   * validate horse descendant search data
+   *
+   * @param id          the root horse
+   * @param generations the max generation hops, to be non-negative
+   * @param offset      the amount of descendants to skip, to be non-negative if given
+   * @param limit       the maximum amount of descendants to return, to be between 1 and 1000 if given
+   * @throws ValidationException a parameter was out of range or the id was null
+   */
+  public void validateForDescendantSearch(Long id, Long generations, Integer offset, Integer limit) throws ValidationException {
+    LOG.trace("validateForDescendantSearch({}, {}, {}, {})", id, generations, offset, limit);
+
+    List<String> validationErrors = new ArrayList<>();
+
+    if (id == null) {
+      validationErrors.add("Horse ID is not given");
+    }
+    if (generations == null) {
+      validationErrors.add("Descendant generations is not given");
+    } else if (generations < 0) {
+      validationErrors.add("Descendant generations must not be negative");
+    }
+    if (offset != null && offset < 0) {
+      validationErrors.add("Descendant offset must not be negative");
+    }
+    if (limit != null && (limit < 1 || limit > 1000)) {
+      validationErrors.add("Descendant limit must be between 1 and 1000");
+    }
+
+    if (!validationErrors.isEmpty()) {
+      throw new ValidationException("Validation of descendant search failed", validationErrors);
+    }
+  }
+
+  /**
+   * validate horse search data
+   *
+   * @param search the search parameters; the limit to be positive if given,
+   *               the cursor to be one returned by a search with the same order, which requires a limit
+   * @throws ValidationException the limit or cursor is invalid
+   */
+  public void validateForSearch(HorseSearchDto search) throws ValidationException {
+    LOG.trace("validateForSearch({})", search);
+
+    List<String> validationErrors = new ArrayList<>();
+
+    if (search.limit() != null && search.limit() < 1) {
+      validationErrors.add("Search limit must be positive");
+    }
+    if (search.cursor() != null) {
+      if (search.limit() == null) {
+        validationErrors.add("Search cursor is only allowed with a limit");
+      }
+      // without a sort, full-text searches are ordered by relevance and all others by name
+      boolean fullText = search.searchMode() == SearchMode.FULLTEXT && (search.name() != null || search.description() != null);
+      HorseSort sort = search.sort() == null && !fullText ? HorseSort.NAME : search.sort();
+      try {
+        var cursor = HorseSearchCursor.decode(search.cursor());
+        if (cursor.sort() != sort) {
+          validationErrors.add("Search cursor belongs to a search with a different order");
+        }
+      } catch (IllegalArgumentException e) {
+        validationErrors.add("Search cursor is invalid");
+      }
+    }
+
+    if (!validationErrors.isEmpty()) {
+      throw new ValidationException("Validation of horse search failed", validationErrors);
+    }
+  }
+
+  /**
+   * validate horse parent candidate search data
+   * - the sex must be given
+   * - the limit must be positive and at most {@value #MAX_PARENT_CANDIDATES}, if given
+   *
+   * @param search the candidate search parameters
+   * @throws ValidationException the sex was not given or the limit was out of range
+   */
+  public void validateForParentCandidateSearch(HorseParentCandidateSearchDto search) throws ValidationException {
+    LOG.trace("validateForParentCandidateSearch({})", search);
+
+    List<String> validationErrors = new ArrayList<>();
+
+    if (search.sex() == null) {
+      validationErrors.add("Parent sex is not given");
+    }
+    if (search.limit() != null && (search.limit() < 1 || search.limit() > MAX_PARENT_CANDIDATES)) {
+      validationErrors.add("Parent candidate limit must be between 1 and " + MAX_PARENT_CANDIDATES);
+    }
+
+    if (!validationErrors.isEmpty()) {
+      throw new ValidationException("Validation of parent candidate search failed", validationErrors);
+    }
+  }
+
   /**
    * check for horse sex update conflicts
    *
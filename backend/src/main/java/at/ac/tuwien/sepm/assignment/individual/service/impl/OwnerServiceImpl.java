@@ -1,8 +1,11 @@
 package at.ac.tuwien.sepm.assignment.individual.service.impl;
 
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerBatchItemDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.OwnerCreateDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.OwnerDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.OwnerSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerSuggestDto;
+import at.ac.tuwien.sepm.assignment.individual.entity.Owner;
 import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
@@ -11,8 +14,12 @@ import at.ac.tuwien.sepm.assignment.individual.persistence.OwnerDao;
 import at.ac.tuwien.sepm.assignment.individual.service.OwnerService;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -20,6 +27,7 @@ import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Owner service implementation according to {@link OwnerService}
@@ -27,6 +35,7 @@ import org.springframework.stereotype.Service;
 @Service
 public class OwnerServiceImpl implements OwnerService {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int DEFAULT_SUGGESTIONS = 5;
   private final OwnerDao dao;
   private final OwnerMapper mapper;
   private final OwnerValidator validator;
@@ -51,10 +60,7 @@ public class OwnerServiceImpl implements OwnerService {
   public Map<Long, OwnerDto> getAllById(Collection<Long> ids) throws NotFoundException {
     LOG.trace("getAllById({})", ids);
 
-    Map<Long, OwnerDto> owners =
-        dao.getAllById(ids).stream()
-            .map(mapper::entityToDto)
-            .collect(Collectors.toUnmodifiableMap(OwnerDto::id, Function.identity()));
+    Map<Long, OwnerDto> owners = getExistingById(ids);
 
     for (final var id : ids) {
       if (!owners.containsKey(id)) {
@@ -64,6 +70,15 @@ public class OwnerServiceImpl implements OwnerService {
     return owners;
   }
 
+  @Override
+  public Map<Long, OwnerDto> getExistingById(Collection<Long> ids) {
+    LOG.trace("getExistingById({})", ids);
+
+    return dao.getAllById(ids).stream()
+        .map(mapper::entityToDto)
+        .collect(Collectors.toUnmodifiableMap(OwnerDto::id, Function.identity()));
+  }
+
   @Override
   public Stream<OwnerDto> search(OwnerSearchDto searchParameters) {
     LOG.trace("search({})", searchParameters);
@@ -72,6 +87,16 @@ public class OwnerServiceImpl implements OwnerService {
         .map(mapper::entityToDto);
   }
 
+  @Override
+  public Stream<OwnerDto> suggest(OwnerSuggestDto suggestParameters) throws ValidationException {
+    LOG.trace("suggest({})", suggestParameters);
+
+    validator.validateForSuggest(suggestParameters);
+    int limit = suggestParameters.limit() == null ? DEFAULT_SUGGESTIONS : suggestParameters.limit();
+    return dao.suggest(suggestParameters.q(), limit).stream()
+        .map(mapper::entityToDto);
+  }
+
   @Override
   public OwnerDto create(OwnerCreateDto newOwner) throws ValidationException, ConflictException {
     LOG.trace("create({})", newOwner);
@@ -81,4 +106,58 @@ public class OwnerServiceImpl implements OwnerService {
     validator.validateForInsert(newOwner, emailIsTaken);
     return mapper.entityToDto(dao.create(newOwner));
   }
+
+  @Override
+  @Transactional(rollbackFor = ValidationException.class)
+  public List<OwnerBatchItemDto> createAll(List<OwnerCreateDto> newOwners) throws ValidationException {
+    LOG.trace("createAll({})", newOwners == null ? null : newOwners.size());
+
+    validator.validateForBatchInsert(newOwners);
+
+    // the emails of all owners are looked up at once, instead of one query per owner
+    var takenEmails = dao.takenEmails(newOwners.stream().map(OwnerCreateDto::email).toList());
+    var batchEmails = new HashSet<String>();
+
+    var errors = new ArrayList<List<String>>(newOwners.size());
+    var valid = new ArrayList<OwnerCreateDto>();
+    for (var owner : newOwners) {
+      var ownerErrors = validateBatchItem(owner, takenEmails, batchEmails);
+      errors.add(ownerErrors);
+      if (ownerErrors.isEmpty()) {
+        valid.add(owner);
+      }
+    }
+
+    var created = (valid.isEmpty() ? List.<Owner>of() : dao.createAll(valid)).iterator();
+    var results = new ArrayList<OwnerBatchItemDto>(newOwners.size());
+    for (var ownerErrors : errors) {
+      results.add(ownerErrors.isEmpty()
+          ? new OwnerBatchItemDto(mapper.entityToDto(created.next()), List.of())
+          : new OwnerBatchItemDto(null, ownerErrors));
+    }
+    return results;
+  }
+
+  /**
+   * validates an owner of a batch against the emails taken by stored owners and the preceding owners of the batch
+   *
+   * @param owner       the owner to create
+   * @param takenEmails the emails of the batch, which are used by stored owners
+   * @param batchEmails the emails of the valid preceding owners of the batch; the email of the owner is added, if it is valid
+   * @return the reasons why the owner can't be created, empty if it is valid
+   */
+  private List<String> validateBatchItem(OwnerCreateDto owner, Set<String> takenEmails, Set<String> batchEmails) {
+    var errors = new ArrayList<String>();
+    try {
+      validator.validateForInsert(owner, takenEmails.contains(owner.email()));
+    } catch (ValidationException | ConflictException e) {
+      errors.addAll(e.errors());
+      return errors;
+    }
+
+    if (owner.email() != null && !batchEmails.add(owner.email())) {
+      errors.add("Owner email is already used by another owner of the batch");
+    }
+    return errors;
+  }
 }
@@ -1,6 +1,7 @@
 package at.ac.tuwien.sepm.assignment.individual.service.impl;
 
 import at.ac.tuwien.sepm.assignment.individual.dto.OwnerCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerSuggestDto;
 import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
 import org.slf4j.Logger;
@@ -10,6 +11,7 @@ import org.springframework.stereotype.Component;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -19,6 +21,8 @@ import java.util.regex.Pattern;
 @Component
 public class OwnerValidator {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int MAX_SUGGESTIONS = 50;
+  private static final int MAX_BATCH_SIZE = 10_000;
 
   /**
    * validates an owner's name
@@ -95,4 +99,59 @@ public class OwnerValidator {
     }
   }
 
+  /**
+   * validates a batch of owners to be created in the persistence, as a whole
+   * - must contain at least one and at most {@value #MAX_BATCH_SIZE} owners
+   * - must not contain null entries
+   * The owners themselves are validated one by one with {@link #validateForInsert}.
+   *
+   * @param owners the owners to create
+   * @throws ValidationException the batch is empty, too big or contains null entries
+   */
+  public void validateForBatchInsert(List<OwnerCreateDto> owners) throws ValidationException {
+    LOG.trace("validateForBatchInsert({})", owners == null ? null : owners.size());
+
+    List<String> validationErrors = new ArrayList<>();
+
+    if (owners == null || owners.isEmpty()) {
+      validationErrors.add("No owners given");
+    } else {
+      if (owners.size() > MAX_BATCH_SIZE) {
+        validationErrors.add("Too many owners given: more than " + MAX_BATCH_SIZE);
+      }
+      if (owners.stream().anyMatch(Objects::isNull)) {
+        validationErrors.add("Owners must not be null");
+      }
+    }
+
+    if (!validationErrors.isEmpty()) {
+      throw new ValidationException("Validation of owner batch for create failed", validationErrors);
+    }
+  }
+
+  /**
+   * validates the parameters of owner suggestions
+   * - the prefix must be given
+   * - the limit must be positive and at most {@value #MAX_SUGGESTIONS}, if given
+   *
+   * @param suggest the suggest parameters
+   * @throws ValidationException the parameters did not comply all the validations
+   */
+  public void validateForSuggest(OwnerSuggestDto suggest) throws ValidationException {
+    LOG.trace("validateForSuggest({})", suggest);
+
+    List<String> validationErrors = new ArrayList<>();
+
+    if (suggest.q() == null) {
+      validationErrors.add("Suggest prefix is not set");
+    }
+    if (suggest.limit() != null && (suggest.limit() < 1 || suggest.limit() > MAX_SUGGESTIONS)) {
+      validationErrors.add("Suggest limit must be between 1 and " + MAX_SUGGESTIONS);
+    }
+
+    if (!validationErrors.isEmpty()) {
+      throw new ValidationException("Validation of owner suggest failed", validationErrors);
+    }
+  }
+
 }
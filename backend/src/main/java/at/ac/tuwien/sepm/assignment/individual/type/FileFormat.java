@@ -0,0 +1,15 @@
+package at.ac.tuwien.sepm.assignment.individual.type;
+
+/**
+ * Enum for the file formats of pedigree imports and registry exports.
+ */
+public enum FileFormat {
+  /**
+   * comma separated values with a header line naming the columns
+   */
+  CSV,
+  /**
+   * newline delimited JSON, one object per line
+   */
+  NDJSON
+}
@@ -0,0 +1,55 @@
+package at.ac.tuwien.sepm.assignment.individual.type;
+
+/**
+ * Enum for the writable fields of a horse, by their JSON property and their column in the horse table.
+ */
+public enum HorseField {
+  NAME("name", "name"),
+  DESCRIPTION("description", "description"),
+  DATE_OF_BIRTH("dateOfBirth", "date_of_birth"),
+  SEX("sex", "sex"),
+  OWNER("owner", "owner_id"),
+  FATHER("father", "father_id"),
+  MOTHER("mother", "mother_id");
+
+  private final String property;
+  private final String column;
+
+  HorseField(String property, String column) {
+    this.property = property;
+    this.column = column;
+  }
+
+  /**
+   * Gets the name of the field in the JSON representation of a horse
+   *
+   * @return the JSON property name
+   */
+  public String property() {
+    return property;
+  }
+
+  /**
+   * Gets the column of the field in the horse table
+   *
+   * @return the column name
+   */
+  public String column() {
+    return column;
+  }
+
+  /**
+   * Finds the field of a JSON property
+   *
+   * @param property the JSON property name
+   * @return the field, or null if there is no writable field with this property
+   */
+  public static HorseField ofProperty(String property) {
+    for (HorseField field : values()) {
+      if (field.property.equals(property)) {
+        return field;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,41 @@
+package at.ac.tuwien.sepm.assignment.individual.type;
+
+/**
+ * Enum for the orders of horse search results.
+ * Horses with the same sort key are ordered by id, in the same direction.
+ */
+public enum HorseSort {
+  /**
+   * by name, ascending
+   */
+  NAME,
+  /**
+   * by name, descending
+   */
+  NAME_DESC,
+  /**
+   * by date of birth, oldest first
+   */
+  DATE_OF_BIRTH,
+  /**
+   * by date of birth, youngest first
+   */
+  DATE_OF_BIRTH_DESC,
+  /**
+   * by id, ascending
+   */
+  ID,
+  /**
+   * by id, descending
+   */
+  ID_DESC;
+
+  /**
+   * Returns whether this order is descending
+   *
+   * @return true for the descending orders
+   */
+  public boolean descending() {
+    return this == NAME_DESC || this == DATE_OF_BIRTH_DESC || this == ID_DESC;
+  }
+}
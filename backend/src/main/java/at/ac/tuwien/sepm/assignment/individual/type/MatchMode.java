@@ -0,0 +1,15 @@
+package at.ac.tuwien.sepm.assignment.individual.type;
+
+/**
+ * Enum for the ways a text filter is matched against a text, ignoring case
+ */
+public enum MatchMode {
+  /**
+   * the filter has to be contained anywhere in the text
+   */
+  SUBSTRING,
+  /**
+   * the text has to start with the filter, which can be looked up in an index
+   */
+  PREFIX
+}
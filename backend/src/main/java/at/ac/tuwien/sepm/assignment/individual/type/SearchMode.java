@@ -0,0 +1,15 @@
+package at.ac.tuwien.sepm.assignment.individual.type;
+
+/**
+ * Enum for the ways text filters of a search are matched
+ */
+public enum SearchMode {
+  /**
+   * the filter has to be contained in the text, results are ordered by the sort of the search
+   */
+  SUBSTRING,
+  /**
+   * every word of the filter has to start a word of the text, results are ordered by relevance unless the search has a sort
+   */
+  FULLTEXT
+}
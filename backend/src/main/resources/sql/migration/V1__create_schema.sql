@@ -33,4 +33,15 @@ CREATE TABLE IF NOT EXISTS horse
             ON DELETE SET NULL
 );
 
+-- create closure table of the pedigree: one row per ancestor, depth and descendant, counting the distinct paths
+-- every horse is its own ancestor with depth 0; paths longer than the configured max depth are not stored
+CREATE TABLE IF NOT EXISTS ancestor_closure
+(
+    descendant_id BIGINT NOT NULL,
+    ancestor_id   BIGINT NOT NULL,
+    depth         INT    NOT NULL,
+    path_count    BIGINT NOT NULL,
 
+    PRIMARY KEY (descendant_id, ancestor_id, depth)
+);
+CREATE INDEX IF NOT EXISTS ancestor_closure_ancestor ON ancestor_closure (ancestor_id, depth);
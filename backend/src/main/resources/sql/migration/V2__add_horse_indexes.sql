@@ -0,0 +1,4 @@
+-- index the columns the horse search filters and sorts by
+-- father_id, mother_id and owner_id need no own index: H2 already creates one for each foreign key constraint
+CREATE INDEX IF NOT EXISTS horse_date_of_birth ON horse (date_of_birth);
+CREATE INDEX IF NOT EXISTS horse_name ON horse (name);
@@ -0,0 +1,15 @@
+-- create inverted index of the words in horse names and descriptions, used by the full-text search
+-- one row per field, word and horse, counting the occurrences of the word in the field
+CREATE TABLE IF NOT EXISTS horse_token
+(
+    field       ENUM ('NAME', 'DESCRIPTION') NOT NULL,
+    token       VARCHAR(255)                 NOT NULL,
+    horse_id    BIGINT                       NOT NULL,
+    occurrences INT                          NOT NULL,
+
+    PRIMARY KEY (field, token, horse_id),
+    CONSTRAINT token_horse
+        FOREIGN KEY (horse_id)
+            REFERENCES horse (id)
+            ON DELETE CASCADE
+);
@@ -0,0 +1,3 @@
+-- the horse search is ordered by name and id, paging continues after the (name, id) of the last horse
+DROP INDEX IF EXISTS horse_name;
+CREATE INDEX IF NOT EXISTS horse_name_id ON horse (name, id);
@@ -0,0 +1,5 @@
+-- normalized name of the owner, to search owners by name with an index
+ALTER TABLE owner ADD COLUMN IF NOT EXISTS search_key VARCHAR(511);
+UPDATE owner SET search_key = LOWER(TRIM(REGEXP_REPLACE(first_name || ' ' || last_name, '\s+', ' ')));
+ALTER TABLE owner ALTER COLUMN search_key SET NOT NULL;
+CREATE INDEX IF NOT EXISTS owner_search_key ON owner (search_key);
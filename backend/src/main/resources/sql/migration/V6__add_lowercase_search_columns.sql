@@ -0,0 +1,6 @@
+-- lowercase copies of the searched horse texts, kept up to date by the database
+-- case-insensitive filters compare these instead of LOWER(...), so prefix filters can seek in their indexes
+ALTER TABLE horse ADD COLUMN IF NOT EXISTS name_lower VARCHAR(255) GENERATED ALWAYS AS (LOWER(name));
+ALTER TABLE horse ADD COLUMN IF NOT EXISTS description_lower VARCHAR(4095) GENERATED ALWAYS AS (LOWER(description));
+CREATE INDEX IF NOT EXISTS horse_name_lower ON horse (name_lower);
+CREATE INDEX IF NOT EXISTS horse_description_lower ON horse (description_lower);
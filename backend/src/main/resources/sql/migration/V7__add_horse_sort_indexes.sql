@@ -0,0 +1,7 @@
+-- the horse search is ordered by name, date of birth or id, ascending or descending, with ties ordered by id in the same direction
+-- H2 only reads an index in the direction it was created, so every order has its own index to read limited searches from
+DROP INDEX IF EXISTS horse_date_of_birth;
+CREATE INDEX IF NOT EXISTS horse_date_of_birth_id ON horse (date_of_birth, id);
+CREATE INDEX IF NOT EXISTS horse_date_of_birth_id_desc ON horse (date_of_birth DESC, id DESC);
+CREATE INDEX IF NOT EXISTS horse_name_id_desc ON horse (name DESC, id DESC);
+CREATE INDEX IF NOT EXISTS horse_id_desc ON horse (id DESC);
@@ -0,0 +1,4 @@
+-- parent candidates are horses with a typed name prefix, ordered by lowercase name and id
+-- the prefix is one range of this index, already in order, so only the first candidates are read; it replaces the index of the name alone
+CREATE INDEX IF NOT EXISTS horse_name_lower_id ON horse (name_lower, id);
+DROP INDEX IF EXISTS horse_name_lower;
@@ -0,0 +1,6 @@
+-- the owner search key is computed by the database from the name, like the lowercase horse columns
+-- so it cannot drift from the names, and inserts no longer have to compute it
+DROP INDEX IF EXISTS owner_search_key;
+ALTER TABLE owner DROP COLUMN IF EXISTS search_key;
+ALTER TABLE owner ADD COLUMN search_key VARCHAR(511) GENERATED ALWAYS AS (LOWER(TRIM(REGEXP_REPLACE(first_name || ' ' || last_name, '\s+', ' '))));
+CREATE INDEX IF NOT EXISTS owner_search_key ON owner (search_key);
@@ -0,0 +1,60 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepm.assignment.individual.persistence.PedigreeIndex;
+import at.ac.tuwien.sepm.assignment.individual.service.HorseService;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares the ancestor lookup through the recursive CTE with the walk over the pedigree index.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest
+@DirtiesContext
+public class AncestorBenchmark {
+  private static final int GENERATIONS = 6;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Autowired
+  HorseService horseService;
+
+  @Autowired
+  PedigreeIndex pedigreeIndex;
+
+  @Test
+  public void recursiveQueryVersusPedigreeIndex() throws Exception {
+    int iterations = BenchmarkSupport.iterations(50);
+    for (int size : BenchmarkSupport.sizes("10000,100000,1000000")) {
+      BenchmarkSupport.insertPedigree(jdbcTemplate, size, 2_000, 42);
+      pedigreeIndex.rebuild();
+      assertThat(pedigreeIndex.size()).isEqualTo(size);
+
+      // roots are picked from the youngest tenth, which have the deepest pedigrees
+      var roots = new Random(7).longs(iterations * 2L, size - size / 10 + 1, size + 1).toArray();
+
+      BenchmarkSupport.measure("ancestors-cte", size, iterations,
+          i -> horseDao.getAncestors(roots[i], GENERATIONS));
+      BenchmarkSupport.measure("ancestors-index", size, iterations,
+          i -> horseDao.getAllById(pedigreeIndex.getAncestorIds(roots[i], GENERATIONS)));
+      BenchmarkSupport.measure("ancestors-service", size, iterations,
+          i -> horseService.getAncestors(roots[i], GENERATIONS));
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import at.ac.tuwien.sepm.assignment.individual.persistence.AncestorClosureDao;
+import at.ac.tuwien.sepm.assignment.individual.persistence.AncestorQueryStrategy;
+import at.ac.tuwien.sepm.assignment.individual.persistence.ExistenceFilter;
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseTokenDao;
+import at.ac.tuwien.sepm.assignment.individual.persistence.PedigreeIndex;
+import at.ac.tuwien.sepm.assignment.individual.persistence.impl.HorseJdbcDao;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares the ancestor query strategies of the horse DAO on wide pedigrees, where parents are picked from many
+ * preceding horses and hardly any ancestor is reached twice, and on deep inbred ones, where the same ancestors
+ * are reached on many paths.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest
+@DirtiesContext
+public class AncestorStrategyBenchmark {
+  private static final int GENERATIONS = 8;
+  private static final int WIDE_WINDOW = 100_000;
+  private static final int INBRED_WINDOW = 40;
+  private static final int CLOSURE_MAX_SIZE = 2_000;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  NamedParameterJdbcTemplate namedJdbcTemplate;
+
+  @Autowired
+  PedigreeIndex pedigreeIndex;
+
+  @Autowired
+  ExistenceFilter existenceFilter;
+
+  @Autowired
+  AncestorClosureDao closureDao;
+
+  @Autowired
+  HorseTokenDao tokenDao;
+
+  @Test
+  public void ancestorQueryStrategies() throws Exception {
+    var recursiveDao = new HorseJdbcDao(jdbcTemplate, namedJdbcTemplate, pedigreeIndex, existenceFilter,
+        closureDao, tokenDao, AncestorQueryStrategy.RECURSIVE_QUERY);
+    var frontierDao = new HorseJdbcDao(jdbcTemplate, namedJdbcTemplate, pedigreeIndex, existenceFilter,
+        closureDao, tokenDao, AncestorQueryStrategy.FRONTIER);
+    var indexDao = new HorseJdbcDao(jdbcTemplate, namedJdbcTemplate, pedigreeIndex, existenceFilter,
+        closureDao, tokenDao, AncestorQueryStrategy.INDEX);
+    var closureStrategyDao = new HorseJdbcDao(jdbcTemplate, namedJdbcTemplate, pedigreeIndex, existenceFilter,
+        closureDao, tokenDao, AncestorQueryStrategy.CLOSURE);
+    int iterations = BenchmarkSupport.iterations(50);
+
+    for (int size : BenchmarkSupport.sizes("10000,100000")) {
+      for (int window : new int[] {WIDE_WINDOW, INBRED_WINDOW}) {
+        final String shape = window == WIDE_WINDOW ? "wide" : "inbred";
+        BenchmarkSupport.insertPedigree(jdbcTemplate, size, window, 42);
+        pedigreeIndex.rebuild();
+        var roots = new Random(7).longs(iterations * 2L, size - size / 10 + 1, size + 1).toArray();
+
+        BenchmarkSupport.measure("ancestors-cte-" + shape, size, iterations,
+            i -> recursiveDao.getAncestorsByGeneration(roots[i], GENERATIONS));
+        BenchmarkSupport.measure("ancestors-frontier-" + shape, size, iterations,
+            i -> frontierDao.getAncestorsByGeneration(roots[i], GENERATIONS));
+        BenchmarkSupport.measure("ancestors-index-" + shape, size, iterations,
+            i -> indexDao.getAncestorsByGeneration(roots[i], GENERATIONS));
+        // every horse of a wide pedigree has thousands of ancestors within the closure's depth, too many rows to rebuild,
+        // and even an inbred one takes minutes beyond a few thousand horses, so run with -Dbenchmark.sizes=2000 to compare it
+        if (window == INBRED_WINDOW && size <= CLOSURE_MAX_SIZE) {
+          closureDao.rebuild();
+          BenchmarkSupport.measure("ancestors-closure-" + shape, size, iterations,
+              i -> closureStrategyDao.getAncestorsByGeneration(roots[i], GENERATIONS));
+        }
+      }
+    }
+  }
+}
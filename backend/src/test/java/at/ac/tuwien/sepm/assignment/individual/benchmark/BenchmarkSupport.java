@@ -0,0 +1,302 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Helpers shared by the benchmarks.
+ * Benchmarks are tagged with {@code benchmark} and only run with {@code mvn test -Pbenchmark}.
+ * The data set sizes can be overridden with {@code -Dbenchmark.sizes=10000,100000}
+ * and the measured iterations with {@code -Dbenchmark.iterations=100}.
+ */
+public final class BenchmarkSupport {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final LocalDate FIRST_BIRTH = LocalDate.of(1900, 1, 1);
+  private static final int BATCH_SIZE = 10_000;
+
+  private BenchmarkSupport() {
+  }
+
+  /**
+   * Result of a measured benchmark
+   *
+   * @param label      the name of the measured operation
+   * @param size       the size of the data set
+   * @param iterations the amount of measured iterations
+   * @param avgMicros  the average latency in microseconds
+   * @param p50Micros  the median latency in microseconds
+   * @param p99Micros  the 99th percentile latency in microseconds
+   */
+  public record Result(String label, int size, int iterations, double avgMicros, double p50Micros, double p99Micros) {
+  }
+
+  /**
+   * get the data set sizes to run the benchmarks with
+   *
+   * @param defaults the default sizes, comma separated
+   * @return the configured sizes
+   */
+  public static List<Integer> sizes(String defaults) {
+    return Arrays.stream(System.getProperty("benchmark.sizes", defaults).split(","))
+        .map(String::trim)
+        .map(Integer::parseInt)
+        .toList();
+  }
+
+  /**
+   * get the amount of measured iterations per benchmark
+   *
+   * @param defaultIterations the default amount
+   * @return the configured amount
+   */
+  public static int iterations(int defaultIterations) {
+    return Integer.getInteger("benchmark.iterations", defaultIterations);
+  }
+
+  /**
+   * measures an operation, after running it for a tenth of the iterations as warmup
+   *
+   * @param label      the name of the measured operation
+   * @param size       the size of the data set
+   * @param iterations the amount of measured iterations
+   * @param operation  the operation, getting the iteration number as parameter
+   * @return the measured result, which is also logged
+   */
+  public static Result measure(String label, int size, int iterations, Operation operation) throws Exception {
+    for (int i = 0; i < Math.max(1, iterations / 10); i++) {
+      operation.run(i);
+    }
+
+    long[] nanos = new long[iterations];
+    for (int i = 0; i < iterations; i++) {
+      long start = System.nanoTime();
+      operation.run(i);
+      nanos[i] = System.nanoTime() - start;
+    }
+
+    return result(label, size, nanos);
+  }
+
+  /**
+   * measures an operation run by several threads at once, after running it for a tenth of the iterations as warmup.
+   * The latency of each run is measured, so it includes the time waiting for locks held by the other threads.
+   *
+   * @param label      the name of the measured operation
+   * @param size       the size of the data set
+   * @param threads    the amount of threads running the operation
+   * @param iterations the amount of measured iterations, shared by all threads
+   * @param operation  the operation, getting the iteration number as parameter
+   * @return the measured result, which is also logged
+   */
+  public static Result measureConcurrent(String label, int size, int threads, int iterations, Operation operation) throws Exception {
+    for (int i = 0; i < Math.max(1, iterations / 10); i++) {
+      operation.run(i);
+    }
+
+    long[] nanos = new long[iterations];
+    var next = new AtomicInteger();
+    var executor = Executors.newFixedThreadPool(threads);
+    try {
+      var runs = new ArrayList<Future<?>>();
+      for (int thread = 0; thread < threads; thread++) {
+        runs.add(executor.submit(() -> {
+          for (int i = next.getAndIncrement(); i < iterations; i = next.getAndIncrement()) {
+            long start = System.nanoTime();
+            operation.run(i);
+            nanos[i] = System.nanoTime() - start;
+          }
+          return null;
+        }));
+      }
+      for (var run : runs) {
+        run.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    return result(label + "-" + threads + "threads", size, nanos);
+  }
+
+  /**
+   * runs an operation once and logs its duration and the most heap it retained.
+   * The retained heap is the heap in use after a garbage collection, compared to before the operation,
+   * measured whenever the operation calls its checkpoint.
+   *
+   * @param label     the name of the measured operation
+   * @param size      the size of the data set
+   * @param operation the operation, getting the checkpoint to call as parameter
+   */
+  public static void measureRetainedHeap(String label, int size, MeasuredOperation operation) throws Exception {
+    var memory = ManagementFactory.getMemoryMXBean();
+    System.gc();
+    long baseline = memory.getHeapMemoryUsage().getUsed();
+    long[] retained = {0};
+    long[] paused = {0};
+
+    long start = System.nanoTime();
+    operation.run(() -> {
+      long pause = System.nanoTime();
+      System.gc();
+      retained[0] = Math.max(retained[0], memory.getHeapMemoryUsage().getUsed() - baseline);
+      paused[0] += System.nanoTime() - pause;
+    });
+    LOG.info("BENCHMARK {} size={} time={}ms retainedHeap={}MB",
+        label, size, (System.nanoTime() - start - paused[0]) / 1_000_000, retained[0] / (1024 * 1024));
+  }
+
+  private static Result result(String label, int size, long[] nanos) {
+    int iterations = nanos.length;
+    Arrays.sort(nanos);
+    var result = new Result(
+        label,
+        size,
+        iterations,
+        Arrays.stream(nanos).average().orElse(0) / 1000.0,
+        nanos[iterations / 2] / 1000.0,
+        nanos[Math.min(iterations - 1, (int) Math.ceil(iterations * 0.99) - 1)] / 1000.0);
+    LOG.info("BENCHMARK {} size={} n={} avg={}us p50={}us p99={}us",
+        result.label(), result.size(), result.iterations(),
+        "%.1f".formatted(result.avgMicros()), "%.1f".formatted(result.p50Micros()), "%.1f".formatted(result.p99Micros()));
+    return result;
+  }
+
+  /**
+   * removes all horses and owners from the database
+   *
+   * @param jdbcTemplate template of the benchmarked database
+   */
+  public static void clear(JdbcTemplate jdbcTemplate) {
+    jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+    jdbcTemplate.execute("TRUNCATE TABLE horse");
+    jdbcTemplate.execute("TRUNCATE TABLE owner");
+    jdbcTemplate.execute("TRUNCATE TABLE ancestor_closure");
+    jdbcTemplate.execute("TRUNCATE TABLE horse_token");
+    jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+  }
+
+  /**
+   * Replaces all horses with a synthetic pedigree of horses with the ids {@code 1..size}.
+   * Horses alternate between male (odd ids) and female (even ids) and are born in the order of their ids.
+   * Each horse gets parents picked from the {@code window} horses born before it,
+   * so a small window produces deep and inbred pedigrees, a big window wide ones.
+   *
+   * @param jdbcTemplate template of the benchmarked database
+   * @param size         the amount of horses
+   * @param window       the amount of preceding horses to pick parents from
+   * @param seed         the seed for picking parents
+   */
+  public static void insertPedigree(JdbcTemplate jdbcTemplate, int size, int window, long seed) {
+    clear(jdbcTemplate);
+
+    var random = new Random(seed);
+    var batch = new ArrayList<Object[]>(BATCH_SIZE);
+    for (long id = 1; id <= size; id++) {
+      Long father = null;
+      Long mother = null;
+      if (id > 2) {
+        long lowest = Math.max(1, id - window);
+        father = pickParent(random, lowest, id, 1);
+        mother = pickParent(random, lowest, id, 0);
+      }
+      batch.add(new Object[] {
+          id,
+          "Horse " + id,
+          id % 7 == 0 ? "Bred for benchmark number " + id : null,
+          Date.valueOf(FIRST_BIRTH.plusDays(id / 100)),
+          id % 2 == 1 ? "MALE" : "FEMALE",
+          null,
+          father,
+          mother});
+      if (batch.size() == BATCH_SIZE) {
+        insertHorses(jdbcTemplate, batch);
+      }
+    }
+    insertHorses(jdbcTemplate, batch);
+    jdbcTemplate.execute("ALTER TABLE horse ALTER COLUMN id RESTART WITH " + (size + 1));
+    LOG.info("Inserted synthetic pedigree of {} horses with parent window {}", size, window);
+  }
+
+  /**
+   * Replaces all owners with the owners with the ids {@code 1..count}, and gives every horse one of them.
+   * Owner {@code i} is named {@code First<i> Last<i>} and has the email {@code owner<i>@example.com}.
+   *
+   * @param jdbcTemplate template of the benchmarked database
+   * @param count        the amount of owners
+   */
+  public static void insertOwners(JdbcTemplate jdbcTemplate, int count) {
+    jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+    jdbcTemplate.execute("TRUNCATE TABLE owner");
+    jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+
+    var batch = new ArrayList<Object[]>(BATCH_SIZE);
+    for (long id = 1; id <= count; id++) {
+      batch.add(new Object[] {id, "First" + id, "Last" + id, "owner" + id + "@example.com"});
+      if (batch.size() == BATCH_SIZE || id == count) {
+        jdbcTemplate.batchUpdate("INSERT INTO owner (id, first_name, last_name, email) VALUES (?, ?, ?, ?)", batch);
+        batch.clear();
+      }
+    }
+    jdbcTemplate.execute("ALTER TABLE owner ALTER COLUMN id RESTART WITH " + (count + 1));
+    jdbcTemplate.update("UPDATE horse SET owner_id = MOD(id * 7919, ?) + 1", count);
+    LOG.info("Inserted {} owners", count);
+  }
+
+  /**
+   * picks a parent of the given sex parity, which is never born after the child
+   *
+   * @param random the random source
+   * @param lowest the lowest possible parent id
+   * @param child  the child id
+   * @param parity 1 for males, 0 for females
+   * @return the parent id, or null if there is none
+   */
+  private static Long pickParent(Random random, long lowest, long child, int parity) {
+    long parent = lowest + (long) (random.nextDouble() * (child - lowest));
+    if (parent % 2 != parity) {
+      parent = parent > lowest ? parent - 1 : parent + 1;
+    }
+    return parent >= child || parent % 2 != parity ? null : parent;
+  }
+
+  private static void insertHorses(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO horse (id, name, description, date_of_birth, sex, owner_id, father_id, mother_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+        batch);
+    batch.clear();
+  }
+
+  /**
+   * A measured operation
+   */
+  @FunctionalInterface
+  public interface Operation {
+    /**
+     * runs the operation once
+     *
+     * @param iteration the number of the iteration
+     */
+    void run(int iteration) throws Exception;
+  }
+
+  /**
+   * An operation whose retained heap is measured
+   */
+  @FunctionalInterface
+  public interface MeasuredOperation {
+    void run(Runnable checkpoint) throws Exception;
+  }
+}
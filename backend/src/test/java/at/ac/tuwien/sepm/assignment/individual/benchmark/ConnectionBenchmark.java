@@ -0,0 +1,30 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import java.sql.DriverManager;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures the latency of opening a database connection, as paid by the connection pool for every new connection.
+ * Compares the previous connection URL, which ran the whole schema script on every connection,
+ * with the current one, which leaves the schema to the one-time migrations at startup.
+ */
+@Tag("benchmark")
+public class ConnectionBenchmark {
+  private static final String URL = "jdbc:h2:mem:connectionbenchmark;DB_CLOSE_DELAY=-1";
+  private static final String INIT_SCRIPT = ";INIT=RUNSCRIPT FROM 'classpath:sql/migration/V1__create_schema.sql'";
+
+  @Test
+  public void connectWithAndWithoutInitScript() throws Exception {
+    int iterations = BenchmarkSupport.iterations(1000);
+
+    // keep the database open and create the schema once
+    try (var keepOpen = DriverManager.getConnection(URL + INIT_SCRIPT, "sa", "")) {
+      BenchmarkSupport.measure("connect-init-script", 0, iterations,
+          i -> DriverManager.getConnection(URL + INIT_SCRIPT, "sa", "").close());
+      BenchmarkSupport.measure("connect-migrated", 0, iterations,
+          i -> DriverManager.getConnection(URL, "sa", "").close());
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepm.assignment.individual.persistence.ExistenceFilter;
+import at.ac.tuwien.sepm.assignment.individual.persistence.ExistenceFilterStats;
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepm.assignment.individual.persistence.OwnerDao;
+
+import java.lang.invoke.MethodHandles;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares checking absent owner emails and parent ids through the existence filter with querying the database,
+ * and logs the size and false positive rate of the filters.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest
+@DirtiesContext
+public class ExistenceFilterBenchmark {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  OwnerDao ownerDao;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Autowired
+  ExistenceFilter existenceFilter;
+
+  @Test
+  public void filterVersusQuery() throws Exception {
+    int iterations = BenchmarkSupport.iterations(20_000);
+    for (int size : BenchmarkSupport.sizes("200000")) {
+      BenchmarkSupport.insertPedigree(jdbcTemplate, size, 2_000, 42);
+      BenchmarkSupport.insertOwners(jdbcTemplate, size);
+      long start = System.nanoTime();
+      existenceFilter.rebuild();
+      LOG.info("BENCHMARK existence-filter-rebuild size={} time={}ms", size, (System.nanoTime() - start) / 1_000_000);
+
+      BenchmarkSupport.measure("email-absent-query", size, iterations, i -> assertThat(jdbcTemplate.queryForObject(
+          "SELECT EXISTS (SELECT 1 FROM owner WHERE email = ?)", Boolean.class, "new" + i + "@example.com")).isFalse());
+      BenchmarkSupport.measure("email-absent-filter", size, iterations,
+          i -> assertThat(ownerDao.emailIsTaken("new" + i + "@example.com")).isFalse());
+      BenchmarkSupport.measure("email-present-filter", size, iterations,
+          i -> assertThat(ownerDao.emailIsTaken("owner" + (i % size + 1) + "@example.com")).isTrue());
+      BenchmarkSupport.measure("parent-absent-filter", size, iterations, i -> Assertions.assertThrows(NotFoundException.class,
+          () -> horseDao.getValidationContext(null, (long) size + 1 + i, null)));
+
+      logStats("email", size, existenceFilter.emailStats());
+      logStats("horse", size, existenceFilter.horseStats());
+    }
+  }
+
+  private static void logStats(String filter, int size, ExistenceFilterStats stats) {
+    LOG.info("BENCHMARK existence-filter-{} size={} entries={} memory={}KiB hashes={} expectedFpr={} observedFpr={}",
+        filter, size, stats.entries(), stats.memoryBytes() / 1024, stats.hashFunctions(),
+        "%.4f".formatted(stats.expectedFalsePositiveRate()), "%.4f".formatted(stats.observedFalsePositiveRate()));
+  }
+}
@@ -0,0 +1,107 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.service.ExportService;
+import at.ac.tuwien.sepm.assignment.individual.service.HorseService;
+import at.ac.tuwien.sepm.assignment.individual.type.FileFormat;
+
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Measures the heap retained by the registry export compared to searching all horses as one list,
+ * and the latency of reading single horses while an export is running.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest
+@DirtiesContext
+public class ExportBenchmark {
+  private static final HorseSearchDto ALL = new HorseSearchDto(null, null, null, null, null, null, null, null, null, null, null);
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  HorseService horseService;
+
+  @Autowired
+  ExportService exportService;
+
+  @Test
+  public void exportVersusList() throws Exception {
+    for (int size : BenchmarkSupport.sizes("100000,500000")) {
+      BenchmarkSupport.insertPedigree(jdbcTemplate, size, 2_000, 42);
+
+      BenchmarkSupport.measureRetainedHeap("search-all-list", size, checkpoint -> {
+        var horses = horseService.searchHorses(ALL).horses();
+        checkpoint.run();
+        assertThat(horses).hasSize(size);
+      });
+      for (FileFormat format : FileFormat.values()) {
+        BenchmarkSupport.measureRetainedHeap("export-" + format.name().toLowerCase(), size, checkpoint -> {
+          var output = new CheckpointOutputStream(size * 10L, checkpoint);
+          try (var gzip = new GZIPOutputStream(output, 64 * 1024)) {
+            exportService.exportAll(gzip, format);
+          }
+          assertThat(output.written.get()).isPositive();
+        });
+      }
+
+      int iterations = BenchmarkSupport.iterations(2_000);
+      BenchmarkSupport.measure("get-by-id-idle", size, iterations, i -> horseService.getById(size - i % size));
+      var export = CompletableFuture.runAsync(() -> {
+        try (var gzip = new GZIPOutputStream(OutputStream.nullOutputStream(), 64 * 1024)) {
+          exportService.exportAll(gzip, FileFormat.NDJSON);
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      BenchmarkSupport.measure("get-by-id-during-export", size, iterations, i -> horseService.getById(size - i % size));
+      export.get();
+    }
+  }
+
+  /**
+   * Discards the written bytes, and calls a checkpoint whenever a given amount has been written.
+   */
+  private static final class CheckpointOutputStream extends OutputStream {
+    private final AtomicLong written = new AtomicLong();
+    private final long interval;
+    private final Runnable checkpoint;
+
+    private CheckpointOutputStream(long interval, Runnable checkpoint) {
+      this.interval = interval;
+      this.checkpoint = checkpoint;
+    }
+
+    @Override
+    public void write(int b) {
+      count(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count(len);
+    }
+
+    private void count(int length) {
+      long before = written.getAndAdd(length);
+      if (before / interval != (before + length) / interval) {
+        checkpoint.run();
+      }
+    }
+  }
+}
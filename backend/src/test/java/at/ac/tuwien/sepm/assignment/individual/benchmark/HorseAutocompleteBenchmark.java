@@ -0,0 +1,51 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepm.assignment.individual.type.MatchMode;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares the parent autocomplete searching horse names by substring with searching them by prefix.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest
+@DirtiesContext
+public class HorseAutocompleteBenchmark {
+  private static final int LIMIT = 5;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Test
+  public void substringVersusPrefix() throws Exception {
+    int iterations = BenchmarkSupport.iterations(100);
+    for (int size : BenchmarkSupport.sizes("1000000")) {
+      BenchmarkSupport.insertPedigree(jdbcTemplate, size, 2_000, 42);
+
+      // typed prefixes like "horse 4242", a different one each time, so no result is reused
+      var typed = new String[iterations * 2];
+      for (int i = 0; i < typed.length; i++) {
+        typed[i] = "horse " + (1_000 + i * 37 % 9_000);
+      }
+
+      for (var matchMode : MatchMode.values()) {
+        BenchmarkSupport.measure("autocomplete-" + matchMode.name().toLowerCase(), size, iterations, i -> assertThat(
+            horseDao.searchAll(new HorseSearchDto(typed[i], null, null, null, null, null, LIMIT, null, null, matchMode, null))).hasSize(LIMIT));
+      }
+    }
+  }
+}
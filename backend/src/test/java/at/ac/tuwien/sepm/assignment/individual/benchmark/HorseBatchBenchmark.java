@@ -0,0 +1,77 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseBatchItemDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerDto;
+import at.ac.tuwien.sepm.assignment.individual.persistence.ExistenceFilter;
+import at.ac.tuwien.sepm.assignment.individual.service.HorseService;
+import at.ac.tuwien.sepm.assignment.individual.type.Sex;
+
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares creating a stud book of horses with one batch request with creating the horses one by one.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest
+@DirtiesContext
+public class HorseBatchBenchmark {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int PEDIGREE_SIZE = 100_000;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  HorseService horseService;
+
+  @Autowired
+  ExistenceFilter existenceFilter;
+
+  @Test
+  public void batchVersusSingle() throws Exception {
+    int iterations = BenchmarkSupport.iterations(5);
+    for (int size : BenchmarkSupport.sizes("10000")) {
+      BenchmarkSupport.insertPedigree(jdbcTemplate, PEDIGREE_SIZE, 2_000, 42);
+      int owners = PEDIGREE_SIZE / 10;
+      BenchmarkSupport.insertOwners(jdbcTemplate, owners);
+      existenceFilter.rebuild();
+
+      // parents picked from the whole pedigree, fathers have odd ids and mothers even ones
+      var random = new Random(42);
+      var horses = new ArrayList<HorseCreateDto>(size);
+      for (int i = 0; i < size; i++) {
+        long father = random.nextInt(PEDIGREE_SIZE / 2) * 2L + 1;
+        long mother = random.nextInt(PEDIGREE_SIZE / 2) * 2L + 2;
+        long owner = random.nextInt(owners) + 1;
+        horses.add(new HorseCreateDto("Stud book horse " + i, i % 3 == 0 ? "Imported from the stud book" : null,
+            LocalDate.of(2000, 1, 1), i % 2 == 0 ? Sex.FEMALE : Sex.MALE, new OwnerDto(owner, null, null, null),
+            new HorseDetailDto(father, null, null, null, Sex.MALE, null), new HorseDetailDto(mother, null, null, null, Sex.FEMALE, null)));
+      }
+
+      var batch = BenchmarkSupport.measure("create-batch", size, iterations, i -> assertThat(horseService.createAll(horses))
+          .extracting(HorseBatchItemDto::errors).allMatch(List::isEmpty));
+      var single = BenchmarkSupport.measure("create-single", size, size, i -> horseService.create(horses.get(i)));
+      LOG.info("BENCHMARK create-throughput size={} batch={} horses/s single={} horses/s",
+          size, "%.0f".formatted(size / (batch.avgMicros() / 1_000_000)), "%.0f".formatted(1_000_000 / single.avgMicros()));
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerDto;
+import at.ac.tuwien.sepm.assignment.individual.persistence.ExistenceFilter;
+import at.ac.tuwien.sepm.assignment.individual.service.HorseCreateCoalescer;
+import at.ac.tuwien.sepm.assignment.individual.type.Sex;
+
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares the throughput and latency of concurrent horse creations committed one by one and coalesced to group commits.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest
+@DirtiesContext
+public class HorseCreateCoalescingBenchmark {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int[] THREADS = {1, 8, 32};
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  HorseCreateCoalescer createCoalescer;
+
+  @Autowired
+  ExistenceFilter existenceFilter;
+
+  @Test
+  public void coalescedVersusSingleCommits() throws Exception {
+    int iterations = BenchmarkSupport.iterations(4000);
+    for (int size : BenchmarkSupport.sizes("100000")) {
+      BenchmarkSupport.insertPedigree(jdbcTemplate, size, 2_000, 42);
+      int owners = size / 10;
+      BenchmarkSupport.insertOwners(jdbcTemplate, owners);
+      existenceFilter.rebuild();
+
+      // parents picked from the whole pedigree, fathers have odd ids and mothers even ones
+      var random = new Random(42);
+      var created = new HorseCreateDto[iterations];
+      for (int i = 0; i < iterations; i++) {
+        long father = random.nextInt(size / 2) * 2L + 1;
+        long mother = random.nextInt(size / 2) * 2L + 2;
+        created[i] = new HorseCreateDto("Created " + i, null, LocalDate.of(2000, 1, 1), i % 2 == 0 ? Sex.FEMALE : Sex.MALE,
+            owner(random.nextInt(owners) + 1), parent(father, Sex.MALE), parent(mother, Sex.FEMALE));
+      }
+
+      for (int threads : THREADS) {
+        for (boolean enabled : new boolean[] {false, true}) {
+          createCoalescer.setEnabled(enabled);
+          long batchesBefore = createCoalescer.getBatches();
+          long creationsBefore = createCoalescer.getCoalescedCreations();
+          var result = BenchmarkSupport.measureConcurrent(enabled ? "create-coalesced" : "create-single", size, threads, iterations,
+              i -> createCoalescer.create(created[i]));
+          long batches = createCoalescer.getBatches() - batchesBefore;
+          // every thread creates one horse after the other, so the throughput follows from the average latency
+          LOG.info("BENCHMARK {} size={} throughput={}/s p99={}us batches={} avgBatch={}", result.label(), size,
+              "%.0f".formatted(threads * 1e6 / result.avgMicros()), "%.1f".formatted(result.p99Micros()), batches,
+              batches == 0 ? "-" : "%.1f".formatted((double) (createCoalescer.getCoalescedCreations() - creationsBefore) / batches));
+        }
+      }
+      createCoalescer.setEnabled(false);
+    }
+  }
+
+  private static OwnerDto owner(long id) {
+    return new OwnerDto(id, "First" + id, "Last" + id, null);
+  }
+
+  private static HorseDetailDto parent(long id, Sex sex) {
+    return new HorseDetailDto(id, "Horse " + id, null, null, sex, null);
+  }
+}
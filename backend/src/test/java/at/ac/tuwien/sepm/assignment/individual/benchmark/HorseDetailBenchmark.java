@@ -0,0 +1,57 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepm.assignment.individual.persistence.OwnerDao;
+
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares loading a horse with its parents and owners in one joined query
+ * with loading the horse, its parents and the owners one after another.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest
+@DirtiesContext
+public class HorseDetailBenchmark {
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Autowired
+  OwnerDao ownerDao;
+
+  @Test
+  public void joinedVersusSequential() throws Exception {
+    int iterations = BenchmarkSupport.iterations(1000);
+    for (int size : BenchmarkSupport.sizes("100000")) {
+      BenchmarkSupport.insertPedigree(jdbcTemplate, size, 2_000, 42);
+      BenchmarkSupport.insertOwners(jdbcTemplate, size / 10);
+
+      // horses late in the pedigree, which all have both parents
+      BenchmarkSupport.measure("detail-joined", size, iterations, i -> assertThat(
+          horseDao.getDetailById(size - i).mother()).isNotNull());
+      BenchmarkSupport.measure("detail-sequential", size, iterations, i -> {
+        Horse horse = horseDao.getById(size - i);
+        Horse father = horseDao.getById(horse.getFatherId());
+        Horse mother = horseDao.getById(horse.getMotherId());
+        assertThat(ownerDao.getAllById(Stream.of(horse, father, mother).map(Horse::getOwnerId).filter(Objects::nonNull).toList())).isNotEmpty();
+      });
+    }
+  }
+}
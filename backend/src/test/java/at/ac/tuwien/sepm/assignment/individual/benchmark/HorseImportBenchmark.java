@@ -0,0 +1,101 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.service.HorseImportService;
+import at.ac.tuwien.sepm.assignment.individual.type.FileFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Measures the duration and the retained heap of importing pedigree files, which list every foal before its parents.
+ * The horses are imported into a new file database, so the retained heap is not dominated by the stored horses.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest
+@DirtiesContext
+public class HorseImportBenchmark {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int GENERATIONS = 5;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @DynamicPropertySource
+  static void fileDatabase(DynamicPropertyRegistry registry) throws IOException {
+    var directory = Files.createTempDirectory(Files.createDirectories(Path.of("target")), "import-benchmark");
+    registry.add("spring.datasource.url", () -> "jdbc:h2:" + directory.resolve("wendydb"));
+  }
+
+  @Autowired
+  HorseImportService importService;
+
+  @Test
+  public void importFoalsFirst() throws Exception {
+    for (int size : BenchmarkSupport.sizes("100000,1000000")) {
+      BenchmarkSupport.clear(jdbcTemplate);
+      Path file = Files.createTempFile("pedigree", ".csv");
+      try {
+        writePedigree(file, size);
+        long[] imported = {0};
+        BenchmarkSupport.measureRetainedHeap("import-csv", size, checkpoint -> {
+          try (var input = Files.newInputStream(file)) {
+            var report = importService.importHorses(input, FileFormat.CSV, progress -> {
+              checkpoint.run();
+              LOG.info("Import progress: {}", progress);
+            });
+            imported[0] = report.imported();
+            assertThat(report.errors()).isEmpty();
+          }
+        });
+        assertThat(imported[0]).isEqualTo(size);
+      } finally {
+        Files.delete(file);
+      }
+    }
+  }
+
+  /**
+   * writes a pedigree of the given amount of horses in {@value #GENERATIONS} generations, the youngest generation first.
+   * Each horse that is not of the oldest generation gets a father and a mother from the generation before.
+   */
+  private static void writePedigree(Path file, int size) throws IOException {
+    var random = new Random(42);
+    int generation = size / GENERATIONS;
+    try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+      writer.write("key,name,description,dateOfBirth,sex,fatherKey,motherKey\n");
+      for (int i = size - 1; i >= 0; i--) {
+        int born = i / generation;
+        String father = "";
+        String mother = "";
+        if (born > 0) {
+          int first = (born - 1) * generation;
+          father = "H" + (first + random.nextInt(generation / 2) * 2 + 1);
+          mother = "H" + (first + random.nextInt(generation / 2) * 2);
+        }
+        writer.write("H%d,Horse %d,%s,%s,%s,%s,%s\n".formatted(
+            i, i, i % 7 == 0 ? "\"Imported from a registry, number " + i + "\"" : "",
+            LocalDate.of(1900 + born * 5, 1, 1).plusDays(i % 365), i % 2 == 1 ? "MALE" : "FEMALE", father, mother));
+      }
+    }
+  }
+}
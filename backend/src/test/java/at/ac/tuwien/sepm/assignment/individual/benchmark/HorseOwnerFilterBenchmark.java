@@ -0,0 +1,57 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseDao;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares filtering horses by owner name on the lowercased first and last name with filtering on the owner search key.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest
+@DirtiesContext
+public class HorseOwnerFilterBenchmark {
+  private static final int LIMIT = 20;
+  private static final String SQL_LOWERED_NAMES = "SELECT h.* FROM horse h"
+      + " WHERE h.owner_id IN (SELECT id FROM owner WHERE LOWER(first_name) LIKE ? OR LOWER(last_name) LIKE ?)"
+      + " ORDER BY h.name, h.id LIMIT " + (LIMIT + 1);
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Test
+  public void loweredNamesVersusSearchKey() throws Exception {
+    int iterations = BenchmarkSupport.iterations(100);
+    for (int size : BenchmarkSupport.sizes("100000")) {
+      BenchmarkSupport.insertPedigree(jdbcTemplate, size, 2_000, 42);
+      BenchmarkSupport.insertOwners(jdbcTemplate, size);
+
+      // a different owner each time, so no result is reused
+      var lastNames = new String[iterations * 2];
+      for (int i = 0; i < lastNames.length; i++) {
+        lastNames[i] = "last" + (size / 3 + i * 37);
+      }
+
+      BenchmarkSupport.measure("owner-filter-lowered-names", size, iterations, i -> {
+        var pattern = "%" + lastNames[i] + "%";
+        assertThat(jdbcTemplate.queryForList(SQL_LOWERED_NAMES, pattern, pattern)).isNotEmpty();
+      });
+      BenchmarkSupport.measure("owner-filter-search-key", size, iterations,
+          i -> assertThat(horseDao.searchPage(new HorseSearchDto(null, null, null, null, null, lastNames[i], LIMIT, null, null, null, null)).horses())
+              .isNotEmpty());
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
+import at.ac.tuwien.sepm.assignment.individual.mapper.HorseMapper;
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepm.assignment.individual.service.OwnerService;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares searching horses and then fetching their owners by id with searching horses joined with their owners.
+ * Besides the latency, the statements sent to the database and the bytes allocated per search are logged.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest
+@DirtiesContext
+public class HorseOwnerJoinBenchmark {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int OWNERS = 50_000;
+  private static final int LIMIT = 2_000;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Autowired
+  OwnerService ownerService;
+
+  @Autowired
+  HorseMapper mapper;
+
+  @Test
+  public void ownersByIdVersusJoin() throws Exception {
+    int iterations = BenchmarkSupport.iterations(50);
+    for (int size : BenchmarkSupport.sizes("100000")) {
+      BenchmarkSupport.insertPedigree(jdbcTemplate, size, 2_000, 42);
+      BenchmarkSupport.insertOwners(jdbcTemplate, OWNERS);
+
+      // pages at different positions of the list, so every page has other owners
+      var searches = new HorseSearchDto[iterations * 2];
+      for (int i = 0; i < searches.length; i++) {
+        searches[i] = new HorseSearchDto("horse " + (i % 9 + 1), null, null, null, null, null, LIMIT, null, null, null, null);
+      }
+
+      measure("search-owners-by-id", size, iterations, i -> {
+        var horses = horseDao.searchAll(searches[i]);
+        var ownerIds = horses.stream().map(Horse::getOwnerId).filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet());
+        var owners = ownerService.getAllById(ownerIds);
+        List<HorseDetailDto> result = horses.stream().map(horse -> mapper.entityToDetailDto(horse, owners)).toList();
+        assertThat(result).hasSize(LIMIT);
+      });
+      measure("search-owners-joined", size, iterations,
+          i -> assertThat(horseDao.searchPage(searches[i]).horses()).hasSize(LIMIT));
+    }
+  }
+
+  /**
+   * measures the latency of an operation, and logs the statements and allocated bytes per run.
+   * The statements are counted with the H2 query statistics, the distinct statements are the ones H2 has to plan.
+   */
+  private void measure(String label, int size, int iterations, BenchmarkSupport.Operation operation) throws Exception {
+    BenchmarkSupport.measure(label, size, iterations, operation);
+
+    var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    jdbcTemplate.execute("SET QUERY_STATISTICS_MAX_ENTRIES 100000");
+    jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+    long allocated = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < iterations; i++) {
+      operation.run(i);
+    }
+    allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+    var statements = jdbcTemplate.queryForMap(
+        "SELECT SUM(execution_count) AS executed, COUNT(*) AS distinct_statements FROM information_schema.query_statistics"
+            + " WHERE sql_statement NOT LIKE '%QUERY_STATISTICS%'");
+    jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+
+    LOG.info("BENCHMARK {} size={} n={} statements/run={} distinctStatements={} allocated/run={}KB",
+        label, size, iterations,
+        "%.1f".formatted(((Number) statements.get("EXECUTED")).doubleValue() / iterations),
+        statements.get("DISTINCT_STATEMENTS"),
+        allocated / iterations / 1024);
+  }
+}
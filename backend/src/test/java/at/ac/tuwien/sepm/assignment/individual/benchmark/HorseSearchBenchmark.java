@@ -0,0 +1,85 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchCursor;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseTokenDao;
+import at.ac.tuwien.sepm.assignment.individual.type.HorseSort;
+import at.ac.tuwien.sepm.assignment.individual.type.SearchMode;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares the substring search over name and description with the full-text search over the word index,
+ * and the first page of the horse list with pages deep into it.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest
+@DirtiesContext
+public class HorseSearchBenchmark {
+  private static final int LIMIT = 20;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Autowired
+  HorseTokenDao tokenDao;
+
+  @Test
+  public void substringVersusFullText() throws Exception {
+    int iterations = BenchmarkSupport.iterations(50);
+    for (int size : BenchmarkSupport.sizes("100000,1000000")) {
+      BenchmarkSupport.insertPedigree(jdbcTemplate, size, 2_000, 42);
+      assertThat(tokenDao.indexMissing()).isEqualTo(size);
+
+      // numbers of horses with descriptions, searched as the typed prefix of the number
+      var numbers = new Random(7).ints(iterations * 2L, 1, size / 7).mapToObj(n -> String.valueOf(n * 7 / 10)).toArray(String[]::new);
+
+      BenchmarkSupport.measure("search-name-substring", size, iterations,
+          i -> horseDao.searchAll(new HorseSearchDto(numbers[i], null, null, null, null, null, LIMIT, null, SearchMode.SUBSTRING, null, null)));
+      BenchmarkSupport.measure("search-name-fulltext", size, iterations,
+          i -> horseDao.searchAll(new HorseSearchDto(numbers[i], null, null, null, null, null, LIMIT, null, SearchMode.FULLTEXT, null, null)));
+      BenchmarkSupport.measure("search-description-substring", size, iterations,
+          i -> horseDao.searchAll(new HorseSearchDto(null, "number " + numbers[i], null, null, null, null, LIMIT, null, SearchMode.SUBSTRING, null, null)));
+      BenchmarkSupport.measure("search-description-fulltext", size, iterations,
+          i -> horseDao.searchAll(new HorseSearchDto(null, "number " + numbers[i], null, null, null, null, LIMIT, null, SearchMode.FULLTEXT, null, null)));
+    }
+  }
+
+  @Test
+  public void firstVersusDeepPages() throws Exception {
+    int iterations = BenchmarkSupport.iterations(200);
+    for (int size : BenchmarkSupport.sizes("100000,1000000")) {
+      BenchmarkSupport.insertPedigree(jdbcTemplate, size, 2_000, 42);
+
+      // "Horse 9..." sorts last, so these cursors point at pages among the last tenth of the list
+      var random = new Random(7);
+      var deepCursors = new String[iterations * 2];
+      for (int i = 0; i < deepCursors.length; i++) {
+        long id = 9L * size / 10 + random.nextInt(size / 10);
+        id = String.valueOf(id).startsWith("9") ? id : 9;
+        deepCursors[i] = new HorseSearchCursor(HorseSort.NAME, "Horse " + id, null, null, null, id).encode();
+      }
+
+      BenchmarkSupport.measure("page-first", size, iterations,
+          i -> horseDao.searchPage(new HorseSearchDto(null, null, null, null, null, null, LIMIT, null, null, null, null)));
+      BenchmarkSupport.measure("page-deep", size, iterations,
+          i -> assertThat(horseDao.searchPage(new HorseSearchDto(null, null, null, null, null, null, LIMIT, null, null, null, deepCursors[i])).horses())
+              .isNotEmpty());
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.service.HorseService;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares the heap retained by of searching all horses as one list with streaming them.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest
+@DirtiesContext
+public class HorseStreamBenchmark {
+  private static final HorseSearchDto ALL = new HorseSearchDto(null, null, null, null, null, null, null, null, null, null, null);
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  HorseService horseService;
+
+  @Test
+  public void listVersusStream() throws Exception {
+    for (int size : BenchmarkSupport.sizes("100000,500000")) {
+      BenchmarkSupport.insertPedigree(jdbcTemplate, size, 2_000, 42);
+
+      BenchmarkSupport.measureRetainedHeap("search-all-list", size, checkpoint -> {
+        var horses = horseService.searchHorses(ALL).horses();
+        checkpoint.run();
+        assertThat(horses).hasSize(size);
+      });
+      BenchmarkSupport.measureRetainedHeap("search-all-stream", size, checkpoint -> {
+        int[] count = {0};
+        try (var horses = horseService.streamHorses(ALL)) {
+          horses.forEach(horse -> {
+            if (++count[0] % (size / 5) == 0) {
+              checkpoint.run();
+            }
+          });
+        }
+        assertThat(count[0]).isEqualTo(size);
+      });
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseChildDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerDto;
+import at.ac.tuwien.sepm.assignment.individual.persistence.ExistenceFilter;
+import at.ac.tuwien.sepm.assignment.individual.service.HorseService;
+import at.ac.tuwien.sepm.assignment.individual.type.Sex;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Measures the latency of creating and updating horses with parents and owners, while several clients write at once.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest
+@DirtiesContext
+public class HorseWriteBenchmark {
+  private static final int[] THREADS = {1, 8};
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  HorseService horseService;
+
+  @Autowired
+  ExistenceFilter existenceFilter;
+
+  @Test
+  public void concurrentCreateAndUpdate() throws Exception {
+    int iterations = BenchmarkSupport.iterations(2000);
+    for (int size : BenchmarkSupport.sizes("100000")) {
+      BenchmarkSupport.insertPedigree(jdbcTemplate, size, 2_000, 42);
+      int owners = size / 10;
+      BenchmarkSupport.insertOwners(jdbcTemplate, owners);
+      existenceFilter.rebuild();
+
+      // parents picked from the whole pedigree, fathers have odd ids and mothers even ones
+      var random = new Random(42);
+      var created = new HorseCreateDto[iterations];
+      for (int i = 0; i < iterations; i++) {
+        long father = random.nextInt(size / 2) * 2L + 1;
+        long mother = random.nextInt(size / 2) * 2L + 2;
+        created[i] = new HorseCreateDto("Created " + i, null, LocalDate.of(2000, 1, 1), i % 2 == 0 ? Sex.FEMALE : Sex.MALE,
+            owner(random.nextInt(owners) + 1), parent(father, Sex.MALE), parent(mother, Sex.FEMALE));
+      }
+      for (int threads : THREADS) {
+        BenchmarkSupport.measureConcurrent("create", size, threads, iterations, i -> horseService.create(created[i]));
+      }
+
+      // the latest horses of the pedigree get a new description and owner, keeping their parents
+      var updated = new HorseChildDetailDto[iterations];
+      for (int i = 0; i < iterations; i++) {
+        var horse = horseService.getById(size - i);
+        updated[i] = new HorseChildDetailDto(horse.id(), horse.name(), "Updated " + i, horse.dateOfBirth(), horse.sex(),
+            owner(random.nextInt(owners) + 1), horse.father(), horse.mother());
+      }
+      for (int threads : THREADS) {
+        BenchmarkSupport.measureConcurrent("update", size, threads, iterations, i -> horseService.update(updated[i]));
+      }
+    }
+  }
+
+  private static OwnerDto owner(long id) {
+    return new OwnerDto(id, "First" + id, "Last" + id, null);
+  }
+
+  private static HorseDetailDto parent(long id, Sex sex) {
+    return new HorseDetailDto(id, "Horse " + id, null, null, sex, null);
+  }
+}
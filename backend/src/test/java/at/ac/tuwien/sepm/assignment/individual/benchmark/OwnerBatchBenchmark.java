@@ -0,0 +1,76 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerBatchItemDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.persistence.ExistenceFilter;
+import at.ac.tuwien.sepm.assignment.individual.persistence.OwnerSuggestIndex;
+import at.ac.tuwien.sepm.assignment.individual.service.OwnerService;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares migrating a customer list with one batch request with creating the owners one by one.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest
+@DirtiesContext
+public class OwnerBatchBenchmark {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int STORED_OWNERS = 200_000;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  OwnerService ownerService;
+
+  @Autowired
+  OwnerSuggestIndex suggestIndex;
+
+  @Autowired
+  ExistenceFilter existenceFilter;
+
+  @Test
+  public void batchVersusSingle() throws Exception {
+    int iterations = BenchmarkSupport.iterations(5);
+    for (int size : BenchmarkSupport.sizes("10000")) {
+      BenchmarkSupport.clear(jdbcTemplate);
+      BenchmarkSupport.insertOwners(jdbcTemplate, STORED_OWNERS);
+      suggestIndex.rebuild();
+      existenceFilter.rebuild();
+
+      // every created owner needs an unused email, so each run gets its own customers
+      var customer = new AtomicInteger();
+      var batch = BenchmarkSupport.measure("create-owner-batch", size, iterations, i -> {
+        var owners = new ArrayList<OwnerCreateDto>(size);
+        for (int n = 0; n < size; n++) {
+          int id = customer.incrementAndGet();
+          owners.add(new OwnerCreateDto("Customer" + id, "Migrated", "customer" + id + "@example.com"));
+        }
+        assertThat(ownerService.createAll(owners)).extracting(OwnerBatchItemDto::errors).allMatch(List::isEmpty);
+      });
+      var single = BenchmarkSupport.measure("create-owner-single", size, size, i -> {
+        int id = customer.incrementAndGet();
+        ownerService.create(new OwnerCreateDto("Customer" + id, "Migrated", "customer" + id + "@example.com"));
+      });
+      LOG.info("BENCHMARK create-owner-throughput size={} batch={} owners/s single={} owners/s",
+          size, "%.0f".formatted(size / (batch.avgMicros() / 1_000_000)), "%.0f".formatted(1_000_000 / single.avgMicros()));
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package at.ac.tuwien.sepm.assignment.individual.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.persistence.OwnerDao;
+import at.ac.tuwien.sepm.assignment.individual.persistence.OwnerSuggestIndex;
+import at.ac.tuwien.sepm.assignment.individual.type.MatchMode;
+
+import java.lang.invoke.MethodHandles;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Compares owner suggestions from the resident prefix index with searching the owners in the database,
+ * and reports how long the index takes to load and how much heap it retains.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest
+@DirtiesContext
+public class OwnerSuggestBenchmark {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int LIMIT = 5;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  OwnerDao ownerDao;
+
+  @Autowired
+  OwnerSuggestIndex suggestIndex;
+
+  @Test
+  public void indexVersusDatabase() throws Exception {
+    int iterations = BenchmarkSupport.iterations(1000);
+    for (int size : BenchmarkSupport.sizes("1000000")) {
+      BenchmarkSupport.insertOwners(jdbcTemplate, size);
+
+      long heapBefore = usedHeap();
+      long start = System.nanoTime();
+      suggestIndex.rebuild();
+      long rebuildMillis = (System.nanoTime() - start) / 1_000_000;
+      LOG.info("BENCHMARK suggest-index-rebuild size={} time={}ms heap={}MiB",
+          size, rebuildMillis, (usedHeap() - heapBefore) / (1024 * 1024));
+
+      // typed prefixes like "first4242", a different one each time, so no result is reused
+      var typed = new String[iterations * 2];
+      for (int i = 0; i < typed.length; i++) {
+        typed[i] = "first" + (1_000 + i * 37 % 9_000);
+      }
+
+      BenchmarkSupport.measure("suggest-index", size, iterations, i -> assertThat(suggestIndex.suggest(typed[i], LIMIT)).hasSize(LIMIT));
+      BenchmarkSupport.measure("suggest-dao", size, iterations, i -> assertThat(ownerDao.suggest(typed[i], LIMIT)).hasSize(LIMIT));
+      for (var matchMode : MatchMode.values()) {
+        BenchmarkSupport.measure("search-" + matchMode.name().toLowerCase(), size, Math.min(iterations, 100), i -> assertThat(
+            ownerDao.search(new OwnerSearchDto(typed[i], LIMIT, matchMode))).hasSize(LIMIT));
+      }
+
+      // single owners created one after the other, as by the owner endpoint
+      BenchmarkSupport.measure("suggest-index-put", size, iterations,
+          i -> suggestIndex.put(size + 1L + i, "Put" + i, "Owner" + i, "put" + i + "@example.org"));
+    }
+  }
+
+  private static long usedHeap() {
+    System.gc();
+    var runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,196 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseChildDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
+import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepm.assignment.individual.persistence.impl.AncestorClosureJdbcDao;
+import at.ac.tuwien.sepm.assignment.individual.persistence.impl.HorseJdbcDao;
+import at.ac.tuwien.sepm.assignment.individual.type.Sex;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+public class AncestorClosureDaoTest {
+
+  @Autowired
+  AncestorClosureDao closureDao;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  NamedParameterJdbcTemplate namedJdbcTemplate;
+
+  @Autowired
+  PedigreeIndex pedigreeIndex;
+
+  @Autowired
+  ExistenceFilter existenceFilter;
+
+  @Autowired
+  HorseTokenDao tokenDao;
+
+  @BeforeEach
+  public void makeClosureAvailable() {
+    // the closure is only checked at startup with the strategy CLOSURE, the test data scripts write horses without maintaining it
+    assertThat(closureDao.rebuild()).isTrue();
+  }
+
+  @Test
+  public void ancestorsMatchRecursiveQuery() throws NotFoundException {
+    assertThat(closureDao.isAvailable()).isTrue();
+    assertThat(closureDao.isConsistent()).isTrue();
+    assertAncestorsMatchRecursiveQuery();
+  }
+
+  @Test
+  public void descendantsAreInverseOfAncestors() throws NotFoundException {
+    var descendants = descendantIds(-1, closureDao.maxDepth());
+
+    assertThat(descendants).contains(-1L, -6L, -7L, -12L, -31L).doesNotContain(-3L, -14L);
+    for (long id = -31; id <= -1; id++) {
+      assertThat(descendants.contains(id)).isEqualTo(closureDao.getAncestorIds(id, closureDao.maxDepth()).contains(-1L));
+      assertThat(closureDao.isAncestor(-1, id)).isEqualTo(id != -1 && descendants.contains(id));
+    }
+    var byGeneration = closureDao.getDescendantIdsByGeneration(-13, 1);
+    assertThat(byGeneration).hasSize(2);
+    assertThat(byGeneration.get(0)).containsExactly(-13L);
+    assertThat(byGeneration.get(1)).containsExactly(-20L, -19L, -18L);
+  }
+
+  @Test
+  public void descendantsByGenerationMatchPedigreeIndex() throws NotFoundException {
+    for (long id = -31; id <= -1; id++) {
+      var closure = closureDao.getDescendantIdsByGeneration(id, closureDao.maxDepth());
+      var indexed = pedigreeIndex.getDescendantIdsByGeneration(id, closureDao.maxDepth());
+
+      assertThat(closure).hasSameSizeAs(indexed);
+      for (int generation = 0; generation < closure.size(); generation++) {
+        assertThat(closure.get(generation)).containsExactly(indexed.get(generation));
+      }
+    }
+  }
+
+  @Test
+  public void ancestorsOfNonExistentHorseShouldError() {
+    Assertions.assertThrowsExactly(NotFoundException.class, () -> closureDao.getAncestorIds(100, 3));
+    Assertions.assertThrowsExactly(NotFoundException.class, () -> closureDao.getDescendantIdsByGeneration(100, 3));
+  }
+
+  @Test
+  @DirtiesContext
+  public void closureFollowsCreateUpdateAndDelete() throws NotFoundException {
+    var father = new HorseDetailDto(-31L, null, null, null, null, null);
+    var mother = new HorseDetailDto(-30L, null, null, null, null, null);
+    var foal = horseDao.create(new HorseCreateDto("Foal", null, LocalDate.now(), Sex.FEMALE, null, father, mother));
+    assertThat(closureDao.isAncestor(-1, foal.getId())).isTrue();
+    assertIncrementalClosureMatchesRebuild();
+
+    var parent = horseDao.getById(-13);
+    horseDao.update(toUpdate(parent, null, null));
+    assertThat(closureDao.getAncestorIds(-13, closureDao.maxDepth())).containsExactly(-13L);
+    assertIncrementalClosureMatchesRebuild();
+
+    horseDao.update(toUpdate(parent, parent.getFatherId(), parent.getMotherId()));
+    assertIncrementalClosureMatchesRebuild();
+
+    horseDao.delete(-13);
+    assertThat(descendantIds(-18, 0)).containsExactly(-18L);
+    assertIncrementalClosureMatchesRebuild();
+  }
+
+  @Test
+  @DirtiesContext
+  public void writesWhileUnavailableAreCaughtBeforeTheClosureIsAvailable() throws NotFoundException {
+    var unavailableClosureDao = new AncestorClosureJdbcDao(jdbcTemplate, closureDao.maxDepth());
+    var closureStrategyDao = new HorseJdbcDao(jdbcTemplate, namedJdbcTemplate, pedigreeIndex, existenceFilter,
+        unavailableClosureDao, tokenDao, AncestorQueryStrategy.CLOSURE);
+    var father = new HorseDetailDto(-31L, null, null, null, null, null);
+    var skipped = closureStrategyDao.create(new HorseCreateDto("Skipped", null, LocalDate.now(), Sex.MALE, null, father, null));
+
+    assertThat(unavailableClosureDao.isAvailable()).isFalse();
+    assertThat(closureStrategyDao.isAncestor(-1, skipped.getId())).isTrue();
+    assertThat(closureStrategyDao.getDescendantIdsByGeneration(skipped.getId(), 1)).hasSize(1);
+    assertThat(unavailableClosureDao.makeAvailableIfConsistent()).isFalse();
+    assertThat(unavailableClosureDao.isAvailable()).isFalse();
+
+    assertThat(unavailableClosureDao.rebuild()).isTrue();
+    var maintained = closureStrategyDao.create(new HorseCreateDto("Maintained", null, LocalDate.now(), Sex.MALE, null,
+        new HorseDetailDto(skipped.getId(), null, null, null, null, null), null));
+    assertThat(unavailableClosureDao.isConsistent()).isTrue();
+    assertThat(unavailableClosureDao.isAncestor(-1, maintained.getId())).isTrue();
+    closureStrategyDao.deleteAll(List.of(maintained.getId(), skipped.getId()));
+  }
+
+  /**
+   * compares the ancestors of all test horses in the closure with the ones of the recursive query
+   */
+  private void assertAncestorsMatchRecursiveQuery() throws NotFoundException {
+    var recursiveDao = new HorseJdbcDao(jdbcTemplate, namedJdbcTemplate, pedigreeIndex, existenceFilter,
+        closureDao, tokenDao, AncestorQueryStrategy.RECURSIVE_QUERY);
+    var ids = jdbcTemplate.queryForList("SELECT id FROM horse", Long.class);
+    for (long id : ids) {
+      for (long generations = 0; generations <= closureDao.maxDepth(); generations++) {
+        var closure = closureDao.getAncestorIds(id, generations);
+        var queried = recursiveDao.getAncestors(id, generations);
+
+        assertThat(closure).containsExactlyInAnyOrderElementsOf(queried.stream().map(Horse::getId).toList());
+      }
+    }
+  }
+
+  /**
+   * checks that the incrementally maintained closure, including the path counts, equals a freshly computed one
+   */
+  private void assertIncrementalClosureMatchesRebuild() throws NotFoundException {
+    assertThat(closureDao.isConsistent()).isTrue();
+    assertAncestorsMatchRecursiveQuery();
+
+    var incremental = selectClosure();
+    closureDao.rebuild();
+    assertThat(incremental).containsExactlyElementsOf(selectClosure());
+  }
+
+  private List<Long> descendantIds(long rootId, long generations) throws NotFoundException {
+    return closureDao.getDescendantIdsByGeneration(rootId, generations).stream()
+        .flatMap(generation -> Arrays.stream(generation).boxed())
+        .toList();
+  }
+
+  private List<Map<String, Object>> selectClosure() {
+    return jdbcTemplate.queryForList("SELECT * FROM ancestor_closure ORDER BY descendant_id, ancestor_id, depth");
+  }
+
+  private HorseChildDetailDto toUpdate(Horse horse, Long fatherId, Long motherId) {
+    return new HorseChildDetailDto(
+        horse.getId(),
+        horse.getName(),
+        horse.getDescription(),
+        horse.getDateOfBirth(),
+        horse.getSex(),
+        null,
+        fatherId == null ? null : new HorseDetailDto(fatherId, null, null, null, null, null),
+        motherId == null ? null : new HorseDetailDto(motherId, null, null, null, null, null));
+  }
+}
@@ -0,0 +1,105 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepm.assignment.individual.type.Sex;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest(properties = "spring.jmx.enabled=true") // JMX is disabled in tests by default
+@DirtiesContext
+public class ExistenceFilterTest {
+
+  @Autowired
+  ExistenceFilter existenceFilter;
+
+  @Autowired
+  OwnerDao ownerDao;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Test
+  public void containsAllStoredValues() {
+    for (var owner : ownerDao.search(new OwnerSearchDto(null, null, null))) {
+      if (owner.getEmail() != null) {
+        assertThat(existenceFilter.mightContainEmail(owner.getEmail())).as("email %s", owner.getEmail()).isTrue();
+      }
+    }
+    for (long id : jdbcTemplate.queryForList("SELECT id FROM horse", Long.class)) {
+      assertThat(existenceFilter.mightContainHorse(id)).as("horse %d", id).isTrue();
+    }
+  }
+
+  @Test
+  public void rulesOutMostAbsentValues() {
+    long missesBefore = existenceFilter.emailStats().definiteMisses();
+    long contained = IntStream.range(0, 10_000).filter(i -> existenceFilter.mightContainEmail("absent" + i + "@example.com")).count();
+
+    assertThat(contained).isLessThan(100);
+    assertThat(existenceFilter.emailStats().definiteMisses() - missesBefore).isEqualTo(10_000 - contained);
+    assertThat(ownerDao.emailIsTaken("absent@example.com")).isFalse();
+    assertThat(ownerDao.emailIsTaken("imakek@lol.xyz")).isTrue();
+  }
+
+  @Test
+  public void unknownParentIsNotFoundWithoutQuery() {
+    long missesBefore = existenceFilter.horseStats().definiteMisses();
+
+    Assertions.assertThrows(NotFoundException.class, () -> horseDao.getValidationContext(null, 1_000_000L, null));
+    assertThat(existenceFilter.horseStats().definiteMisses()).isEqualTo(missesBefore + 1);
+    assertThat(horseDao.getAllDetailsById(List.of(1_000_000L, -8L))).containsOnlyKeys(-8L);
+  }
+
+  @Test
+  @DirtiesContext
+  public void filterFollowsCreate() {
+    var owner = ownerDao.create(new OwnerCreateDto("Impa", "Sheikah", "impa@sheikah.org"));
+    var horse = horseDao.create(new HorseCreateDto("Epona", null, LocalDate.of(1998, 11, 21), Sex.FEMALE, null, null, null));
+
+    assertThat(existenceFilter.mightContainEmail(owner.getEmail())).isTrue();
+    assertThat(existenceFilter.mightContainHorse(horse.getId())).isTrue();
+  }
+
+  @Test
+  @DirtiesContext
+  public void rebuildLoadsValuesStoredBehindTheDaos() {
+    jdbcTemplate.update("INSERT INTO owner (first_name, last_name, email) VALUES ('Link', 'Hyrule', 'link@triforce.org')");
+    existenceFilter.rebuild();
+
+    assertThat(existenceFilter.mightContainEmail("link@triforce.org")).isTrue();
+    assertThat(ownerDao.emailIsTaken("link@triforce.org")).isTrue();
+  }
+
+  @Test
+  public void statisticsAreExposedAsMBean() throws Exception {
+    var server = ManagementFactory.getPlatformMBeanServer();
+    var names = server.queryNames(new ObjectName("*:type=ExistenceBloomFilter,*"), null);
+
+    assertThat(names).isNotEmpty();
+    var name = names.iterator().next();
+    assertThat((Long) server.getAttribute(name, "HorseEntries")).isPositive();
+    assertThat((Long) server.getAttribute(name, "EmailMemoryBytes")).isPositive();
+    assertThat((Double) server.getAttribute(name, "EmailExpectedFalsePositiveRate")).isBetween(0.0, 0.01);
+  }
+}
@@ -3,23 +3,36 @@ package at.ac.tuwien.sepm.assignment.individual.persistence;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 
+import at.ac.tuwien.sepm.assignment.individual.dto.FacetBucketDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseChildDetailDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseParentCandidateSearchDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
 import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepm.assignment.individual.persistence.impl.HorseJdbcDao;
+import at.ac.tuwien.sepm.assignment.individual.type.HorseSort;
+import at.ac.tuwien.sepm.assignment.individual.type.MatchMode;
+import at.ac.tuwien.sepm.assignment.individual.type.SearchMode;
 import at.ac.tuwien.sepm.assignment.individual.type.Sex;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
@@ -30,9 +43,27 @@ public class HorseDaoTest {
   @Autowired
   HorseDao horseDao;
 
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  NamedParameterJdbcTemplate namedJdbcTemplate;
+
+  @Autowired
+  PedigreeIndex pedigreeIndex;
+
+  @Autowired
+  ExistenceFilter existenceFilter;
+
+  @Autowired
+  AncestorClosureDao closureDao;
+
+  @Autowired
+  HorseTokenDao tokenDao;
+
   @Test
   public void getAllReturnsAllStoredHorses() {
-    List<Horse> horses = horseDao.searchAll(new HorseSearchDto(null, null, null, null, null, null));
+    List<Horse> horses = horseDao.searchAll(new HorseSearchDto(null, null, null, null, null, null, null, null, null, null, null));
     assertThat(horses.size()).isEqualTo(31);
     assertThat(horses)
         .extracting(Horse::getId, Horse::getName)
@@ -41,11 +72,301 @@ public class HorseDaoTest {
 
   @Test
   public void searchNameReturnsCorrectResults() {
-    List<Horse> horses = horseDao.searchAll(new HorseSearchDto("Charles", null, null, null, null, null));
+    List<Horse> horses = horseDao.searchAll(new HorseSearchDto("Charles", null, null, null, null, null, null, null, null, null, null));
     assertThat(horses.size()).isGreaterThan(0);
     assertThat(horses).extracting(Horse::getName).containsAnyElementsOf(List.of("Charles", "charles"));
   }
 
+  @Test
+  public void searchOwnerNameMatchesFullName() {
+    List<Horse> horses = horseDao.searchAll(new HorseSearchDto(null, null, null, null, null, "Peter  PURG", null, null, null, null, null));
+    assertThat(horses).extracting(Horse::getId).containsExactly(-9L);
+
+    horses = horseDao.searchAll(new HorseSearchDto(null, null, null, null, null, "kenobi", null, null, null, null, null));
+    assertThat(horses).extracting(Horse::getOwnerId).isNotEmpty().containsOnly(-66L);
+  }
+
+  @Test
+  public void prefixSearchMatchesStartOfTexts() {
+    List<Horse> horses = horseDao.searchAll(new HorseSearchDto("MARIA", null, null, null, null, null, null, null, null, MatchMode.PREFIX, null));
+    assertThat(horses).extracting(Horse::getName).containsExactly("Maria", "Maria Anna of Austria", "Mariana of Austria");
+
+    // "of" is contained in many names, but starts none
+    assertThat(horseDao.searchAll(new HorseSearchDto("of", null, null, null, null, null, null, null, null, MatchMode.PREFIX, null))).isEmpty();
+
+    horses = horseDao.searchAll(new HorseSearchDto(null, null, null, null, null, "peter p", null, null, null, MatchMode.PREFIX, null));
+    assertThat(horses).extracting(Horse::getOwnerId).containsExactly(-76L);
+  }
+
+  @Test
+  public void fullTextSearchMatchesWordPrefixes() {
+    List<Horse> horses = horseDao.searchAll(new HorseSearchDto("charles ii", null, null, null, null, null, null, null, SearchMode.FULLTEXT, null, null));
+    assertThat(horses).extracting(Horse::getId).containsExactly(-31L, -19L);
+
+    horses = horseDao.searchAll(new HorseSearchDto(null, "holy rom", null, null, null, null, null, null, SearchMode.FULLTEXT, null, null));
+    assertThat(horses).extracting(Horse::getId).containsExactlyInAnyOrder(-3L, -12L, -13L, -18L, -26L, -29L);
+
+    horses = horseDao.searchAll(new HorseSearchDto("ferdinand", "emperor", null, null, null, null, null, null, SearchMode.FULLTEXT, null, null));
+    assertThat(horses).extracting(Horse::getId).containsExactlyInAnyOrder(-13L, -26L, -29L);
+  }
+
+  @Test
+  public void fullTextSearchOrdersByRelevance() {
+    List<Horse> horses = horseDao.searchAll(new HorseSearchDto("maria", null, null, null, null, null, null, null, SearchMode.FULLTEXT, null, null));
+
+    // exact matches rank before the prefix match "Mariana"
+    assertThat(horses).extracting(Horse::getId).containsExactly(-28L, -17L, -30L);
+  }
+
+  @Test
+  @DirtiesContext
+  public void fullTextIndexFollowsWrites() throws NotFoundException {
+    var created = horseDao.create(new HorseCreateDto("Thunder Bolt", "Fast as lightning", LocalDate.of(2020, 1, 1), Sex.MALE, null, null, null));
+    Function<String, List<Horse>> search =
+        name -> horseDao.searchAll(new HorseSearchDto(name, null, null, null, null, null, null, null, SearchMode.FULLTEXT, null, null));
+    assertThat(search.apply("thun")).extracting(Horse::getId).containsExactly(created.getId());
+
+    horseDao.update(new HorseChildDetailDto(created.getId(), "Silver Bolt", created.getDescription(), created.getDateOfBirth(), created.getSex(),
+        null, null, null));
+    assertThat(search.apply("thun")).isEmpty();
+    assertThat(search.apply("silver bolt")).extracting(Horse::getId).containsExactly(created.getId());
+
+    horseDao.delete(created.getId());
+    assertThat(search.apply("bolt")).isEmpty();
+  }
+
+  @Test
+  @DirtiesContext
+  public void createAllMaintainsIndexes() throws NotFoundException {
+    // the closure is only maintained once it is available, which it is not with the default strategy
+    closureDao.rebuild();
+    var father = new HorseDetailDto(-8L, null, null, null, Sex.MALE, null);
+    var mother = new HorseDetailDto(-7L, null, null, null, Sex.FEMALE, null);
+    var created = horseDao.createAll(List.of(
+        new HorseCreateDto("Thunder Bolt", null, LocalDate.of(1500, 1, 1), Sex.MALE, null, father, mother),
+        new HorseCreateDto("Silver Bolt", "Fast as lightning", LocalDate.of(1501, 1, 1), Sex.FEMALE, null, null, mother)));
+
+    assertThat(created).extracting(Horse::getName).containsExactly("Thunder Bolt", "Silver Bolt");
+    assertThat(created.get(0).getId()).isNotEqualTo(created.get(1).getId());
+    assertThat(horseDao.getById(created.get(0).getId()).getFatherId()).isEqualTo(-8L);
+    assertThat(closureDao.isConsistent()).isTrue();
+    assertThat(closureDao.getAncestorIds(created.get(0).getId(), 2)).contains(-8L, -7L, -3L, -1L);
+    assertThat(pedigreeIndex.getAncestorIds(created.get(1).getId(), 1)).containsExactlyInAnyOrder(created.get(1).getId(), -7L);
+    assertThat(horseDao.searchAll(new HorseSearchDto("bolt", null, null, null, null, null, null, null, SearchMode.FULLTEXT, null, null)))
+        .extracting(Horse::getId).containsExactlyInAnyOrderElementsOf(created.stream().map(Horse::getId).toList());
+  }
+
+  @Test
+  public void facetsCountMatchingHorses() {
+    var search = new HorseSearchDto("of", null, null, null, null, null, null, null, null, null, null);
+    var horses = horseDao.searchPage(search).horses();
+    var facets = horseDao.countFacets(search);
+
+    assertThat(facets.total()).isEqualTo(horses.size());
+    assertThat(facets.sex()).extracting(FacetBucketDto::value, FacetBucketDto::count).containsExactlyInAnyOrder(
+        tuple("FEMALE", horses.stream().filter(horse -> horse.sex() == Sex.FEMALE).count()),
+        tuple("MALE", horses.stream().filter(horse -> horse.sex() == Sex.MALE).count()));
+    assertThat(facets.owner()).extracting(FacetBucketDto::value, FacetBucketDto::label, FacetBucketDto::count)
+        .contains(tuple("-66", "Obi-Wan Kenobi", horses.stream().filter(horse -> horse.owner() != null && horse.owner().id() == -66L).count()))
+        .contains(tuple(null, null, horses.stream().filter(horse -> horse.owner() == null).count()));
+    assertThat(facets.birthDecade()).extracting(FacetBucketDto::value).isSortedAccordingTo(Comparator.comparing(Integer::valueOf));
+    assertThat(facets.birthDecade()).filteredOn(bucket -> bucket.value().equals("1520"))
+        .extracting(FacetBucketDto::count).containsExactly(horses.stream().filter(horse -> horse.dateOfBirth().getYear() / 10 == 152).count());
+  }
+
+  @Test
+  @DirtiesContext
+  public void facetsFollowWrites() throws NotFoundException {
+    var search = new HorseSearchDto(null, null, null, LocalDate.of(2000, 1, 1), null, null, null, null, null, null, null);
+    assertThat(horseDao.countFacets(search).total()).isZero();
+
+    var created = horseDao.create(new HorseCreateDto("Thunder Bolt", null, LocalDate.of(2020, 1, 1), Sex.MALE, null, null, null));
+    assertThat(horseDao.countFacets(search).birthDecade()).containsExactly(new FacetBucketDto("2020", null, 1));
+
+    horseDao.update(new HorseChildDetailDto(created.getId(), "Thunder Bolt", null, LocalDate.of(2012, 1, 1), Sex.MALE, null, null, null));
+    assertThat(horseDao.countFacets(search).birthDecade()).containsExactly(new FacetBucketDto("2010", null, 1));
+
+    horseDao.delete(created.getId());
+    assertThat(horseDao.countFacets(search).total()).isZero();
+  }
+
+  @Test
+  public void pagesFollowCursors() {
+    var all = horseDao.searchAll(new HorseSearchDto(null, null, null, null, null, null, null, null, null, null, null));
+    assertThat(all).extracting(Horse::getName).isSorted();
+
+    var paged = new ArrayList<HorseDetailDto>();
+    String cursor = null;
+    do {
+      var page = horseDao.searchPage(new HorseSearchDto(null, null, null, null, null, null, 4, null, null, null, cursor));
+      assertThat(page.horses()).hasSizeLessThanOrEqualTo(4);
+      paged.addAll(page.horses());
+      cursor = page.nextCursor() == null ? null : page.nextCursor().encode();
+    } while (cursor != null);
+
+    assertThat(paged).extracting(HorseDetailDto::id).containsExactlyElementsOf(all.stream().map(Horse::getId).toList());
+  }
+
+  @Test
+  public void pagesFollowCursorsInEverySort() {
+    for (var sort : HorseSort.values()) {
+      Comparator<Horse> order = switch (sort) {
+        case NAME, NAME_DESC -> Comparator.comparing(Horse::getName).thenComparing(Horse::getId);
+        case DATE_OF_BIRTH, DATE_OF_BIRTH_DESC -> Comparator.comparing(Horse::getDateOfBirth).thenComparing(Horse::getId);
+        case ID, ID_DESC -> Comparator.comparing(Horse::getId);
+      };
+      var all = horseDao.searchAll(new HorseSearchDto(null, null, null, null, null, null, null, sort, null, null, null));
+      assertThat(all).as("horses sorted by %s", sort).isSortedAccordingTo(sort.descending() ? order.reversed() : order);
+
+      var paged = new ArrayList<HorseDetailDto>();
+      String cursor = null;
+      do {
+        var page = horseDao.searchPage(new HorseSearchDto(null, null, null, null, null, null, 4, sort, null, null, cursor));
+        paged.addAll(page.horses());
+        cursor = page.nextCursor() == null ? null : page.nextCursor().encode();
+      } while (cursor != null);
+      assertThat(paged).as("pages sorted by %s", sort)
+          .extracting(HorseDetailDto::id).containsExactlyElementsOf(all.stream().map(Horse::getId).toList());
+    }
+  }
+
+  @Test
+  public void searchFiltersBirthDateRange() {
+    var bornAfter = LocalDate.of(1600, 1, 1);
+    var bornBefore = LocalDate.of(1650, 1, 1);
+    var horses = horseDao.searchAll(new HorseSearchDto(null, null, bornBefore, bornAfter, null, null, null, HorseSort.DATE_OF_BIRTH, null, null, null));
+
+    assertThat(horses).extracting(Horse::getDateOfBirth)
+        .isNotEmpty()
+        .isSorted()
+        .allMatch(date -> date.isAfter(bornAfter) && date.isBefore(bornBefore));
+  }
+
+  @Test
+  public void limitedSearchesReadSortedIndex() {
+    // the first rows of the index are the result, the matching horses are never sorted as a whole
+    for (var sort : HorseSort.values()) {
+      assertThat(explainSearch(new HorseSearchDto(null, null, null, null, null, null, 5, sort, null, null, null)))
+          .as("plan for %s", sort).contains("/* index sorted */");
+    }
+    assertThat(explainSearch(new HorseSearchDto(null, null, null, null, Sex.FEMALE, null, 5, HorseSort.NAME_DESC, null, null, null)))
+        .contains("/* index sorted */");
+
+    // the birth date range is a range of the index the horses are sorted by
+    var plan = explainSearch(new HorseSearchDto(null, null, LocalDate.of(1650, 1, 1), LocalDate.of(1600, 1, 1), null, null, 5,
+        HorseSort.DATE_OF_BIRTH_DESC, null, null, null));
+    assertThat(plan).contains("HORSE_DATE_OF_BIRTH_ID_DESC: ", "/* index sorted */");
+  }
+
+  @Test
+  public void parentCandidatesPassParentChecks() {
+    var childBirth = LocalDate.of(1700, 1, 1);
+    for (var sex : Sex.values()) {
+      for (String q : new String[] {null, "m", "Ma"}) {
+        var expected = horseDao.searchAll(new HorseSearchDto(null, null, null, null, sex, null, null, null, null, null, null)).stream()
+            .filter(horse -> q == null || horse.getName().toLowerCase(Locale.ROOT).startsWith(q.toLowerCase(Locale.ROOT)))
+            .filter(horse -> !horse.getDateOfBirth().isAfter(childBirth) && horse.getId() != -1L)
+            .sorted(Comparator.comparing((Horse horse) -> horse.getName().toLowerCase(Locale.ROOT)).thenComparing(Horse::getId))
+            .limit(5)
+            .map(Horse::getId)
+            .toList();
+
+        var candidates = horseDao.searchParentCandidates(new HorseParentCandidateSearchDto(q, sex, childBirth, -1L, 5));
+        assertThat(candidates).as("%s candidates for %s", sex, q)
+            .extracting(HorseDetailDto::id)
+            .isNotEmpty()
+            .containsExactlyElementsOf(expected);
+      }
+    }
+  }
+
+  @Test
+  public void parentCandidatesReadSortedIndex() {
+    var plan = explain(() -> horseDao.searchParentCandidates(new HorseParentCandidateSearchDto("ma", Sex.MALE, LocalDate.of(1700, 1, 1), -1L, 5)));
+    assertThat(plan).contains("HORSE_NAME_LOWER_ID: ", "/* index sorted */");
+  }
+
+  /**
+   * runs a search and returns the plan H2 chooses for its query
+   */
+  private String explainSearch(HorseSearchDto search) {
+    return explain(() -> horseDao.searchAll(search));
+  }
+
+  /**
+   * runs a query with an order and returns the plan H2 chooses for it
+   */
+  private String explain(Runnable query) {
+    jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+    try {
+      query.run();
+      String sql = jdbcTemplate.queryForObject("SELECT sql_statement FROM information_schema.query_statistics"
+          + " WHERE sql_statement LIKE 'SELECT %ORDER BY%' AND sql_statement NOT LIKE '%query_statistics%'", String.class);
+      return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    } finally {
+      // disabling the statistics also clears them
+      jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+    }
+  }
+
+  @Test
+  public void pagesContainOwners() {
+    var page = horseDao.searchPage(new HorseSearchDto("of", null, null, null, null, null, 100, null, null, null, null));
+
+    assertThat(page.horses())
+        .filteredOn(horse -> horse.owner() != null)
+        .extracting(HorseDetailDto::id, horse -> horse.owner().id(), horse -> horse.owner().firstName())
+        .contains(tuple(-1L, -66L, "Obi-Wan"), tuple(-2L, -69L, "Wendeez"));
+    assertThat(page.horses()).filteredOn(horse -> horse.owner() == null).extracting(HorseDetailDto::id).contains(-22L, -14L);
+  }
+
+  @Test
+  public void fullTextPagesFollowCursors() {
+    var all = horseDao.searchAll(new HorseSearchDto("mar", null, null, null, null, null, null, null, SearchMode.FULLTEXT, null, null));
+    var first = horseDao.searchPage(new HorseSearchDto("mar", null, null, null, null, null, 2, null, SearchMode.FULLTEXT, null, null));
+    var second = horseDao.searchPage(
+        new HorseSearchDto("mar", null, null, null, null, null, 100, null, SearchMode.FULLTEXT, null, first.nextCursor().encode()));
+
+    assertThat(first.horses()).hasSize(2);
+    assertThat(second.nextCursor()).isNull();
+    assertThat(Stream.concat(first.horses().stream(), second.horses().stream()).map(HorseDetailDto::id).toList())
+        .containsExactlyElementsOf(all.stream().map(Horse::getId).toList());
+  }
+
+  @Test
+  @DirtiesContext
+  public void fullTextPagesKeepTheirScoresAcrossInserts() {
+    var all = horseDao.searchAll(new HorseSearchDto("mar", null, null, null, null, null, null, null, SearchMode.FULLTEXT, null, null));
+    var first = horseDao.searchPage(new HorseSearchDto("mar", null, null, null, null, null, 2, null, SearchMode.FULLTEXT, null, null));
+    // more horses with the word make it less rare, which lowers the score of every horse
+    var inserted = new ArrayList<Long>();
+    for (int i = 0; i < 5; i++) {
+      inserted.add(horseDao.create(new HorseCreateDto("Marzipan " + i, null, LocalDate.of(2020, 1, 1), Sex.FEMALE, null, null, null)).getId());
+    }
+    var second = horseDao.searchPage(
+        new HorseSearchDto("mar", null, null, null, null, null, 100, null, SearchMode.FULLTEXT, null, first.nextCursor().encode()));
+
+    var paged = Stream.concat(first.horses().stream(), second.horses().stream()).map(HorseDetailDto::id).toList();
+    assertThat(paged).doesNotHaveDuplicates().containsAll(inserted);
+    assertThat(paged.stream().filter(id -> !inserted.contains(id)).toList()).containsExactlyElementsOf(all.stream().map(Horse::getId).toList());
+    // the in-memory database outlives this context, the other tests expect the test data only
+    horseDao.deleteAll(inserted);
+  }
+
+  @Test
+  public void streamReturnsSameHorsesAsSearch() {
+    var filter = new HorseSearchDto(null, null, null, null, Sex.FEMALE, null, null, null, null, null, null);
+    try (var streamed = horseDao.streamAll(filter)) {
+      assertThat(streamed.map(HorseDetailDto::id).toList())
+          .containsExactlyElementsOf(horseDao.searchAll(filter).stream().map(Horse::getId).toList());
+    }
+
+    filter = new HorseSearchDto("maria", null, null, null, null, null, 2, null, SearchMode.FULLTEXT, null, null);
+    try (var streamed = horseDao.streamAll(filter)) {
+      assertThat(streamed.map(HorseDetailDto::id).toList()).containsExactly(-28L, -17L);
+    }
+  }
+
   @Test
   public void getForNonExistentHorseShouldError() {
     Assertions.assertThrowsExactly(NotFoundException.class, () -> {
@@ -53,6 +374,19 @@ public class HorseDaoTest {
     });
   }
 
+  @Test
+  public void validationContextContainsHorseAndParents() throws NotFoundException {
+    var context = horseDao.getValidationContext(-31L, -8L, -7L);
+    assertThat(context.horse().id()).isEqualTo(-31L);
+    assertThat(context.hasChildren()).isFalse();
+    assertThat(context.father()).extracting(HorseDetailDto::id, father -> father.owner().id()).containsExactly(-8L, -75L);
+    assertThat(context.mother()).extracting(HorseDetailDto::id, mother -> mother.owner().id()).containsExactly(-7L, -74L);
+
+    assertThat(horseDao.getValidationContext(-1L, null, null).hasChildren()).isTrue();
+    assertThat(horseDao.getValidationContext(null, null, null)).isEqualTo(new HorseValidationContext(null, false, null, null));
+    Assertions.assertThrowsExactly(NotFoundException.class, () -> horseDao.getValidationContext(-31L, 100L, -7L));
+  }
+
   @Test
   public void ancestorsAreLimited() throws NotFoundException {
     List<Horse> horsesLimited = horseDao.getAncestors(-31, 5);
@@ -63,6 +397,35 @@ public class HorseDaoTest {
     assertThat(horsesUnLimited).extracting(Horse::getName).containsAnyElementsOf(List.of("Maximilian I"));
   }
 
+  @Test
+  public void ancestorStrategiesAgreeOnGenerations() throws NotFoundException {
+    closureDao.rebuild();
+    var recursiveDao = new HorseJdbcDao(jdbcTemplate, namedJdbcTemplate, pedigreeIndex, existenceFilter,
+        closureDao, tokenDao, AncestorQueryStrategy.RECURSIVE_QUERY);
+    for (var strategy : List.of(AncestorQueryStrategy.FRONTIER, AncestorQueryStrategy.INDEX, AncestorQueryStrategy.CLOSURE)) {
+      var strategyDao = new HorseJdbcDao(jdbcTemplate, namedJdbcTemplate, pedigreeIndex, existenceFilter,
+          closureDao, tokenDao, strategy);
+
+      for (long id = -31; id <= -1; id++) {
+        var queried = recursiveDao.getAncestorsByGeneration(id, 10);
+        var walked = strategyDao.getAncestorsByGeneration(id, 10);
+
+        assertThat(walked).as("%s ancestors of %d", strategy, id).hasSameSizeAs(queried);
+        for (int generation = 0; generation < queried.size(); generation++) {
+          assertThat(walked.get(generation)).extracting(Horse::getId)
+              .containsExactlyElementsOf(queried.get(generation).stream().map(Horse::getId).toList());
+        }
+      }
+
+      var generations = strategyDao.getAncestorsByGeneration(-31, 2);
+      assertThat(generations).hasSize(3);
+      assertThat(generations.get(0)).extracting(Horse::getId).containsExactly(-31L);
+      assertThat(generations.get(1)).extracting(Horse::getName).hasSize(2);
+      Assertions.assertThrowsExactly(NotFoundException.class, () -> strategyDao.getAncestorsByGeneration(100, 3));
+    }
+    Assertions.assertThrowsExactly(NotFoundException.class, () -> recursiveDao.getAncestorsByGeneration(100, 3));
+  }
+
   @Test
   @DirtiesContext
   public void sexShouldChange() throws NotFoundException {
@@ -0,0 +1,107 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.entity.Owner;
+import at.ac.tuwien.sepm.assignment.individual.type.MatchMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+public class OwnerSuggestIndexTest {
+
+  @Autowired
+  OwnerSuggestIndex suggestIndex;
+
+  @Autowired
+  OwnerDao ownerDao;
+
+  @Test
+  public void suggestsByFullNameLastNameAndEmail() {
+    assertThat(suggestIndex.suggest("peter", 5)).containsExactly(-77L, -76L);
+    assertThat(suggestIndex.suggest("  PETER   p", 5)).containsExactly(-76L);
+    assertThat(suggestIndex.suggest("purg", 5)).containsExactly(-76L);
+    assertThat(suggestIndex.suggest("always@", 5)).containsExactly(-77L);
+    assertThat(suggestIndex.suggest("peter", 1)).containsExactly(-77L);
+    assertThat(suggestIndex.suggest(" ", 5)).isEmpty();
+    assertThat(suggestIndex.suggest("lustig peter", 5)).isEmpty();
+  }
+
+  @Test
+  public void suggestsOwnersMatchingWithSeveralKeysOnce() {
+    // last name and email of Giga Chad both start with chad
+    assertThat(suggestIndex.suggest("chad", 5)).containsExactly(-72L);
+  }
+
+  @Test
+  public void suggestionsMatchPrefixSearch() {
+    for (var prefix : new String[] {"a", "b", "k", "l", "p", "ra-ra", "wendeez n"}) {
+      var searched = ownerDao.search(new OwnerSearchDto(prefix, null, MatchMode.PREFIX)).stream().map(Owner::getId).toList();
+      assertThat(suggestIndex.suggest(prefix, 100)).as("suggestions for %s", prefix).containsAll(searched);
+    }
+  }
+
+  @Test
+  @DirtiesContext
+  public void indexFollowsCreate() {
+    int size = suggestIndex.size();
+    var created = ownerDao.create(new OwnerCreateDto("Zelda", "Hyrule", "zelda@triforce.org"));
+
+    assertThat(suggestIndex.size()).isEqualTo(size + 1);
+    assertThat(suggestIndex.suggest("zel", 5)).containsExactly(created.getId());
+    assertThat(suggestIndex.suggest("hyr", 5)).containsExactly(created.getId());
+    assertThat(ownerDao.suggest("zelda@", 5)).extracting(Owner::getLastName).containsExactly("Hyrule");
+    // the search key of the stored owner is generated by the database
+    assertThat(ownerDao.search(new OwnerSearchDto("ZELDA   hyr", null, MatchMode.PREFIX))).extracting(Owner::getId).containsExactly(created.getId());
+  }
+
+  @Test
+  @DirtiesContext
+  public void indexFollowsCreateAll() {
+    int size = suggestIndex.size();
+    var created = ownerDao.createAll(List.of(
+        new OwnerCreateDto("Zelda", "Hyrule", "zelda@triforce.org"),
+        new OwnerCreateDto("Aaron", "Aardvark", null),
+        new OwnerCreateDto("Peter", "Zzz", null)));
+
+    assertThat(suggestIndex.size()).isEqualTo(size + 3);
+    assertThat(suggestIndex.suggest("zel", 5)).containsExactly(created.get(0).getId());
+    assertThat(suggestIndex.suggest("aard", 5)).containsExactly(created.get(1).getId());
+    // merged behind the stored owners, as their names sort before it
+    assertThat(suggestIndex.suggest("peter", 5)).containsExactly(-77L, -76L, created.get(2).getId());
+    for (var prefix : new String[] {"a", "p", "z"}) {
+      var searched = ownerDao.search(new OwnerSearchDto(prefix, null, MatchMode.PREFIX)).stream().map(Owner::getId).toList();
+      assertThat(suggestIndex.suggest(prefix, 100)).as("suggestions for %s", prefix).containsAll(searched);
+    }
+  }
+
+  @Test
+  @DirtiesContext
+  public void singleInsertsAreFoundBeforeAndAfterMerge() {
+    suggestIndex.put(1_000, "Peter", "Aaa", null);
+    // the delta key sorts between the stored keys
+    assertThat(suggestIndex.suggest("peter", 5)).containsExactly(1_000L, -77L, -76L);
+
+    var expected = new ArrayList<Long>();
+    expected.add(1_000L);
+    for (int i = 0; i < 1_000; i++) {
+      suggestIndex.put(2_000 + i, "Peter", "Delta %04d".formatted(i), null);
+      expected.add(2_000L + i);
+    }
+    expected.addAll(List.of(-77L, -76L));
+
+    assertThat(suggestIndex.suggest("peter", 2_000)).containsExactlyElementsOf(expected);
+    assertThat(suggestIndex.suggest("delta 0999", 5)).containsExactly(2_999L);
+    assertThat(suggestIndex.suggest("peter", 5)).containsExactly(1_000L, 2_000L, 2_001L, 2_002L, 2_003L);
+  }
+}
@@ -0,0 +1,180 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.entity.Horse;
+import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepm.assignment.individual.persistence.impl.HorseJdbcDao;
+import at.ac.tuwien.sepm.assignment.individual.type.Sex;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+public class PedigreeIndexTest {
+
+  @Autowired
+  PedigreeIndex pedigreeIndex;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  NamedParameterJdbcTemplate namedJdbcTemplate;
+
+  @Autowired
+  ExistenceFilter existenceFilter;
+
+  @Autowired
+  AncestorClosureDao closureDao;
+
+  @Autowired
+  HorseTokenDao tokenDao;
+
+  @Test
+  public void ancestorsMatchRecursiveQuery() throws NotFoundException {
+    for (long generations = 0; generations <= 10; generations++) {
+      var indexed = pedigreeIndex.getAncestorIds(-31, generations);
+      var queried = queriedAncestors(-31, generations);
+
+      assertThat(indexed).containsExactlyInAnyOrderElementsOf(queried.stream().map(Horse::getId).toList());
+    }
+  }
+
+  @Test
+  public void descendantsAreInverseOfAncestors() throws NotFoundException {
+    var descendants = pedigreeIndex.getDescendantIdsByGeneration(-1, 10).stream()
+        .flatMapToLong(Arrays::stream)
+        .boxed()
+        .toList();
+
+    assertThat(descendants).contains(-1L, -6L, -7L, -12L, -31L).doesNotContain(-3L, -14L);
+    for (long id = -31; id <= -1; id++) {
+      var isAncestor = pedigreeIndex.getAncestorIds(id, 10).contains(-1L);
+      assertThat(descendants.contains(id)).isEqualTo(isAncestor);
+    }
+  }
+
+  @Test
+  public void descendantsAreGroupedByClosestGeneration() throws NotFoundException {
+    var byGeneration = pedigreeIndex.getDescendantIdsByGeneration(-13, 2);
+
+    assertThat(byGeneration).hasSize(3);
+    assertThat(byGeneration.get(0)).containsExactly(-13L);
+    assertThat(byGeneration.get(1)).containsExactly(-20L, -19L, -18L);
+    assertThat(byGeneration.get(2)).containsExactly(-26L, -25L, -22L, -21L);
+    assertThat(pedigreeIndex.hasChildren(-13L)).isTrue();
+    assertThat(pedigreeIndex.hasChildren(-31L)).isFalse();
+  }
+
+  @Test
+  public void ancestorsOfNonExistentHorseShouldError() {
+    Assertions.assertThrowsExactly(NotFoundException.class, () -> pedigreeIndex.getAncestorIds(100, 3));
+  }
+
+  @Test
+  @DirtiesContext
+  public void indexFollowsCreateAndDelete() throws NotFoundException {
+    var father = new HorseDetailDto(-31L, null, null, null, null, null);
+    var mother = new HorseDetailDto(-30L, null, null, null, null, null);
+    var foal = horseDao.create(new HorseCreateDto("Foal", null, LocalDate.now(), Sex.FEMALE, null, father, mother));
+
+    assertThat(pedigreeIndex.getAncestorIds(foal.getId(), 1)).containsExactlyInAnyOrder(foal.getId(), -31L, -30L);
+
+    horseDao.delete(-31L);
+    assertThat(pedigreeIndex.contains(-31L)).isFalse();
+    assertThat(pedigreeIndex.getAncestorIds(foal.getId(), 1)).containsExactlyInAnyOrder(foal.getId(), -30L);
+  }
+
+  @Test
+  @DirtiesContext
+  public void indexFollowsDeleteAll() throws NotFoundException {
+    var children = pedigreeIndex.getDescendantIdsByGeneration(-13, 1).get(1);
+
+    var report = horseDao.deleteAll(List.of(-13L, children[0], 100L));
+
+    assertThat(report.deletedIds()).containsExactlyInAnyOrder(-13L, children[0]);
+    assertThat(pedigreeIndex.contains(-13L)).isFalse();
+    assertThat(pedigreeIndex.contains(children[0])).isFalse();
+    for (int i = 1; i < children.length; i++) {
+      var queried = queriedAncestors(children[i], 10);
+      assertThat(pedigreeIndex.getAncestorIds(children[i], 10))
+          .doesNotContain(-13L)
+          .containsExactlyInAnyOrderElementsOf(queried.stream().map(Horse::getId).toList());
+    }
+  }
+
+  @Test
+  @DirtiesContext
+  public void indexIgnoresUncommittedAndRolledBackWrites() throws NotFoundException {
+    var father = new HorseDetailDto(-31L, null, null, null, null, null);
+    var transaction = new TransactionTemplate(transactionManager);
+
+    var foal = transaction.execute(status -> {
+      var created = horseDao.create(new HorseCreateDto("Phantom", null, LocalDate.now(), Sex.MALE, null, father, null));
+      assertThat(pedigreeIndex.contains(created.getId())).isFalse();
+      status.setRollbackOnly();
+      return created;
+    });
+    transaction.executeWithoutResult(status -> {
+      horseDao.deleteAll(List.of(-30L));
+      status.setRollbackOnly();
+    });
+
+    assertThat(pedigreeIndex.contains(foal.getId())).isFalse();
+    assertThat(pedigreeIndex.contains(-30L)).isTrue();
+    assertThat(pedigreeIndex.hasChildren(-31L)).isFalse();
+  }
+
+  @Test
+  @DirtiesContext
+  public void childAppliedBeforeItsParentKeepsItsDescendantEdge() throws NotFoundException {
+    int size = pedigreeIndex.size();
+
+    // the child's commit is applied before the one of its parent, which only gets a placeholder
+    pedigreeIndex.put(900_002L, 900_001L, null);
+    assertThat(pedigreeIndex.contains(900_001L)).isFalse();
+    assertThat(pedigreeIndex.size()).isEqualTo(size + 1);
+    Assertions.assertThrowsExactly(NotFoundException.class, () -> pedigreeIndex.getDescendantIdsByGeneration(900_001L, 1));
+
+    pedigreeIndex.put(900_001L, -31L, null);
+    assertThat(pedigreeIndex.size()).isEqualTo(size + 2);
+    assertThat(pedigreeIndex.getDescendantIdsByGeneration(900_001L, 1).get(1)).containsExactly(900_002L);
+    assertThat(pedigreeIndex.getAncestorIds(900_002L, 2)).containsExactlyInAnyOrder(900_002L, 900_001L, -31L);
+
+    // a placeholder whose children are removed before its horse is put is dropped
+    pedigreeIndex.put(900_004L, null, 900_003L);
+    pedigreeIndex.remove(900_004L);
+    pedigreeIndex.removeAll(List.of(900_002L, 900_001L));
+    assertThat(pedigreeIndex.size()).isEqualTo(size);
+    assertThat(pedigreeIndex.hasChildren(900_003L)).isFalse();
+    assertThat(pedigreeIndex.hasChildren(-31L)).isFalse();
+  }
+
+  private List<Horse> queriedAncestors(long rootId, long generations) throws NotFoundException {
+    var recursiveDao = new HorseJdbcDao(jdbcTemplate, namedJdbcTemplate, pedigreeIndex, existenceFilter,
+        closureDao, tokenDao, AncestorQueryStrategy.RECURSIVE_QUERY);
+    return recursiveDao.getAncestors(rootId, generations);
+  }
+}
@@ -0,0 +1,38 @@
+package at.ac.tuwien.sepm.assignment.individual.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+public class SchemaMigrationBeanTest {
+
+  @Autowired
+  SchemaMigrationBean schemaMigrationBean;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Test
+  public void migrationsAreRecordedAndOnlyRunOnce() throws Exception {
+    var versions = jdbcTemplate.queryForList("SELECT version FROM schema_version ORDER BY version", Integer.class);
+    assertThat(versions).startsWith(1, 2);
+
+    schemaMigrationBean.migrate();
+    assertThat(jdbcTemplate.queryForList("SELECT version FROM schema_version ORDER BY version", Integer.class)).isEqualTo(versions);
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM horse", Integer.class)).isEqualTo(31);
+  }
+
+  @Test
+  public void searchedColumnsAreIndexed() {
+    var indexedColumns = jdbcTemplate.queryForList(
+        "SELECT column_name FROM information_schema.index_columns WHERE table_schema = 'PUBLIC' AND table_name = 'HORSE'", String.class);
+
+    assertThat(indexedColumns).contains("FATHER_ID", "MOTHER_ID", "OWNER_ID", "DATE_OF_BIRTH", "NAME");
+  }
+}
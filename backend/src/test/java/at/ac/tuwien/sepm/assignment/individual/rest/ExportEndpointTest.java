@@ -0,0 +1,114 @@
+package at.ac.tuwien.sepm.assignment.individual.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+@EnableWebMvc
+@WebAppConfiguration
+@DirtiesContext
+public class ExportEndpointTest {
+
+  @Autowired
+  private WebApplicationContext webAppContext;
+  private MockMvc mockMvc;
+
+  @Autowired
+  ObjectMapper objectMapper;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  public void setup() {
+    this.mockMvc = MockMvcBuilders.webAppContextSetup(webAppContext).build();
+  }
+
+  @Test
+  public void exportWritesOwnersThenHorsesAsNdjson() throws Exception {
+    List<JsonNode> rows = export("ndjson", "registry.ndjson.gz").stream()
+        .map(line -> {
+          try {
+            return objectMapper.readTree(line);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        })
+        .toList();
+
+    int owners = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM owner", Integer.class);
+    int horses = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM horse", Integer.class);
+    assertThat(rows).hasSize(owners + horses);
+    assertThat(rows.subList(0, owners)).allMatch(row -> row.get("type").asText().equals("owner"));
+    assertThat(rows.subList(owners, rows.size())).allMatch(row -> row.get("type").asText().equals("horse"));
+
+    var ferdinand = rows.stream().filter(row -> row.get("id").asLong() == -13 && row.get("type").asText().equals("horse")).findFirst().orElseThrow();
+    assertThat(ferdinand.get("name").asText()).isEqualTo("Ferdinand I");
+    assertThat(ferdinand.get("ownerId").asLong()).isEqualTo(-70);
+    assertThat(ferdinand.get("fatherId").asLong()).isEqualTo(-8);
+    assertThat(ferdinand.get("motherId").asLong()).isEqualTo(-7);
+  }
+
+  @Test
+  public void exportWritesCsvWithHeader() throws Exception {
+    var lines = export("csv", "registry.csv.gz");
+
+    int horses = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM horse", Integer.class);
+    assertThat(lines.get(0)).isEqualTo("type,id,firstName,lastName,email,name,description,dateOfBirth,sex,ownerId,fatherId,motherId");
+    assertThat(lines).filteredOn(line -> line.startsWith("horse,")).hasSize(horses);
+    assertThat(lines).anyMatch(line -> line.startsWith("horse,-13,,,,Ferdinand I,") && line.endsWith(",MALE,-70,-8,-7"));
+    assertThat(lines).anyMatch(line -> line.startsWith("owner,-70,Kek,"));
+  }
+
+  /**
+   * downloads the export and decompresses it
+   *
+   * @return the lines of the export
+   */
+  private List<String> export(String format, String filename) throws Exception {
+    var result = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/export?format=" + format)
+        ).andExpect(request().asyncStarted())
+        .andReturn();
+    byte[] body = mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(ExportEndpoint.GZIP))
+        .andExpect(header().string("Content-Disposition", "attachment; filename=\"" + filename + "\""))
+        .andReturn().getResponse().getContentAsByteArray();
+
+    try (var input = new GZIPInputStream(new ByteArrayInputStream(body))) {
+      return new String(input.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+    }
+  }
+}
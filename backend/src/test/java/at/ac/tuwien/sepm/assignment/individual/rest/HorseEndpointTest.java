@@ -2,19 +2,38 @@ package at.ac.tuwien.sepm.assignment.individual.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import at.ac.tuwien.sepm.assignment.individual.dto.FacetBucketDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseBatchItemDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseChildDetailDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDeleteReportDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDescendantDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDescendantPageDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDescendantTreeDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseFacetsDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseImportErrorDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseImportProgressDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseImportReportDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseImportStatusDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerDto;
 import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepm.assignment.individual.persistence.AncestorClosureDao;
 import at.ac.tuwien.sepm.assignment.individual.type.Sex;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
 
 import org.junit.jupiter.api.Assertions;
@@ -23,6 +42,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.web.WebAppConfiguration;
@@ -45,6 +65,12 @@ public class HorseEndpointTest {
   @Autowired
   ObjectMapper objectMapper;
 
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  AncestorClosureDao closureDao;
+
   @BeforeEach
   public void setup() {
     this.mockMvc = MockMvcBuilders.webAppContextSetup(webAppContext).build();
@@ -90,6 +116,352 @@ public class HorseEndpointTest {
     assertThat(horses).extracting(HorseDetailDto::name).containsAnyElementsOf(List.of("Charles", "charles"));
   }
 
+  @Test
+  public void searchPagesAreLinkedByCursorHeader() throws Exception {
+    var response = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses?name=of&limit=3")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse();
+
+    List<HorseDetailDto> first = objectMapper.readerFor(HorseDetailDto.class).<HorseDetailDto>readValues(response.getContentAsByteArray()).readAll();
+    String cursor = response.getHeader(HorseEndpoint.NEXT_CURSOR_HEADER);
+    assertThat(first).extracting(HorseDetailDto::name).containsExactly("Anna of Austria", "Anna of Hungary", "Ferdinand of Aragon");
+    assertThat(cursor).isNotNull();
+
+    response = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses?name=of&limit=100&cursor=" + cursor)
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse();
+
+    List<HorseDetailDto> rest = objectMapper.readerFor(HorseDetailDto.class).<HorseDetailDto>readValues(response.getContentAsByteArray()).readAll();
+    assertThat(response.getHeader(HorseEndpoint.NEXT_CURSOR_HEADER)).isNull();
+    assertThat(rest).extracting(HorseDetailDto::name).startsWith("Isabella of Castile").doesNotContainAnyElementsOf(
+        first.stream().map(HorseDetailDto::name).toList());
+  }
+
+  @Test
+  public void searchStreamsNewlineDelimitedJson() throws Exception {
+    var result = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses?name=of")
+            .accept(MediaType.APPLICATION_NDJSON)
+        ).andExpect(request().asyncStarted())
+        .andReturn();
+    var response = mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andReturn().getResponse();
+
+    var lines = response.getContentAsString(StandardCharsets.UTF_8).lines().toList();
+    var expected = objectMapper.readerFor(HorseDetailDto.class).<HorseDetailDto>readValues(mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses?name=of")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andReturn().getResponse().getContentAsByteArray()).readAll();
+    assertThat(lines).hasSize(expected.size());
+    assertThat(lines.stream().map(line -> {
+      try {
+        return objectMapper.readValue(line, HorseDetailDto.class);
+      } catch (JsonProcessingException e) {
+        throw new RuntimeException(e);
+      }
+    })).containsExactlyElementsOf(expected);
+  }
+
+  @Test
+  public void searchMatchesPrefix() throws Exception {
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses?name=isa&matchMode=prefix&limit=5")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    List<HorseDetailDto> horses = objectMapper.readerFor(HorseDetailDto.class).<HorseDetailDto>readValues(body).readAll();
+    assertThat(horses).extracting(HorseDetailDto::name).containsExactly("Isabella of Castile", "Isabella of Portugal");
+  }
+
+  @Test
+  public void searchSortsByDateOfBirthDescending() throws Exception {
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses?sort=dateOfBirthDesc&bornAfter=1600-01-01&limit=3")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    List<HorseDetailDto> horses = objectMapper.readerFor(HorseDetailDto.class).<HorseDetailDto>readValues(body).readAll();
+    assertThat(horses).hasSize(3)
+        .extracting(HorseDetailDto::dateOfBirth)
+        .isSortedAccordingTo(Comparator.reverseOrder())
+        .allMatch(date -> date.isAfter(LocalDate.of(1600, 1, 1)));
+  }
+
+  @Test
+  public void facetsCountFilteredHorses() throws Exception {
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/facets?sex=FEMALE&limit=1")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    HorseFacetsDto facets = objectMapper.readValue(body, HorseFacetsDto.class);
+    assertThat(facets.total()).isGreaterThan(1);
+    assertThat(facets.sex()).containsExactly(new FacetBucketDto("FEMALE", null, facets.total()));
+    assertThat(facets.birthDecade()).hasSizeGreaterThan(1);
+  }
+
+  @Test
+  public void parentCandidatesAreValidParents() throws Exception {
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/parent-candidates?sex=female&bornBefore=1700-01-01&excludeId=-2&limit=10")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    List<HorseDetailDto> candidates = objectMapper.readerFor(HorseDetailDto.class).<HorseDetailDto>readValues(body).readAll();
+    assertThat(candidates)
+        .hasSize(10)
+        .allSatisfy(horse -> {
+          assertThat(horse.sex()).isEqualTo(Sex.FEMALE);
+          assertThat(horse.dateOfBirth()).isBeforeOrEqualTo(LocalDate.of(1700, 1, 1));
+          assertThat(horse.id()).isNotEqualTo(-2L);
+        })
+        .extracting(horse -> horse.name().toLowerCase())
+        .isSorted();
+  }
+
+  @Test
+  public void parentCandidatesWithoutSexShouldError() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/parent-candidates?q=a")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isUnprocessableEntity());
+  }
+
+  @Test
+  public void searchWithInvalidCursorShouldError() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses?limit=3&cursor=not-a-cursor")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isUnprocessableEntity());
+  }
+
+  @Test
+  public void descendantsContainChildren() throws Exception {
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/descendants/-13?generations=1")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    HorseDescendantTreeDto tree = objectMapper.readValue(body, HorseDescendantTreeDto.class);
+    assertThat(tree.id()).isEqualTo(-13L);
+    assertThat(tree.children())
+        .extracting(HorseDescendantTreeDto::id)
+        .containsExactly(-18L, -20L, -19L);
+    assertThat(tree.children()).allSatisfy(child -> assertThat(child.children()).isEmpty());
+  }
+
+  @Test
+  public void descendantPagesAreOrderedByGeneration() throws Exception {
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/descendants/-13/flat?generations=2&offset=2&limit=3")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    HorseDescendantPageDto page = objectMapper.readValue(body, HorseDescendantPageDto.class);
+    assertThat(page.total()).isEqualTo(7);
+    assertThat(page.descendants())
+        .extracting(HorseDescendantDto::id, HorseDescendantDto::generation)
+        .containsExactly(tuple(-18L, 1L), tuple(-26L, 2L), tuple(-25L, 2L));
+  }
+
+  @Test
+  public void descendantPageWithInvalidLimitShouldError() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/descendants/-13/flat?generations=2&limit=0")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isUnprocessableEntity());
+  }
+
+  @Test
+  public void detailIsReadWithOneStatement() throws Exception {
+    jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+    byte[] body;
+    int statements;
+    try {
+      body = mockMvc
+          .perform(MockMvcRequestBuilders
+              .get("/horses/-13")
+              .accept(MediaType.APPLICATION_JSON)
+          ).andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsByteArray();
+      statements = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(execution_count), 0) FROM information_schema.query_statistics"
+          + " WHERE sql_statement NOT LIKE '%query_statistics%' AND sql_statement NOT LIKE 'SET %'", Integer.class);
+    } finally {
+      // disabling the statistics also clears them
+      jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+    }
+
+    assertThat(statements).isEqualTo(1);
+    HorseChildDetailDto horse = objectMapper.readValue(body, HorseChildDetailDto.class);
+    assertThat(horse.name()).isEqualTo("Ferdinand I");
+    assertThat(horse.owner().id()).isEqualTo(-70L);
+    assertThat(horse.father()).extracting(HorseDetailDto::id, father -> father.owner().id()).containsExactly(-8L, -75L);
+    assertThat(horse.mother()).extracting(HorseDetailDto::id, mother -> mother.owner().id()).containsExactly(-7L, -74L);
+  }
+
+  @Test
+  @DirtiesContext
+  public void batchCreatesValidHorsesAndRejectsOthers() throws Exception {
+    var father = new HorseDetailDto(-8L, null, null, null, Sex.MALE, null);
+    var mother = new HorseDetailDto(-7L, null, null, null, Sex.FEMALE, null);
+    var owner = new OwnerDto(-70L, null, null, null);
+    var batch = List.of(
+        new HorseCreateDto("Batch Foal", null, LocalDate.of(1500, 1, 1), Sex.MALE, owner, father, mother),
+        new HorseCreateDto("Wrong Mother", null, LocalDate.of(1500, 1, 1), Sex.MALE, null, null, father),
+        new HorseCreateDto("Unknown Father", null, LocalDate.of(1500, 1, 1), Sex.MALE, null, new HorseDetailDto(100L, null, null, null, Sex.MALE, null), null),
+        new HorseCreateDto(null, null, LocalDate.of(1500, 1, 1), Sex.MALE, null, null, null),
+        new HorseCreateDto("Orphan", null, LocalDate.of(1500, 1, 1), Sex.FEMALE, new OwnerDto(100L, null, null, null), null, null));
+
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .post("/horses/batch")
+            .content(objectMapper.writeValueAsString(batch))
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    List<HorseBatchItemDto> results = objectMapper.readerFor(HorseBatchItemDto.class).<HorseBatchItemDto>readValues(body).readAll();
+    assertThat(results).hasSize(5);
+    var created = results.get(0).horse();
+    assertThat(results.get(0).errors()).isEmpty();
+    assertThat(created.owner().firstName()).isEqualTo("Kek");
+    assertThat(created.father().name()).isEqualTo("Philip I");
+    assertThat(results.get(1).errors()).containsExactly("Mother horse is not female");
+    assertThat(results.get(2).errors()).containsExactly("Father horse with ID 100 not found");
+    assertThat(results.get(3).errors()).containsExactly("Horse name is not set");
+    assertThat(results.get(4).errors()).containsExactly("Owner with ID 100 not found");
+    assertThat(results.subList(1, 5)).extracting(HorseBatchItemDto::horse).containsOnlyNulls();
+
+    byte[] stored = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/" + created.id())
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+    assertThat(objectMapper.readValue(stored, HorseChildDetailDto.class)).isEqualTo(created);
+  }
+
+  @Test
+  public void emptyBatchShouldError() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .post("/horses/batch")
+            .content("[]")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isUnprocessableEntity());
+  }
+
+  @Test
+  @DirtiesContext
+  public void importReadsNdjsonInAnyOrder() throws Exception {
+    String ndjson = """
+        {"key":"foal","name":"Import Foal","sex":"MALE","dateOfBirth":"2020-04-01","fatherKey":"sire","motherKey":"dam"}
+        {"key":"dam","name":"Import Dam","sex":"FEMALE","dateOfBirth":"2012-03-01"}
+        {"key":"sire","name":"Import Sire","sex":"FEMALE","dateOfBirth":"2011-03-01"}
+        """;
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .post("/horses/import")
+            .content(ndjson)
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    var report = objectMapper.readValue(body, HorseImportReportDto.class);
+    assertThat(report.read()).isEqualTo(3);
+    assertThat(report.imported()).isEqualTo(2);
+    assertThat(report.errors()).containsExactly(new HorseImportErrorDto(1, "foal", List.of("Father horse is not male")));
+  }
+
+  @Test
+  @DirtiesContext
+  public void importStreamsProgressAndReport() throws Exception {
+    String ndjson = """
+        {"key":"foal","name":"Streamed Foal","sex":"MALE","dateOfBirth":"2020-04-01","motherKey":"dam"}
+        {"key":"dam","name":"Streamed Dam","sex":"FEMALE","dateOfBirth":"2012-03-01"}
+        """;
+    var result = mockMvc
+        .perform(MockMvcRequestBuilders
+            .post("/horses/import")
+            .content(ndjson)
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .accept(MediaType.APPLICATION_NDJSON)
+        ).andExpect(request().asyncStarted())
+        .andReturn();
+    var response = mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andReturn().getResponse();
+
+    List<HorseImportStatusDto> lines = objectMapper.readerFor(HorseImportStatusDto.class)
+        .<HorseImportStatusDto>readValues(response.getContentAsByteArray()).readAll();
+    assertThat(lines).hasSize(2);
+    assertThat(lines.get(0).progress()).isEqualTo(new HorseImportProgressDto(2, 2, 0, 0));
+    assertThat(lines.get(0).report()).isNull();
+    assertThat(lines.get(1).progress()).isNull();
+    assertThat(lines.get(1).report()).isEqualTo(new HorseImportReportDto(2, 2, 0, List.of()));
+  }
+
+  @Test
+  public void streamedImportWithoutHeaderShouldError() throws Exception {
+    var result = mockMvc
+        .perform(MockMvcRequestBuilders
+            .post("/horses/import")
+            .content("")
+            .contentType("text/csv")
+            .accept(MediaType.APPLICATION_NDJSON)
+        ).andExpect(request().asyncStarted())
+        .andReturn();
+    var response = mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isUnprocessableEntity())
+        .andReturn().getResponse();
+
+    assertThat(objectMapper.readValue(response.getContentAsByteArray(), ValidationErrorRestDto.class).errors())
+        .containsExactly("Import file is empty");
+  }
+
+  @Test
+  public void importWithoutHeaderShouldError() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .post("/horses/import")
+            .content("")
+            .contentType("text/csv")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isUnprocessableEntity());
+  }
+
   @Test()
   public void newWithMaleMotherShouldError() throws Exception {
     byte[] getBody = mockMvc
@@ -138,4 +510,176 @@ public class HorseEndpointTest {
     HorseChildDetailDto femaleHorse = objectMapper.readValue(putBody, HorseChildDetailDto.class);
     assertThat(femaleHorse.sex()).isEqualTo(Sex.FEMALE);
   }
+
+  @Test
+  @DirtiesContext
+  public void patchOfDescriptionUpdatesOnlyItsColumn() throws Exception {
+    jdbcTemplate.execute("SET QUERY_STATISTICS TRUE");
+    byte[] body;
+    List<String> updates;
+    try {
+      body = mockMvc
+          .perform(MockMvcRequestBuilders
+              .patch("/horses/-13")
+              .content("{\"description\": \"Patched description\"}")
+              .contentType(HorseEndpoint.MERGE_PATCH_VALUE)
+              .accept(MediaType.APPLICATION_JSON)
+          ).andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsByteArray();
+      updates = jdbcTemplate.queryForList("SELECT sql_statement FROM information_schema.query_statistics"
+          + " WHERE sql_statement LIKE '%UPDATE horse %'", String.class);
+    } finally {
+      // disabling the statistics also clears them
+      jdbcTemplate.execute("SET QUERY_STATISTICS FALSE");
+    }
+
+    assertThat(updates).singleElement().asString().contains("SET description = ? WHERE id = ?");
+    HorseChildDetailDto horse = objectMapper.readValue(body, HorseChildDetailDto.class);
+    assertThat(horse.description()).isEqualTo("Patched description");
+    assertThat(horse.name()).isEqualTo("Ferdinand I");
+    assertThat(horse.father().id()).isEqualTo(-8L);
+    assertThat(horse.owner().id()).isEqualTo(-70L);
+  }
+
+  @Test
+  @DirtiesContext
+  public void patchWithNullClearsParent() throws Exception {
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .patch("/horses/-13")
+            .content("{\"father\": null, \"name\": \"Ferdinand\"}")
+            .contentType(HorseEndpoint.MERGE_PATCH_VALUE)
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    HorseChildDetailDto horse = objectMapper.readValue(body, HorseChildDetailDto.class);
+    assertThat(horse.father()).isNull();
+    assertThat(horse.mother().id()).isEqualTo(-7L);
+    assertThat(horse.name()).isEqualTo("Ferdinand");
+  }
+
+  @Test
+  public void patchWithUnknownOrInvalidFieldsShouldError() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .patch("/horses/-13")
+            .content("{\"color\": \"brown\", \"dateOfBirth\": 5}")
+            .contentType(HorseEndpoint.MERGE_PATCH_VALUE)
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isUnprocessableEntity());
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .patch("/horses/-13")
+            .content("{\"name\": null}")
+            .contentType(HorseEndpoint.MERGE_PATCH_VALUE)
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isUnprocessableEntity());
+  }
+
+  @Test
+  public void patchConflictingWithParentsOrChildrenShouldError() throws Exception {
+    // Philip I is the father of Ferdinand I
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .patch("/horses/-8")
+            .content("{\"sex\": \"FEMALE\"}")
+            .contentType(HorseEndpoint.MERGE_PATCH_VALUE)
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isConflict());
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .patch("/horses/-13")
+            .content("{\"dateOfBirth\": \"0001-01-01\"}")
+            .contentType(HorseEndpoint.MERGE_PATCH_VALUE)
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isConflict());
+  }
+
+  @Test
+  public void patchOfNonexistentHorseReturns404() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .patch("/horses/1000000")
+            .content("{\"description\": \"Nobody\"}")
+            .contentType(HorseEndpoint.MERGE_PATCH_VALUE)
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isNotFound());
+  }
+
+  @Test
+  @DirtiesContext
+  public void deleteByIdsClearsParentLinksOfKeptChildren() throws Exception {
+    // the closure is only maintained once it is available, which it is not with the default strategy
+    closureDao.rebuild();
+    Integer keptChildren = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM horse"
+        + " WHERE (father_id IN (-8, -7) OR mother_id IN (-8, -7)) AND id NOT IN (-8, -7)", Integer.class);
+
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .delete("/horses")
+            .content("[-8, -7, 1000000]")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    var report = objectMapper.readValue(body, HorseDeleteReportDto.class);
+    assertThat(report.deletedIds()).containsExactly(-8L, -7L);
+    assertThat(report.clearedChildren()).isPositive().isEqualTo(keptChildren);
+    assertThat(closureDao.isConsistent()).isTrue();
+
+    byte[] child = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/-13")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+    HorseChildDetailDto horse = objectMapper.readValue(child, HorseChildDetailDto.class);
+    assertThat(horse.father()).isNull();
+    assertThat(horse.mother()).isNull();
+  }
+
+  @Test
+  @DirtiesContext
+  public void deleteByFilterDeletesMatchingHorses() throws Exception {
+    closureDao.rebuild();
+    List<Long> owned = jdbcTemplate.queryForList("SELECT id FROM horse WHERE owner_id IN (-77, -76) ORDER BY id", Long.class);
+
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .delete("/horses")
+            .queryParam("ownerName", "Peter")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    var report = objectMapper.readValue(body, HorseDeleteReportDto.class);
+    assertThat(report.deletedIds()).isNotEmpty().isEqualTo(owned);
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM horse WHERE owner_id IN (-77, -76)", Integer.class)).isZero();
+    assertThat(closureDao.isConsistent()).isTrue();
+  }
+
+  @Test
+  public void deleteWithoutIdsOrCriteriaShouldError() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .delete("/horses")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isUnprocessableEntity());
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .delete("/horses")
+            .content("[]")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isUnprocessableEntity());
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .delete("/horses")
+            .queryParam("sex", "MALE")
+            .queryParam("limit", "5")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isUnprocessableEntity());
+  }
 }
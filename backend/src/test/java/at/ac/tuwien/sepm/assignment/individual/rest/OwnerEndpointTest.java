@@ -3,6 +3,7 @@ package at.ac.tuwien.sepm.assignment.individual.rest;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseChildDetailDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerBatchItemDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.OwnerCreateDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.OwnerDto;
 import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
@@ -68,4 +69,78 @@ public class OwnerEndpointTest {
     assertThat(newOwner.lastName()).isEqualTo(createdOwner.lastName());
     assertThat(newOwner.email()).isEqualTo(createdOwner.email());
   }
+
+  @Test
+  public void suggestReturnsOwnersStartingWithPrefix() throws Exception {
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/owners/suggest?q=Peter&limit=5")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    List<OwnerDto> owners = objectMapper.readerFor(OwnerDto.class).<OwnerDto>readValues(body).readAll();
+    assertThat(owners).extracting(OwnerDto::id, OwnerDto::lastName)
+        .containsExactly(tuple(-77L, "Lustig"), tuple(-76L, "Purgathofer"));
+  }
+
+  @Test
+  public void suggestWithoutPrefixShouldError() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/owners/suggest?limit=0")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isUnprocessableEntity());
+  }
+
+  @Test
+  @DirtiesContext
+  public void batchCreatesValidOwnersAndRejectsOthers() throws Exception {
+    var batch = List.of(
+        new OwnerCreateDto("Batch", "Owner", "batch@owner.com"),
+        new OwnerCreateDto("Taken", "Email", "imakek@lol.xyz"),
+        new OwnerCreateDto("Twice", "Owner", "batch@owner.com"),
+        new OwnerCreateDto(null, "Nameless", null),
+        new OwnerCreateDto("Mailless", "Owner", null),
+        new OwnerCreateDto("Other", "Mailless", null));
+
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .post("/owners/batch")
+            .content(objectMapper.writeValueAsString(batch))
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    List<OwnerBatchItemDto> results = objectMapper.readerFor(OwnerBatchItemDto.class).<OwnerBatchItemDto>readValues(body).readAll();
+    assertThat(results).hasSize(6);
+    assertThat(results.get(0).owner().email()).isEqualTo("batch@owner.com");
+    assertThat(results.get(1).errors()).containsExactly("Owner email is already taken");
+    assertThat(results.get(2).errors()).containsExactly("Owner email is already used by another owner of the batch");
+    assertThat(results.get(3).errors()).containsExactly("Owner firstname is not set");
+    assertThat(results.get(4).owner().lastName()).isEqualTo("Owner");
+    assertThat(results.get(5).owner().lastName()).isEqualTo("Mailless");
+    assertThat(results.subList(1, 4)).extracting(OwnerBatchItemDto::owner).containsOnlyNulls();
+
+    byte[] suggested = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/owners/suggest?q=batch@")
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+    List<OwnerDto> owners = objectMapper.readerFor(OwnerDto.class).<OwnerDto>readValues(suggested).readAll();
+    assertThat(owners).extracting(OwnerDto::id).containsExactly(results.get(0).owner().id());
+  }
+
+  @Test
+  public void emptyBatchShouldError() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .post("/owners/batch")
+            .content("[]")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+        ).andExpect(status().isUnprocessableEntity());
+  }
 }
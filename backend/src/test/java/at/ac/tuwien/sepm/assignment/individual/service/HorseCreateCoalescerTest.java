@@ -0,0 +1,225 @@
+package at.ac.tuwien.sepm.assignment.individual.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseChildDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerDto;
+import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
+import at.ac.tuwien.sepm.assignment.individual.exception.FatalException;
+import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepm.assignment.individual.mapper.HorseMapper;
+import at.ac.tuwien.sepm.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepm.assignment.individual.service.impl.HorseCreateCoalescerImpl;
+import at.ac.tuwien.sepm.assignment.individual.service.impl.HorseValidator;
+import at.ac.tuwien.sepm.assignment.individual.type.Sex;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest(properties = {"horse.create.coalescing.enabled=true", "horse.create.coalescing.max-wait-micros=50000"})
+@DirtiesContext
+public class HorseCreateCoalescerTest {
+  private static final LocalDate BIRTH = LocalDate.of(2015, 4, 1);
+
+  @Autowired
+  HorseCreateCoalescer createCoalescer;
+
+  @Autowired
+  HorseService horseService;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Autowired
+  HorseMapper mapper;
+
+  @Autowired
+  HorseValidator validator;
+
+  @Autowired
+  OwnerService ownerService;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Test
+  public void concurrentCreationsAreCommittedTogether() throws Exception {
+    var horses = List.of(
+        new HorseCreateDto("Coalesced A", null, BIRTH, Sex.FEMALE, owner(-70L), parent(-8L), null),
+        new HorseCreateDto("Coalesced B", "second", BIRTH, Sex.MALE, null, null, parent(-7L)),
+        new HorseCreateDto("Coalesced C", null, BIRTH, Sex.MALE, null, null, null),
+        new HorseCreateDto("Coalesced D", null, BIRTH, Sex.FEMALE, owner(-70L), parent(-8L), parent(-7L)));
+    final long batchesBefore = createCoalescer.getBatches();
+
+    var results = createConcurrently(horses);
+    var ids = new ArrayList<Long>();
+    for (int i = 0; i < horses.size(); i++) {
+      var created = results.get(i).get();
+      assertThat(created.name()).isEqualTo(horses.get(i).name());
+      assertThat(horseService.getById(created.id()).name()).isEqualTo(horses.get(i).name());
+      ids.add(created.id());
+    }
+
+    assertThat(ids).doesNotHaveDuplicates();
+    assertThat(results.get(0).get().father().id()).isEqualTo(-8L);
+    assertThat(results.get(0).get().owner().id()).isEqualTo(-70L);
+    assertThat(createCoalescer.getBatches() - batchesBefore).isLessThan(horses.size());
+  }
+
+  @Test
+  public void everyCallerGetsItsOwnError() throws Exception {
+    var horses = List.of(
+        new HorseCreateDto("Coalesced Valid", null, BIRTH, Sex.FEMALE, null, null, null),
+        new HorseCreateDto(null, null, BIRTH, Sex.FEMALE, null, null, null),
+        new HorseCreateDto("Coalesced Male Mother", null, BIRTH, Sex.FEMALE, null, null, parent(-8L)),
+        new HorseCreateDto("Coalesced Unknown Father", null, BIRTH, Sex.FEMALE, null, parent(1_000_000L), null),
+        new HorseCreateDto("Coalesced Unknown Owner", null, BIRTH, Sex.FEMALE, owner(1_000_000L), null, null));
+
+    var results = createConcurrently(horses);
+
+    assertThat(horseService.getById(results.get(0).get().id()).name()).isEqualTo("Coalesced Valid");
+    assertThat(causeOf(results.get(1))).isInstanceOf(ValidationException.class);
+    assertThat(causeOf(results.get(2))).isInstanceOf(ConflictException.class);
+    assertThat(causeOf(results.get(3))).isInstanceOf(NotFoundException.class);
+    assertThat(causeOf(results.get(4))).isInstanceOf(NotFoundException.class);
+  }
+
+  @Test
+  @DirtiesContext
+  public void disabledCoalescerCreatesDirectly() throws Exception {
+    createCoalescer.setEnabled(false);
+    long batchesBefore = createCoalescer.getBatches();
+
+    var created = createCoalescer.create(new HorseCreateDto("Uncoalesced", null, BIRTH, Sex.MALE, null, null, null));
+
+    assertThat(horseService.getById(created.id()).name()).isEqualTo("Uncoalesced");
+    assertThat(createCoalescer.getBatches()).isEqualTo(batchesBefore);
+    Assertions.assertThrows(ConflictException.class,
+        () -> createCoalescer.create(new HorseCreateDto("Uncoalesced Foal", null, BIRTH, Sex.MALE, null, null, parent(-8L))));
+  }
+
+  @Test
+  @DirtiesContext
+  public void errorOfOneBatchDoesNotStopTheWriter() throws Exception {
+    var failures = new AtomicInteger(1);
+    var coalescer = coalescerWith(failing(failures, new StackOverflowError("failing batch")), 30_000);
+    try {
+      var failed = Assertions.assertThrows(FatalException.class,
+          () -> coalescer.create(new HorseCreateDto("Coalesced Error", null, BIRTH, Sex.MALE, null, null, null)));
+      assertThat(failed.getCause()).isInstanceOf(StackOverflowError.class);
+
+      var created = coalescer.create(new HorseCreateDto("Coalesced After Error", null, BIRTH, Sex.MALE, null, null, null));
+      assertThat(horseService.getById(created.id()).name()).isEqualTo("Coalesced After Error");
+    } finally {
+      coalescer.onContextClosed();
+    }
+  }
+
+  @Test
+  @DirtiesContext
+  public void stuckBatchTimesOut() {
+    var release = new CountDownLatch(1);
+    var coalescer = coalescerWith(blocking(release), 200);
+    try {
+      var timedOut = Assertions.assertThrows(FatalException.class,
+          () -> coalescer.create(new HorseCreateDto("Coalesced Stuck", null, BIRTH, Sex.MALE, null, null, null)));
+      assertThat(timedOut.getCause()).isInstanceOf(TimeoutException.class);
+    } finally {
+      release.countDown();
+      coalescer.onContextClosed();
+    }
+  }
+
+  private HorseCreateCoalescerImpl coalescerWith(HorseDao dao, long timeoutMillis) {
+    return new HorseCreateCoalescerImpl(horseService, dao, mapper, validator, ownerService, transactionManager, true, 1_000, 100, timeoutMillis);
+  }
+
+  /**
+   * wraps the horse dao, so that reading the parents of a batch throws the given error as often as {@code failures} allows
+   */
+  private HorseDao failing(AtomicInteger failures, Error error) {
+    return daoWith(() -> {
+      if (failures.getAndDecrement() > 0) {
+        throw error;
+      }
+    });
+  }
+
+  /**
+   * wraps the horse dao, so that reading the parents of a batch waits until {@code release} is counted down
+   */
+  private HorseDao blocking(CountDownLatch release) {
+    return daoWith(() -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+  }
+
+  private HorseDao daoWith(Runnable beforeParentsRead) {
+    return (HorseDao) Proxy.newProxyInstance(HorseDao.class.getClassLoader(), new Class<?>[] {HorseDao.class}, (proxy, method, args) -> {
+      if (method.getName().equals("getAllDetailsById")) {
+        beforeParentsRead.run();
+      }
+      try {
+        return method.invoke(horseDao, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    });
+  }
+
+  private List<Future<HorseChildDetailDto>> createConcurrently(List<HorseCreateDto> horses) {
+    var start = new CountDownLatch(1);
+    var executor = Executors.newFixedThreadPool(horses.size());
+    try {
+      var results = new ArrayList<Future<HorseChildDetailDto>>();
+      for (var horse : horses) {
+        results.add(executor.submit(() -> {
+          start.await();
+          return createCoalescer.create(horse);
+        }));
+      }
+      start.countDown();
+      return results;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static OwnerDto owner(long id) {
+    return new OwnerDto(id, null, null, null);
+  }
+
+  private static HorseDetailDto parent(long id) {
+    return new HorseDetailDto(id, null, null, null, null, null);
+  }
+
+  private static Throwable causeOf(Future<?> result) {
+    var error = Assertions.assertThrows(ExecutionException.class, result::get);
+    return error.getCause();
+  }
+}
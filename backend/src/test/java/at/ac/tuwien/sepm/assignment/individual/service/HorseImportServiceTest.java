@@ -0,0 +1,112 @@
+package at.ac.tuwien.sepm.assignment.individual.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseImportErrorDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseImportProgressDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepm.assignment.individual.type.FileFormat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+@DirtiesContext
+public class HorseImportServiceTest {
+  @Autowired
+  HorseImportService importService;
+
+  @Autowired
+  HorseService horseService;
+
+  @Test
+  public void importStoresParentsBeforeFoals() throws ValidationException, NotFoundException {
+    String csv = """
+        key,name,sex,dateOfBirth,fatherKey,motherKey,ownerId,description
+        F1,Import Foal,female,2010-05-01,S1,D1,-70,"Bred by ""Import"" Farm,
+        second line"
+        S1,Import Sire,MALE,2000-01-01,GS1,,,
+        D1,Import Dam,FEMALE,2001-01-01,,,,
+        GS1,Import Grandsire,MALE,1990-01-01,,,,
+        """;
+    var progress = new ArrayList<HorseImportProgressDto>();
+    var report = importService.importHorses(stream(csv), FileFormat.CSV, progress::add);
+
+    assertThat(report.errors()).isEmpty();
+    assertThat(report.read()).isEqualTo(4);
+    assertThat(report.imported()).isEqualTo(4);
+    assertThat(progress).last().isEqualTo(new HorseImportProgressDto(4, 4, 0, 0));
+
+    var foal = horseService.getById(idOf("Import Foal"));
+    assertThat(foal.description()).isEqualTo("Bred by \"Import\" Farm,\nsecond line");
+    assertThat(foal.owner().id()).isEqualTo(-70L);
+    assertThat(foal.father().name()).isEqualTo("Import Sire");
+    assertThat(foal.mother().name()).isEqualTo("Import Dam");
+    assertThat(horseService.getById(foal.father().id()).father().name()).isEqualTo("Import Grandsire");
+  }
+
+  @Test
+  public void importRejectsInvalidHorsesWithTheirDescendants() throws ValidationException {
+    String ndjson = """
+        {"key":"C1","name":"Reject Child","sex":"MALE","dateOfBirth":"2010-01-01","fatherKey":"P1"}
+        {"key":"P1","name":"Reject Parent","sex":"MALE","dateOfBirth":"2011-01-01"}
+        {"key":"X1","name":"Reject Unknown","sex":"MALE","dateOfBirth":"2010-01-01","motherKey":"NONE"}
+        {"key":"Y1","name":"Reject Cycle","sex":"MALE","dateOfBirth":"2010-01-01","fatherKey":"Y2"}
+        {"key":"Y2","name":"Reject Cycle","sex":"MALE","dateOfBirth":"2010-01-01","fatherKey":"Y1"}
+        {"key":"Z1","name":"Reject Broken","sex":"HORSE","dateOfBirth":"2010-01-01"}
+
+        {"key":"Z1","name":"Reject Duplicate","sex":"MALE","dateOfBirth":"2010-01-01"}
+        {"key":"Z2","name":"Reject Owner","sex":"MALE","dateOfBirth":"2010-01-01","ownerId":12345}
+        {"key":"OK","name":"Reject Survivor","sex":"MALE","dateOfBirth":"2010-01-01"}
+        """;
+    var report = importService.importHorses(stream(ndjson), FileFormat.NDJSON, progress -> { });
+
+    assertThat(report.read()).isEqualTo(9);
+    assertThat(report.imported()).isEqualTo(2);
+    assertThat(report.rejected()).isEqualTo(7);
+    assertThat(report.errors())
+        .extracting(HorseImportErrorDto::line, HorseImportErrorDto::key)
+        .containsExactlyInAnyOrder(tuple(1L, "C1"), tuple(3L, "X1"), tuple(4L, "Y1"), tuple(5L, "Y2"), tuple(6L, "Z1"), tuple(8L, "Z1"), tuple(9L, "Z2"));
+    assertThat(report.errors()).filteredOn(error -> error.key().equals("C1")).singleElement()
+        .extracting(HorseImportErrorDto::errors).isEqualTo(List.of("Father horse is younger than child"));
+    assertThat(report.errors()).filteredOn(error -> error.key().equals("X1")).singleElement()
+        .extracting(HorseImportErrorDto::errors).isEqualTo(List.of("Mother horse with key NONE not found in the import"));
+    assertThat(report.errors()).filteredOn(error -> error.line() == 8).singleElement()
+        .extracting(HorseImportErrorDto::errors).isEqualTo(List.of("Horse key Z1 is used by another horse already"));
+    assertThat(report.errors()).filteredOn(error -> error.key().equals("Z2")).singleElement()
+        .extracting(HorseImportErrorDto::errors).isEqualTo(List.of("Owner with ID 12345 not found"));
+  }
+
+  @Test
+  public void importWithoutRequiredColumnShouldError() {
+    var exception = Assertions.assertThrowsExactly(ValidationException.class, () ->
+        importService.importHorses(stream("key,name,dateOfBirth,colour\n"), FileFormat.CSV, progress -> { }));
+    assertThat(exception.errors()).containsExactlyInAnyOrder("Unknown column colour", "Missing column sex");
+  }
+
+  private static ByteArrayInputStream stream(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private long idOf(String name) throws ValidationException {
+    return horseService.searchHorses(new HorseSearchDto(name, null, null, null, null, null, null, null, null, null, null)).horses().stream()
+        .filter(horse -> horse.name().equals(name))
+        .map(HorseDetailDto::id)
+        .findFirst()
+        .orElseThrow();
+  }
+}
@@ -12,12 +12,14 @@ import at.ac.tuwien.sepm.assignment.individual.dto.OwnerDto;
 import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepm.assignment.individual.persistence.AncestorClosureDao;
 import at.ac.tuwien.sepm.assignment.individual.persistence.HorseDao;
 import at.ac.tuwien.sepm.assignment.individual.persistence.OwnerDao;
 import at.ac.tuwien.sepm.assignment.individual.type.Sex;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.jupiter.api.Assertions;
@@ -27,6 +29,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
 @ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
@@ -35,10 +38,13 @@ public class HorseServiceTest {
   @Autowired
   HorseService horseService;
 
+  @Autowired
+  AncestorClosureDao closureDao;
+
   @Test
-  public void getAllReturnsAllStoredHorses() {
-    List<HorseDetailDto> horses = horseService.searchHorses(new HorseSearchDto(null, null, null, null, null, null))
-        .toList();
+  public void getAllReturnsAllStoredHorses() throws ValidationException {
+    List<HorseDetailDto> horses = horseService.searchHorses(new HorseSearchDto(null, null, null, null, null, null, null, null, null, null, null))
+        .horses();
     assertThat(horses.size()).isEqualTo(31);
     assertThat(horses)
         .map(HorseDetailDto::id, HorseDetailDto::sex)
@@ -46,9 +52,9 @@ public class HorseServiceTest {
   }
 
   @Test
-  public void searchNameReturnsCorrectResults() {
-    List<HorseDetailDto> horses = horseService.searchHorses(new HorseSearchDto("Charles", null, null, null, null, null))
-        .toList();
+  public void searchNameReturnsCorrectResults() throws ValidationException {
+    List<HorseDetailDto> horses = horseService.searchHorses(new HorseSearchDto("Charles", null, null, null, null, null, null, null, null, null, null))
+        .horses();
     assertThat(horses.size()).isGreaterThan(0);
     assertThat(horses).extracting(HorseDetailDto::name).containsAnyElementsOf(List.of("Charles", "charles"));
   }
@@ -73,4 +79,38 @@ public class HorseServiceTest {
     var updatedHors = horseService.update(newHors);
     assertThat(updatedHors.sex()).isNotEqualTo(hors.sex());
   }
+
+  @Test
+  @DirtiesContext
+  public void descendantAsParentShouldError() throws NotFoundException, ValidationException, ConflictException {
+    var birth = LocalDate.of(2015, 4, 1);
+    var sire = horseService.create(new HorseCreateDto("Sire", null, birth, Sex.MALE, null, null, null));
+    var foal = horseService.create(new HorseCreateDto("Foal", null, birth, Sex.MALE, null, sire.withoutParents(), null));
+    var cyclic = new HorseChildDetailDto(sire.id(), sire.name(), sire.description(), sire.dateOfBirth(), sire.sex(), null,
+        foal.withoutParents(), null);
+
+    var conflict = Assertions.assertThrowsExactly(ConflictException.class, () -> horseService.update(cyclic));
+    assertThat(conflict.errors()).containsExactly("Father horse is a descendant of the horse");
+    assertThat(horseService.getById(sire.id()).father()).isNull();
+    // the in-memory database outlives this context, the other tests expect the test data only
+    horseService.deleteAll(List.of(foal.id(), sire.id()));
+  }
+
+  @Test
+  @DirtiesContext
+  public void descendantBeyondClosureDepthAsParentShouldError() throws NotFoundException, ValidationException, ConflictException {
+    var birth = LocalDate.of(2015, 4, 1);
+    var sire = horseService.create(new HorseCreateDto("Sire", null, birth, Sex.MALE, null, null, null));
+    var line = new ArrayList<>(List.of(sire));
+    for (int generation = 1; generation <= closureDao.maxDepth() + 1; generation++) {
+      line.add(horseService.create(new HorseCreateDto("Foal " + generation, null, birth, Sex.MALE, null, line.get(line.size() - 1).withoutParents(), null)));
+    }
+    var descendant = line.get(line.size() - 1);
+    var cyclic = new HorseChildDetailDto(sire.id(), sire.name(), sire.description(), sire.dateOfBirth(), sire.sex(), null,
+        descendant.withoutParents(), null);
+
+    var conflict = Assertions.assertThrowsExactly(ConflictException.class, () -> horseService.update(cyclic));
+    assertThat(conflict.errors()).containsExactly("Father horse is a descendant of the horse");
+    horseService.deleteAll(line.stream().map(HorseChildDetailDto::id).toList());
+  }
 }
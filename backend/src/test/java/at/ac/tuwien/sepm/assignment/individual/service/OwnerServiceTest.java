@@ -5,9 +5,11 @@ import at.ac.tuwien.sepm.assignment.individual.dto.HorseDetailDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.HorseSearchDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.OwnerCreateDto;
 import at.ac.tuwien.sepm.assignment.individual.dto.OwnerDto;
+import at.ac.tuwien.sepm.assignment.individual.dto.OwnerSearchDto;
 import at.ac.tuwien.sepm.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepm.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepm.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepm.assignment.individual.type.MatchMode;
 import at.ac.tuwien.sepm.assignment.individual.type.Sex;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -39,4 +41,16 @@ public class OwnerServiceTest {
     assertThat(newOwner.lastName()).isEqualTo(check.lastName());
     assertThat(newOwner.email()).isEqualTo(check.email());
   }
+
+  @Test()
+  @DirtiesContext()
+  public void searchMatchesFullNameIgnoringCaseAndWhitespace() throws ValidationException, ConflictException {
+    var created = ownerService.create(new OwnerCreateDto("Mary  Ann", "Smith", null));
+
+    assertThat(ownerService.search(new OwnerSearchDto("ANN SMI", null, null))).extracting(OwnerDto::id).containsExactly(created.id());
+    assertThat(ownerService.search(new OwnerSearchDto("mary ann", null, null))).extracting(OwnerDto::id).containsExactly(created.id());
+    assertThat(ownerService.search(new OwnerSearchDto("peter", null, null))).extracting(OwnerDto::id).containsExactlyInAnyOrder(-76L, -77L);
+    assertThat(ownerService.search(new OwnerSearchDto("PETER L", null, MatchMode.PREFIX))).extracting(OwnerDto::id).containsExactly(-77L);
+    assertThat(ownerService.search(new OwnerSearchDto("ann", null, MatchMode.PREFIX))).isEmpty();
+  }
 }
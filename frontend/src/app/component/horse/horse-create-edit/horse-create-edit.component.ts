@@ -1,3 +1,4 @@
+import { formatDate } from '@angular/common';
 import { HttpErrorResponse } from '@angular/common/http';
 import { Component, OnInit } from '@angular/core';
 import { NgForm, NgModel } from '@angular/forms';
@@ -89,10 +90,11 @@ export class HorseCreateEditComponent implements OnInit {
   }
 
   ownerSuggestions = (input: string) =>
-    input === '' ? of([]) : this.ownerService.searchByName(input, 5);
+    input === '' ? of([]) : this.ownerService.suggest(input, 5);
 
-  parentSuggestions = (input: string) =>
-    input === '' ? of([]) : this.service.searchAll({ name: input, limit: 5 });
+  motherSuggestions = (input: string) => this.parentSuggestions(input, Sex.female);
+
+  fatherSuggestions = (input: string) => this.parentSuggestions(input, Sex.male);
 
   ngOnInit(): void {
     this.route.data.subscribe((data) => {
@@ -217,4 +219,20 @@ export class HorseCreateEditComponent implements OnInit {
       console.error('tried to remove horse in create mode or without id set');
     }
   }
+
+  /**
+   * suggests only horses the backend accepts as parent of this horse
+   */
+  private parentSuggestions(input: string, sex: Sex): Observable<Horse[]> {
+    if (input === '') {
+      return of([]);
+    }
+    return this.service.parentCandidates({
+      q: input,
+      sex,
+      bornBefore: this.horse.dateOfBirth ? formatDate(this.horse.dateOfBirth, 'yyyy-MM-dd', 'en-US') : undefined,
+      excludeId: this.horse.id,
+      limit: 5,
+    });
+  }
 }
@@ -11,7 +11,8 @@ import { ToastrService } from 'ngx-toastr';
 import { debounceTime, map, of, Subscription } from 'rxjs';
 import { HorseService } from 'src/app/service/horse.service';
 import { OwnerService } from 'src/app/service/owner.service';
-import { Horse, HorseSearch } from '../../dto/horse';
+import { Horse, HorseFacets, HorseSearch } from '../../dto/horse';
+import { HorseSort } from '../../dto/horse-sort';
 import { Owner } from '../../dto/owner';
 
 @Component({
@@ -23,9 +24,10 @@ export class HorseComponent implements OnInit, AfterViewInit, OnDestroy {
   @ViewChild('form', { static: true }) ngForm?: NgForm;
 
   horses: Horse[] = [];
+  facets?: HorseFacets;
   bannerError: string | null = null;
   formChanged?: Subscription;
-  searchData: HorseSearch = {};
+  searchData: HorseSearch = { sort: HorseSort.name };
 
   constructor(
     private service: HorseService,
@@ -49,6 +51,9 @@ export class HorseComponent implements OnInit, AfterViewInit, OnDestroy {
     if (data.sex?.length === 0) {
       delete data.sex;
     }
+    if (data.bornAfter?.length === 0) {
+      delete data.bornAfter;
+    }
     return data;
   }
 
@@ -67,6 +72,15 @@ export class HorseComponent implements OnInit, AfterViewInit, OnDestroy {
   }
 
   reloadHorses() {
+    this.service.facets(this.cleanSearchData).subscribe({
+      next: (data) => {
+        this.facets = data;
+      },
+      error: (error) => {
+        console.error('Error fetching horse counts', error);
+        this.facets = undefined;
+      },
+    });
     this.service.searchAll(this.cleanSearchData).subscribe({
       next: (data) => {
         this.horses = data;
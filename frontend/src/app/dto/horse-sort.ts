@@ -0,0 +1,8 @@
+export enum HorseSort {
+  name = 'NAME',
+  nameDesc = 'NAME_DESC',
+  dateOfBirth = 'DATE_OF_BIRTH',
+  dateOfBirthDesc = 'DATE_OF_BIRTH_DESC',
+  id = 'ID',
+  idDesc = 'ID_DESC',
+};
@@ -1,4 +1,7 @@
+import { HorseSort } from './horse-sort';
+import { MatchMode } from './match-mode';
 import { Owner } from './owner';
+import { SearchMode } from './search-mode';
 import { Sex } from './sex';
 
 export interface Horse {
@@ -16,9 +19,40 @@ export interface HorseSearch {
   name?: string;
   description?: string;
   bornBefore?: string;
+  bornAfter?: string;
   sex?: Sex;
   ownerName?: string;
   limit?: number;
+  sort?: HorseSort;
+  searchMode?: SearchMode;
+  matchMode?: MatchMode;
+  cursor?: string;
+}
+
+export interface HorseParentCandidateSearch {
+  q?: string;
+  sex: Sex;
+  bornBefore?: string;
+  excludeId?: number;
+  limit?: number;
+}
+
+export interface HorsePage {
+  horses: Horse[];
+  nextCursor?: string;
+}
+
+export interface FacetBucket {
+  value?: string;
+  label?: string;
+  count: number;
+}
+
+export interface HorseFacets {
+  total: number;
+  sex: FacetBucket[];
+  owner: FacetBucket[];
+  birthDecade: FacetBucket[];
 }
 
 export interface HorseTree {
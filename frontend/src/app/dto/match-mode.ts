@@ -0,0 +1,4 @@
+export enum MatchMode {
+  substring = 'SUBSTRING',
+  prefix = 'PREFIX',
+};
@@ -0,0 +1,4 @@
+export enum SearchMode {
+  substring = 'SUBSTRING',
+  fullText = 'FULLTEXT',
+};
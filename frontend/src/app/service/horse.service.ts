@@ -1,10 +1,11 @@
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { Injectable } from '@angular/core';
-import { Observable } from 'rxjs';
+import { EMPTY, Observable, expand, map, reduce } from 'rxjs';
 import { environment } from 'src/environments/environment';
-import { Horse, HorseSearch, HorseTree } from '../dto/horse';
+import { Horse, HorseFacets, HorsePage, HorseParentCandidateSearch, HorseSearch, HorseTree } from '../dto/horse';
 
 const baseUri = environment.backendUrl + '/horses';
+const pageSize = 100;
 
 /**
  * REST service to access horses from the backend
@@ -21,22 +22,63 @@ export class HorseService {
   /**
    * Search among all horses in the system
    *
+   * Without a limit, all pages are fetched by following the cursors.
+   *
    * @param searchData horse search parameters. omit to get all
    * @return observable of the list of found horses.
    */
   searchAll(searchData: HorseSearch = {}): Observable<Horse[]> {
+    if (searchData.limit !== undefined) {
+      return this.searchPage(searchData).pipe(map(page => page.horses));
+    }
 
-    /* iterate through object and add params */
+    return this.searchPage({ ...searchData, limit: pageSize }).pipe(
+      expand(page => page.nextCursor === undefined
+        ? EMPTY
+        : this.searchPage({ ...searchData, limit: pageSize, cursor: page.nextCursor })),
+      reduce((horses: Horse[], page) => horses.concat(page.horses), [])
+    );
+  }
+
+  /**
+   * Search a page of horses. The next page is requested with the returned cursor and the same search parameters.
+   *
+   * @param searchData horse search parameters, with the page size as limit
+   * @return observable of the found page of horses.
+   */
+  searchPage(searchData: HorseSearch): Observable<HorsePage> {
+    return this.http.get<Horse[]>(baseUri, { params: this.searchParams(searchData), observe: 'response' }).pipe(
+      map(response => ({
+        horses: response.body ?? [],
+        nextCursor: response.headers.get('X-Next-Cursor') ?? undefined
+      }))
+    );
+  }
+
+  /**
+   * Count the horses matching a search by sex, owner and birth decade
+   *
+   * @param searchData horse search parameters. omit to count all
+   * @return observable of the counts of the found horses.
+   */
+  facets(searchData: HorseSearch = {}): Observable<HorseFacets> {
+    return this.http.get<HorseFacets>(baseUri + '/facets', { params: this.searchParams(searchData) });
+  }
+
+  /**
+   * Get the horses that can be set as father or mother of a horse, by a prefix of their name
+   *
+   * @param search the typed prefix, the parent's sex and the child's birthdate and id
+   * @return observable of the candidates, ordered by name
+   */
+  parentCandidates(search: HorseParentCandidateSearch): Observable<Horse[]> {
     let params = new HttpParams();
-    Object.keys(searchData).forEach(key => {
-      const objKey = key as keyof HorseSearch;
-      const objVal = searchData[objKey];
-      if (objVal !== undefined) {
-        params = params.append(objKey, objVal);
+    Object.entries(search).forEach(([key, value]) => {
+      if (value !== undefined) {
+        params = params.append(key, value);
       }
     });
-
-    return this.http.get<Horse[]>(baseUri, { params });
+    return this.http.get<Horse[]>(baseUri + '/parent-candidates', { params });
   }
 
   /**
@@ -97,4 +139,18 @@ export class HorseService {
       `${baseUri}/${id}`
     );
   }
+
+  private searchParams(searchData: HorseSearch): HttpParams {
+
+    /* iterate through object and add params */
+    let params = new HttpParams();
+    Object.keys(searchData).forEach(key => {
+      const objKey = key as keyof HorseSearch;
+      const objVal = searchData[objKey];
+      if (objVal !== undefined) {
+        params = params.append(objKey, objVal);
+      }
+    });
+    return params;
+  }
 }
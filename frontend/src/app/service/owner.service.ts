@@ -27,6 +27,18 @@ export class OwnerService {
     return this.http.get<Owner[]>(baseUri, { params });
   }
 
+  /**
+   * Suggests owners whose full name, last name or email start with the typed text
+   *
+   * @param prefix the typed text
+   * @param limitTo the maximum amount of owners to suggest
+   * @returns an observable containing the list of suggested owners
+   */
+  public suggest(prefix: string, limitTo: number): Observable<Owner[]> {
+    const params = new HttpParams().set('q', prefix).set('limit', limitTo);
+    return this.http.get<Owner[]>(baseUri + '/suggest', { params });
+  }
+
   /**
    * Gets all owners
    *